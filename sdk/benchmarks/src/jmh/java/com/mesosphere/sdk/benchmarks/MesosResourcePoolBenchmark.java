@@ -0,0 +1,114 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.Constants;
+import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.OfferResourceIndex;
+import com.mesosphere.sdk.offer.ResourceBuilder;
+
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of constructing a {@link MesosResourcePool} from an offer, which happens for every combination of
+ * step and offer in an offer cycle, and of consuming resources from the pool's unreserved resources.
+ *
+ * <p>The offer represents an agent which holds reservations for {@code pods} pods, each with cpus, memory, and disk
+ * reservations, alongside some unreserved resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MesosResourcePoolBenchmark {
+
+    private static final Optional<String> ROLE = Optional.of("benchmark-role");
+    private static final int CONSUMED_PORTS = 20;
+
+    @Param({"10", "100", "1000"})
+    public int pods;
+
+    private Protos.Offer offer;
+    private OfferResourceIndex.Cache offerResourceIndexCache;
+    private List<Protos.Value> ports;
+    private Protos.Value cpus;
+
+    @Setup
+    public void setup() throws Exception {
+        // Sets up stubbed capabilities, which are used when building resources:
+        SyntheticCluster cluster = SyntheticCluster.create(1);
+        Protos.Offer.Builder offerBuilder = cluster.getOffers().get(0).toBuilder();
+        for (int i = 0; i < pods; ++i) {
+            offerBuilder
+                    .addResources(getReservedScalar("cpus", 0.5))
+                    .addResources(getReservedScalar("mem", 512))
+                    .addResources(getReservedScalar("disk", 1024));
+        }
+        offer = offerBuilder.build();
+
+        offerResourceIndexCache = new OfferResourceIndex.Cache();
+        offerResourceIndexCache.get(offer, ROLE);
+
+        // Ports spread across the offered range, so that the remaining ranges become fragmented:
+        ports = new ArrayList<>();
+        for (int i = 0; i < CONSUMED_PORTS; ++i) {
+            long port = 10000 + i * 400;
+            Protos.Value.Builder portBuilder = Protos.Value.newBuilder().setType(Protos.Value.Type.RANGES);
+            portBuilder.getRangesBuilder().addRangeBuilder().setBegin(port).setEnd(port);
+            ports.add(portBuilder.build());
+        }
+        cpus = Protos.Value.newBuilder()
+                .setType(Protos.Value.Type.SCALAR)
+                .setScalar(Protos.Value.Scalar.newBuilder().setValue(0.1))
+                .build();
+    }
+
+    /**
+     * Constructs a pool directly from the offer, indexing all of its resources.
+     */
+    @Benchmark
+    public MesosResourcePool fromOffer() {
+        return new MesosResourcePool(offer, ROLE);
+    }
+
+    /**
+     * Constructs a pool from an index which was already built for the offer, as happens for every step after the
+     * first in an offer cycle.
+     */
+    @Benchmark
+    public MesosResourcePool fromSharedIndex() {
+        return new MesosResourcePool(offerResourceIndexCache.get(offer, ROLE));
+    }
+
+    /**
+     * Consumes a series of individual ports and cpus from the offer's unreserved resources, as happens when a pod with
+     * many ports is evaluated against the offer.
+     */
+    @Benchmark
+    public MesosResourcePool consumeUnreserved() {
+        MesosResourcePool pool = new MesosResourcePool(offerResourceIndexCache.get(offer, ROLE));
+        for (Protos.Value port : ports) {
+            pool.consumeReservableMerged("ports", port, Constants.ANY_ROLE);
+            pool.consumeReservableMerged("cpus", cpus, Constants.ANY_ROLE);
+        }
+        return pool;
+    }
+
+    private static Protos.Resource getReservedScalar(String name, double value) {
+        return ResourceBuilder.fromUnreservedValue(name, Protos.Value.newBuilder()
+                .setType(Protos.Value.Type.SCALAR)
+                .setScalar(Protos.Value.Scalar.newBuilder().setValue(value))
+                .build())
+                .setRole(ROLE)
+                .setPrincipal(Optional.of("benchmark-principal"))
+                .setResourceId(UUID.randomUUID().toString())
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.offer.evaluate.OfferEvaluator;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of evaluating a full round of offers for a single pod.
+ *
+ * <p>All pods but the last are already running, one per agent. The last pod is then evaluated against an offer from
+ * every agent. Due to the pod's hostname UNIQUE placement rule, only the final offer is suitable, so every offer goes
+ * through the full evaluation pipeline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OfferEvaluatorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pods;
+
+    private OfferEvaluator offerEvaluator;
+    private PodInstanceRequirement podInstanceRequirement;
+    private List<Protos.Offer> offers;
+
+    @Setup
+    public void setup() throws Exception {
+        SyntheticCluster cluster = SyntheticCluster.create(pods);
+        offerEvaluator = cluster.newOfferEvaluator(cluster.newPersister(pods - 1));
+        podInstanceRequirement = cluster.getRequirement(pods - 1);
+        offers = cluster.getOffers();
+    }
+
+    @Benchmark
+    public List<OfferRecommendation> evaluate() throws Exception {
+        return offerEvaluator.evaluate(podInstanceRequirement, offers);
+    }
+}
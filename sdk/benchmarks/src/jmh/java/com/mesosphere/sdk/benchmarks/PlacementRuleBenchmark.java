@@ -0,0 +1,65 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.evaluate.EvaluationOutcome;
+import com.mesosphere.sdk.offer.evaluate.placement.CompiledPlacementRule;
+import com.mesosphere.sdk.offer.evaluate.placement.MarathonConstraintParser;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
+import com.mesosphere.sdk.specification.PodInstance;
+
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of parsing Marathon-style placement constraints, and of filtering an offer against the resulting
+ * rules when {@code pods - 1} tasks are already running in the cluster. Filtering is measured both directly against
+ * the rule tree, and via its compiled short-circuiting form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementRuleBenchmark {
+
+    private static final String CONSTRAINTS =
+            "[[\"hostname\", \"UNIQUE\"], [\"hostname\", \"MAX_PER\", \"2\"], [\"hostname\", \"LIKE\", \"host-.*\"]]";
+
+    @Param({"10", "100", "1000"})
+    public int pods;
+
+    private PlacementRule placementRule;
+    private CompiledPlacementRule compiledPlacementRule;
+    private Protos.Offer offer;
+    private PodInstance podInstance;
+    private List<Protos.TaskInfo> tasks;
+
+    @Setup
+    public void setup() throws Exception {
+        SyntheticCluster cluster = SyntheticCluster.create(pods);
+        placementRule = MarathonConstraintParser.parse(SyntheticCluster.POD_TYPE, CONSTRAINTS);
+        compiledPlacementRule = new CompiledPlacementRule(placementRule, Optional.empty());
+        offer = cluster.getOffers().get(pods - 1);
+        podInstance = cluster.getPodInstance(pods - 1);
+        tasks = cluster.getLaunchedTasks(pods - 1);
+    }
+
+    @Benchmark
+    public PlacementRule parse() throws Exception {
+        return MarathonConstraintParser.parse(SyntheticCluster.POD_TYPE, CONSTRAINTS);
+    }
+
+    @Benchmark
+    public EvaluationOutcome filter() {
+        return placementRule.filter(offer, podInstance, tasks);
+    }
+
+    @Benchmark
+    public EvaluationOutcome filterCompiled() {
+        return compiledPlacementRule.filter(offer, podInstance, tasks, false);
+    }
+}
@@ -0,0 +1,62 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.scheduler.plan.*;
+import com.mesosphere.sdk.scheduler.plan.strategy.ParallelStrategy;
+import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
+import com.mesosphere.sdk.specification.DefaultServiceSpec;
+import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.state.ConfigStore;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.storage.Persister;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of selecting candidate steps from a deploy plan with one pending step per pod, which is done at
+ * the start of every offer cycle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanCoordinatorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pods;
+
+    private PlanCoordinator planCoordinator;
+
+    @Setup
+    public void setup() throws Exception {
+        SyntheticCluster cluster = SyntheticCluster.create(pods);
+        planCoordinator = new DefaultPlanCoordinator(
+                Collections.singletonList(DefaultPlanManager.createProceeding(getDeployPlan(cluster, 0))));
+    }
+
+    @Benchmark
+    public List<Step> getCandidates() {
+        return planCoordinator.getCandidates();
+    }
+
+    /**
+     * Returns a deploy plan for the cluster's service, where the first {@code launchedCount} pods are already running.
+     * Steps within the plan's single phase are run in parallel.
+     */
+    static Plan getDeployPlan(SyntheticCluster cluster, int launchedCount) throws Exception {
+        Persister persister = cluster.newPersister(launchedCount);
+        ConfigStore<ServiceSpec> configStore = new ConfigStore<>(
+                DefaultServiceSpec.getConfigurationFactory(cluster.getServiceSpec()), persister);
+        PhaseFactory phaseFactory = new DefaultPhaseFactory(
+                new DefaultStepFactory(configStore, new StateStore(persister)));
+        return DeployPlanFactory.getPlan(
+                "deploy",
+                Collections.singletonList(phaseFactory.getPhase(cluster.getPodSpec(), new ParallelStrategy<>())),
+                new SerialStrategy<>());
+    }
+}
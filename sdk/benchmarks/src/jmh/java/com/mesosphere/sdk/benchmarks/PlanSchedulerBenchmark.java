@@ -0,0 +1,59 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.PlanScheduler;
+import com.mesosphere.sdk.scheduler.plan.Step;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.storage.Persister;
+
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a full offer cycle for a deploy plan with one pending step per pod, where every step is
+ * evaluated against one offer per agent. Steps are evaluated either serially or in parallel.
+ *
+ * <p>Evaluating a step updates its status, so the plan is regenerated before every invocation. Each invocation is
+ * long enough that the resulting overhead in JMH's measurements is negligible.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanSchedulerBenchmark {
+
+    @Param({"10", "100"})
+    public int pods;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private SyntheticCluster cluster;
+    private PlanScheduler planScheduler;
+    private List<Protos.Offer> offers;
+    private List<Step> steps;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        cluster = SyntheticCluster.create(pods);
+        Persister persister = cluster.newPersister(0);
+        planScheduler = new PlanScheduler(
+                cluster.newOfferEvaluator(persister), new StateStore(persister), parallelism);
+        offers = cluster.getOffers();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws Exception {
+        steps = PlanCoordinatorBenchmark.getDeployPlan(cluster, 0).getChildren().get(0).getChildren();
+    }
+
+    @Benchmark
+    public List<OfferRecommendation> resourceOffers() {
+        return planScheduler.resourceOffers(offers, steps);
+    }
+}
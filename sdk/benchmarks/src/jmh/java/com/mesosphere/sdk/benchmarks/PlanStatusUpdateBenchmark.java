@@ -0,0 +1,69 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.offer.LaunchOfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.Phase;
+import com.mesosphere.sdk.scheduler.plan.Plan;
+import com.mesosphere.sdk.scheduler.plan.Step;
+
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of passing a single task status to a deploy plan in which every pod's step has launched its task.
+ * Statuses are only given to the step which launched the task, so the cost should not grow with the number of pods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanStatusUpdateBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pods;
+
+    private Plan plan;
+    private List<Protos.TaskStatus> statuses;
+    private int nextStatus;
+
+    @Setup
+    public void setup() throws Exception {
+        SyntheticCluster cluster = SyntheticCluster.create(pods);
+        plan = PlanCoordinatorBenchmark.getDeployPlan(cluster, 0);
+
+        // Launch each pod's task from its step, so that every step is waiting on a status for its own task:
+        statuses = new ArrayList<>();
+        int index = 0;
+        for (Phase phase : plan.getChildren()) {
+            for (Step step : phase.getChildren()) {
+                Protos.TaskInfo taskInfo = cluster.getLaunchedTask(index);
+                step.updateOfferStatus(Collections.singletonList(new LaunchOfferRecommendation(
+                        cluster.getOffers().get(index),
+                        taskInfo,
+                        Protos.ExecutorInfo.getDefaultInstance(),
+                        true,
+                        false)));
+                // Stay in a starting state so that each step keeps accepting statuses across iterations:
+                statuses.add(Protos.TaskStatus.newBuilder()
+                        .setTaskId(taskInfo.getTaskId())
+                        .setState(Protos.TaskState.TASK_STARTING)
+                        .build());
+                ++index;
+            }
+        }
+        nextStatus = 0;
+    }
+
+    @Benchmark
+    public Plan update() {
+        plan.update(statuses.get(nextStatus));
+        nextStatus = (nextStatus + 1) % statuses.size();
+        return plan;
+    }
+}
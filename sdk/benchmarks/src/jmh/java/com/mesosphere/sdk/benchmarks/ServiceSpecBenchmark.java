@@ -0,0 +1,50 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.scheduler.SchedulerConfig;
+import com.mesosphere.sdk.specification.DefaultServiceSpec;
+import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.specification.yaml.RawServiceSpec;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of parsing a service's YAML, and of converting the parsed YAML to a {@link ServiceSpec}, as is done
+ * on every scheduler start and configuration update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceSpecBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pods;
+
+    private byte[] yaml;
+    private RawServiceSpec rawServiceSpec;
+    private SchedulerConfig schedulerConfig;
+
+    @Setup
+    public void setup() throws Exception {
+        SyntheticCluster cluster = SyntheticCluster.create(pods);
+        yaml = SyntheticCluster.getServiceYaml(pods).getBytes(StandardCharsets.UTF_8);
+        rawServiceSpec = cluster.getRawServiceSpec();
+        schedulerConfig = cluster.getSchedulerConfig();
+    }
+
+    @Benchmark
+    public RawServiceSpec parseYaml() throws Exception {
+        return RawServiceSpec.fromBytes(yaml);
+    }
+
+    @Benchmark
+    public ServiceSpec toServiceSpec() throws Exception {
+        return DefaultServiceSpec.newGenerator(rawServiceSpec, schedulerConfig, new File(".")).build();
+    }
+}
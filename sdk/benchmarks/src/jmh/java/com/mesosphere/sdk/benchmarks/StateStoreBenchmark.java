@@ -0,0 +1,68 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.storage.PersisterCache;
+
+import org.apache.mesos.Protos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the {@link StateStore} reads which are performed on every offer cycle and status update, with
+ * {@code pods} tasks stored. The store is backed either directly by an in-memory persister, or by a
+ * {@link PersisterCache} around it as in a running scheduler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateStoreBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pods;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private StateStore stateStore;
+    private String taskName;
+    private Protos.TaskID taskId;
+
+    @Setup
+    public void setup() throws Exception {
+        SyntheticCluster cluster = SyntheticCluster.create(pods);
+        if (cached) {
+            stateStore = new StateStore(new PersisterCache(cluster.newPersister(pods)));
+        } else {
+            stateStore = new StateStore(cluster.newPersister(pods));
+        }
+        // Look up the last task, along with the ID which it was given when stored:
+        taskName = cluster.getTaskName(pods - 1);
+        taskId = stateStore.fetchTask(taskName).get().getTaskId();
+    }
+
+    @Benchmark
+    public Collection<Protos.TaskInfo> fetchTasks() {
+        return stateStore.fetchTasks();
+    }
+
+    @Benchmark
+    public Collection<Protos.TaskStatus> fetchStatuses() {
+        return stateStore.fetchStatuses();
+    }
+
+    @Benchmark
+    public Optional<Protos.TaskInfo> fetchTask() {
+        return stateStore.fetchTask(taskName);
+    }
+
+    @Benchmark
+    public Optional<String> fetchTaskName() {
+        return stateStore.fetchTaskName(taskId);
+    }
+}
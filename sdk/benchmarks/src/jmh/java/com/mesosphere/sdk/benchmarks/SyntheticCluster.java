@@ -0,0 +1,280 @@
+package com.mesosphere.sdk.benchmarks;
+
+import com.mesosphere.sdk.dcos.Capabilities;
+import com.mesosphere.sdk.http.endpoints.ArtifactResource;
+import com.mesosphere.sdk.offer.CommonIdUtils;
+import com.mesosphere.sdk.offer.Constants;
+import com.mesosphere.sdk.offer.ResourceBuilder;
+import com.mesosphere.sdk.offer.evaluate.OfferEvaluator;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
+import com.mesosphere.sdk.scheduler.SchedulerConfig;
+import com.mesosphere.sdk.scheduler.plan.DefaultPodInstance;
+import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
+import com.mesosphere.sdk.specification.DefaultServiceSpec;
+import com.mesosphere.sdk.specification.GoalState;
+import com.mesosphere.sdk.specification.PodInstance;
+import com.mesosphere.sdk.specification.PodSpec;
+import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.specification.yaml.RawServiceSpec;
+import com.mesosphere.sdk.state.ConfigStore;
+import com.mesosphere.sdk.state.FrameworkStore;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.storage.MemPersister;
+import com.mesosphere.sdk.storage.Persister;
+
+import org.apache.mesos.Protos;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A synthetic service and cluster of a given size, for use by benchmarks.
+ *
+ * <p>The service has a single pod type with {@code podCount} instances. Each pod runs one task which uses cpus,
+ * memory, a port, and a root volume, and may only be placed on hosts which don't already have a pod. The cluster has
+ * one agent per pod, and each agent offers enough unreserved resources for one pod.
+ *
+ * <p>Some scheduler components query the scheduler environment and the DC/OS cluster version. Like the simulation
+ * tests in the {@code testing} module, these are stubbed out when a cluster is created.
+ */
+public class SyntheticCluster {
+
+    public static final String SERVICE_NAME = "benchmark";
+    public static final String POD_TYPE = "node";
+    public static final String TASK_NAME = "server";
+    public static final String PLACEMENT = "[[\"hostname\", \"UNIQUE\"]]";
+
+    private static final Protos.FrameworkID FRAMEWORK_ID =
+            Protos.FrameworkID.newBuilder().setValue("benchmark-framework-id").build();
+
+    private final int podCount;
+    private final SchedulerConfig schedulerConfig;
+    private final RawServiceSpec rawServiceSpec;
+    private final ServiceSpec serviceSpec;
+    private final UUID targetConfigId;
+    private final List<Protos.Offer> offers;
+
+    /**
+     * Returns a new cluster with the provided number of pods and agents.
+     */
+    public static SyntheticCluster create(int podCount) throws Exception {
+        return new SyntheticCluster(podCount);
+    }
+
+    private SyntheticCluster(int podCount) throws Exception {
+        Capabilities.overrideCapabilities(getMockCapabilities());
+        this.podCount = podCount;
+        this.schedulerConfig = getMockSchedulerConfig();
+        this.rawServiceSpec = RawServiceSpec.fromBytes(getServiceYaml(podCount).getBytes(StandardCharsets.UTF_8));
+        this.serviceSpec = DefaultServiceSpec.newGenerator(rawServiceSpec, schedulerConfig, new File(".")).build();
+        this.targetConfigId = UUID.randomUUID();
+        this.offers = new ArrayList<>();
+        for (int i = 0; i < podCount; ++i) {
+            offers.add(getOffer(i));
+        }
+    }
+
+    /**
+     * Returns the YAML service specification for a service with the provided number of pods.
+     */
+    public static String getServiceYaml(int podCount) {
+        return String.join("\n",
+                "name: \"" + SERVICE_NAME + "\"",
+                "pods:",
+                "  " + POD_TYPE + ":",
+                "    count: " + podCount,
+                "    placement: '" + PLACEMENT + "'",
+                "    tasks:",
+                "      " + TASK_NAME + ":",
+                "        goal: RUNNING",
+                "        cmd: \"./server\"",
+                "        cpus: 0.5",
+                "        memory: 512",
+                "        ports:",
+                "          http:",
+                "            port: 0",
+                "        volume:",
+                "          path: data",
+                "          size: 1024",
+                "          type: ROOT",
+                "");
+    }
+
+    public int getPodCount() {
+        return podCount;
+    }
+
+    public SchedulerConfig getSchedulerConfig() {
+        return schedulerConfig;
+    }
+
+    public RawServiceSpec getRawServiceSpec() {
+        return rawServiceSpec;
+    }
+
+    public ServiceSpec getServiceSpec() {
+        return serviceSpec;
+    }
+
+    public PodSpec getPodSpec() {
+        return serviceSpec.getPods().get(0);
+    }
+
+    /**
+     * Returns one offer for each agent in the cluster, in agent order.
+     */
+    public List<Protos.Offer> getOffers() {
+        return offers;
+    }
+
+    public PodInstance getPodInstance(int index) {
+        return new DefaultPodInstance(getPodSpec(), index);
+    }
+
+    /**
+     * Returns a requirement to launch the pod with the provided index.
+     */
+    public PodInstanceRequirement getRequirement(int index) {
+        return PodInstanceRequirement.newBuilder(getPodInstance(index), Collections.singletonList(TASK_NAME)).build();
+    }
+
+    /**
+     * Returns the name of the task in the pod with the provided index.
+     */
+    public String getTaskName(int index) {
+        return PodInstance.getName(POD_TYPE, index) + "-" + TASK_NAME;
+    }
+
+    /**
+     * Returns a task for the pod with the provided index, as it would appear after being launched on the agent with
+     * the same index.
+     */
+    public Protos.TaskInfo getLaunchedTask(int index) {
+        String taskName = getTaskName(index);
+        Protos.Offer offer = offers.get(index);
+        Protos.TaskInfo.Builder taskBuilder = Protos.TaskInfo.newBuilder()
+                .setName(taskName)
+                .setTaskId(CommonIdUtils.toTaskId(SERVICE_NAME, taskName))
+                .setSlaveId(offer.getSlaveId());
+        taskBuilder.setLabels(new TaskLabelWriter(taskBuilder)
+                .setType(POD_TYPE)
+                .setIndex(index)
+                .setHostname(offer)
+                .setOfferAttributes(offer)
+                .setTargetConfiguration(targetConfigId)
+                .setGoalState(GoalState.RUNNING)
+                .toProto());
+        return taskBuilder.build();
+    }
+
+    /**
+     * Returns launched tasks for the pods with indexes {@code 0} through {@code launchedCount - 1}.
+     */
+    public List<Protos.TaskInfo> getLaunchedTasks(int launchedCount) {
+        List<Protos.TaskInfo> tasks = new ArrayList<>();
+        for (int i = 0; i < launchedCount; ++i) {
+            tasks.add(getLaunchedTask(i));
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns a new in-memory {@link Persister} holding the framework ID, the target configuration, and running tasks
+     * for the pods with indexes {@code 0} through {@code launchedCount - 1}.
+     */
+    public Persister newPersister(int launchedCount) throws Exception {
+        Persister persister = new MemPersister();
+        new FrameworkStore(persister).storeFrameworkId(FRAMEWORK_ID);
+        ConfigStore<ServiceSpec> configStore =
+                new ConfigStore<>(DefaultServiceSpec.getConfigurationFactory(serviceSpec), persister);
+        configStore.store(targetConfigId, serviceSpec);
+        configStore.setTargetConfig(targetConfigId);
+
+        StateStore stateStore = new StateStore(persister);
+        List<Protos.TaskInfo> tasks = getLaunchedTasks(launchedCount);
+        stateStore.storeTasks(tasks);
+        for (Protos.TaskInfo task : tasks) {
+            stateStore.storeStatus(task.getName(), Protos.TaskStatus.newBuilder()
+                    .setTaskId(task.getTaskId())
+                    .setState(Protos.TaskState.TASK_RUNNING)
+                    .build());
+        }
+        return persister;
+    }
+
+    /**
+     * Returns a new {@link OfferEvaluator} which uses the data in the provided {@link Persister}.
+     */
+    public OfferEvaluator newOfferEvaluator(Persister persister) {
+        return new OfferEvaluator(
+                new FrameworkStore(persister),
+                new StateStore(persister),
+                Optional.empty(),
+                SERVICE_NAME,
+                targetConfigId,
+                ArtifactResource.getUrlFactory(SERVICE_NAME),
+                schedulerConfig,
+                Optional.empty(),
+                true);
+    }
+
+    private static Protos.Offer getOffer(int index) {
+        return Protos.Offer.newBuilder()
+                .setId(Protos.OfferID.newBuilder().setValue(String.format("offer-%d", index)))
+                .setFrameworkId(FRAMEWORK_ID)
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue(String.format("agent-%d", index)))
+                .setHostname(String.format("host-%d", index))
+                .addResources(getScalar("cpus", 4))
+                .addResources(getScalar("mem", 8192))
+                .addResources(getScalar("disk", 16384))
+                .addResources(ResourceBuilder.fromUnreservedValue("ports", Protos.Value.newBuilder()
+                        .setType(Protos.Value.Type.RANGES)
+                        .setRanges(Protos.Value.Ranges.newBuilder()
+                                .addRange(Protos.Value.Range.newBuilder().setBegin(10000).setEnd(20000)))
+                        .build())
+                        .build())
+                .build();
+    }
+
+    private static Protos.Resource getScalar(String name, double value) {
+        return ResourceBuilder.fromUnreservedValue(name, Protos.Value.newBuilder()
+                .setType(Protos.Value.Type.SCALAR)
+                .setScalar(Protos.Value.Scalar.newBuilder().setValue(value))
+                .build())
+                .build();
+    }
+
+    private static SchedulerConfig getMockSchedulerConfig() {
+        SchedulerConfig schedulerConfig = Mockito.mock(SchedulerConfig.class);
+        Mockito.when(schedulerConfig.getExecutorURI()).thenReturn("benchmark-executor-uri");
+        Mockito.when(schedulerConfig.getLibmesosURI()).thenReturn("benchmark-libmesos-uri");
+        Mockito.when(schedulerConfig.getJavaURI()).thenReturn("benchmark-java-uri");
+        Mockito.when(schedulerConfig.getBootstrapURI()).thenReturn("benchmark-bootstrap-uri");
+        Mockito.when(schedulerConfig.getApiServerPort()).thenReturn(8080);
+        Mockito.when(schedulerConfig.getDcosSpace()).thenReturn("/");
+        Mockito.when(schedulerConfig.getServiceTLD()).thenReturn(Constants.DNS_TLD);
+        Mockito.when(schedulerConfig.getSchedulerRegion()).thenReturn(Optional.empty());
+        return schedulerConfig;
+    }
+
+    private static Capabilities getMockCapabilities() {
+        Capabilities capabilities = Mockito.mock(Capabilities.class);
+        Mockito.when(capabilities.supportsGpuResource()).thenReturn(true);
+        Mockito.when(capabilities.supportsCNINetworking()).thenReturn(true);
+        Mockito.when(capabilities.supportsNamedVips()).thenReturn(true);
+        Mockito.when(capabilities.supportsRLimits()).thenReturn(true);
+        Mockito.when(capabilities.supportsPreReservedResources()).thenReturn(true);
+        Mockito.when(capabilities.supportsFileBasedSecrets()).thenReturn(true);
+        Mockito.when(capabilities.supportsEnvBasedSecretsProtobuf()).thenReturn(true);
+        Mockito.when(capabilities.supportsEnvBasedSecretsDirectiveLabel()).thenReturn(true);
+        Mockito.when(capabilities.supportsDomains()).thenReturn(true);
+        Mockito.when(capabilities.supportsDefaultExecutor()).thenReturn(true);
+        return capabilities;
+    }
+}
@@ -0,0 +1,180 @@
+package com.mesosphere.sdk.curator;
+
+import com.mesosphere.sdk.storage.PersisterException;
+import com.mesosphere.sdk.storage.PersisterUtils;
+import com.mesosphere.sdk.storage.StorageError.Reason;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.curator.framework.api.CuratorEventType;
+import org.apache.zookeeper.KeeperException;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Performs many ZK reads at once using Curator's asynchronous API, rather than waiting for each read to complete
+ * before starting the next one. This greatly reduces the time needed to read many nodes when there is significant
+ * latency between the scheduler and ZK.
+ *
+ * <p>All reads are issued from the calling thread, with up to {@code maxConcurrentReads} outstanding at any time.
+ * Curator's callbacks only enqueue their results, so no work is performed on the ZK event thread. Each instance handles
+ * a single bulk read and should not be reused.
+ */
+class CuratorBulkReader {
+
+    /**
+     * Amount of time to wait for any single outstanding read to complete before giving up. Failed reads are normally
+     * reported by Curator once its retry policy is exhausted, so this is only a last resort.
+     */
+    private static final long READ_TIMEOUT_SECONDS = 60;
+
+    /**
+     * A pending read of either the data or the children of a node.
+     */
+    private static class Read {
+        private final CuratorEventType type;
+        private final String path;
+        private final String key;
+
+        private Read(CuratorEventType type, String path, String key) {
+            this.type = type;
+            this.path = path;
+            this.key = key;
+        }
+    }
+
+    private final CuratorFramework client;
+    private final int maxConcurrentReads;
+    private final BlockingQueue<CuratorEvent> completedReads = new LinkedBlockingQueue<>();
+    private final BackgroundCallback callback = (curatorClient, event) -> completedReads.add(event);
+
+    CuratorBulkReader(CuratorFramework client, int maxConcurrentReads) {
+        this.client = client;
+        this.maxConcurrentReads = Math.max(1, maxConcurrentReads);
+    }
+
+    /**
+     * Returns the data for each of the provided paths. Paths which don't exist are mapped to {@code null}.
+     *
+     * @param pathsByKey a mapping of the keys to be used in the returned map, to the full ZK paths to be read for them
+     */
+    Map<String, byte[]> getData(Map<String, String> pathsByKey) throws PersisterException {
+        Deque<Read> pendingReads = new ArrayDeque<>();
+        for (Map.Entry<String, String> entry : pathsByKey.entrySet()) {
+            pendingReads.add(new Read(CuratorEventType.GET_DATA, entry.getValue(), entry.getKey()));
+        }
+
+        Map<String, byte[]> result = new TreeMap<>();
+        run(pendingReads, (read, event) -> {
+            if (event.getResultCode() == KeeperException.Code.NONODE.intValue()) {
+                result.put(read.key, null);
+            } else {
+                result.put(read.key, event.getData());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns all data in the tree below the provided root, omitting any stub parent entries with {@code null} data.
+     * The returned map is equivalent to what {@link PersisterUtils#getAllData(com.mesosphere.sdk.storage.Persister)}
+     * would return, except that reads are pipelined.
+     *
+     * @param rootPath the full ZK path of the root node, whose own data is not included
+     * @param rootKey the key to use for the root node, against which keys for its descendants are constructed
+     */
+    Map<String, byte[]> getTree(String rootPath, String rootKey) throws PersisterException {
+        Deque<Read> pendingReads = new ArrayDeque<>();
+        pendingReads.add(new Read(CuratorEventType.CHILDREN, rootPath, rootKey));
+
+        Map<String, byte[]> result = new TreeMap<>();
+        run(pendingReads, (read, event) -> {
+            if (event.getResultCode() == KeeperException.Code.NONODE.intValue()) {
+                // Missing root is treated as empty. Otherwise the node was deleted after its parent was listed.
+                return;
+            }
+            if (read.type == CuratorEventType.CHILDREN) {
+                for (String child : event.getChildren()) {
+                    String childPath = PersisterUtils.join(read.path, child);
+                    String childKey = PersisterUtils.join(read.key, child);
+                    pendingReads.add(new Read(CuratorEventType.GET_DATA, childPath, childKey));
+                    pendingReads.add(new Read(CuratorEventType.CHILDREN, childPath, childKey));
+                }
+            } else if (event.getData() != null) {
+                // omit empty parents which lack data of their own:
+                result.put(read.key, event.getData());
+            }
+        });
+        return result;
+    }
+
+    private interface ReadHandler {
+        void handle(Read read, CuratorEvent event) throws PersisterException;
+    }
+
+    /**
+     * Issues the pending reads, passing each successful (or {@code NONODE}) result to the handler. The handler may add
+     * more reads to {@code pendingReads}. Returns once no reads are pending or outstanding.
+     */
+    private void run(Deque<Read> pendingReads, ReadHandler handler) throws PersisterException {
+        Map<Object, Read> outstandingReads = new IdentityHashMap<>();
+        while (!pendingReads.isEmpty() || !outstandingReads.isEmpty()) {
+            while (!pendingReads.isEmpty() && outstandingReads.size() < maxConcurrentReads) {
+                Read read = pendingReads.removeFirst();
+                // Use a unique context object for each read, so that results can be matched to their reads:
+                Object context = new Object();
+                outstandingReads.put(context, read);
+                issue(read, context);
+            }
+
+            CuratorEvent event;
+            try {
+                event = completedReads.poll(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PersisterException(Reason.STORAGE_ERROR, "Interrupted while waiting for ZK reads", e);
+            }
+            if (event == null) {
+                throw new PersisterException(Reason.STORAGE_ERROR, String.format(
+                        "Timed out after %ds waiting for %d ZK reads to complete",
+                        READ_TIMEOUT_SECONDS, outstandingReads.size()));
+            }
+
+            Read read = outstandingReads.remove(event.getContext());
+            if (read == null) {
+                // Shouldn't happen, but we don't want to wait forever for a read we never saw
+                throw new PersisterException(Reason.STORAGE_ERROR,
+                        String.format("Received unexpected ZK result for %s", event.getPath()));
+            }
+            int resultCode = event.getResultCode();
+            if (resultCode != KeeperException.Code.OK.intValue()
+                    && resultCode != KeeperException.Code.NONODE.intValue()) {
+                throw new PersisterException(Reason.STORAGE_ERROR,
+                        String.format("Unable to retrieve %s from %s", getDescription(read), read.path),
+                        KeeperException.create(KeeperException.Code.get(resultCode), read.path));
+            }
+            handler.handle(read, event);
+        }
+    }
+
+    private void issue(Read read, Object context) throws PersisterException {
+        try {
+            if (read.type == CuratorEventType.CHILDREN) {
+                client.getChildren().inBackground(callback, context).forPath(read.path);
+            } else {
+                client.getData().inBackground(callback, context).forPath(read.path);
+            }
+        } catch (Exception e) {
+            throw new PersisterException(Reason.STORAGE_ERROR,
+                    String.format("Unable to retrieve %s from %s", getDescription(read), read.path), e);
+        }
+    }
+
+    private static String getDescription(Read read) {
+        return read.type == CuratorEventType.CHILDREN ? "children" : "data";
+    }
+}
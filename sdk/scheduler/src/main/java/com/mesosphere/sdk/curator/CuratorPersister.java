@@ -37,8 +37,26 @@ public class CuratorPersister implements Persister {
      */
     private static final int ATOMIC_WRITE_ATTEMPTS = 3;
 
+    /**
+     * Default maximum number of reads to have in flight at once in getMany() and getAllData().
+     */
+    private static final int DEFAULT_MAX_CONCURRENT_READS = 32;
+
+    /**
+     * Approximate upper bound on the size of a single write transaction in setMany(). ZK rejects any request which is
+     * larger than its jute.maxbuffer (just under 1MB by default), so larger writes are split into several transactions.
+     * A quarter of the limit is left as headroom for parent node creation and other overhead which isn't counted here.
+     */
+    private static final int MAX_TRANSACTION_BYTES = Integer.getInteger("jute.maxbuffer", 0xfffff) / 4 * 3;
+
+    /**
+     * Estimated size of each operation within a transaction, in addition to its path and data.
+     */
+    private static final int TRANSACTION_OPERATION_OVERHEAD_BYTES = 128;
+
     private final String serviceRootPath;
     private final CuratorFramework client;
+    private final int maxConcurrentReads;
 
     /**
      * Builder for constructing {@link CuratorPersister} instances.
@@ -50,6 +68,7 @@ public class CuratorPersister implements Persister {
         private String username;
         private String password;
         private boolean lockEnabled;
+        private int maxConcurrentReads;
 
         /**
          * Creates a new {@link Builder} instance which has been initialized with reasonable default values.
@@ -62,6 +81,7 @@ public class CuratorPersister implements Persister {
             this.username = "";
             this.password = "";
             this.lockEnabled = true;
+            this.maxConcurrentReads = DEFAULT_MAX_CONCURRENT_READS;
         }
 
         /**
@@ -86,6 +106,22 @@ public class CuratorPersister implements Persister {
             return this;
         }
 
+        /**
+         * Assigns the maximum number of reads which may be in flight at once when reading many nodes in bulk, as is
+         * done when initializing a {@link com.mesosphere.sdk.storage.PersisterCache}. A value of 1 disables pipelining,
+         * so that each read is only started after the previous read has completed.
+         *
+         * @param maxConcurrentReads the maximum number of concurrent reads, which must be at least 1
+         */
+        public Builder setMaxConcurrentReads(int maxConcurrentReads) {
+            if (maxConcurrentReads < 1) {
+                throw new IllegalArgumentException(
+                        String.format("Max concurrent reads must be at least 1, got: %d", maxConcurrentReads));
+            }
+            this.maxConcurrentReads = maxConcurrentReads;
+            return this;
+        }
+
         /**
          * Disables getting a curator lock before returning a {@link CuratorPersister}.
          *
@@ -133,7 +169,7 @@ public class CuratorPersister implements Persister {
                 CuratorLocker.lock(serviceName, builder);
             }
 
-            CuratorPersister persister = new CuratorPersister(serviceName, builder.build());
+            CuratorPersister persister = new CuratorPersister(serviceName, builder.build(), maxConcurrentReads);
             CuratorUtils.initServiceName(persister, serviceName);
             return persister;
         }
@@ -160,8 +196,13 @@ public class CuratorPersister implements Persister {
 
     @VisibleForTesting
     CuratorPersister(String serviceName, CuratorFramework client) {
+        this(serviceName, client, DEFAULT_MAX_CONCURRENT_READS);
+    }
+
+    private CuratorPersister(String serviceName, CuratorFramework client, int maxConcurrentReads) {
         this.serviceRootPath = CuratorUtils.getServiceRootPath(serviceName);
         this.client = client;
+        this.maxConcurrentReads = maxConcurrentReads;
         this.client.start();
     }
 
@@ -284,7 +325,42 @@ public class CuratorPersister implements Persister {
             pathBytesMap.put(withFrameworkPrefix(entry.getKey()), entry.getValue());
         }
         LOGGER.debug("Updating {} entries: {}", pathBytesMap.size(), pathBytesMap.keySet());
-        runTransactionWithRetries(new SetTransactionFactory(pathBytesMap));
+        List<Map<String, byte[]>> transactions = splitTransactions(pathBytesMap, MAX_TRANSACTION_BYTES);
+        if (transactions.size() > 1) {
+            LOGGER.info("Splitting update of {} entries into {} transactions to stay within ZK request size limit",
+                    pathBytesMap.size(), transactions.size());
+        }
+        for (Map<String, byte[]> transaction : transactions) {
+            runTransactionWithRetries(new SetTransactionFactory(transaction));
+        }
+    }
+
+    /**
+     * Splits the provided writes into consecutive groups which each fit within the provided size limit, preserving
+     * their order. Each group is written in its own transaction, so atomicity is only guaranteed within a group. A
+     * single write which exceeds the limit by itself is given its own group.
+     */
+    @VisibleForTesting
+    static List<Map<String, byte[]>> splitTransactions(Map<String, byte[]> pathBytesMap, int maxTransactionBytes) {
+        List<Map<String, byte[]>> transactions = new ArrayList<>();
+        Map<String, byte[]> transaction = new TreeMap<>();
+        long transactionBytes = 0;
+        for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+            long entryBytes = TRANSACTION_OPERATION_OVERHEAD_BYTES
+                    + entry.getKey().length()
+                    + (entry.getValue() == null ? 0 : entry.getValue().length);
+            if (!transaction.isEmpty() && transactionBytes + entryBytes > maxTransactionBytes) {
+                transactions.add(transaction);
+                transaction = new TreeMap<>();
+                transactionBytes = 0;
+            }
+            transaction.put(entry.getKey(), entry.getValue());
+            transactionBytes += entryBytes;
+        }
+        if (!transaction.isEmpty()) {
+            transactions.add(transaction);
+        }
+        return transactions;
     }
 
     @Override
@@ -332,12 +408,20 @@ public class CuratorPersister implements Persister {
         }
         LOGGER.debug("Getting {} entries: {}", unprefixedPaths.size(), unprefixedPaths);
 
-        Map<String, byte[]> result = new TreeMap<>();
         // Unlike with writes, there is not an atomic read operation. Therefore we wing it with a series of plain reads.
         // We could conceivably add some form of locking here to avoid e.g. a race with another thread doing writes at
         // the same time, but assuming the PersisterCache is enabled, this function wouldn't be getting called anyway,
         // as the PersisterCache would have fetched all the data up-front to be served from memory. If this assumption
         // changes, then it may make sense to look into some form of proper read locking here.
+        if (maxConcurrentReads > 1 && unprefixedPaths.size() > 1) {
+            Map<String, String> pathsByKey = new HashMap<>();
+            for (String unprefixedPath : unprefixedPaths) {
+                pathsByKey.put(unprefixedPath, withFrameworkPrefix(unprefixedPath));
+            }
+            return new CuratorBulkReader(client, maxConcurrentReads).getData(pathsByKey);
+        }
+
+        Map<String, byte[]> result = new TreeMap<>();
         for (String unprefixedPath : unprefixedPaths) {
             String path = withFrameworkPrefix(unprefixedPath);
             try {
@@ -352,6 +436,15 @@ public class CuratorPersister implements Persister {
         return result;
     }
 
+    @Override
+    public Map<String, byte[]> getAllData() throws PersisterException {
+        if (maxConcurrentReads <= 1) {
+            return PersisterUtils.getAllData(this);
+        }
+        return new CuratorBulkReader(client, maxConcurrentReads)
+                .getTree(serviceRootPath, PersisterUtils.PATH_DELIM_STR);
+    }
+
     @Override
     public void close() {
         client.close();
@@ -20,7 +20,6 @@ import com.mesosphere.sdk.offer.evaluate.placement.IsLocalRegionRule;
 import com.mesosphere.sdk.scheduler.MesosEventClient;
 import com.mesosphere.sdk.scheduler.Metrics;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
-import com.mesosphere.sdk.scheduler.MesosEventClient.StatusResponse;
 import com.mesosphere.sdk.state.FrameworkStore;
 import com.mesosphere.sdk.storage.Persister;
 
@@ -49,6 +48,7 @@ public class FrameworkScheduler implements Scheduler {
     private final MesosEventClient mesosEventClient;
     private final OfferProcessor offerProcessor;
     private final ImplicitReconciler implicitReconciler;
+    private final StatusProcessor statusProcessor;
 
     public FrameworkScheduler(
             Set<String> frameworkRolesWhitelist,
@@ -61,7 +61,9 @@ public class FrameworkScheduler implements Scheduler {
                 frameworkStore,
                 mesosEventClient,
                 new OfferProcessor(mesosEventClient, persister),
-                new ImplicitReconciler(schedulerConfig));
+                new ImplicitReconciler(schedulerConfig),
+                new StatusProcessor(
+                        mesosEventClient, persister, schedulerConfig.getStatusProcessingParallelism()));
     }
 
     @VisibleForTesting
@@ -70,12 +72,14 @@ public class FrameworkScheduler implements Scheduler {
             FrameworkStore frameworkStore,
             MesosEventClient mesosEventClient,
             OfferProcessor offerProcessor,
-            ImplicitReconciler implicitReconciler) {
+            ImplicitReconciler implicitReconciler,
+            StatusProcessor statusProcessor) {
         this.frameworkRolesWhitelist = frameworkRolesWhitelist;
         this.frameworkStore = frameworkStore;
         this.mesosEventClient = mesosEventClient;
         this.offerProcessor = offerProcessor;
         this.implicitReconciler = implicitReconciler;
+        this.statusProcessor = statusProcessor;
     }
 
     /**
@@ -98,6 +102,7 @@ public class FrameworkScheduler implements Scheduler {
     public FrameworkScheduler disableThreading() {
         offerProcessor.disableThreading();
         implicitReconciler.disableThreading();
+        statusProcessor.disableThreading();
         return this;
     }
 
@@ -125,6 +130,7 @@ public class FrameworkScheduler implements Scheduler {
         // Start background threads:
         offerProcessor.start();
         implicitReconciler.start();
+        statusProcessor.start();
     }
 
     @Override
@@ -205,26 +211,8 @@ public class FrameworkScheduler implements Scheduler {
                 status.getMessage(),
                 TextFormat.shortDebugString(status));
         Metrics.record(status);
-        StatusResponse response = mesosEventClient.status(status);
-        boolean eligibleToKill = TaskKiller.update(status);
-        switch (response.result) {
-        case UNKNOWN_TASK:
-            if (eligibleToKill) {
-                LOGGER.info("Got unknown task in response to status update, marking task to be killed: {}",
-                        status.getTaskId().getValue());
-                TaskKiller.killTask(status.getTaskId());
-            } else {
-                // Special case: Mesos can send TASK_LOST+REASON_RECONCILIATION as a response to a prior kill request
-                // against a task that is unknown to Mesos. When this happens, we don't want to repeat the kill, because
-                // that would create a Kill -> Status -> Kill -> ... loop
-                LOGGER.warn("Received status update for unknown task, but task should not be killed again: {}",
-                        status.getTaskId().getValue());
-            }
-            break;
-        case PROCESSED:
-            // No-op
-            break;
-        }
+        // Processed and acknowledged off the driver thread, after any resulting updates have been stored.
+        statusProcessor.enqueue(status);
     }
 
     @Override
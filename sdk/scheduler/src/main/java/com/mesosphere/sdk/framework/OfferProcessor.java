@@ -1,5 +1,6 @@
 package com.mesosphere.sdk.framework;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -21,6 +22,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.mesosphere.sdk.offer.Constants;
 import com.mesosphere.sdk.offer.DestroyOfferRecommendation;
 import com.mesosphere.sdk.offer.LoggingUtils;
+import com.mesosphere.sdk.offer.MergedOffers;
 import com.mesosphere.sdk.offer.OfferAccepter;
 import com.mesosphere.sdk.offer.OfferRecommendation;
 import com.mesosphere.sdk.offer.OfferUtils;
@@ -197,7 +199,7 @@ class OfferProcessor {
             try {
                 evaluateOffers(offers);
             } finally {
-                context.stop();
+                offerQueue.recordProcessed(offers.size(), Duration.ofNanos(context.stop()));
             }
         } finally {
             Metrics.incrementProcessedOffers(offers.size());
@@ -224,11 +226,20 @@ class OfferProcessor {
             return;
         }
 
+        // Offers from the same agent and allocation role are merged so that they're evaluated together as a single pool
+        // of resources. Any operations or declines against a merged offer are applied to each of the original offers it
+        // was merged from.
+        MergedOffers mergedOffers = MergedOffers.merge(offers);
+        if (mergedOffers.getMergedCount() > 0) {
+            LOGGER.info("Merged {} offers into {} offers by agent and role",
+                    offers.size(), mergedOffers.getOffers().size());
+        }
+
         // Offer evaluation:
         // The client (which is composed of one or more services) looks at the provided offers and returns a list of
         // operations to perform and offers which were not used. On our end, we then perform the requested operations
         // and clean or decline the remaining unused offers.
-        OfferResponse offerResponse = mesosEventClient.offers(offers);
+        OfferResponse offerResponse = mesosEventClient.offers(mergedOffers.getOffers());
         LOGGER.info("Offer result for {} offer{}: {} with {} recommendation{}",
                 offers.size(), offers.size() == 1 ? "" : "s",
                 offerResponse.result,
@@ -255,7 +266,7 @@ class OfferProcessor {
         }
 
         Collection<Protos.Offer> unusedOffers =
-                OfferUtils.filterOutAcceptedOffers(offers, offerResponse.recommendations);
+                OfferUtils.filterOutAcceptedOffers(mergedOffers.getOffers(), offerResponse.recommendations);
 
         // Resource Cleaning is needed to clean up offered resources in several scenarios:
         // - A service may be uninstalling, in which case all of their resources will appear to be 'unexpected'.
@@ -270,8 +281,14 @@ class OfferProcessor {
         // steps, to e.g. launch other tasks. Unused reserved resources within these offers will be cleaned when they
         // are offered again in a following offer cycle, assuming we don't use them again for something else.
 
-        UnexpectedResourcesResponse unexpectedResourcesResponse =
-                mesosEventClient.getUnexpectedResources(unusedOffers);
+        UnexpectedResourcesResponse unexpectedResourcesResponse;
+        Timer.Context context =
+                Metrics.getOfferCyclePhaseTimer(Optional.empty(), Metrics.OfferCyclePhase.UNEXPECTED_RESOURCES);
+        try {
+            unexpectedResourcesResponse = mesosEventClient.getUnexpectedResources(unusedOffers);
+        } finally {
+            context.stop();
+        }
         Collection<OfferRecommendation> cleanupRecommendations =
                 toCleanupRecommendations(unexpectedResourcesResponse.offerResources);
         LOGGER.info("Cleanup result for {} offer{}: {} with {} recommendation{}",
@@ -286,11 +303,11 @@ class OfferProcessor {
                     && unexpectedResourcesResponse.result == UnexpectedResourcesResponse.Result.PROCESSED) {
                 // The client successfully processed offers and unexpected resources.
                 // Decline the unused offers for a long interval.
-                declineLong(unusedOffers);
+                declineLong(mergedOffers.getOriginalOffers(unusedOffers));
             } else {
                 // The client wasn't ready to process offers and/or failed to process unexpected resources.
                 // Decline the unused offers for a brief interval.
-                declineShort(unusedOffers);
+                declineShort(mergedOffers.getOriginalOffers(unusedOffers));
             }
         }
 
@@ -299,7 +316,12 @@ class OfferProcessor {
         allRecommendations.addAll(offerResponse.recommendations);
         allRecommendations.addAll(cleanupRecommendations);
         Metrics.incrementRecommendations(allRecommendations);
-        offerAccepter.accept(allRecommendations);
+        context = Metrics.getOfferCyclePhaseTimer(Optional.empty(), Metrics.OfferCyclePhase.ACCEPT);
+        try {
+            offerAccepter.accept(allRecommendations, mergedOffers::getOriginalOfferIds);
+        } finally {
+            context.stop();
+        }
     }
 
     /**
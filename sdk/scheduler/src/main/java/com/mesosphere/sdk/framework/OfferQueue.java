@@ -1,66 +1,128 @@
 package com.mesosphere.sdk.framework;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.mesosphere.sdk.offer.Constants;
 import com.mesosphere.sdk.offer.LoggingUtils;
+import com.mesosphere.sdk.scheduler.Metrics;
 
 import org.apache.mesos.Protos;
 import org.slf4j.Logger;
 
 import java.time.Duration;
-import java.util.Collection;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
- * This class acts as a buffer of Offers from Mesos.  By default it holds a maximum of 100 Offers.
+ * This class acts as a buffer of Offers from Mesos.
+ *
+ * <p>Queued offers are indexed by their OfferID and by their agent, so that rescinded offers may be removed in
+ * constant time, and so that offers are handed out grouped by agent. By default the capacity of the queue is adjusted
+ * according to how quickly offers are being processed, starting at 100 Offers.
  */
 public class OfferQueue {
     private static final int DEFAULT_CAPACITY = 100;
+    private static final int MAX_ADAPTIVE_CAPACITY = 10000;
     private static final Duration DEFAULT_OFFER_WAIT = Duration.ofSeconds(5);
+
+    // An offer which is short-declined will be re-offered after this interval, so there's no benefit to queuing more
+    // offers than can be processed within it.
+    private static final Duration TARGET_QUEUE_LATENCY = Duration.ofSeconds(Constants.SHORT_DECLINE_SECONDS);
+
+    // The weight given to the most recent sample when updating the average processing throughput.
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+
     private final Logger logger = LoggingUtils.getLogger(getClass());
-    private final BlockingQueue<Protos.Offer> queue;
+    private final Object lock = new Object();
+
+    // All queued offers in arrival order, for constant time lookup and removal by OfferID.
+    private final Map<Protos.OfferID, QueuedOffer> offersById = new LinkedHashMap<>();
+    // The IDs of the queued offers for each agent. Agents are ordered by their oldest queued offer.
+    private final Map<Protos.SlaveID, Set<Protos.OfferID>> offerIdsByAgent = new LinkedHashMap<>();
+
+    private final boolean adaptive;
+    private int capacity;
+    private double offersPerSecond;
+
+    /**
+     * An offer along with the time that it was added to the queue.
+     */
+    private static class QueuedOffer {
+        private final Protos.Offer offer;
+        private final long enqueuedNanos;
+
+        private QueuedOffer(Protos.Offer offer) {
+            this.offer = offer;
+            this.enqueuedNanos = System.nanoTime();
+        }
+    }
 
+    /**
+     * Creates a new queue whose capacity is adjusted according to the offer processing throughput reported via
+     * {@link #recordProcessed(int, Duration)}.
+     */
     public OfferQueue() {
-        this(DEFAULT_CAPACITY);
+        this(DEFAULT_CAPACITY, true);
     }
 
     /**
-     * Creates a new queue with the provided capacity.
+     * Creates a new queue with the provided fixed capacity.
      *
      * @param capacity the maximum size of the queue, or zero for unlimited queue size
      */
     public OfferQueue(int capacity) {
-        this.queue = capacity == 0 ? new LinkedBlockingQueue<>() : new LinkedBlockingQueue<>(capacity);
+        this(capacity, false);
+    }
+
+    private OfferQueue(int capacity, boolean adaptive) {
+        this.capacity = capacity;
+        this.adaptive = adaptive;
+        Metrics.registerOfferQueueGauges(this::getSize, this::getCapacity, this::getOldestWaitMs);
     }
 
     /**
      * Calling this method will wait for Offers for the provided duration.
-     * It returns all Offers currently in the queue if any are present and none otherwise.
+     * It returns all Offers currently in the queue if any are present and none otherwise. The returned Offers are
+     * grouped by agent, with agents ordered by their oldest Offer.
      */
     public List<Protos.Offer> takeAll(Duration duration) {
-        List<Protos.Offer> offers = new LinkedList<>();
-        try {
-            // The poll() waits for one Offer or returns null if none is present within the timeout.  The following
-            // drainTo() call will pull the following Offers (if any) off the queue and return.
-            Protos.Offer offer = queue.poll(duration.getSeconds(), TimeUnit.SECONDS);
-            if (offer != null) {
-                offers.add(offer);
+        List<Protos.Offer> offers = new ArrayList<>();
+        long deadlineNanos = System.nanoTime() + duration.toNanos();
+        synchronized (lock) {
+            try {
+                while (offersById.isEmpty()) {
+                    long remainingNanos = deadlineNanos - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        return offers;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                logger.warn("Interrupted while waiting for offer in queue.");
+                return offers;
             }
 
-            queue.drainTo(offers);
-        } catch (InterruptedException e) {
-            logger.warn("Interrupted while waiting for offer in queue.");
+            long nowNanos = System.nanoTime();
+            for (Set<Protos.OfferID> agentOfferIds : offerIdsByAgent.values()) {
+                for (Protos.OfferID offerId : agentOfferIds) {
+                    QueuedOffer queuedOffer = offersById.get(offerId);
+                    Metrics.updateOfferQueueWait(nowNanos - queuedOffer.enqueuedNanos);
+                    offers.add(queuedOffer.offer);
+                }
+            }
+            offersById.clear();
+            offerIdsByAgent.clear();
         }
 
         return offers;
     }
 
     /**
-     * Calling this method will wait for Offers for a static duration of {@link OfferQueue#DEFAULT_CAPACITY}.
+     * Calling this method will wait for Offers for a static duration of {@link OfferQueue#DEFAULT_OFFER_WAIT}.
      * It returns all Offers currently in the queue if any are present and an empty list if the duration
      * of {@link OfferQueue#DEFAULT_OFFER_WAIT} is reached.
      */
@@ -74,30 +136,80 @@ public class OfferQueue {
      * @return true if the Offer was successfully put in the queue, false otherwise
      */
     public boolean offer(Protos.Offer offer) {
-        return queue.offer(offer);
+        synchronized (lock) {
+            if (offersById.containsKey(offer.getId())) {
+                // Already queued, nothing to do.
+                return true;
+            }
+            if (capacity != 0 && offersById.size() >= capacity) {
+                return false;
+            }
+            offersById.put(offer.getId(), new QueuedOffer(offer));
+            offerIdsByAgent.computeIfAbsent(offer.getSlaveId(), agentId -> new LinkedHashSet<>()).add(offer.getId());
+            lock.notifyAll();
+            return true;
+        }
     }
 
     /**
      * This method removes an offer from the queue based on its OfferID.
      */
     public void remove(Protos.OfferID offerID) {
-        Collection<Protos.Offer> offers = queue.parallelStream()
-                .filter(offer -> offer.getId().equals(offerID))
-                .collect(Collectors.toList());
+        QueuedOffer removed;
+        synchronized (lock) {
+            removed = offersById.remove(offerID);
+            if (removed != null) {
+                Protos.SlaveID agentId = removed.offer.getSlaveId();
+                Set<Protos.OfferID> agentOfferIds = offerIdsByAgent.get(agentId);
+                agentOfferIds.remove(offerID);
+                if (agentOfferIds.isEmpty()) {
+                    // Drop the agent entirely, so that it's ordered according to any later offers.
+                    offerIdsByAgent.remove(agentId);
+                }
+            }
+        }
 
-        boolean removed = queue.removeAll(offers);
-        if (!removed) {
+        if (removed == null) {
             logger.warn("Attempted to remove offer: '{}' but it was not present in the queue.", offerID.getValue());
         } else {
             logger.info("Removed offer: {}", offerID.getValue());
         }
     }
 
+    /**
+     * Reports that a batch of offers taken from this queue has been processed. If the queue's capacity is adaptive,
+     * it is updated to the number of offers which can be processed within a short decline interval at the observed
+     * throughput, bounded between 100 and 10000 offers.
+     *
+     * @param offerCount the number of offers which were processed
+     * @param duration the time taken to process the offers
+     */
+    public void recordProcessed(int offerCount, Duration duration) {
+        if (!adaptive || offerCount == 0) {
+            return;
+        }
+        double sample = offerCount * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(duration.toNanos(), 1);
+        synchronized (lock) {
+            offersPerSecond = offersPerSecond == 0
+                    ? sample
+                    : THROUGHPUT_SMOOTHING * sample + (1 - THROUGHPUT_SMOOTHING) * offersPerSecond;
+            int updatedCapacity = (int) Math.max(DEFAULT_CAPACITY,
+                    Math.min(MAX_ADAPTIVE_CAPACITY, offersPerSecond * TARGET_QUEUE_LATENCY.getSeconds()));
+            if (updatedCapacity != capacity) {
+                logger.debug("Updating offer queue capacity from {} to {} ({} offers/s)",
+                        capacity, updatedCapacity, String.format("%.1f", offersPerSecond));
+                capacity = updatedCapacity;
+            }
+        }
+    }
+
     /**
      * This method specifies whether any offers are in the queue.
      */
     public boolean isEmpty() {
-        return queue.isEmpty();
+        synchronized (lock) {
+            return offersById.isEmpty();
+        }
     }
 
     /**
@@ -105,7 +217,19 @@ public class OfferQueue {
      */
     @VisibleForTesting
     int getSize() {
-        return queue.size();
+        synchronized (lock) {
+            return offersById.size();
+        }
+    }
+
+    /**
+     * This method returns the current capacity of the queue, or zero if the queue is unlimited.
+     */
+    @VisibleForTesting
+    int getCapacity() {
+        synchronized (lock) {
+            return capacity;
+        }
     }
 
     /**
@@ -113,6 +237,22 @@ public class OfferQueue {
      */
     @VisibleForTesting
     int getRemainingCapacity() {
-        return queue.remainingCapacity();
+        synchronized (lock) {
+            return capacity == 0 ? Integer.MAX_VALUE : Math.max(0, capacity - offersById.size());
+        }
+    }
+
+    /**
+     * Returns the time in milliseconds that the oldest offer in the queue has been waiting, or zero if the queue is
+     * empty.
+     */
+    private long getOldestWaitMs() {
+        synchronized (lock) {
+            if (offersById.isEmpty()) {
+                return 0;
+            }
+            long enqueuedNanos = offersById.values().iterator().next().enqueuedNanos;
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedNanos);
+        }
     }
 }
@@ -10,58 +10,113 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.mesos.SchedulerDriver;
 import org.slf4j.Logger;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
- * This class determines whether offers should be revived based on changes to the work being processed by the scheduler.
+ * This class determines whether offers should be revived or suppressed based on changes to the work being processed by
+ * the scheduler.
  */
 public class ReviveManager {
 
     /**
      * We use a singleton {@link TokenBucket} because we want rate limits on revive calls to be enforced across all
-     * running services in the scheduler.
+     * running services in the scheduler. It allows four times the revive rate of an individual service.
      */
-    private static final TokenBucket TOKEN_BUCKET_INSTANCE = TokenBucket.newBuilder().build();
+    private static final TokenBucket TOKEN_BUCKET_INSTANCE = TokenBucket.newBuilder()
+            .initialTokenCount(1024)
+            .capacity(1024)
+            .incrementInterval(Duration.ofSeconds(64))
+            .acquireInterval(Duration.ZERO)
+            .build();
+
+    /**
+     * Each service additionally gets its own {@link TokenBucket} under the singleton instance, so that a busy service
+     * cannot use up all revives for the other services in the scheduler.
+     */
+    private static final Map<String, TokenBucket> SERVICE_TOKEN_BUCKETS = new ConcurrentHashMap<>();
+
+    /**
+     * We use a singleton {@link SuppressionState} because offers are suppressed for the framework as a whole, so they
+     * may only be suppressed when none of the running services in the scheduler have any work.
+     */
+    private static final SuppressionState SUPPRESSION_STATE_INSTANCE = new SuppressionState();
 
     private final Logger logger;
     private final TokenBucket tokenBucket;
+    private final SuppressionState suppressionState;
 
     private Set<WorkItem> candidates = new HashSet<>();
+    // When new work was first seen without being revived for, or zero if there is no such work.
+    private long newWorkSinceMs = 0;
 
     /**
-     * Resets revive limits in the global token bucket, for tests.
+     * Resets revive limits in the global token bucket, along with the global suppression state, for tests.
      */
     @VisibleForTesting
     public static void resetTimers() {
         TOKEN_BUCKET_INSTANCE.reset();
+        SERVICE_TOKEN_BUCKETS.values().forEach(TokenBucket::reset);
+        SUPPRESSION_STATE_INSTANCE.reset();
     }
 
     /**
-     * Creates an instance using the singleton {@link TokenBucket} instance. The {@link TokenBucket} is a singleton
-     * because we want rate limits to be enforced across all running services in the scheduler.
+     * Creates an instance for a scheduler which runs a single service.
      */
     public ReviveManager() {
-        this(TOKEN_BUCKET_INSTANCE);
+        this(Optional.empty());
     }
 
     /**
-     * Creates an instance with a custom {@link TokenBucket} instead of the singleton instance. Only for use in tests.
+     * Creates an instance for the service with the provided name, or for a scheduler which runs a single service. The
+     * service's revives are limited by its own {@link TokenBucket}, which is shared with any other instances for the
+     * same service, and by the singleton {@link TokenBucket} which is shared across all running services in the
+     * scheduler.
+     */
+    public ReviveManager(Optional<String> serviceName) {
+        this(SERVICE_TOKEN_BUCKETS.computeIfAbsent(
+                serviceName.orElse(""),
+                name -> TokenBucket.newBuilder().parent(TOKEN_BUCKET_INSTANCE).build()),
+                SUPPRESSION_STATE_INSTANCE);
+    }
+
+    /**
+     * Creates an instance with a custom {@link TokenBucket} and its own suppression state, instead of the singleton
+     * instances. Only for use in tests.
      */
     @VisibleForTesting
     ReviveManager(TokenBucket tokenBucket) {
+        this(tokenBucket, new SuppressionState());
+    }
+
+    /**
+     * Creates an instance with a custom {@link TokenBucket} and {@link SuppressionState}. Only for use in tests.
+     */
+    @VisibleForTesting
+    ReviveManager(TokenBucket tokenBucket, SuppressionState suppressionState) {
         this.logger = LoggingUtils.getLogger(getClass());
         this.tokenBucket = tokenBucket;
+        this.suppressionState = suppressionState;
     }
 
     /**
      *
-     * Instead of just suppressing offers when all work is complete, we set refuse seconds of 2 weeks
-     * (a.k.a. forever) whenever we decline any offer.  When we see *new* work ({@link PodInstanceRequirement}`s) we
-     * assume that the offers we've declined forever may be useful to that work, and so we revive offers.
+     * We set refuse seconds of 2 weeks (a.k.a. forever) whenever we decline any offer.  When we see *new* work
+     * ({@link PodInstanceRequirement}`s) we assume that the offers we've declined forever may be useful to that work,
+     * and so we revive offers.
+     *
+     * Declining does not stop Mesos from sending offers for agents which are new or which have freed resources, so
+     * when no service in the scheduler has any work at all, we additionally suppress offers.  Reviving offers for new
+     * work also clears the suppression.  Suppression doesn't consume tokens, as at most one suppress call is made
+     * between any two revives.
      *
      * Pseudo-code algorithm is this:
      *
@@ -98,21 +153,25 @@ public class ReviveManager {
 
         logger.info("Candidates, old: {}, current: {}, new:{}", this.candidates, currCandidates, newCandidates);
 
+        // Record whether we have work before reviving, so that other services cannot suppress offers in the meantime.
+        suppressionState.setHasWork(this, !currCandidates.isEmpty());
+
         if (!newCandidates.isEmpty()) {
+            long nowMs = System.currentTimeMillis();
+            if (newWorkSinceMs == 0) {
+                newWorkSinceMs = nowMs;
+            }
             if (tokenBucket.tryAcquire()) {
                 logger.info(
                         "Reviving offers with candidates, old: {}, current: {}, new:{}",
                         this.candidates,
                         currCandidates,
                         newCandidates);
-                Optional<SchedulerDriver> driver = Driver.getDriver();
-                if (driver.isPresent()) {
-                    driver.get().reviveOffers();
-                } else {
-                    throw new IllegalStateException(
-                            "No driver present for reviving offers.  This should never happen.");
-                }
+                getDriver().reviveOffers();
                 Metrics.incrementRevives();
+                Metrics.updateReviveLatency(nowMs - newWorkSinceMs);
+                newWorkSinceMs = 0;
+                suppressionState.revived(nowMs);
             } else {
                 logger.warn("Revive attempt has been throttled.");
                 Metrics.incrementReviveThrottles();
@@ -121,6 +180,77 @@ public class ReviveManager {
         }
 
         this.candidates = currCandidates;
+
+        if (currCandidates.isEmpty() && suppressionState.suppressIfIdle()) {
+            logger.info("Suppressed offers: no work is pending in any service");
+        }
+    }
+
+    /**
+     * Notifies this instance that the framework has re-registered with Mesos. Any suppression may have been lost by a
+     * new Mesos master, so offers are suppressed again the next time that no service has any work.
+     */
+    public void reregistered() {
+        suppressionState.clearSuppressed();
+    }
+
+    private static SchedulerDriver getDriver() {
+        Optional<SchedulerDriver> driver = Driver.getDriver();
+        if (!driver.isPresent()) {
+            throw new IllegalStateException(
+                    "No driver present for reviving or suppressing offers.  This should never happen.");
+        }
+        return driver.get();
+    }
+
+    /**
+     * Tracks which {@link ReviveManager}s currently have work, and whether offers are currently suppressed. Offers are
+     * only suppressed once no manager has any work. Managers are weakly referenced, so that the managers of services
+     * which have since been removed from the scheduler do not prevent suppression.
+     */
+    @VisibleForTesting
+    static class SuppressionState {
+        private final Set<ReviveManager> managersWithWork = Collections.newSetFromMap(new WeakHashMap<>());
+        // When offers were suppressed, or zero if offers are not currently suppressed.
+        private long suppressedSinceMs = 0;
+
+        private synchronized void setHasWork(ReviveManager manager, boolean hasWork) {
+            if (hasWork) {
+                managersWithWork.add(manager);
+            } else {
+                managersWithWork.remove(manager);
+            }
+        }
+
+        private synchronized void revived(long nowMs) {
+            if (suppressedSinceMs != 0) {
+                Metrics.updateSuppressedDuration(nowMs - suppressedSinceMs);
+                suppressedSinceMs = 0;
+            }
+        }
+
+        /**
+         * Suppresses offers if no manager has any work and offers are not already suppressed. Returns whether offers
+         * were suppressed by this call.
+         */
+        private synchronized boolean suppressIfIdle() {
+            if (suppressedSinceMs != 0 || !managersWithWork.isEmpty()) {
+                return false;
+            }
+            getDriver().suppressOffers();
+            Metrics.incrementSuppresses();
+            suppressedSinceMs = System.currentTimeMillis();
+            return true;
+        }
+
+        private synchronized void clearSuppressed() {
+            suppressedSinceMs = 0;
+        }
+
+        private synchronized void reset() {
+            managersWithWork.clear();
+            suppressedSinceMs = 0;
+        }
     }
 
     /**
@@ -104,8 +104,9 @@ public class SchedulerDriverFactory {
             final Credential credential,
             final String mesosAPIVersion) {
         Capabilities capabilities = Capabilities.getInstance();
+        // Implicit acknowledgements are disabled: StatusProcessor acknowledges each status after it has been stored.
         if (credential != null) {
-            return new MesosToSchedulerDriverAdapter(scheduler, frameworkInfo, masterUrl, true, credential) {
+            return new MesosToSchedulerDriverAdapter(scheduler, frameworkInfo, masterUrl, false, credential) {
                 @Override
                 protected Mesos startInternal() {
                     if (capabilities.supportsV1APIByDefault()) {
@@ -127,7 +128,7 @@ public class SchedulerDriverFactory {
 
         // Love too work around the fact that the MesosToSchedulerDriverAdapter both depends directly on the
         // process environment *and* uses two unrelated constructors for the case of credential being null
-        return new MesosToSchedulerDriverAdapter(scheduler, frameworkInfo, masterUrl, true) {
+        return new MesosToSchedulerDriverAdapter(scheduler, frameworkInfo, masterUrl, false) {
             @Override
             protected Mesos startInternal() {
                 if (capabilities.supportsV1APIByDefault()) {
@@ -0,0 +1,213 @@
+package com.mesosphere.sdk.framework;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.mesos.Protos;
+import org.apache.mesos.SchedulerDriver;
+import org.slf4j.Logger;
+
+import com.google.protobuf.TextFormat;
+import com.mesosphere.sdk.offer.LoggingUtils;
+import com.mesosphere.sdk.scheduler.MesosEventClient;
+import com.mesosphere.sdk.scheduler.MesosEventClient.StatusResponse;
+import com.mesosphere.sdk.scheduler.Metrics;
+import com.mesosphere.sdk.storage.Persister;
+import com.mesosphere.sdk.storage.PersisterException;
+
+/**
+ * Handles task status processing for the framework, passing statuses to an underlying {@link MesosEventClient} away
+ * from the driver's callback thread.
+ *
+ * <p>Statuses are divided between a fixed number of lanes according to their task ID, and each lane is processed by its
+ * own thread. This keeps the statuses for any one task in the order they were received, while statuses for different
+ * tasks may be processed concurrently. When several statuses for the same task are waiting in a lane, only the most
+ * recent one is processed, as it supersedes the others.
+ *
+ * <p>Each group of statuses taken from a lane is processed within a single {@link Persister} batch, so that the
+ * resulting storage writes are applied together. Batches are buffered separately for each lane's thread and don't
+ * hold any lock until they're committed, so lanes don't block each other, nor do they block offer evaluation while it
+ * updates the same steps. The statuses are only acknowledged to Mesos once the batch has been committed. If the batch
+ * fails, the statuses are left unacknowledged and Mesos will send them again.
+ */
+class StatusProcessor {
+
+    private static final Logger LOGGER = LoggingUtils.getLogger(StatusProcessor.class);
+
+    private final MesosEventClient mesosEventClient;
+    private final Persister persister;
+    private final List<Lane> lanes;
+
+    // Whether we should run in multithreaded mode. Should only be disabled for tests.
+    private boolean multithreaded;
+
+    /**
+     * Creates a new instance with the provided number of lanes. Values less than 1 are treated as 1.
+     */
+    StatusProcessor(MesosEventClient mesosEventClient, Persister persister, int parallelism) {
+        this.mesosEventClient = mesosEventClient;
+        this.persister = persister;
+        this.lanes = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, parallelism); ++i) {
+            lanes.add(new Lane());
+        }
+        this.multithreaded = true;
+    }
+
+    /**
+     * Forces the instance to run in a synchronous/single-threaded mode for tests. To have any effect, this must be
+     * called before calling {@link #start()}.
+     *
+     * @return this
+     */
+    StatusProcessor disableThreading() {
+        multithreaded = false;
+        return this;
+    }
+
+    void start() {
+        if (!multithreaded) {
+            return;
+        }
+        // Start consumption of each lane. Each thread will idle until statuses start arriving.
+        ExecutorService statusExecutor = Executors.newFixedThreadPool(lanes.size());
+        for (Lane lane : lanes) {
+            statusExecutor.execute(() -> {
+                while (true) {
+                    try {
+                        process(lane.takeAll());
+                    } catch (Exception e) {
+                        LOGGER.error("Error encountered when processing statuses, exiting to avoid zombie state", e);
+                        ProcessExit.exit(ProcessExit.ERROR, e);
+                    }
+                }
+            });
+        }
+    }
+
+    void enqueue(Protos.TaskStatus status) {
+        Lane lane = lanes.get(Math.floorMod(status.getTaskId().getValue().hashCode(), lanes.size()));
+        lane.add(status);
+
+        if (!multithreaded) {
+            // Process on this thread, rather than depending on a lane thread to do it.
+            process(lane.takeAll());
+        }
+    }
+
+    /**
+     * Processes the latest status for each task in the provided map, then acknowledges all of the provided statuses if
+     * the resulting writes were successfully stored.
+     */
+    private void process(Map<Protos.TaskID, List<Protos.TaskStatus>> statusesByTask) {
+        if (statusesByTask.isEmpty()) {
+            return;
+        }
+
+        try {
+            persister.beginBatch();
+        } catch (PersisterException e) {
+            LOGGER.error(String.format("Failed to begin batch for %d task statuses, leaving them unacknowledged",
+                    statusesByTask.size()), e);
+            return;
+        }
+        boolean committed = false;
+        try {
+            for (List<Protos.TaskStatus> statuses : statusesByTask.values()) {
+                if (statuses.size() > 1) {
+                    LOGGER.info("Skipping {} superseded status{} for taskId={}",
+                            statuses.size() - 1,
+                            statuses.size() == 2 ? "" : "es",
+                            statuses.get(0).getTaskId().getValue());
+                    Metrics.incrementCoalescedStatuses(statuses.size() - 1);
+                }
+                processStatus(statuses.get(statuses.size() - 1));
+            }
+        } finally {
+            try {
+                persister.commitBatch();
+                committed = true;
+            } catch (PersisterException e) {
+                LOGGER.error(String.format("Failed to store updates for %d task statuses, leaving them unacknowledged",
+                        statusesByTask.size()), e);
+            }
+        }
+
+        if (committed) {
+            for (List<Protos.TaskStatus> statuses : statusesByTask.values()) {
+                statuses.forEach(StatusProcessor::acknowledge);
+            }
+        }
+    }
+
+    private void processStatus(Protos.TaskStatus status) {
+        StatusResponse response = mesosEventClient.status(status);
+        boolean eligibleToKill = TaskKiller.update(status);
+        switch (response.result) {
+        case UNKNOWN_TASK:
+            if (eligibleToKill) {
+                LOGGER.info("Got unknown task in response to status update, marking task to be killed: {}",
+                        status.getTaskId().getValue());
+                TaskKiller.killTask(status.getTaskId());
+            } else {
+                // Special case: Mesos can send TASK_LOST+REASON_RECONCILIATION as a response to a prior kill request
+                // against a task that is unknown to Mesos. When this happens, we don't want to repeat the kill, because
+                // that would create a Kill -> Status -> Kill -> ... loop
+                LOGGER.warn("Received status update for unknown task, but task should not be killed again: {}",
+                        status.getTaskId().getValue());
+            }
+            break;
+        case PROCESSED:
+            // No-op
+            break;
+        }
+    }
+
+    private static void acknowledge(Protos.TaskStatus status) {
+        if (!status.hasUuid()) {
+            // Statuses without a UUID (e.g. from reconciliation) are not acknowledged.
+            return;
+        }
+        Optional<SchedulerDriver> driver = Driver.getDriver();
+        if (!driver.isPresent()) {
+            LOGGER.warn("No driver available to acknowledge status: {}", TextFormat.shortDebugString(status));
+            return;
+        }
+        driver.get().acknowledgeStatusUpdate(status);
+    }
+
+    /**
+     * The statuses waiting to be processed by a single thread, grouped by task in the order that each task was first
+     * seen.
+     */
+    private static class Lane {
+        private final Map<Protos.TaskID, List<Protos.TaskStatus>> pending = new LinkedHashMap<>();
+
+        synchronized void add(Protos.TaskStatus status) {
+            pending.computeIfAbsent(status.getTaskId(), taskId -> new ArrayList<>()).add(status);
+            notifyAll();
+        }
+
+        /**
+         * Removes and returns all pending statuses, blocking until at least one is available.
+         */
+        synchronized Map<Protos.TaskID, List<Protos.TaskStatus>> takeAll() {
+            while (pending.isEmpty()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for statuses", e);
+                }
+            }
+            Map<Protos.TaskID, List<Protos.TaskStatus>> statuses = new LinkedHashMap<>(pending);
+            pending.clear();
+            return statuses;
+        }
+    }
+}
@@ -6,13 +6,20 @@ import com.google.common.annotations.VisibleForTesting;
 import com.mesosphere.sdk.offer.LoggingUtils;
 
 import java.time.Duration;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class implements a token bucket to limit the rate at which actions may be taken.  The assumption is that clients
  * will not take actions unless they receive a token via the {@link #tryAcquire()} method.
+ *
+ * <p>The bucket is lock-free and has no background thread. Tokens are added lazily according to the time elapsed since
+ * the last acquisition, and the entire state of the bucket is held in a single {@link AtomicLong}: the time of the last
+ * acquisition in epoch milliseconds in the upper 42 bits, and the token count at that time as a fixed-point value in
+ * the lower 22 bits. This limits the capacity of a bucket to 4095 tokens.
+ *
+ * <p>A bucket may have a parent bucket, in which case a token must be acquired from both. This allows each service to
+ * be rate limited separately, under a global limit which is shared by all services.
  */
 public class TokenBucket {
     private static final int DEFAULT_CAPACITY = 256;
@@ -20,14 +27,23 @@ public class TokenBucket {
     private static final Duration DEFAULT_ACQUIRE_INTERVAL = Duration.ofSeconds(5);
     private static final Duration DEFAULT_INCREMENT_INTERVAL = Duration.ofSeconds(DEFAULT_CAPACITY);
 
+    // Token counts are stored in fixed-point, so that partial progress towards the next token isn't lost on acquire.
+    private static final int TOKEN_FRACTION_BITS = 10;
+    private static final long TOKEN_SCALE = 1L << TOKEN_FRACTION_BITS;
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final int MAX_CAPACITY = (int) (TOKEN_MASK >> TOKEN_FRACTION_BITS);
+
     private final Logger logger = LoggingUtils.getLogger(getClass());
-    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
     private final int initial;
     private final int capacity;
     private final Duration incrementInterval;
     private final Duration acquireInterval;
-    private int count;
-    private long lastAcquireMs = 0;
+    private final Optional<TokenBucket> parent;
+    private final AtomicLong state = new AtomicLong();
+
+    // The last acquisition time stored by a bucket which hasn't granted any tokens since it was created or reset.
+    private volatile long unacquiredMs;
 
     /**
      * A TokenBucket acts as a rate limiting helper.  Clients should not perform rate limited work without acquiring a
@@ -37,19 +53,20 @@ public class TokenBucket {
      */
     protected TokenBucket(Builder builder) {
         this.initial = builder.initial;
-        this.count = builder.initial;
         this.capacity = builder.capacity;
         this.incrementInterval = builder.incrementInterval;
         this.acquireInterval = builder.acquireInterval;
+        this.parent = builder.parent;
 
         String msg = String.format(
-                "Configured with count: %d, capacity: %d, incrementInterval: %ds, acquireInterval: %ds",
-                count, capacity, incrementInterval.getSeconds(), acquireInterval.getSeconds());
+                "Configured with count: %d, capacity: %d, incrementInterval: %ds, acquireInterval: %ds, parent: %s",
+                initial, capacity, incrementInterval.getSeconds(), acquireInterval.getSeconds(), parent.isPresent());
 
         logger.info(msg);
 
-        if (count < 0
+        if (initial < 0
                 || capacity < 1
+                || capacity > MAX_CAPACITY
                 || incrementInterval.isNegative()
                 || incrementInterval.isZero()
                 || acquireInterval.isNegative()) {
@@ -57,7 +74,7 @@ public class TokenBucket {
                     String.format("TokenBucket construction failed with invalid configuration: %s", msg));
         }
 
-        startIncrementThread();
+        reset();
     }
 
     public static Builder newBuilder() {
@@ -65,24 +82,45 @@ public class TokenBucket {
     }
 
     public Builder toBuilder() {
-        return new Builder()
+        Builder builder = new Builder()
                 .initialTokenCount(initial)
                 .capacity(capacity)
                 .incrementInterval(incrementInterval)
                 .acquireInterval(acquireInterval);
+        if (parent.isPresent()) {
+            builder.parent(parent.get());
+        }
+        return builder;
     }
 
     /**
      * This method returns true if a rate-limited action should be executed, and false if the action should not occur.
+     * If this bucket has a parent, a token is only granted when the parent also grants one.
      */
-    public synchronized boolean tryAcquire() {
-        if (count > 0 && durationHasPassed(acquireInterval)) {
-            count--;
-            lastAcquireMs = now();
-            return true;
+    public boolean tryAcquire() {
+        long nowMs = now();
+        while (true) {
+            long current = state.get();
+            long lastAcquireMs = getLastAcquireMs(current);
+            if (lastAcquireMs != unacquiredMs && nowMs - lastAcquireMs < acquireInterval.toMillis()) {
+                return false;
+            }
+            long tokens = getTokens(current, nowMs);
+            if (tokens < TOKEN_SCALE) {
+                return false;
+            }
+
+            long updated = pack(Math.max(lastAcquireMs, nowMs), tokens - TOKEN_SCALE);
+            if (!state.compareAndSet(current, updated)) {
+                // Lost a race with another caller, try again with the latest state.
+                continue;
+            }
+            if (!parent.isPresent() || parent.get().tryAcquire()) {
+                return true;
+            }
+            refund(current, updated);
+            return false;
         }
-
-        return false;
     }
 
     /**
@@ -94,48 +132,54 @@ public class TokenBucket {
     }
 
     /**
-     * Schedules a background thread for incrementing the token count. Broken out into a separate function to allow
-     * overriding in tests.
+     * Resets internal counters for tests.
      */
     @VisibleForTesting
-    protected void startIncrementThread() {
-        executor.scheduleAtFixedRate(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        increment();
-                    }
-                },
-                incrementInterval.toMillis(),
-                incrementInterval.toMillis(),
-                TimeUnit.MILLISECONDS);
+    public void reset() {
+        // The bucket refills from this time, and may grant a token right away regardless of the acquire interval.
+        unacquiredMs = now() - 1;
+        state.set(pack(unacquiredMs, Math.min(initial, capacity) * TOKEN_SCALE));
     }
 
     /**
-     * Resets internal counters for tests.
+     * This method adds a token to the bucket up to the capacity of the bucket. Visible to tests for manual execution.
      */
     @VisibleForTesting
-    public synchronized void reset() {
-        count = initial;
-        lastAcquireMs = 0;
+    protected void increment() {
+        state.updateAndGet(current -> pack(
+                getLastAcquireMs(current),
+                Math.min(capacity * TOKEN_SCALE, getStoredTokens(current) + TOKEN_SCALE)));
     }
 
     /**
-     * This method adds a token to the bucket up to the capacity of the bucket. Visible to tests for manual execution.
+     * Returns a token which was acquired from this bucket but then refused by the parent bucket. The previous state is
+     * restored if nothing else has acquired a token in the meantime, otherwise the token is added back.
      */
-    @VisibleForTesting
-    protected synchronized void increment() {
-        if (count < capacity) {
-            count++;
+    private void refund(long previous, long acquired) {
+        if (!state.compareAndSet(acquired, previous)) {
+            increment();
         }
     }
 
     /**
-     * This method is used to enforce a minimum duration between granting tokens.  It returns true when that minimum
-     * duration has passed and false otherwise.
+     * Returns the fixed-point number of tokens in the bucket with the provided state, at the provided time.
      */
-    private boolean durationHasPassed(Duration duration) {
-        return now() - lastAcquireMs >= duration.toMillis();
+    private long getTokens(long current, long nowMs) {
+        long elapsedMs = Math.max(0, nowMs - getLastAcquireMs(current));
+        long refilled = elapsedMs * TOKEN_SCALE / incrementInterval.toMillis();
+        return Math.min(capacity * TOKEN_SCALE, getStoredTokens(current) + refilled);
+    }
+
+    private static long pack(long lastAcquireMs, long tokens) {
+        return (lastAcquireMs << TOKEN_BITS) | tokens;
+    }
+
+    private static long getLastAcquireMs(long state) {
+        return state >>> TOKEN_BITS;
+    }
+
+    private static long getStoredTokens(long state) {
+        return state & TOKEN_MASK;
     }
 
     /**
@@ -146,6 +190,7 @@ public class TokenBucket {
         protected int capacity = DEFAULT_CAPACITY;
         protected Duration incrementInterval = DEFAULT_INCREMENT_INTERVAL;
         protected Duration acquireInterval = DEFAULT_ACQUIRE_INTERVAL;
+        protected Optional<TokenBucket> parent = Optional.empty();
 
         /**
          * Set the initial number of tokens.
@@ -179,6 +224,14 @@ public class TokenBucket {
             return this;
         }
 
+        /**
+         * Set a parent bucket which must also grant a token whenever this bucket grants one.
+         */
+        public Builder parent(TokenBucket parent) {
+            this.parent = Optional.of(parent);
+            return this;
+        }
+
         public TokenBucket build() {
             return new TokenBucket(this);
         }
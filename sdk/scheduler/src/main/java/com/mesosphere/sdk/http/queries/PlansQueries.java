@@ -173,7 +173,7 @@ public class PlansQueries extends PrettyJsonResource {
                 return ResponseUtils.alreadyReportedResponse();
             }
 
-            phases.forEach(p -> p.getStrategy().interrupt());
+            phases.forEach(ParentElement::interrupt);
         } else {
             Plan plan = planManagerOptional.get().getPlan();
             if (plan.isInterrupted() || plan.isComplete()) {
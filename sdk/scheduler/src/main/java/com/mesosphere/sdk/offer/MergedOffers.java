@@ -0,0 +1,114 @@
+package com.mesosphere.sdk.offer;
+
+import org.apache.mesos.Protos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A set of offers where any offers for the same agent and allocation role have been merged into a single offer. This
+ * allows a pod to be placed using the combined resources of several offers from one agent, and avoids evaluating each
+ * of those offers separately.
+ *
+ * <p>A merged offer is a copy of the first offer for its agent and role, with the resources of the other offers for
+ * that agent and role appended. It retains the ID of that first offer. Any operations or declines against a merged
+ * offer must be applied to all of the original offers, which may be retrieved via
+ * {@link #getOriginalOffers(Collection)} and {@link #getOriginalOfferIds(Protos.OfferID)}. Mesos allows a single accept
+ * call to cover multiple offers, so long as they are all from the same agent and were allocated to the same role.
+ * Offers from one agent which were allocated to different roles are therefore left separate.
+ */
+public class MergedOffers {
+
+    private final List<Protos.Offer> offers;
+    // Only contains entries for offers which were merged from more than one original offer.
+    private final Map<Protos.OfferID, List<Protos.Offer>> originalOffers;
+
+    /**
+     * Merges the provided offers by agent and allocation role. The merged offers are ordered according to the first
+     * offer for each agent and role in the provided list.
+     */
+    public static MergedOffers merge(Collection<Protos.Offer> offers) {
+        // Keyed on the agent ID and the allocation role, which is empty if the offer doesn't have one:
+        Map<List<Object>, List<Protos.Offer>> offersByAgent = new LinkedHashMap<>();
+        for (Protos.Offer offer : offers) {
+            List<Object> key = Arrays.asList(offer.getSlaveId(), offer.getAllocationInfo().getRole());
+            offersByAgent.computeIfAbsent(key, k -> new ArrayList<>()).add(offer);
+        }
+
+        List<Protos.Offer> mergedOffers = new ArrayList<>();
+        Map<Protos.OfferID, List<Protos.Offer>> originalOffers = new HashMap<>();
+        for (List<Protos.Offer> agentOffers : offersByAgent.values()) {
+            Protos.Offer firstOffer = agentOffers.get(0);
+            if (agentOffers.size() == 1) {
+                mergedOffers.add(firstOffer);
+                continue;
+            }
+
+            Protos.Offer.Builder mergedOfferBuilder = firstOffer.toBuilder();
+            for (Protos.Offer offer : agentOffers.subList(1, agentOffers.size())) {
+                mergedOfferBuilder.addAllResources(offer.getResourcesList());
+                for (Protos.ExecutorID executorId : offer.getExecutorIdsList()) {
+                    if (!mergedOfferBuilder.getExecutorIdsList().contains(executorId)) {
+                        mergedOfferBuilder.addExecutorIds(executorId);
+                    }
+                }
+            }
+            mergedOffers.add(mergedOfferBuilder.build());
+            originalOffers.put(firstOffer.getId(), agentOffers);
+        }
+        return new MergedOffers(mergedOffers, originalOffers);
+    }
+
+    private MergedOffers(List<Protos.Offer> offers, Map<Protos.OfferID, List<Protos.Offer>> originalOffers) {
+        this.offers = offers;
+        this.originalOffers = originalOffers;
+    }
+
+    /**
+     * Returns the merged offers, with at most one offer per agent and allocation role.
+     */
+    public List<Protos.Offer> getOffers() {
+        return offers;
+    }
+
+    /**
+     * Returns the number of original offers which were merged into other offers.
+     */
+    public int getMergedCount() {
+        return originalOffers.values().stream().mapToInt(agentOffers -> agentOffers.size() - 1).sum();
+    }
+
+    /**
+     * Returns the original offers which make up the provided merged offers.
+     */
+    public List<Protos.Offer> getOriginalOffers(Collection<Protos.Offer> mergedOffers) {
+        List<Protos.Offer> offers = new ArrayList<>();
+        for (Protos.Offer mergedOffer : mergedOffers) {
+            List<Protos.Offer> agentOffers = originalOffers.get(mergedOffer.getId());
+            if (agentOffers == null) {
+                offers.add(mergedOffer);
+            } else {
+                offers.addAll(agentOffers);
+            }
+        }
+        return offers;
+    }
+
+    /**
+     * Returns the IDs of the original offers which make up the merged offer with the provided ID.
+     */
+    public Collection<Protos.OfferID> getOriginalOfferIds(Protos.OfferID mergedOfferId) {
+        List<Protos.Offer> agentOffers = originalOffers.get(mergedOfferId);
+        if (agentOffers == null) {
+            return Collections.singletonList(mergedOfferId);
+        }
+        return agentOffers.stream().map(Protos.Offer::getId).collect(Collectors.toList());
+    }
+}
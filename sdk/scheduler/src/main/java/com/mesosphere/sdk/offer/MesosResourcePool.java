@@ -12,6 +12,9 @@ import java.util.*;
 /**
  * A representation of the pool of resources available in a single {@link Offer}. Tracks the
  * consumption of the {@link Offer}'s resources.
+ *
+ * <p>A pool starts out sharing the immutable content of an {@link OfferResourceIndex}, and only copies the portions
+ * which it modifies. Many pools may therefore be created cheaply from the same index.
  */
 public class MesosResourcePool {
     private static final Logger LOGGER = LoggingUtils.getLogger(MesosResourcePool.class);
@@ -36,17 +39,25 @@ public class MesosResourcePool {
      * "slave_public" --> cpus: 1.0
      *                     mem: 128
      */
-    private Map<String, Map<String, Value>> reservableMergedPoolByRole;
+    private Map<String, Map<String, ResourceValue>> reservableMergedPoolByRole;
 
     /**
      * Creates a new pool of resources based on what's available in the provided {@link Offer}.
      */
     public MesosResourcePool(Offer offer, Optional<String> role) {
-        this.offer = offer;
-        final Collection<MesosResource> mesosResources = getMesosResources(offer, role);
-        this.unreservedAtomicPool = getUnreservedAtomicPool(mesosResources);
-        this.dynamicallyReservedPoolByResourceId = getDynamicallyReservedPool(mesosResources);
-        this.reservableMergedPoolByRole = getReservableMergedPool(mesosResources);
+        this(new OfferResourceIndex(offer, role));
+    }
+
+    /**
+     * Creates a new pool of resources based on the content of the provided {@link OfferResourceIndex}. The index is
+     * not modified by any operations against the pool.
+     */
+    public MesosResourcePool(OfferResourceIndex offerResourceIndex) {
+        this.offer = offerResourceIndex.getOffer();
+        this.unreservedAtomicPool = new HashMap<>(offerResourceIndex.getUnreservedAtomicPool());
+        this.dynamicallyReservedPoolByResourceId =
+                new HashMap<>(offerResourceIndex.getDynamicallyReservedPoolByResourceId());
+        this.reservableMergedPoolByRole = new HashMap<>(offerResourceIndex.getReservableMergedPoolByRole());
     }
 
     /**
@@ -73,15 +84,31 @@ public class MesosResourcePool {
 
     /**
      * Returns the resources which are reservable.  These may have been pre-reserved (dynamically or statically) or
-     * never reserved.
+     * never reserved. The values are converted to protobuf on each call.
      */
     public Map<String, Map<String, Value>> getReservableMergedPoolByRole() {
-        return reservableMergedPoolByRole;
+        Map<String, Map<String, Value>> poolByRole = new HashMap<>();
+        for (Map.Entry<String, Map<String, ResourceValue>> entry : reservableMergedPoolByRole.entrySet()) {
+            poolByRole.put(entry.getKey(), toProto(entry.getValue()));
+        }
+        return poolByRole;
     }
 
+    /**
+     * Returns the unreserved resources which are reservable, converted to protobuf. Use
+     * {@link #getUnreservedMergedValue(String)} to look up a single resource without conversion.
+     */
     public Map<String, Value> getUnreservedMergedPool() {
-        Map<String, Value> pool = reservableMergedPoolByRole.get(Constants.ANY_ROLE);
-        return pool == null ? Collections.emptyMap() : pool;
+        Map<String, ResourceValue> pool = reservableMergedPoolByRole.get(Constants.ANY_ROLE);
+        return pool == null ? Collections.emptyMap() : toProto(pool);
+    }
+
+    /**
+     * Returns the remaining unreserved quantity of the named resource, if the offer has any.
+     */
+    public Optional<ResourceValue> getUnreservedMergedValue(String name) {
+        Map<String, ResourceValue> pool = reservableMergedPoolByRole.get(Constants.ANY_ROLE);
+        return pool == null ? Optional.empty() : Optional.ofNullable(pool.get(name));
     }
 
     /**
@@ -106,11 +133,12 @@ public class MesosResourcePool {
                     return Optional.empty();
                 }
             } else {
-                Value availableValue = mesosResource.getValue();
-                if (ValueUtils.compare(availableValue, value) > 0) {
+                ResourceValue availableValue = ResourceValue.of(mesosResource.getValue());
+                ResourceValue desiredValue = ResourceValue.of(value);
+                if (!availableValue.equals(desiredValue) && !desiredValue.contains(availableValue)) {
                     // Update the value in pool with the remaining unclaimed resource amount
                     Resource remaining = ResourceBuilder.fromExistingResource(mesosResource.getResource())
-                            .setValue(ValueUtils.subtract(availableValue, value))
+                            .setValue(availableValue.subtract(desiredValue).toProto())
                             .build();
                     dynamicallyReservedPoolByResourceId.put(resourceId, new MesosResource(remaining));
                     // Return only the claimed resource amount from this reservation
@@ -165,17 +193,20 @@ public class MesosResourcePool {
     }
 
     public Optional<MesosResource> consumeReservableMerged(String name, Value desiredValue, String preReservedRole) {
-        Map<String, Value> pool = reservableMergedPoolByRole.get(preReservedRole);
+        Map<String, ResourceValue> pool = reservableMergedPoolByRole.get(preReservedRole);
         if (pool == null) {
             LOGGER.info("No unreserved resources available for role '{}'. Reservable roles are: {}",
                     preReservedRole, reservableMergedPoolByRole.keySet());
             return Optional.empty();
         }
 
-        Value availableValue = pool.get(name);
+        ResourceValue availableValue = pool.get(name);
+        ResourceValue desired = ResourceValue.of(desiredValue);
 
-        if (sufficientValue(desiredValue, availableValue)) {
-            pool.put(name, ValueUtils.subtract(availableValue, desiredValue));
+        if (availableValue != null && availableValue.contains(desired)) {
+            // Copy before writing: the original map may be shared with the source index
+            pool = new HashMap<>(pool);
+            pool.put(name, availableValue.subtract(desired));
             reservableMergedPoolByRole.put(preReservedRole, pool);
 
             Resource.Builder builder = ResourceBuilder.fromUnreservedValue(name, desiredValue).build().toBuilder();
@@ -195,8 +226,8 @@ public class MesosResourcePool {
                 LOGGER.info("Offered quantity of {} for role {} is insufficient: desired {}, offered {}",
                         name,
                         preReservedRole,
-                        TextFormat.shortDebugString(desiredValue),
-                        TextFormat.shortDebugString(availableValue));
+                        desired,
+                        availableValue);
             }
             return Optional.empty();
         }
@@ -221,17 +252,16 @@ public class MesosResourcePool {
         }
 
         String previousRole = mesosResource.getPreviousRole();
-        Map<String, Value> pool = reservableMergedPoolByRole.get(previousRole);
-        if (pool == null) {
-            pool = new HashMap<>();
-        }
+        // Copy before writing: the original map may be shared with the source index
+        Map<String, ResourceValue> pool = reservableMergedPoolByRole.get(previousRole);
+        pool = pool == null ? new HashMap<>() : new HashMap<>(pool);
 
-        Value currValue = pool.get(mesosResource.getName());
+        ResourceValue currValue = pool.get(mesosResource.getName());
         if (currValue == null) {
-            currValue = ValueUtils.getZero(mesosResource.getType());
+            currValue = ResourceValue.zero(mesosResource.getType());
         }
 
-        Value updatedValue = ValueUtils.add(currValue, mesosResource.getValue());
+        ResourceValue updatedValue = currValue.add(ResourceValue.of(mesosResource.getValue()));
         pool.put(mesosResource.getName(), updatedValue);
         reservableMergedPoolByRole.put(previousRole, pool);
     }
@@ -251,10 +281,9 @@ public class MesosResourcePool {
 
         Resource releasedResource = resBuilder.build();
 
+        // Copy before writing: the original list may be shared with the source index
         List<MesosResource> resList = unreservedAtomicPool.get(mesosResource.getName());
-        if (resList == null) {
-            resList = new ArrayList<MesosResource>();
-        }
+        resList = resList == null ? new ArrayList<MesosResource>() : new ArrayList<MesosResource>(resList);
 
         resList.add(new MesosResource(releasedResource));
         unreservedAtomicPool.put(mesosResource.getName(), resList);
@@ -267,144 +296,14 @@ public class MesosResourcePool {
             return false;
         }
 
-        Value difference = ValueUtils.subtract(desired, available);
-        return ValueUtils.compare(difference, ValueUtils.getZero(desired.getType())) <= 0;
-    }
-
-    private static Collection<MesosResource> getMesosResources(Offer offer, Optional<String> role) {
-        Collection<MesosResource> mesosResources = new ArrayList<MesosResource>();
-        for (Resource resource : offer.getResourcesList()) {
-            if (consumableResource(role, resource)) {
-                mesosResources.add(new MesosResource(resource));
-            }
-        }
-
-        return mesosResources;
-    }
-
-    private static boolean consumableResource(Optional<String> podRole, Resource resource) {
-        if (!podRole.isPresent()
-                || !resource.hasAllocationInfo()
-                || !resource.getAllocationInfo().hasRole()) {
-            return true;
-        }
-
-        String allocationRole = resource.getAllocationInfo().getRole();
-        return podRole.get().equals(allocationRole);
-    }
-
-    private static Map<String, List<MesosResource>> getUnreservedAtomicPool(
-            Collection<MesosResource> mesosResources) {
-        Map<String, List<MesosResource>> pool = new HashMap<String, List<MesosResource>>();
-
-        for (MesosResource mesosResource : getUnreservedAtomicResources(mesosResources)) {
-            String name = mesosResource.getName();
-            List<MesosResource> resList = pool.get(name);
-
-            if (resList == null) {
-                resList = new ArrayList<MesosResource>();
-            }
-
-            resList.add(mesosResource);
-            pool.put(name, resList);
-        }
-
-        return pool;
-    }
-
-    private static Map<String, MesosResource> getDynamicallyReservedPool(
-            Collection<MesosResource> mesosResources) {
-        Map<String, MesosResource> reservedPool = new HashMap<String, MesosResource>();
-
-        for (MesosResource mesResource : mesosResources) {
-            if (mesResource.hasResourceId()) {
-                reservedPool.put(mesResource.getResourceId().get(), mesResource);
-            }
-        }
-
-        return reservedPool;
-    }
-
-    private Map<String, Map<String, Value>> getReservableMergedPool(Collection<MesosResource> mesosResources) {
-        Map<String, List<MesosResource>> rolePool = new HashMap<>();
-        for (MesosResource mesosResource : getMergedResources(mesosResources)) {
-            if (!mesosResource.hasResourceId()) {
-                String role = mesosResource.getRole();
-                List<MesosResource> resources = rolePool.get(role);
-                if (resources == null) {
-                    resources = new ArrayList<>();
-                }
-
-                resources.add(mesosResource);
-                rolePool.put(role, resources);
-            }
-        }
-
-        Map<String, Map<String, Value>> roleResourcePool = new HashMap<>();
-        for (Map.Entry<String, List<MesosResource>> entry : rolePool.entrySet()) {
-            roleResourcePool.put(entry.getKey(), getResourcePool(entry.getValue()));
-        }
-
-        return roleResourcePool;
-    }
-
-    private static Map<String, Value> getResourcePool(Collection<MesosResource> mesosResources) {
-        Map<String, Value> pool = new HashMap<>();
-        for (MesosResource mesosResource : mesosResources) {
-            String name = mesosResource.getName();
-            Value currValue = pool.get(name);
-
-            if (currValue == null) {
-                currValue = ValueUtils.getZero(mesosResource.getType());
-            }
-
-            pool.put(name, ValueUtils.add(currValue, mesosResource.getValue()));
-        }
-
-        return pool;
+        return ResourceValue.of(available).contains(ResourceValue.of(desired));
     }
 
-    private static Collection<MesosResource> getUnreservedAtomicResources(
-            Collection<MesosResource> mesosResources) {
-        return getUnreservedResources(getAtomicResources(mesosResources));
-    }
-
-    private static Collection<MesosResource> getUnreservedResources(
-            Collection<MesosResource> mesosResources) {
-        Collection<MesosResource> unreservedResources = new ArrayList<MesosResource>();
-
-        for (MesosResource mesosResource : mesosResources) {
-            if (!mesosResource.getResourceId().isPresent()) {
-                unreservedResources.add(mesosResource);
-            }
-        }
-
-        return unreservedResources;
-    }
-
-    private static Collection<MesosResource> getAtomicResources(
-            Collection<MesosResource> mesosResources) {
-        Collection<MesosResource> atomicResources = new ArrayList<>();
-
-        for (MesosResource mesosResource : mesosResources) {
-            if (mesosResource.isAtomic()) {
-                atomicResources.add(mesosResource);
-            }
+    private static Map<String, Value> toProto(Map<String, ResourceValue> pool) {
+        Map<String, Value> protoPool = new HashMap<>();
+        for (Map.Entry<String, ResourceValue> entry : pool.entrySet()) {
+            protoPool.put(entry.getKey(), entry.getValue().toProto());
         }
-
-        return atomicResources;
-    }
-
-    private static Collection<MesosResource> getMergedResources(
-            Collection<MesosResource> mesosResources) {
-        Collection<MesosResource> mergedResources = new ArrayList<>();
-
-        for (MesosResource mesosResource : mesosResources) {
-            if (!mesosResource.isAtomic()) {
-                mergedResources.add(mesosResource);
-            }
-        }
-
-        return mergedResources;
+        return protoPool;
     }
 }
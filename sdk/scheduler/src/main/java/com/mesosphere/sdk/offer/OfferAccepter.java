@@ -10,6 +10,7 @@ import org.apache.mesos.SchedulerDriver;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +25,18 @@ public class OfferAccepter {
     private static final Protos.Filters FILTERS = Protos.Filters.newBuilder().setRefuseSeconds(1).build();
 
     public void accept(List<OfferRecommendation> recommendations) {
+        accept(recommendations, Collections::singletonList);
+    }
+
+    /**
+     * Accepts the offers referenced by the provided recommendations, where any of those offers may have been merged
+     * from several original offers for the same agent and allocation role.
+     *
+     * @param toOriginalOfferIds returns the IDs of the original offers which make up the offer with a given ID
+     */
+    public void accept(
+            List<OfferRecommendation> recommendations,
+            Function<Protos.OfferID, Collection<Protos.OfferID>> toOriginalOfferIds) {
         if (CollectionUtils.isEmpty(recommendations)) {
             LOGGER.info("No recommendations, nothing to do");
             return;
@@ -47,6 +60,7 @@ public class OfferAccepter {
             driver.get().acceptOffers(
                     agentRecs.getValue().stream()
                             .map(rec -> rec.getOffer().getId())
+                            .flatMap(offerId -> toOriginalOfferIds.apply(offerId).stream())
                             .collect(Collectors.toSet()),
                     operations,
                     FILTERS);
@@ -0,0 +1,170 @@
+package com.mesosphere.sdk.offer;
+
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.Resource;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable, pre-indexed view of the resources in a single {@link Offer} which are available to a given role.
+ * Building the index requires walking all of the offer's resources, so the result may be reused to create any number
+ * of {@link MesosResourcePool}s for the same offer, each of which is a cheap copy-on-write view of the index.
+ */
+public class OfferResourceIndex {
+
+    private final Offer offer;
+    private final Map<String, List<MesosResource>> unreservedAtomicPool;
+    private final Map<String, MesosResource> dynamicallyReservedPoolByResourceId;
+    private final Map<String, Map<String, ResourceValue>> reservableMergedPoolByRole;
+
+    /**
+     * A thread-safe cache of {@link OfferResourceIndex}es, scoped to a single offer cycle. Entries are keyed by the
+     * offer itself rather than its ID, so that offers which share an ID but differ in content are never confused.
+     * Lookups of the same offer instance are cheap, as protobuf messages memoize their hash codes.
+     */
+    public static class Cache {
+        private final Map<Offer, Map<Optional<String>, OfferResourceIndex>> indexes = new ConcurrentHashMap<>();
+        private final Map<Offer, OfferResourceSummary> summaries = new ConcurrentHashMap<>();
+
+        /**
+         * Returns an index for the provided offer and role, building it if it isn't already cached.
+         */
+        public OfferResourceIndex get(Offer offer, Optional<String> role) {
+            return indexes.computeIfAbsent(offer, o -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(role, r -> new OfferResourceIndex(offer, r));
+        }
+
+        /**
+         * Returns a summary of the provided offer's resources, building it if it isn't already cached.
+         */
+        public OfferResourceSummary getSummary(Offer offer) {
+            return summaries.computeIfAbsent(offer, OfferResourceSummary::new);
+        }
+    }
+
+    /**
+     * Builds an index of the resources in the provided {@code offer}. If a {@code role} is provided, only resources
+     * which were allocated to that role are included.
+     */
+    public OfferResourceIndex(Offer offer, Optional<String> role) {
+        this.offer = offer;
+        final Collection<MesosResource> mesosResources = getMesosResources(offer, role);
+        this.unreservedAtomicPool = Collections.unmodifiableMap(getUnreservedAtomicPool(mesosResources));
+        this.dynamicallyReservedPoolByResourceId =
+                Collections.unmodifiableMap(getDynamicallyReservedPool(mesosResources));
+        this.reservableMergedPoolByRole = Collections.unmodifiableMap(getReservableMergedPool(mesosResources));
+    }
+
+    /**
+     * Returns the offer which this index represents.
+     */
+    public Offer getOffer() {
+        return offer;
+    }
+
+    /**
+     * Returns the unreserved resources which cannot be partially consumed, such as MOUNT volumes.
+     */
+    Map<String, List<MesosResource>> getUnreservedAtomicPool() {
+        return unreservedAtomicPool;
+    }
+
+    /**
+     * Returns the resources which were dynamically reserved, keyed by their resource ID.
+     */
+    Map<String, MesosResource> getDynamicallyReservedPoolByResourceId() {
+        return dynamicallyReservedPoolByResourceId;
+    }
+
+    /**
+     * Returns the merged values of reservable resources, keyed by pre-reserved role and then resource name.
+     */
+    Map<String, Map<String, ResourceValue>> getReservableMergedPoolByRole() {
+        return reservableMergedPoolByRole;
+    }
+
+    private static Collection<MesosResource> getMesosResources(Offer offer, Optional<String> role) {
+        Collection<MesosResource> mesosResources = new ArrayList<MesosResource>();
+        for (Resource resource : offer.getResourcesList()) {
+            if (consumableResource(role, resource)) {
+                mesosResources.add(new MesosResource(resource));
+            }
+        }
+
+        return mesosResources;
+    }
+
+    private static boolean consumableResource(Optional<String> podRole, Resource resource) {
+        if (!podRole.isPresent()
+                || !resource.hasAllocationInfo()
+                || !resource.getAllocationInfo().hasRole()) {
+            return true;
+        }
+
+        String allocationRole = resource.getAllocationInfo().getRole();
+        return podRole.get().equals(allocationRole);
+    }
+
+    private static Map<String, List<MesosResource>> getUnreservedAtomicPool(
+            Collection<MesosResource> mesosResources) {
+        Map<String, List<MesosResource>> pool = new HashMap<String, List<MesosResource>>();
+
+        for (MesosResource mesosResource : mesosResources) {
+            if (!mesosResource.isAtomic() || mesosResource.getResourceId().isPresent()) {
+                continue;
+            }
+            String name = mesosResource.getName();
+            List<MesosResource> resList = pool.get(name);
+
+            if (resList == null) {
+                resList = new ArrayList<MesosResource>();
+            }
+
+            resList.add(mesosResource);
+            pool.put(name, resList);
+        }
+
+        pool.replaceAll((name, resList) -> Collections.unmodifiableList(resList));
+        return pool;
+    }
+
+    private static Map<String, MesosResource> getDynamicallyReservedPool(
+            Collection<MesosResource> mesosResources) {
+        Map<String, MesosResource> reservedPool = new HashMap<String, MesosResource>();
+
+        for (MesosResource mesResource : mesosResources) {
+            if (mesResource.hasResourceId()) {
+                reservedPool.put(mesResource.getResourceId().get(), mesResource);
+            }
+        }
+
+        return reservedPool;
+    }
+
+    private static Map<String, Map<String, ResourceValue>> getReservableMergedPool(
+            Collection<MesosResource> mesosResources) {
+        Map<String, Map<String, ResourceValue>> roleResourcePool = new HashMap<>();
+        for (MesosResource mesosResource : mesosResources) {
+            if (mesosResource.isAtomic() || mesosResource.hasResourceId()) {
+                continue;
+            }
+
+            Map<String, ResourceValue> pool = roleResourcePool.get(mesosResource.getRole());
+            if (pool == null) {
+                pool = new HashMap<>();
+                roleResourcePool.put(mesosResource.getRole(), pool);
+            }
+
+            // Mesos requires that all resources with a given name have the same type. If that were ever violated,
+            // only the first type which was seen is kept.
+            pool.merge(
+                    mesosResource.getName(),
+                    ResourceValue.of(mesosResource.getValue()),
+                    (currValue, value) -> currValue.getType() == value.getType() ? currValue.add(value) : currValue);
+        }
+
+        roleResourcePool.replaceAll((role, pool) -> Collections.unmodifiableMap(pool));
+        return roleResourcePool;
+    }
+}
@@ -0,0 +1,121 @@
+package com.mesosphere.sdk.offer;
+
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.Resource;
+import org.apache.mesos.Protos.Value;
+
+import java.util.BitSet;
+
+/**
+ * A compact summary of the unreserved resources in an {@link Offer} which are available for new reservations: the
+ * totals of the common scalar resources, the set of offered ports, and the number of MOUNT volumes.
+ *
+ * <p>Resources which were already reserved by a service (i.e. which have a resource ID) are excluded, while resources
+ * pre-reserved for any role are included. The summary therefore only gives an upper bound on what a new pod may
+ * reserve from the offer, which allows offers that are certain to be insufficient to be skipped cheaply.
+ */
+public class OfferResourceSummary {
+
+    /**
+     * The scalar resources which are tracked by the summary, in index order.
+     */
+    private static final String[] SCALAR_NAMES = {
+            Constants.CPUS_RESOURCE_TYPE,
+            Constants.MEMORY_RESOURCE_TYPE,
+            Constants.DISK_RESOURCE_TYPE,
+            Constants.GPUS_RESOURCE_TYPE
+    };
+
+    private static final int MAX_PORT = 65535;
+
+    private final double[] scalars = new double[SCALAR_NAMES.length];
+    private final BitSet ports = new BitSet();
+    private int mountVolumeCount = 0;
+
+    /**
+     * Returns the number of scalar resources which are tracked by summaries.
+     */
+    public static int getScalarCount() {
+        return SCALAR_NAMES.length;
+    }
+
+    /**
+     * Returns the index of the provided scalar resource name, or {@code -1} if the resource isn't tracked.
+     */
+    public static int getScalarIndex(String resourceName) {
+        for (int i = 0; i < SCALAR_NAMES.length; ++i) {
+            if (SCALAR_NAMES[i].equals(resourceName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the scalar resource name at the provided index.
+     */
+    public static String getScalarName(int index) {
+        return SCALAR_NAMES[index];
+    }
+
+    /**
+     * Builds a summary of the resources in the provided {@code offer}.
+     */
+    public OfferResourceSummary(Offer offer) {
+        for (Resource resource : offer.getResourcesList()) {
+            if (ResourceUtils.hasResourceId(resource)) {
+                continue;
+            }
+            if (resource.hasDisk()
+                    && resource.getDisk().hasSource()
+                    && resource.getDisk().getSource().getType() == Resource.DiskInfo.Source.Type.MOUNT) {
+                mountVolumeCount++;
+                continue;
+            }
+
+            if (resource.getType() == Value.Type.SCALAR) {
+                int index = getScalarIndex(resource.getName());
+                if (index >= 0) {
+                    scalars[index] += resource.getScalar().getValue();
+                }
+            } else if (resource.getType() == Value.Type.RANGES
+                    && resource.getName().equals(Constants.PORTS_RESOURCE_TYPE)) {
+                for (Value.Range range : resource.getRanges().getRangeList()) {
+                    long begin = Math.max(0, range.getBegin());
+                    long end = Math.min(MAX_PORT, range.getEnd());
+                    if (begin <= end) {
+                        ports.set((int) begin, (int) end + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the total amount of the scalar resource with the provided index.
+     */
+    public double getScalar(int index) {
+        return scalars[index];
+    }
+
+    /**
+     * Returns whether the provided port is offered.
+     */
+    public boolean hasPort(long port) {
+        return port >= 0 && port <= MAX_PORT && ports.get((int) port);
+    }
+
+    /**
+     * Returns the total number of offered ports.
+     */
+    public int getPortCount() {
+        return ports.cardinality();
+    }
+
+    /**
+     * Returns the number of MOUNT volumes in the offer.
+     */
+    public int getMountVolumeCount() {
+        return mountVolumeCount;
+    }
+}
@@ -0,0 +1,404 @@
+package com.mesosphere.sdk.offer;
+
+import org.apache.mesos.Protos.Value;
+
+import java.util.Arrays;
+
+/**
+ * An immutable scalar, ranges, or set resource value, backed by primitive fields rather than a {@link Value} protobuf.
+ * This is used for the bookkeeping of resources in a {@link MesosResourcePool}, where values are repeatedly added,
+ * subtracted, and compared while evaluating an offer. Comparisons don't allocate, and arithmetic allocates only the
+ * result, without any intermediate protobuf messages or builders. Values are only converted to protobuf via
+ * {@link #toProto()} when needed.
+ *
+ * <p>Ranges are stored sorted and merged, with overlapping or adjacent ranges combined, and set items are stored
+ * sorted and deduplicated.
+ */
+public final class ResourceValue {
+
+    private static final long[] NO_RANGES = new long[0];
+    private static final String[] NO_ITEMS = new String[0];
+
+    private final Value.Type type;
+    private final double scalar;
+    // Pairs of {begin, end}: sorted, inclusive, and neither overlapping nor adjacent.
+    private final long[] ranges;
+    // Sorted and distinct.
+    private final String[] items;
+
+    private ResourceValue(Value.Type type, double scalar, long[] ranges, String[] items) {
+        this.type = type;
+        this.scalar = scalar;
+        this.ranges = ranges;
+        this.items = items;
+    }
+
+    /**
+     * Returns the equivalent of the provided protobuf value.
+     *
+     * @throws IllegalArgumentException if the value isn't a scalar, ranges, or set
+     */
+    public static ResourceValue of(Value value) {
+        switch (value.getType()) {
+            case SCALAR:
+                return scalar(value.getScalar().getValue());
+            case RANGES: {
+                int count = value.getRanges().getRangeCount();
+                long[] ranges = new long[count * 2];
+                for (int i = 0; i < count; ++i) {
+                    Value.Range range = value.getRanges().getRange(i);
+                    ranges[i * 2] = range.getBegin();
+                    ranges[i * 2 + 1] = range.getEnd();
+                }
+                return new ResourceValue(Value.Type.RANGES, 0, normalizeRanges(ranges), NO_ITEMS);
+            }
+            case SET: {
+                String[] items = value.getSet().getItemList().toArray(new String[0]);
+                Arrays.sort(items);
+                return new ResourceValue(Value.Type.SET, 0, NO_RANGES, distinct(items));
+            }
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported value type: %s", value.getType()));
+        }
+    }
+
+    /**
+     * Returns the provided scalar value.
+     */
+    public static ResourceValue scalar(double value) {
+        return new ResourceValue(Value.Type.SCALAR, value, NO_RANGES, NO_ITEMS);
+    }
+
+    /**
+     * Returns an empty value of the provided type, equivalent to {@link ValueUtils#getZero(Value.Type)}.
+     *
+     * @throws IllegalArgumentException if the type isn't a scalar, ranges, or set
+     */
+    public static ResourceValue zero(Value.Type type) {
+        switch (type) {
+            case SCALAR:
+            case RANGES:
+            case SET:
+                return new ResourceValue(type, 0, NO_RANGES, NO_ITEMS);
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported value type: %s", type));
+        }
+    }
+
+    public Value.Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the value of a scalar, or zero for other types.
+     */
+    public double getScalar() {
+        return scalar;
+    }
+
+    /**
+     * Returns the number of merged ranges in a ranges value, or zero for other types.
+     */
+    public int getRangeCount() {
+        return ranges.length / 2;
+    }
+
+    /**
+     * Returns the inclusive start of the {@code index}th range, in ascending order.
+     */
+    public long getRangeBegin(int index) {
+        return ranges[index * 2];
+    }
+
+    /**
+     * Returns the inclusive end of the {@code index}th range, in ascending order.
+     */
+    public long getRangeEnd(int index) {
+        return ranges[index * 2 + 1];
+    }
+
+    /**
+     * Returns the sum, union, or merge of this value and the provided value.
+     *
+     * @throws IllegalArgumentException if the values are of different types
+     */
+    public ResourceValue add(ResourceValue other) {
+        checkSameType(other);
+        switch (type) {
+            case SCALAR:
+                return scalar(scalar + other.scalar);
+            case RANGES:
+                return new ResourceValue(type, 0, addRanges(ranges, other.ranges), NO_ITEMS);
+            default:
+                return new ResourceValue(type, 0, NO_RANGES, addItems(items, other.items));
+        }
+    }
+
+    /**
+     * Returns the difference between this value and the provided value. Ranges and set items in the provided value
+     * which aren't in this value are ignored.
+     *
+     * @throws IllegalArgumentException if the values are of different types
+     */
+    public ResourceValue subtract(ResourceValue other) {
+        checkSameType(other);
+        switch (type) {
+            case SCALAR:
+                return scalar(scalar - other.scalar);
+            case RANGES:
+                return new ResourceValue(type, 0, subtractRanges(ranges, other.ranges), NO_ITEMS);
+            default:
+                return new ResourceValue(type, 0, NO_RANGES, subtractItems(items, other.items));
+        }
+    }
+
+    /**
+     * Returns whether this value is sufficient to satisfy the provided value: whether it's at least as large a scalar,
+     * or whether it includes all of the provided ranges or set items. Returns {@code false} if the values are of
+     * different types.
+     */
+    public boolean contains(ResourceValue other) {
+        if (type != other.type) {
+            return false;
+        }
+        switch (type) {
+            case SCALAR:
+                return other.scalar <= scalar;
+            case RANGES:
+                return containsRanges(ranges, other.ranges);
+            default:
+                return containsItems(items, other.items);
+        }
+    }
+
+    /**
+     * Returns the protobuf equivalent of this value.
+     */
+    public Value toProto() {
+        Value.Builder builder = Value.newBuilder().setType(type);
+        switch (type) {
+            case SCALAR:
+                builder.getScalarBuilder().setValue(scalar);
+                break;
+            case RANGES:
+                Value.Ranges.Builder rangesBuilder = builder.getRangesBuilder();
+                for (int i = 0; i < ranges.length; i += 2) {
+                    rangesBuilder.addRangeBuilder().setBegin(ranges[i]).setEnd(ranges[i + 1]);
+                }
+                break;
+            default:
+                builder.getSetBuilder().addAllItem(Arrays.asList(items));
+                break;
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ResourceValue)) {
+            return false;
+        }
+        ResourceValue other = (ResourceValue) o;
+        return type == other.type
+                && Double.compare(scalar, other.scalar) == 0
+                && Arrays.equals(ranges, other.ranges)
+                && Arrays.equals(items, other.items);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type.hashCode();
+        result = 31 * result + Double.hashCode(scalar);
+        result = 31 * result + Arrays.hashCode(ranges);
+        return 31 * result + Arrays.hashCode(items);
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case SCALAR:
+                return Double.toString(scalar);
+            case RANGES:
+                StringBuilder builder = new StringBuilder("[");
+                for (int i = 0; i < ranges.length; i += 2) {
+                    if (i > 0) {
+                        builder.append(", ");
+                    }
+                    builder.append(ranges[i]).append('-').append(ranges[i + 1]);
+                }
+                return builder.append(']').toString();
+            default:
+                return Arrays.toString(items);
+        }
+    }
+
+    private void checkSameType(ResourceValue other) {
+        if (type != other.type) {
+            throw new IllegalArgumentException(String.format(
+                    "Mismatched value types: %s and %s", type, other.type));
+        }
+    }
+
+    /**
+     * Sorts and merges the provided range pairs in place, returning the merged ranges.
+     */
+    private static long[] normalizeRanges(long[] ranges) {
+        int count = ranges.length / 2;
+        // Insertion sort by begin: offers typically contain a few ranges which are already sorted.
+        for (int i = 1; i < count; ++i) {
+            long begin = ranges[i * 2];
+            long end = ranges[i * 2 + 1];
+            int j = i - 1;
+            while (j >= 0 && ranges[j * 2] > begin) {
+                ranges[(j + 1) * 2] = ranges[j * 2];
+                ranges[(j + 1) * 2 + 1] = ranges[j * 2 + 1];
+                --j;
+            }
+            ranges[(j + 1) * 2] = begin;
+            ranges[(j + 1) * 2 + 1] = end;
+        }
+
+        int length = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            length = appendRange(ranges, length, ranges[i], ranges[i + 1]);
+        }
+        return length == ranges.length ? ranges : Arrays.copyOf(ranges, length);
+    }
+
+    /**
+     * Appends the provided range to the first {@code length} entries of {@code out}, merging it into the last range if
+     * they overlap or are adjacent. Ranges must be appended in order of their begin values.
+     *
+     * @return the new length of {@code out}
+     */
+    private static int appendRange(long[] out, int length, long begin, long end) {
+        if (length > 0 && begin <= out[length - 1] + 1) {
+            out[length - 1] = Math.max(out[length - 1], end);
+            return length;
+        }
+        out[length] = begin;
+        out[length + 1] = end;
+        return length + 2;
+    }
+
+    private static long[] addRanges(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                length = appendRange(out, length, a[i], a[i + 1]);
+                i += 2;
+            } else {
+                length = appendRange(out, length, b[j], b[j + 1]);
+                j += 2;
+            }
+        }
+        return length == out.length ? out : Arrays.copyOf(out, length);
+    }
+
+    private static long[] subtractRanges(long[] a, long[] b) {
+        // Each range in b may split at most one range in a into two.
+        long[] out = new long[a.length + b.length];
+        int length = 0;
+        int j = 0;
+        for (int i = 0; i < a.length; i += 2) {
+            long begin = a[i];
+            long end = a[i + 1];
+            // Skip ranges in b which end before this range begins:
+            while (j < b.length && b[j + 1] < begin) {
+                j += 2;
+            }
+            // Remove ranges in b which overlap this range:
+            int k = j;
+            while (k < b.length && b[k] <= end && begin <= end) {
+                if (b[k] > begin) {
+                    out[length++] = begin;
+                    out[length++] = b[k] - 1;
+                }
+                begin = Math.max(begin, b[k + 1] + 1);
+                k += 2;
+            }
+            if (begin <= end) {
+                out[length++] = begin;
+                out[length++] = end;
+            }
+        }
+        return length == out.length ? out : Arrays.copyOf(out, length);
+    }
+
+    private static boolean containsRanges(long[] a, long[] b) {
+        // As a is merged, each range in b must lie entirely within a single range in a.
+        int i = 0;
+        for (int j = 0; j < b.length; j += 2) {
+            while (i < a.length && a[i + 1] < b[j]) {
+                i += 2;
+            }
+            if (i >= a.length || a[i] > b[j] || a[i + 1] < b[j + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] distinct(String[] sorted) {
+        int length = 0;
+        for (int i = 0; i < sorted.length; ++i) {
+            if (length == 0 || !sorted[length - 1].equals(sorted[i])) {
+                sorted[length++] = sorted[i];
+            }
+        }
+        return length == sorted.length ? sorted : Arrays.copyOf(sorted, length);
+    }
+
+    private static String[] addItems(String[] a, String[] b) {
+        String[] out = new String[a.length + b.length];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            int cmp = i >= a.length ? 1 : j >= b.length ? -1 : a[i].compareTo(b[j]);
+            if (cmp <= 0) {
+                out[length++] = a[i++];
+                if (cmp == 0) {
+                    ++j;
+                }
+            } else {
+                out[length++] = b[j++];
+            }
+        }
+        return length == out.length ? out : Arrays.copyOf(out, length);
+    }
+
+    private static String[] subtractItems(String[] a, String[] b) {
+        String[] out = new String[a.length];
+        int length = 0;
+        int j = 0;
+        for (String item : a) {
+            while (j < b.length && b[j].compareTo(item) < 0) {
+                ++j;
+            }
+            if (j >= b.length || !b[j].equals(item)) {
+                out[length++] = item;
+            }
+        }
+        return length == out.length ? out : Arrays.copyOf(out, length);
+    }
+
+    private static boolean containsItems(String[] a, String[] b) {
+        int i = 0;
+        for (String item : b) {
+            while (i < a.length && a[i].compareTo(item) < 0) {
+                ++i;
+            }
+            if (i >= a.length || !a[i].equals(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
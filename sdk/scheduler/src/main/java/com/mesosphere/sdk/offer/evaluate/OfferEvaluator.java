@@ -5,8 +5,12 @@ import com.google.protobuf.TextFormat;
 import com.mesosphere.sdk.http.queries.ArtifactQueries;
 import com.mesosphere.sdk.offer.*;
 import com.mesosphere.sdk.offer.history.OfferOutcome;
+import com.mesosphere.sdk.offer.evaluate.placement.CompiledPlacementRule;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementTaskIndex;
 import com.mesosphere.sdk.offer.history.OfferOutcomeTracker;
 import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
+import com.mesosphere.sdk.scheduler.Metrics;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
 import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
 import com.mesosphere.sdk.scheduler.recovery.FailureUtils;
@@ -30,6 +34,71 @@ import java.util.stream.Collectors;
  */
 public class OfferEvaluator {
 
+    /**
+     * The result of evaluating offers against a requirement. The offer outcomes and evaluation stage durations are
+     * held until {@link #record()} is called, so that an evaluation which is discarded by the caller doesn't show up in
+     * the offer history or metrics.
+     */
+    public static class Evaluation {
+
+        /**
+         * The time taken by a single evaluation stage to evaluate an offer.
+         */
+        private static class StageDuration {
+            private final Class<?> stageClass;
+            private final long durationNanos;
+
+            private StageDuration(Class<?> stageClass, long durationNanos) {
+                this.stageClass = stageClass;
+                this.durationNanos = durationNanos;
+            }
+        }
+
+        private final Optional<OfferOutcomeTracker> offerOutcomeTracker;
+        private final Optional<String> resourceNamespace;
+        private final List<OfferOutcome> offerOutcomes = new ArrayList<>();
+        private final List<StageDuration> stageDurations = new ArrayList<>();
+        private List<OfferRecommendation> recommendations = Collections.emptyList();
+
+        Evaluation(Optional<OfferOutcomeTracker> offerOutcomeTracker, Optional<String> resourceNamespace) {
+            this.offerOutcomeTracker = offerOutcomeTracker;
+            this.resourceNamespace = resourceNamespace;
+        }
+
+        /**
+         * Returns the recommendations for accepting the selected offer, or an empty list if no offer was selected.
+         */
+        public List<OfferRecommendation> getRecommendations() {
+            return recommendations;
+        }
+
+        /**
+         * Passes the offer outcomes and stage durations from this evaluation to the {@link OfferOutcomeTracker} and
+         * metrics. This should be called at most once, and only for an evaluation whose recommendations are used.
+         */
+        public void record() {
+            for (StageDuration stageDuration : stageDurations) {
+                Metrics.updateEvaluationStageDuration(
+                        resourceNamespace, stageDuration.stageClass, stageDuration.durationNanos);
+            }
+            if (offerOutcomeTracker.isPresent()) {
+                for (OfferOutcome offerOutcome : offerOutcomes) {
+                    offerOutcomeTracker.get().track(offerOutcome);
+                }
+            }
+        }
+
+        private void addStageDuration(Class<?> stageClass, long durationNanos) {
+            stageDurations.add(new StageDuration(stageClass, durationNanos));
+        }
+
+        private void addOfferOutcome(OfferOutcome offerOutcome) {
+            if (offerOutcomeTracker.isPresent()) {
+                offerOutcomes.add(offerOutcome);
+            }
+        }
+    }
+
     private final Logger logger;
     private final FrameworkStore frameworkStore;
     private final StateStore stateStore;
@@ -41,6 +110,11 @@ public class OfferEvaluator {
     private final Optional<String> resourceNamespace;
     private final boolean useDefaultExecutor;
 
+    // Placement key counts, kept up to date with the service's tasks and shared across offers and offer cycles.
+    private final PlacementTaskIndex placementTaskIndex = new PlacementTaskIndex();
+    // Compiled placement rules, which retain the statistics used to order their evaluation across offer cycles.
+    private final CompiledPlacementRule.Cache compiledPlacementRules;
+
     public OfferEvaluator(
             FrameworkStore frameworkStore,
             StateStore stateStore,
@@ -61,10 +135,39 @@ public class OfferEvaluator {
         this.schedulerConfig = schedulerConfig;
         this.resourceNamespace = resourceNamespace;
         this.useDefaultExecutor = useDefaultExecutor;
+        this.compiledPlacementRules = new CompiledPlacementRule.Cache(resourceNamespace);
     }
 
     public List<OfferRecommendation> evaluate(PodInstanceRequirement podInstanceRequirement, List<Protos.Offer> offers)
             throws InvalidRequirementException, IOException {
+        return evaluate(podInstanceRequirement, offers, new OfferResourceIndex.Cache());
+    }
+
+    /**
+     * Evaluates the provided offers against the provided requirement, using {@code offerResourceIndexCache} to avoid
+     * re-indexing the resources of offers which were already evaluated against other requirements in the same offer
+     * cycle.
+     */
+    public List<OfferRecommendation> evaluate(
+            PodInstanceRequirement podInstanceRequirement,
+            List<Protos.Offer> offers,
+            OfferResourceIndex.Cache offerResourceIndexCache) throws InvalidRequirementException, IOException {
+        Evaluation evaluation = evaluateWithoutRecording(podInstanceRequirement, offers, offerResourceIndexCache);
+        evaluation.record();
+        return evaluation.getRecommendations();
+    }
+
+    /**
+     * Same as {@link #evaluate(PodInstanceRequirement, List, OfferResourceIndex.Cache)}, except the offer outcomes and
+     * stage durations from the evaluation are only passed to the {@link OfferOutcomeTracker} and metrics once
+     * {@link Evaluation#record()} is called. This allows the caller to speculatively evaluate offers and then discard
+     * the result, so long as the requirement doesn't have {@link #hasSideEffects(PodInstanceRequirement) side effects}.
+     */
+    public Evaluation evaluateWithoutRecording(
+            PodInstanceRequirement podInstanceRequirement,
+            List<Protos.Offer> offers,
+            OfferResourceIndex.Cache offerResourceIndexCache) throws InvalidRequirementException, IOException {
+        Evaluation evaluation = new Evaluation(offerOutcomeTracker, resourceNamespace);
         // All tasks in the service (used by some PlacementRules):
         Map<String, Protos.TaskInfo> allTasks = stateStore.fetchTasks().stream()
                 .collect(Collectors.toMap(Protos.TaskInfo::getName, Function.identity()));
@@ -75,40 +178,79 @@ public class OfferEvaluator {
                 .filter(taskInfo -> taskInfo != null)
                 .collect(Collectors.toMap(Protos.TaskInfo::getName, Function.identity()));
 
-        for (int i = 0; i < offers.size(); ++i) {
-            List<OfferEvaluationStage> evaluationStages =
-                    getEvaluationPipeline(podInstanceRequirement, allTasks.values(), thisPodTasks);
-
-            Protos.Offer offer = offers.get(i);
+        if (offers.isEmpty()) {
+            return evaluation;
+        }
 
-            MesosResourcePool resourcePool = new MesosResourcePool(
-                    offer, OfferEvaluationUtils.getRole(podInstanceRequirement.getPodInstance().getPod()));
+        // None of the following depend on the content of the offers, so they're computed once and then shared across
+        // all offers. The stages themselves are stateless: all per-offer state lives in the MesosResourcePool and
+        // PodInfoBuilder which are passed to them.
+        Collection<Protos.TaskInfo> placementTasks =
+                podInstanceRequirement.getPodInstance().getPod().getPlacementRule().isPresent()
+                        ? placementTaskIndex.update(allTasks.values())
+                        : allTasks.values();
+        List<OfferEvaluationStage> evaluationStages =
+                getEvaluationPipeline(podInstanceRequirement, placementTasks, thisPodTasks);
+        Map<TaskSpec, GoalStateOverride> overrideMap = getOverrideMap(podInstanceRequirement);
+        UUID targetConfig = getTargetConfig(podInstanceRequirement, thisPodTasks.values());
+        Protos.FrameworkID frameworkId = frameworkStore.fetchFrameworkId().get();
+        Optional<String> role = OfferEvaluationUtils.getRole(podInstanceRequirement.getPodInstance().getPod());
+        // Offers for new pods are first checked against a summary of their resources, so that offers which are
+        // clearly insufficient don't need to go through the full pipeline.
+        Optional<OfferPreFilter> preFilter = isNewRequirement(podInstanceRequirement, thisPodTasks)
+                ? Optional.of(new OfferPreFilter(
+                        podInstanceRequirement.getPodInstance(),
+                        getNewResourceSets(podInstanceRequirement).values(),
+                        useDefaultExecutor,
+                        podInstanceRequirement.getPodInstance().getPod().getPlacementRule()
+                                .map(compiledPlacementRules::get),
+                        placementTasks))
+                : Optional.empty();
 
-            Map<TaskSpec, GoalStateOverride> overrideMap = new HashMap<>();
-            for (TaskSpec taskSpec : podInstanceRequirement.getPodInstance().getPod().getTasks()) {
-                GoalStateOverride override =
-                        stateStore.fetchGoalOverrideStatus(
-                                TaskSpec.getInstanceName(podInstanceRequirement.getPodInstance(), taskSpec))
-                                .target;
+        for (int i = 0; i < offers.size(); ++i) {
+            Protos.Offer offer = offers.get(i);
 
-                overrideMap.put(taskSpec, override);
+            if (preFilter.isPresent()) {
+                long startNanos = System.nanoTime();
+                EvaluationOutcome outcome =
+                        preFilter.get().filter(offer, offerResourceIndexCache.getSummary(offer));
+                evaluation.addStageDuration(OfferPreFilter.class, System.nanoTime() - startNanos);
+                if (!outcome.isPassing()) {
+                    StringBuilder outcomeDetails = new StringBuilder();
+                    logOutcome(outcomeDetails, outcome, "");
+                    // trim extra trailing newline:
+                    outcomeDetails.deleteCharAt(outcomeDetails.length() - 1);
+                    logger.info("Offer {}, {}: failed pre-filter:\n{}",
+                            i + 1, offer.getId().getValue(), outcomeDetails.toString());
+
+                    evaluation.addOfferOutcome(new OfferOutcome(
+                            podInstanceRequirement.getName(),
+                            false,
+                            offer,
+                            outcomeDetails.toString()));
+                    continue;
+                }
             }
 
+            MesosResourcePool resourcePool = new MesosResourcePool(offerResourceIndexCache.get(offer, role));
+
             PodInfoBuilder podInfoBuilder = new PodInfoBuilder(
                     podInstanceRequirement,
                     serviceName,
-                    getTargetConfig(podInstanceRequirement, thisPodTasks.values()),
+                    targetConfig,
                     templateUrlFactory,
                     schedulerConfig,
                     thisPodTasks.values(),
-                    frameworkStore.fetchFrameworkId().get(),
+                    frameworkId,
                     useDefaultExecutor,
                     overrideMap);
             List<EvaluationOutcome> outcomes = new ArrayList<>();
             int failedOutcomeCount = 0;
 
             for (OfferEvaluationStage evaluationStage : evaluationStages) {
+                long startNanos = System.nanoTime();
                 EvaluationOutcome outcome = evaluationStage.evaluate(resourcePool, podInfoBuilder);
+                evaluation.addStageDuration(evaluationStage.getClass(), System.nanoTime() - startNanos);
                 outcomes.add(outcome);
                 if (!outcome.isPassing()) {
                     failedOutcomeCount++;
@@ -132,13 +274,11 @@ public class OfferEvaluator {
                         evaluationStages.size(),
                         outcomeDetails.toString());
 
-                if (offerOutcomeTracker.isPresent()) {
-                    offerOutcomeTracker.get().track(new OfferOutcome(
-                            podInstanceRequirement.getName(),
-                            false,
-                            offer,
-                            outcomeDetails.toString()));
-                }
+                evaluation.addOfferOutcome(new OfferOutcome(
+                        podInstanceRequirement.getName(),
+                        false,
+                        offer,
+                        outcomeDetails.toString()));
             } else {
                 List<OfferRecommendation> recommendations = outcomes.stream()
                         .map(outcome -> outcome.getOfferRecommendations())
@@ -147,19 +287,30 @@ public class OfferEvaluator {
                 logger.info("Offer {}: passed all {} evaluation stages, returning {} recommendations:\n{}",
                         i + 1, evaluationStages.size(), recommendations.size(), outcomeDetails.toString());
 
-                if (offerOutcomeTracker.isPresent()) {
-                    offerOutcomeTracker.get().track(new OfferOutcome(
+                evaluation.addOfferOutcome(new OfferOutcome(
                         podInstanceRequirement.getName(),
                         true,
                         offer,
                         outcomeDetails.toString()));
-                }
-
-                return recommendations;
+                evaluation.recommendations = recommendations;
+                return evaluation;
             }
         }
 
-        return Collections.emptyList();
+        return evaluation;
+    }
+
+    private Map<TaskSpec, GoalStateOverride> getOverrideMap(PodInstanceRequirement podInstanceRequirement) {
+        Map<TaskSpec, GoalStateOverride> overrideMap = new HashMap<>();
+        for (TaskSpec taskSpec : podInstanceRequirement.getPodInstance().getPod().getTasks()) {
+            GoalStateOverride override =
+                    stateStore.fetchGoalOverrideStatus(
+                            TaskSpec.getInstanceName(podInstanceRequirement.getPodInstance(), taskSpec))
+                            .target;
+
+            overrideMap.put(taskSpec, override);
+        }
+        return overrideMap;
     }
 
     public List<OfferEvaluationStage> getEvaluationPipeline(
@@ -167,24 +318,12 @@ public class OfferEvaluator {
             Collection<Protos.TaskInfo> allTasks,
             Map<String, Protos.TaskInfo> thisPodTasks) throws IOException {
 
-        boolean noLaunchedTasksExist = thisPodTasks.values().stream()
-                .flatMap(taskInfo -> taskInfo.getResourcesList().stream())
-                .map(resource -> ResourceUtils.getResourceId(resource))
-                .filter(resourceId -> resourceId.isPresent())
-                .map(Optional::get)
-                .filter(resourceId -> !resourceId.isEmpty())
-                .count() == 0;
-
-        boolean allTasksFailed =
-                thisPodTasks.size() > 0 &&
-                thisPodTasks.values().stream().allMatch(taskInfo -> FailureUtils.isPermanentlyFailed(taskInfo));
-
         final String description;
         final boolean shouldGetNewRequirement;
-        if (podInstanceRequirement.getRecoveryType().equals(RecoveryType.PERMANENT) || allTasksFailed) {
+        if (isFailedRequirement(podInstanceRequirement, thisPodTasks)) {
             description = "failed";
             shouldGetNewRequirement = true;
-        } else if (noLaunchedTasksExist) {
+        } else if (noLaunchedTasksExist(thisPodTasks)) {
             description = "new";
             shouldGetNewRequirement = true;
         } else {
@@ -198,9 +337,7 @@ public class OfferEvaluator {
 
         // Only create a TLS Evaluation Stage builder if the service actually uses TLS certs.
         // This avoids performing TLS cert generation in cases where the cluster may not support it (e.g. DC/OS Open).
-        boolean anyTasksWithTLS = podInstanceRequirement.getPodInstance().getPod().getTasks().stream()
-                .anyMatch(taskSpec -> !taskSpec.getTransportEncryption().isEmpty());
-        Optional<TLSEvaluationStage.Builder> tlsStageBuilder = anyTasksWithTLS
+        Optional<TLSEvaluationStage.Builder> tlsStageBuilder = hasSideEffects(podInstanceRequirement)
                 ? Optional.of(new TLSEvaluationStage.Builder(serviceName, schedulerConfig))
                 : Optional.empty();
 
@@ -226,6 +363,43 @@ public class OfferEvaluator {
         return evaluationPipeline;
     }
 
+    /**
+     * Returns whether evaluating the provided requirement has effects outside of the returned {@link Evaluation}, in
+     * which case its evaluation shouldn't be performed speculatively. This is currently the case for pods with TLS
+     * certs, which are provisioned while the offers are evaluated.
+     */
+    public static boolean hasSideEffects(PodInstanceRequirement podInstanceRequirement) {
+        return podInstanceRequirement.getPodInstance().getPod().getTasks().stream()
+                .anyMatch(taskSpec -> !taskSpec.getTransportEncryption().isEmpty());
+    }
+
+    /**
+     * Returns whether the provided requirement will be evaluated as a new pod, reserving all of its resources from
+     * scratch, rather than reusing the existing reservations of the pod's tasks.
+     */
+    private static boolean isNewRequirement(
+            PodInstanceRequirement podInstanceRequirement, Map<String, Protos.TaskInfo> thisPodTasks) {
+        return isFailedRequirement(podInstanceRequirement, thisPodTasks) || noLaunchedTasksExist(thisPodTasks);
+    }
+
+    private static boolean isFailedRequirement(
+            PodInstanceRequirement podInstanceRequirement, Map<String, Protos.TaskInfo> thisPodTasks) {
+        boolean allTasksFailed =
+                thisPodTasks.size() > 0 &&
+                thisPodTasks.values().stream().allMatch(taskInfo -> FailureUtils.isPermanentlyFailed(taskInfo));
+        return podInstanceRequirement.getRecoveryType().equals(RecoveryType.PERMANENT) || allTasksFailed;
+    }
+
+    private static boolean noLaunchedTasksExist(Map<String, Protos.TaskInfo> thisPodTasks) {
+        return thisPodTasks.values().stream()
+                .flatMap(taskInfo -> taskInfo.getResourcesList().stream())
+                .map(resource -> ResourceUtils.getResourceId(resource))
+                .filter(resourceId -> resourceId.isPresent())
+                .map(Optional::get)
+                .filter(resourceId -> !resourceId.isEmpty())
+                .count() == 0;
+    }
+
     private Protos.ExecutorInfo getExecutorInfo(
             PodInstanceRequirement podInstanceRequirement,
             Collection<Protos.TaskInfo> taskInfos) {
@@ -327,13 +501,22 @@ public class OfferEvaluator {
         return resourceSpecs;
     }
 
+    private PlacementRuleEvaluationStage getPlacementRuleEvaluationStage(
+            Collection<Protos.TaskInfo> allTasks, PlacementRule placementRule) {
+        // The compiled rule stops evaluating as soon as its outcome is known, and the offer outcome tracker records
+        // which rules were evaluated. The full explanation of why an offer failed is only worth evaluating the whole
+        // rule tree again when it's going to be logged.
+        return new PlacementRuleEvaluationStage(
+                allTasks, compiledPlacementRules.get(placementRule), logger.isDebugEnabled());
+    }
+
     private List<OfferEvaluationStage> getNewEvaluationPipeline(
             PodInstanceRequirement podInstanceRequirement,
             Collection<Protos.TaskInfo> allTasks,
             Optional<TLSEvaluationStage.Builder> tlsStageBuilder) {
         List<OfferEvaluationStage> evaluationStages = new ArrayList<>();
         if (podInstanceRequirement.getPodInstance().getPod().getPlacementRule().isPresent()) {
-            evaluationStages.add(new PlacementRuleEvaluationStage(
+            evaluationStages.add(getPlacementRuleEvaluationStage(
                     allTasks, podInstanceRequirement.getPodInstance().getPod().getPlacementRule().get()));
         }
 
@@ -458,7 +641,7 @@ public class OfferEvaluator {
 
         if (podInstanceRequirement.getPodInstance().getPod().getPlacementRule().isPresent() &&
                 podInstanceRequirement.getRecoveryType().equals(RecoveryType.PERMANENT)) {
-            evaluationStages.add(new PlacementRuleEvaluationStage(
+            evaluationStages.add(getPlacementRuleEvaluationStage(
                     allTasks, podInstanceRequirement.getPodInstance().getPod().getPlacementRule().get()));
         }
 
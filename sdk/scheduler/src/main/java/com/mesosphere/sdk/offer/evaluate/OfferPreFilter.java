@@ -0,0 +1,152 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.offer.Constants;
+import com.mesosphere.sdk.offer.OfferResourceSummary;
+import com.mesosphere.sdk.offer.evaluate.placement.CompiledPlacementRule;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
+import com.mesosphere.sdk.specification.PodInstance;
+import com.mesosphere.sdk.specification.PortSpec;
+import com.mesosphere.sdk.specification.ResourceSet;
+import com.mesosphere.sdk.specification.ResourceSpec;
+import com.mesosphere.sdk.specification.VolumeSpec;
+import org.apache.mesos.Protos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.fail;
+import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.pass;
+
+/**
+ * A cheap check which is run against each offer before the full evaluation pipeline for a new pod. The totals of the
+ * pod's resources are compared against an {@link OfferResourceSummary} of the offer, followed by the pod's
+ * {@link PlacementRule}, if any. Offers which fail this check are certain to fail the full pipeline, so they may be
+ * rejected without building a {@link PodInfoBuilder} or running any of the evaluation stages.
+ *
+ * <p>The check only covers the resources and ports which are tracked by {@link OfferResourceSummary}, and only
+ * requires that MOUNT volumes are present rather than large enough. Offers which pass may still fail the pipeline.
+ */
+class OfferPreFilter {
+
+    // Tolerance for rounding errors when summing scalar values in different orders.
+    private static final double EPSILON = 0.000001;
+
+    private final double[] requiredScalars = new double[OfferResourceSummary.getScalarCount()];
+    private final Set<Long> staticPorts = new TreeSet<>();
+    private int dynamicPortCount = 0;
+    private int mountVolumeCount = 0;
+
+    private final PodInstance podInstance;
+    private final Optional<CompiledPlacementRule> placementRule;
+    private final Collection<Protos.TaskInfo> allTasks;
+
+    /**
+     * Creates a new pre-filter for a new pod.
+     *
+     * @param podInstance the pod to be launched
+     * @param resourceSets the resource sets which will be reserved for the pod
+     * @param useDefaultExecutor whether resources will also be reserved for the pod's default executor
+     * @param placementRule the compiled form of the pod's placement rule, if it has one
+     * @param allTasks all tasks in the service, for use by the pod's placement rule, ideally as a
+     *     {@link com.mesosphere.sdk.offer.evaluate.placement.PlacementTaskIndex}
+     */
+    OfferPreFilter(
+            PodInstance podInstance,
+            Collection<ResourceSet> resourceSets,
+            boolean useDefaultExecutor,
+            Optional<CompiledPlacementRule> placementRule,
+            Collection<Protos.TaskInfo> allTasks) {
+        this.podInstance = podInstance;
+        this.placementRule = placementRule;
+        this.allTasks = allTasks;
+
+        if (useDefaultExecutor) {
+            addScalar(Constants.CPUS_RESOURCE_TYPE, Constants.DEFAULT_EXECUTOR_CPUS);
+            addScalar(Constants.MEMORY_RESOURCE_TYPE, Constants.DEFAULT_EXECUTOR_MEMORY);
+            addScalar(Constants.DISK_RESOURCE_TYPE, Constants.DEFAULT_EXECUTOR_DISK);
+        }
+
+        List<ResourceSpec> resourceSpecs = new ArrayList<>(podInstance.getPod().getVolumes());
+        for (ResourceSet resourceSet : resourceSets) {
+            resourceSpecs.addAll(resourceSet.getResources());
+            resourceSpecs.addAll(resourceSet.getVolumes());
+        }
+        for (ResourceSpec resourceSpec : resourceSpecs) {
+            add(resourceSpec);
+        }
+    }
+
+    private void add(ResourceSpec resourceSpec) {
+        if (resourceSpec instanceof PortSpec) {
+            PortSpec portSpec = (PortSpec) resourceSpec;
+            if (!PortEvaluationStage.requireHostPorts(portSpec.getNetworkNames())) {
+                // Ports on virtual networks aren't taken from the offer.
+                return;
+            }
+            if (portSpec.getPort() == 0) {
+                dynamicPortCount++;
+            } else {
+                staticPorts.add(portSpec.getPort());
+            }
+        } else if (resourceSpec instanceof VolumeSpec
+                && !((VolumeSpec) resourceSpec).getType().equals(VolumeSpec.Type.ROOT)) {
+            if (((VolumeSpec) resourceSpec).getType().equals(VolumeSpec.Type.MOUNT)) {
+                mountVolumeCount++;
+            }
+        } else if (resourceSpec.getValue().getType() == Protos.Value.Type.SCALAR) {
+            addScalar(resourceSpec.getName(), resourceSpec.getValue().getScalar().getValue());
+        }
+    }
+
+    private void addScalar(String resourceName, double value) {
+        int index = OfferResourceSummary.getScalarIndex(resourceName);
+        if (index >= 0) {
+            requiredScalars[index] += value;
+        }
+    }
+
+    /**
+     * Returns a failing outcome if the provided offer, with the provided summary of its resources, cannot be used to
+     * launch the pod. Otherwise returns a passing outcome.
+     */
+    EvaluationOutcome filter(Protos.Offer offer, OfferResourceSummary summary) {
+        for (int i = 0; i < requiredScalars.length; ++i) {
+            if (requiredScalars[i] - summary.getScalar(i) > EPSILON) {
+                return fail(this, "Insufficient %s: pod requires %s, offer has at most %s",
+                        OfferResourceSummary.getScalarName(i), requiredScalars[i], summary.getScalar(i))
+                        .build();
+            }
+        }
+
+        if (mountVolumeCount > summary.getMountVolumeCount()) {
+            return fail(this, "Insufficient MOUNT volumes: pod requires %d, offer has %d",
+                    mountVolumeCount, summary.getMountVolumeCount())
+                    .build();
+        }
+
+        for (long port : staticPorts) {
+            if (!summary.hasPort(port)) {
+                return fail(this, "Offer lacks required %s: %d", Constants.PORTS_RESOURCE_TYPE, port).build();
+            }
+        }
+        int requiredPortCount = staticPorts.size() + dynamicPortCount;
+        if (requiredPortCount > summary.getPortCount()) {
+            return fail(this, "Insufficient %s: pod requires %d, offer has %d",
+                    Constants.PORTS_RESOURCE_TYPE, requiredPortCount, summary.getPortCount())
+                    .build();
+        }
+
+        if (placementRule.isPresent()) {
+            EvaluationOutcome placementOutcome = placementRule.get().filter(offer, podInstance, allTasks, false);
+            if (!placementOutcome.isPassing()) {
+                return placementOutcome;
+            }
+        }
+
+        return pass(this, "Offer may contain sufficient resources").build();
+    }
+}
@@ -1,10 +1,12 @@
 package com.mesosphere.sdk.offer.evaluate;
 
 import com.mesosphere.sdk.offer.MesosResourcePool;
+import com.mesosphere.sdk.offer.evaluate.placement.CompiledPlacementRule;
 import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
 import org.apache.mesos.Protos;
 
 import java.util.Collection;
+import java.util.Optional;
 
 import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.pass;
 
@@ -15,11 +17,26 @@ import static com.mesosphere.sdk.offer.evaluate.EvaluationOutcome.pass;
  */
 public class PlacementRuleEvaluationStage implements OfferEvaluationStage {
     private final Collection<Protos.TaskInfo> deployedTasks;
-    private final PlacementRule placementRule;
+    private final CompiledPlacementRule placementRule;
+    private final boolean explainFailures;
 
     public PlacementRuleEvaluationStage(Collection<Protos.TaskInfo> deployedTasks, PlacementRule placementRule) {
+        this(deployedTasks,
+                placementRule == null ? null : new CompiledPlacementRule(placementRule, Optional.empty()),
+                true);
+    }
+
+    /**
+     * @param placementRule the compiled rule to evaluate, or {@code null} if there is no rule
+     * @param explainFailures whether a failing outcome should explain the result of every rule in the tree, rather
+     *     than only the rules which needed to be evaluated to determine the result. The compiled rule is always
+     *     evaluated first, and the full tree is then evaluated again only to explain an offer which failed it
+     */
+    public PlacementRuleEvaluationStage(
+            Collection<Protos.TaskInfo> deployedTasks, CompiledPlacementRule placementRule, boolean explainFailures) {
         this.deployedTasks = deployedTasks;
         this.placementRule = placementRule;
+        this.explainFailures = explainFailures;
     }
 
     @Override
@@ -28,9 +45,18 @@ public class PlacementRuleEvaluationStage implements OfferEvaluationStage {
             return pass(this, "No placement rule defined").build();
         }
 
+        EvaluationOutcome outcome = placementRule.filter(
+                mesosResourcePool.getOffer(),
+                podInfoBuilder.getPodInstance(),
+                deployedTasks,
+                false);
+        if (outcome.isPassing() || !explainFailures) {
+            return outcome;
+        }
         return placementRule.filter(
                 mesosResourcePool.getOffer(),
                 podInfoBuilder.getPodInstance(),
-                deployedTasks);
+                deployedTasks,
+                true);
     }
 }
@@ -39,6 +39,12 @@ public class PodInfoBuilder {
     private static final String CONFIG_TEMPLATE_DOWNLOAD_PATH = "config-templates/";
 
     private final Set<Long> assignedOverlayPorts = new HashSet<>();
+    private final PortAllocator unassignedOverlayPorts = PortAllocator.fromRange(
+            DcosConstants.OVERLAY_DYNAMIC_PORT_RANGE_START,
+            DcosConstants.OVERLAY_DYNAMIC_PORT_RANGE_END,
+            PortAllocator.Selection.FIRST_FIT);
+    // Created by the first dynamic host port evaluation, as it depends on the offer's unreserved ports.
+    private PortAllocator unassignedHostPorts;
     private final Map<String, Protos.TaskInfo.Builder> taskBuilders = new HashMap<>();
     private final Protos.ExecutorInfo.Builder executorBuilder;
     private final PodInstance podInstance;
@@ -77,8 +83,8 @@ public class PodInfoBuilder {
             taskSpec.getResourceSet().getResources().stream()
                     .filter(resourceSpec -> resourceSpec.getName().equals(Constants.PORTS_RESOURCE_TYPE))
                     .filter(resourceSpec -> resourceSpec.getValue().getRanges().getRange(0).getBegin() > 0)
-                    .forEach(resourceSpec -> assignedOverlayPorts
-                            .add(resourceSpec.getValue().getRanges().getRange(0).getBegin()));
+                    .forEach(resourceSpec ->
+                            addAssignedOverlayPort(resourceSpec.getValue().getRanges().getRange(0).getBegin()));
 
         }
 
@@ -145,6 +151,28 @@ public class PodInfoBuilder {
 
     public void addAssignedOverlayPort(long port) {
         assignedOverlayPorts.add(port);
+        unassignedOverlayPorts.reserve(port);
+    }
+
+    /**
+     * Returns the lowest port in the overlay dynamic port range which hasn't been assigned, or an empty
+     * {@link Optional} if every port in the range has been assigned. The port isn't assigned until it's passed to
+     * {@link #addAssignedOverlayPort(long)}.
+     */
+    Optional<Integer> getUnassignedOverlayPort() {
+        return unassignedOverlayPorts.select();
+    }
+
+    /**
+     * Returns the host ports which are available for dynamic allocation in the offer being evaluated, or an empty
+     * {@link Optional} if no dynamic host ports have been allocated yet.
+     */
+    Optional<PortAllocator> getUnassignedHostPorts() {
+        return Optional.ofNullable(unassignedHostPorts);
+    }
+
+    void setUnassignedHostPorts(PortAllocator unassignedHostPorts) {
+        this.unassignedHostPorts = unassignedHostPorts;
     }
 
     @VisibleForTesting
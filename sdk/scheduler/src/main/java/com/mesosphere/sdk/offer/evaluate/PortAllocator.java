@@ -0,0 +1,119 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.offer.ResourceValue;
+import org.apache.mesos.Protos;
+
+import java.util.BitSet;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Tracks the ports which are available for dynamic allocation within a single offer evaluation, as a bitset indexed by
+ * port number. Reserving or checking a port is constant time, and selecting a port doesn't require iterating over the
+ * ports one at a time, nor converting them to or from protobuf {@link Protos.Value.Ranges}.
+ */
+class PortAllocator {
+
+    /**
+     * The policy for selecting among the available ports.
+     */
+    enum Selection {
+        /**
+         * Selects the lowest available port.
+         */
+        FIRST_FIT,
+
+        /**
+         * Selects the first available port at or after a random port between the lowest and highest available ports.
+         * This reduces the likelihood of reusing the same ports across agents, but is biased towards ports which
+         * follow unavailable ones.
+         */
+        RANDOM
+    }
+
+    private static final int MAX_PORT = 65535;
+
+    private final BitSet available = new BitSet();
+    private final Selection selection;
+    private final Random random;
+
+    /**
+     * Returns an allocator for the ports in the provided ranges value.
+     */
+    static PortAllocator fromValue(ResourceValue ports, Selection selection) {
+        PortAllocator allocator = new PortAllocator(selection, new Random());
+        for (int i = 0; i < ports.getRangeCount(); ++i) {
+            allocator.addRange(ports.getRangeBegin(i), ports.getRangeEnd(i));
+        }
+        return allocator;
+    }
+
+    /**
+     * Returns an allocator for the ports from {@code begin} to {@code end}, inclusive.
+     */
+    static PortAllocator fromRange(long begin, long end, Selection selection) {
+        PortAllocator allocator = new PortAllocator(selection, new Random());
+        allocator.addRange(begin, end);
+        return allocator;
+    }
+
+    PortAllocator(Selection selection, Random random) {
+        this.selection = selection;
+        this.random = random;
+    }
+
+    /**
+     * Makes the ports from {@code begin} to {@code end}, inclusive, available for allocation. Ports outside of the
+     * valid port range, including the zero port, are ignored.
+     */
+    void addRange(long begin, long end) {
+        int from = (int) Math.max(begin, 1);
+        int to = (int) Math.min(end, MAX_PORT);
+        if (from <= to) {
+            available.set(from, to + 1);
+        }
+    }
+
+    /**
+     * Returns whether the provided port is available for allocation.
+     */
+    boolean isAvailable(long port) {
+        return port > 0 && port <= MAX_PORT && available.get((int) port);
+    }
+
+    /**
+     * Marks the provided port as no longer available for allocation. Has no effect if the port wasn't available.
+     */
+    void reserve(long port) {
+        reserve(port, port);
+    }
+
+    /**
+     * Marks the ports from {@code begin} to {@code end}, inclusive, as no longer available for allocation.
+     */
+    void reserve(long begin, long end) {
+        int from = (int) Math.max(begin, 1);
+        int to = (int) Math.min(end, MAX_PORT);
+        if (from <= to) {
+            available.clear(from, to + 1);
+        }
+    }
+
+    /**
+     * Returns an available port according to this allocator's {@link Selection} policy, or an empty {@link Optional}
+     * if no ports are available. The returned port remains available until it's passed to {@link #reserve(long)}.
+     */
+    Optional<Integer> select() {
+        int first = available.nextSetBit(0);
+        if (first < 0) {
+            return Optional.empty();
+        }
+        if (selection == Selection.FIRST_FIT) {
+            return Optional.of(first);
+        }
+
+        // The highest available port is always at or after the random port, so this always finds a port:
+        int last = available.length() - 1;
+        return Optional.of(available.nextSetBit(first + random.nextInt(last - first + 1)));
+    }
+}
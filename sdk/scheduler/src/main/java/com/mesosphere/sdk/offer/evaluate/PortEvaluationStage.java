@@ -12,8 +12,6 @@ import org.apache.mesos.Protos;
 import org.slf4j.Logger;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 
 /**
@@ -93,6 +91,9 @@ public class PortEvaluationStage implements OfferEvaluationStage {
                 return evaluationOutcome;
             }
 
+            final long reservedPort = assignedPort;
+            podInfoBuilder.getUnassignedHostPorts().ifPresent(ports -> ports.reserve(reservedPort));
+
             Optional<String> resourceIdResult = reserveEvaluationOutcome.getResourceId();
             setProtos(podInfoBuilder,
                     ResourceBuilder.fromSpec(updatedPortSpec, resourceIdResult, resourceNamespace).build());
@@ -195,66 +196,66 @@ public class PortEvaluationStage implements OfferEvaluationStage {
 
     private static Optional<Integer> selectDynamicPort(
             MesosResourcePool mesosResourcePool, PodInfoBuilder podInfoBuilder) {
-        Set<Integer> consumedPorts = new HashSet<>();
+        Optional<PortAllocator> unassignedPorts = podInfoBuilder.getUnassignedHostPorts();
+        if (!unassignedPorts.isPresent()) {
+            // Built once per offer, after which each port evaluation reserves the port it takes (see evaluate()).
+            unassignedPorts = Optional.of(getUnassignedHostPorts(mesosResourcePool, podInfoBuilder));
+            podInfoBuilder.setUnassignedHostPorts(unassignedPorts.get());
+        }
+        return unassignedPorts.get().select();
+    }
+
+    private static PortAllocator getUnassignedHostPorts(
+            MesosResourcePool mesosResourcePool, PodInfoBuilder podInfoBuilder) {
+        PortAllocator unassignedPorts = PortAllocator.fromValue(
+                mesosResourcePool.getUnreservedMergedValue(Constants.PORTS_RESOURCE_TYPE)
+                        .orElse(ResourceValue.zero(Protos.Value.Type.RANGES)),
+                PortAllocator.Selection.FIRST_FIT);
 
         // We don't want to accidentally dynamically consume a port that's explicitly claimed elsewhere in this pod, so
-        // compile a list of those to check against the offered ports.
+        // exclude those from the offered ports.
         for (TaskSpec task : podInfoBuilder.getPodInstance().getPod().getTasks()) {
             for (ResourceSpec resourceSpec : task.getResourceSet().getResources()) {
                 if (resourceSpec instanceof PortSpec) {
                     PortSpec portSpec = (PortSpec) resourceSpec;
                     if (portSpec.getPort() != 0) {
-                        consumedPorts.add((int) portSpec.getPort());
+                        unassignedPorts.reserve(portSpec.getPort());
                     }
                 }
             }
         }
 
-        // Also check other dynamically allocated ports which had been taken by earlier stages of this evaluation round.
+        // Also exclude other dynamically allocated ports which had been taken by earlier stages of this evaluation
+        // round.
         for (Protos.Resource.Builder resourceBuilder : podInfoBuilder.getTaskResourceBuilders()) {
-            consumedPorts.addAll(getPortsInResource(resourceBuilder.build()));
+            reservePortsInResource(unassignedPorts, resourceBuilder);
         }
         for (Protos.Resource.Builder resourceBuilder : podInfoBuilder.getExecutorResourceBuilders()) {
-            consumedPorts.addAll(getPortsInResource(resourceBuilder.build()));
+            reservePortsInResource(unassignedPorts, resourceBuilder);
         }
-
-        Protos.Value availablePorts = mesosResourcePool.getUnreservedMergedPool().get(Constants.PORTS_RESOURCE_TYPE);
-        Optional<Integer> dynamicPort = Optional.empty();
-        if (availablePorts != null) {
-            dynamicPort = availablePorts.getRanges().getRangeList().stream()
-                    .flatMap(r -> IntStream.rangeClosed((int) r.getBegin(), (int) r.getEnd()).boxed())
-                    .filter(p -> !consumedPorts.contains(p))
-                    .findFirst();
-        }
-
-        return dynamicPort;
+        return unassignedPorts;
     }
 
     private static Optional<Integer> selectOverlayPort(PodInfoBuilder podInfoBuilder) {
         // take the next available port in the range.
-        Optional<Integer> dynamicPort = Optional.empty();
-        for (Integer i = DcosConstants.OVERLAY_DYNAMIC_PORT_RANGE_START;
-             i <= DcosConstants.OVERLAY_DYNAMIC_PORT_RANGE_END; i++) {
-            if (!podInfoBuilder.isAssignedOverlayPort(i.longValue())) {
-                dynamicPort = Optional.of(i);
-                podInfoBuilder.addAssignedOverlayPort(i.longValue());
-                break;
-            }
+        Optional<Integer> dynamicPort = podInfoBuilder.getUnassignedOverlayPort();
+        if (dynamicPort.isPresent()) {
+            podInfoBuilder.addAssignedOverlayPort(dynamicPort.get());
         }
         return dynamicPort;
     }
 
-    private static Set<Integer> getPortsInResource(Protos.Resource resource) {
+    private static void reservePortsInResource(
+            PortAllocator unassignedPorts, Protos.ResourceOrBuilder resource) {
         if (!resource.getName().equals(Constants.PORTS_RESOURCE_TYPE)) {
-            return Collections.emptySet();
+            return;
+        }
+        for (Protos.Value.Range range : resource.getRanges().getRangeList()) {
+            unassignedPorts.reserve(range.getBegin(), range.getEnd());
         }
-        return resource.getRanges().getRangeList().stream()
-                .flatMap(r -> IntStream.rangeClosed((int) r.getBegin(), (int) r.getEnd()).boxed())
-                .filter(p -> p != 0)
-                .collect(Collectors.toSet());
     }
 
-    private static boolean requireHostPorts(Collection<String> networkNames) {
+    static boolean requireHostPorts(Collection<String> networkNames) {
         if (networkNames.isEmpty()) {  // no network names, must be on host network and use the host IP
             return true;
         } else {
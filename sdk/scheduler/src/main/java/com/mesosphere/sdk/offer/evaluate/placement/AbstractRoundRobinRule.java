@@ -11,14 +11,14 @@ import org.apache.mesos.Protos.TaskInfo;
 import org.slf4j.Logger;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 
 /**
  * Base implementation of common round-robin logic.
  */
-abstract class AbstractRoundRobinRule implements PlacementRule {
+abstract class AbstractRoundRobinRule implements TaskCountingRule {
 
     private static final Logger LOGGER = LoggingUtils.getLogger(AbstractRoundRobinRule.class);
 
@@ -53,29 +53,10 @@ abstract class AbstractRoundRobinRule implements PlacementRule {
             return EvaluationOutcome.fail(this, "Offer lacks required round robin key").build();
         }
 
-        // search across tasks, keeping key counts on a per-key basis.
-        // key => # of instances on key
-        Map<String, Integer> counts = new HashMap<>();
-        for (TaskInfo task : tasks) {
-            // only tally tasks which match the task matcher (eg 'index-.*')
-            if (!taskFilter.matches(task.getName())) {
-                continue;
-            }
-            if (PlacementUtils.areEquivalent(task, podInstance)) {
-                // This is stale data for the same task that we're currently evaluating for
-                // placement. Don't worry about counting its usage. This occurs when we're
-                // redeploying a given task with a new configuration (old data not deleted yet).
-                continue;
-            }
-
-            final String taskKey = getKey(task);
-            if (taskKey == null) {
-                // no key matching the name was found. ignore.
-                continue;
-            }
-            Integer count = counts.get(taskKey);
-            counts.put(taskKey, (count == null) ? 1 : count + 1);
-        }
+        // key => # of instances on key, only tallying tasks which match the task matcher (eg 'index-.*'). Stale data
+        // for the same pod that we're currently evaluating for placement isn't counted. This occurs when we're
+        // redeploying a given task with a new configuration (old data not deleted yet).
+        Map<String, Integer> counts = PlacementTaskIndex.of(tasks).getCounts(this, podInstance);
 
         int maxKnownKeyCount = 0;
         int minKnownKeyCount = Integer.MAX_VALUE;
@@ -133,8 +114,16 @@ abstract class AbstractRoundRobinRule implements PlacementRule {
         }
     }
 
+    @Override
+    public Collection<String> getKeys(TaskInfo task) {
+        String key = getKey(task);
+        // Tasks without a key are ignored.
+        return key == null ? Collections.emptyList() : Collections.singletonList(key);
+    }
+
+    @Override
     @JsonProperty("task-filter")
-    private StringMatcher getTaskFilter() {
+    public StringMatcher getTaskFilter() {
         return taskFilter;
     }
 
@@ -0,0 +1,291 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import com.codahale.metrics.Counter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
+import com.mesosphere.sdk.offer.evaluate.EvaluationOutcome;
+import com.mesosphere.sdk.scheduler.Metrics;
+import com.mesosphere.sdk.specification.PodInstance;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.TaskInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link PlacementRule} tree which has been compiled for repeated evaluation against offers.
+ *
+ * <p>Nested {@link AndRule}s and {@link OrRule}s are flattened into a single level where possible, with any
+ * {@link NotRule}s pushed down to the leaf rules. The flattened children are then evaluated with short-circuiting, in
+ * an order which is periodically adjusted according to the measured cost and pass rate of each child: the children
+ * of an AND which are cheapest and most likely to fail are evaluated first, and vice versa for an OR.
+ *
+ * <p>Short-circuiting means that the full explanation of the outcome, as produced by the original rule tree, is not
+ * available. When an explanation is requested, the original rule tree is evaluated instead.
+ *
+ * <p>The number of offers which pass and fail each leaf rule is exported via
+ * {@link Metrics#getPlacementRuleCounter(Optional, Class, boolean)}.
+ */
+public final class CompiledPlacementRule {
+
+    /**
+     * The number of evaluations of an AND or OR between reorderings of its children.
+     */
+    private static final long REORDER_INTERVAL = 100;
+
+    /**
+     * A cache of compiled rules for a single service. Rules are tracked by instance, and are discarded once the rule is
+     * no longer referenced.
+     */
+    public static class Cache {
+        private final Optional<String> namespace;
+        // Weak keys are compared by identity, which avoids the cost of the rules' reflection-based equality.
+        private final Map<PlacementRule, CompiledPlacementRule> rules = new MapMaker().weakKeys().makeMap();
+
+        /**
+         * @param namespace the name of the service within a multi-service scheduler, or an empty {@link Optional}
+         */
+        public Cache(Optional<String> namespace) {
+            this.namespace = namespace;
+        }
+
+        /**
+         * Returns the compiled form of the provided rule, compiling it if it isn't already cached.
+         */
+        public CompiledPlacementRule get(PlacementRule rule) {
+            return rules.computeIfAbsent(rule, r -> new CompiledPlacementRule(r, namespace));
+        }
+    }
+
+    private final PlacementRule rule;
+    private final Node root;
+    private final int leafCount;
+
+    /**
+     * Compiles the provided rule. Compiled rules should be reused via a {@link Cache}, so that the statistics used to
+     * order their evaluation are retained.
+     *
+     * @param namespace the name of the service within a multi-service scheduler, or an empty {@link Optional}
+     */
+    public CompiledPlacementRule(PlacementRule rule, Optional<String> namespace) {
+        this.rule = rule;
+        this.root = compile(rule, false, namespace);
+        this.leafCount = root.getLeafCount();
+    }
+
+    /**
+     * Returns whether the provided offer passes this rule.
+     *
+     * @param explain whether the returned outcome should contain the full explanation from the original rule tree,
+     *     rather than just the last rule which was evaluated
+     * @see PlacementRule#filter(Offer, PodInstance, Collection)
+     */
+    public EvaluationOutcome filter(
+            Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks, boolean explain) {
+        if (explain) {
+            return rule.filter(offer, podInstance, tasks);
+        }
+
+        Evaluation evaluation = new Evaluation(offer, podInstance, tasks);
+        boolean passed = root.evaluate(evaluation);
+        if (root instanceof Leaf && !((Leaf) root).negated) {
+            // No different from evaluating the rule directly.
+            return evaluation.lastOutcome;
+        }
+        String reason = "Evaluated %d of %d rules, ending with:";
+        EvaluationOutcome.Builder builder = passed
+                ? EvaluationOutcome.pass(rule, reason, evaluation.evaluatedCount, leafCount)
+                : EvaluationOutcome.fail(rule, reason, evaluation.evaluatedCount, leafCount);
+        return builder.addChild(evaluation.lastOutcome).build();
+    }
+
+    /**
+     * Returns the leaf rules in the order that they'd currently be evaluated, along with whether they're negated.
+     */
+    @VisibleForTesting
+    List<String> getEvaluationOrder() {
+        List<String> order = new ArrayList<>();
+        root.addEvaluationOrder(order);
+        return order;
+    }
+
+    private static Node compile(PlacementRule rule, boolean negated, Optional<String> namespace) {
+        if (rule instanceof NotRule) {
+            return compile(((NotRule) rule).getRule(), !negated, namespace);
+        }
+        if (rule instanceof AndRule && !((AndRule) rule).getRules().isEmpty()) {
+            // NOT(a AND b) == NOT(a) OR NOT(b)
+            return compileGroup(((AndRule) rule).getRules(), !negated, negated, namespace);
+        }
+        if (rule instanceof OrRule && !((OrRule) rule).getRules().isEmpty()) {
+            // NOT(a OR b) == NOT(a) AND NOT(b)
+            return compileGroup(((OrRule) rule).getRules(), negated, negated, namespace);
+        }
+        // Includes empty ANDs and ORs, which always fail.
+        return new Leaf(rule, negated, namespace);
+    }
+
+    private static Group compileGroup(
+            Collection<PlacementRule> rules, boolean isAnd, boolean negated, Optional<String> namespace) {
+        List<Node> children = new ArrayList<>();
+        for (PlacementRule child : rules) {
+            Node node = compile(child, negated, namespace);
+            if (node instanceof Group && ((Group) node).isAnd == isAnd) {
+                // (a AND (b AND c)) == (a AND b AND c)
+                children.addAll(Arrays.asList(((Group) node).children));
+            } else {
+                children.add(node);
+            }
+        }
+        return new Group(isAnd, children);
+    }
+
+    /**
+     * The state of a single evaluation of the rule against an offer.
+     */
+    private static class Evaluation {
+        private final Offer offer;
+        private final PodInstance podInstance;
+        private final Collection<TaskInfo> tasks;
+        private EvaluationOutcome lastOutcome;
+        private int evaluatedCount;
+
+        private Evaluation(Offer offer, PodInstance podInstance, Collection<TaskInfo> tasks) {
+            this.offer = offer;
+            this.podInstance = podInstance;
+            this.tasks = tasks;
+        }
+    }
+
+    /**
+     * A node in the compiled tree, which tracks the cost and pass rate of its own evaluations.
+     */
+    private abstract static class Node {
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder passes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        boolean evaluate(Evaluation evaluation) {
+            long startNanos = System.nanoTime();
+            boolean passed = evaluateNode(evaluation);
+            nanos.add(System.nanoTime() - startNanos);
+            evaluations.increment();
+            if (passed) {
+                passes.increment();
+            }
+            return passed;
+        }
+
+        /**
+         * Returns the estimated cost of evaluating this node before its outcome is known to be {@code outcome}, which
+         * is the mean cost divided by the (smoothed) probability of that outcome.
+         */
+        double getCostPer(boolean outcome) {
+            double count = evaluations.sum();
+            double meanNanos = count == 0 ? 0 : nanos.sum() / count;
+            double passRate = (passes.sum() + 1) / (count + 2);
+            return meanNanos / (outcome ? passRate : 1 - passRate);
+        }
+
+        abstract boolean evaluateNode(Evaluation evaluation);
+
+        abstract int getLeafCount();
+
+        abstract void addEvaluationOrder(List<String> order);
+    }
+
+    /**
+     * A rule which isn't an AND, OR, or NOT, and is evaluated directly.
+     */
+    private static class Leaf extends Node {
+        private final PlacementRule rule;
+        private final boolean negated;
+        private final Counter passedCounter;
+        private final Counter failedCounter;
+
+        private Leaf(PlacementRule rule, boolean negated, Optional<String> namespace) {
+            this.rule = rule;
+            this.negated = negated;
+            this.passedCounter = Metrics.getPlacementRuleCounter(namespace, rule.getClass(), true);
+            this.failedCounter = Metrics.getPlacementRuleCounter(namespace, rule.getClass(), false);
+        }
+
+        @Override
+        boolean evaluateNode(Evaluation evaluation) {
+            EvaluationOutcome outcome = rule.filter(evaluation.offer, evaluation.podInstance, evaluation.tasks);
+            evaluation.lastOutcome = outcome;
+            evaluation.evaluatedCount++;
+            (outcome.isPassing() ? passedCounter : failedCounter).inc();
+            return outcome.isPassing() != negated;
+        }
+
+        @Override
+        int getLeafCount() {
+            return 1;
+        }
+
+        @Override
+        void addEvaluationOrder(List<String> order) {
+            order.add(negated ? String.format("NOT %s", rule) : rule.toString());
+        }
+    }
+
+    /**
+     * An AND or OR of two or more nodes, none of which are the same kind of group.
+     */
+    private static class Group extends Node {
+        private final boolean isAnd;
+        // Replaced wholesale on reordering, so that concurrent evaluations always see a complete set of children.
+        private volatile Node[] children;
+
+        private Group(boolean isAnd, Collection<Node> children) {
+            this.isAnd = isAnd;
+            this.children = children.toArray(new Node[0]);
+        }
+
+        @Override
+        boolean evaluateNode(Evaluation evaluation) {
+            for (Node child : children) {
+                // An AND is decided by the first failing child, and an OR by the first passing child.
+                if (child.evaluate(evaluation) != isAnd) {
+                    maybeReorder();
+                    return !isAnd;
+                }
+            }
+            maybeReorder();
+            return isAnd;
+        }
+
+        private void maybeReorder() {
+            if (evaluations.sum() % REORDER_INTERVAL != REORDER_INTERVAL - 1) {
+                return;
+            }
+            Node[] reordered = children.clone();
+            // Cheapest first, per evaluation which decides the group's outcome:
+            Arrays.sort(reordered, Comparator.comparingDouble(child -> child.getCostPer(!isAnd)));
+            children = reordered;
+        }
+
+        @Override
+        int getLeafCount() {
+            int count = 0;
+            for (Node child : children) {
+                count += child.getLeafCount();
+            }
+            return count;
+        }
+
+        @Override
+        void addEvaluationOrder(List<String> order) {
+            for (Node child : children) {
+                child.addEvaluationOrder(order);
+            }
+        }
+    }
+}
@@ -11,21 +11,22 @@ import javax.validation.constraints.Min;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * This interface defines the required methods for generic application of a PlacementRule which forces a
  * maximum per some key (e.g. attribute, hostname, region, zone ...).
  */
-public abstract class MaxPerRule implements PlacementRule {
+public abstract class MaxPerRule implements TaskCountingRule {
     @Valid
     @Min(1)
     protected final Integer max;
     private final StringMatcher taskFilter;
 
+    @Override
     public abstract Collection<String> getKeys(Protos.TaskInfo taskInfo);
     public abstract Collection<String> getKeys(Protos.Offer offer);
 
+    @Override
     @JsonProperty("task-filter")
     public StringMatcher getTaskFilter() {
         return taskFilter;
@@ -51,33 +52,16 @@ public abstract class MaxPerRule implements PlacementRule {
             PodInstance podInstance,
             Collection<Protos.TaskInfo> tasks) {
 
-        tasks = tasks.stream()
-                .filter(task -> getTaskFilter().matches(task.getName()))
-                .filter(task -> !PlacementUtils.areEquivalent(task, podInstance))
-                .collect(Collectors.toList());
-
         Map<String, Integer> counts = new HashMap<>();
-
-        Collection<String> offerKeys = getKeys(offer);
-        updateMap(counts, offerKeys);
-
-        for (Protos.TaskInfo task : tasks) {
-            updateMap(
-                    counts,
-                    getKeys(task).stream()
-                            .filter(key -> offerKeys.contains(key))
-                            .collect(Collectors.toList()));
+        for (String key : getKeys(offer)) {
+            counts.merge(key, 1, Integer::sum);
         }
 
-        return counts.values().stream().allMatch(value -> value <= max);
-    }
-
-    private void updateMap(Map<String, Integer> map, Collection<String> keys) {
-        for (String key : keys) {
-            Integer count = map.get(key);
-            count = count == null ? 1 : count + 1;
-            map.put(key, count);
-        }
+        // Only look up the offer's keys, counting the tasks already present on each key, not including any stale
+        // copies of this pod:
+        PlacementTaskIndex index = PlacementTaskIndex.of(tasks);
+        return counts.entrySet().stream()
+                .allMatch(entry -> entry.getValue() + index.getCount(this, entry.getKey(), podInstance) <= max);
     }
 
     @Override
@@ -40,7 +40,7 @@ public class NotRule implements PlacementRule {
     }
 
     @JsonProperty("rule")
-    private PlacementRule getRule() {
+    public PlacementRule getRule() {
         return rule;
     }
 
@@ -0,0 +1,246 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import com.google.common.collect.MapMaker;
+import com.mesosphere.sdk.offer.LoggingUtils;
+import com.mesosphere.sdk.offer.TaskException;
+import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
+import com.mesosphere.sdk.specification.PodInstance;
+import org.apache.mesos.Protos.TaskInfo;
+import org.slf4j.Logger;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A collection of the tasks in a service, which also maintains the number of tasks with each placement key (e.g.
+ * hostname, zone, region, or attribute) for each placement rule which has queried it. This allows rules such as
+ * {@link MaxPerRule} and {@link AbstractRoundRobinRule} to look up counts, rather than reading the labels of every
+ * task again for every offer that they're evaluated against.
+ *
+ * <p>The counts for a rule are built when the rule first queries them, and are then updated incrementally as tasks are
+ * launched and cleared, via {@link #update(Collection)}. Counts are tracked per rule instance, and are discarded once
+ * the rule is no longer referenced.
+ *
+ * <p>Rules which are given some other collection of tasks index them via {@link #of(Collection)} on each call.
+ */
+public class PlacementTaskIndex extends AbstractCollection<TaskInfo> {
+
+    private static final Logger LOGGER = LoggingUtils.getLogger(PlacementTaskIndex.class);
+
+    /**
+     * A task and the name of the pod instance which it belongs to, or {@code null} if that couldn't be determined.
+     */
+    private static class IndexedTask {
+        private final TaskInfo taskInfo;
+        private final String podInstanceName;
+        private long generation;
+
+        private IndexedTask(TaskInfo taskInfo, long generation) {
+            this.taskInfo = taskInfo;
+            this.podInstanceName = getPodInstanceName(taskInfo);
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * The number of tasks with each key for a single rule, along with the keys of each counted task so that they can
+     * be uncounted when the task changes. This doesn't refer to the rule itself, so that the rule may be discarded.
+     */
+    private static class KeyCounts {
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final Map<String, Collection<String>> keysByTaskName = new HashMap<>();
+
+        private void add(TaskCountingRule rule, TaskInfo taskInfo) {
+            if (!rule.getTaskFilter().matches(taskInfo.getName())) {
+                return;
+            }
+            Collection<String> keys = rule.getKeys(taskInfo);
+            keysByTaskName.put(taskInfo.getName(), keys);
+            for (String key : keys) {
+                counts.merge(key, 1, Integer::sum);
+            }
+        }
+
+        private void remove(TaskInfo taskInfo) {
+            Collection<String> keys = keysByTaskName.remove(taskInfo.getName());
+            if (keys == null) {
+                return;
+            }
+            for (String key : keys) {
+                counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
+
+    private final Map<String, IndexedTask> tasksByName = new LinkedHashMap<>();
+    private final Map<String, Set<String>> taskNamesByPodInstance = new HashMap<>();
+    // Weak keys are compared by identity, which avoids the cost of the rules' reflection-based equality.
+    private final Map<TaskCountingRule, KeyCounts> countsByRule = new MapMaker().weakKeys().makeMap();
+    private long generation;
+
+    /**
+     * Returns the provided tasks as an index, reusing them if they're already indexed.
+     */
+    public static PlacementTaskIndex of(Collection<TaskInfo> tasks) {
+        if (tasks instanceof PlacementTaskIndex) {
+            return (PlacementTaskIndex) tasks;
+        }
+        return new PlacementTaskIndex().update(tasks);
+    }
+
+    /**
+     * Updates this index to contain exactly the provided tasks. Only tasks which have been added, replaced, or removed
+     * since the previous update are re-indexed. Unchanged tasks are detected by instance, which is cheap when the
+     * tasks are read from a {@link com.mesosphere.sdk.state.StateStore} as it returns the same instance for unchanged
+     * data.
+     *
+     * @return {@code this}
+     */
+    public synchronized PlacementTaskIndex update(Collection<TaskInfo> tasks) {
+        ++generation;
+        for (TaskInfo taskInfo : tasks) {
+            IndexedTask previous = tasksByName.get(taskInfo.getName());
+            if (previous != null && previous.taskInfo == taskInfo) {
+                previous.generation = generation;
+                continue;
+            }
+            if (previous != null) {
+                remove(previous);
+            }
+            add(new IndexedTask(taskInfo, generation));
+        }
+
+        Iterator<IndexedTask> iterator = tasksByName.values().iterator();
+        while (iterator.hasNext()) {
+            IndexedTask task = iterator.next();
+            if (task.generation != generation) {
+                iterator.remove();
+                uncount(task);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of tasks with each of the rule's keys, among the tasks which match the rule's task filter.
+     * Tasks belonging to {@code podInstance} are excluded, as they're stale copies of the pod which is being placed.
+     * The returned map is a copy, which isn't affected by subsequent updates from other threads. Rules which only need
+     * the counts for a few keys should use {@link #getCount(TaskCountingRule, String, PodInstance)} instead, which
+     * avoids copying the counts for every key.
+     *
+     * @param rule the rule which is querying the counts
+     * @param podInstance the pod instance being placed
+     */
+    synchronized Map<String, Integer> getCounts(TaskCountingRule rule, PodInstance podInstance) {
+        KeyCounts keyCounts = getKeyCounts(rule);
+        Map<String, Integer> counts = new HashMap<>(keyCounts.counts);
+        for (String taskName : getPodTaskNames(podInstance)) {
+            Collection<String> keys = keyCounts.keysByTaskName.get(taskName);
+            if (keys == null) {
+                continue;
+            }
+            for (String key : keys) {
+                counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of tasks with the provided key, among the tasks which match the rule's task filter. As with
+     * {@link #getCounts(TaskCountingRule, PodInstance)}, tasks belonging to {@code podInstance} are excluded.
+     *
+     * @param rule the rule which is querying the count
+     * @param key the key to be counted
+     * @param podInstance the pod instance being placed
+     */
+    synchronized int getCount(TaskCountingRule rule, String key, PodInstance podInstance) {
+        KeyCounts keyCounts = getKeyCounts(rule);
+        int count = keyCounts.counts.getOrDefault(key, 0);
+        for (String taskName : getPodTaskNames(podInstance)) {
+            Collection<String> keys = keyCounts.keysByTaskName.get(taskName);
+            if (keys != null) {
+                count -= Collections.frequency(keys, key);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized Iterator<TaskInfo> iterator() {
+        // Iterate over a snapshot, as rules may iterate while another thread is updating the index.
+        Collection<TaskInfo> tasks = new ArrayList<>(tasksByName.size());
+        for (IndexedTask task : tasksByName.values()) {
+            tasks.add(task.taskInfo);
+        }
+        return Collections.unmodifiableCollection(tasks).iterator();
+    }
+
+    @Override
+    public synchronized int size() {
+        return tasksByName.size();
+    }
+
+    private KeyCounts getKeyCounts(TaskCountingRule rule) {
+        KeyCounts keyCounts = countsByRule.get(rule);
+        if (keyCounts == null) {
+            keyCounts = new KeyCounts();
+            for (IndexedTask task : tasksByName.values()) {
+                keyCounts.add(rule, task.taskInfo);
+            }
+            countsByRule.put(rule, keyCounts);
+        }
+        return keyCounts;
+    }
+
+    private Set<String> getPodTaskNames(PodInstance podInstance) {
+        return taskNamesByPodInstance.getOrDefault(podInstance.getName(), Collections.emptySet());
+    }
+
+    private void add(IndexedTask task) {
+        tasksByName.put(task.taskInfo.getName(), task);
+        if (task.podInstanceName != null) {
+            taskNamesByPodInstance.computeIfAbsent(task.podInstanceName, name -> new HashSet<>())
+                    .add(task.taskInfo.getName());
+        }
+        for (Map.Entry<TaskCountingRule, KeyCounts> entry : countsByRule.entrySet()) {
+            entry.getValue().add(entry.getKey(), task.taskInfo);
+        }
+    }
+
+    private void remove(IndexedTask task) {
+        tasksByName.remove(task.taskInfo.getName());
+        uncount(task);
+    }
+
+    private void uncount(IndexedTask task) {
+        if (task.podInstanceName != null) {
+            Set<String> podTaskNames = taskNamesByPodInstance.get(task.podInstanceName);
+            podTaskNames.remove(task.taskInfo.getName());
+            if (podTaskNames.isEmpty()) {
+                taskNamesByPodInstance.remove(task.podInstanceName);
+            }
+        }
+        for (KeyCounts keyCounts : countsByRule.values()) {
+            keyCounts.remove(task.taskInfo);
+        }
+    }
+
+    private static String getPodInstanceName(TaskInfo taskInfo) {
+        try {
+            TaskLabelReader labels = new TaskLabelReader(taskInfo);
+            return PodInstance.getName(labels.getType(), labels.getIndex());
+        } catch (TaskException | NumberFormatException e) {
+            LOGGER.warn("Unable to extract pod type or index from TaskInfo", e);
+            return null;
+        }
+    }
+}
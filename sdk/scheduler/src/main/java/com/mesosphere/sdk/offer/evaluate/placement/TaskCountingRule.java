@@ -0,0 +1,22 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import org.apache.mesos.Protos.TaskInfo;
+
+import java.util.Collection;
+
+/**
+ * A placement rule which makes its decisions based on the number of tasks with each key, e.g. the number of tasks on
+ * each hostname. The counts are maintained by {@link PlacementTaskIndex}.
+ */
+interface TaskCountingRule extends PlacementRule {
+
+    /**
+     * Returns the filter on task names which determines which tasks are counted.
+     */
+    StringMatcher getTaskFilter();
+
+    /**
+     * Returns the keys which the provided task is counted against, or an empty collection if it has none.
+     */
+    Collection<String> getKeys(TaskInfo taskInfo);
+}
@@ -1,14 +1,17 @@
 package com.mesosphere.sdk.scheduler;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.TextFormat;
 import com.mesosphere.sdk.framework.ReviveManager;
 import com.mesosphere.sdk.http.types.EndpointProducer;
 import com.mesosphere.sdk.offer.LoggingUtils;
 import com.mesosphere.sdk.scheduler.plan.*;
+import com.mesosphere.sdk.scheduler.recovery.DefaultRecoveryPlanManager;
 import com.mesosphere.sdk.scheduler.uninstall.UninstallScheduler;
 import com.mesosphere.sdk.specification.ServiceSpec;
 import com.mesosphere.sdk.state.ConfigStore;
+import com.mesosphere.sdk.state.PersistentLaunchRecorder;
 import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.state.StateStoreException;
 import com.mesosphere.sdk.storage.StorageError.Reason;
@@ -30,6 +33,7 @@ public abstract class AbstractScheduler implements MesosEventClient {
     protected final ServiceSpec serviceSpec;
     protected final StateStore stateStore;
     protected final Optional<PlanCustomizer> planCustomizer;
+    private final Optional<String> namespace;
 
     private final AtomicBoolean started = new AtomicBoolean(false);
 
@@ -45,6 +49,7 @@ public abstract class AbstractScheduler implements MesosEventClient {
         this.serviceSpec = serviceSpec;
         this.stateStore = stateStore;
         this.planCustomizer = planCustomizer;
+        this.namespace = namespace;
     }
 
     /**
@@ -95,9 +100,16 @@ public abstract class AbstractScheduler implements MesosEventClient {
     @Override
     public void registered(boolean reRegistered) {
         if (!reRegistered) {
-            this.reviveManager = new ReviveManager();
+            this.reviveManager = new ReviveManager(namespace);
             this.reconciler = new ExplicitReconciler(stateStore);
             registeredWithMesos();
+        } else {
+            reviveManager.reregistered();
+            // Statuses may have been missed while disconnected. Rescan for tasks needing recovery rather than relying
+            // on the statuses received so far.
+            getPlanCoordinator().getPlanManagers().stream()
+                    .filter(planManager -> planManager instanceof DefaultRecoveryPlanManager)
+                    .forEach(planManager -> ((DefaultRecoveryPlanManager) planManager).resync());
         }
         // Explicit task reconciliation should be (re)started on all (re-)registrations.
         reconciler.start();
@@ -116,9 +128,15 @@ public abstract class AbstractScheduler implements MesosEventClient {
         }
 
         // Get the current work
-        Collection<Step> steps = getPlanCoordinator().getCandidates();
+        Collection<Step> steps;
+        Timer.Context context = Metrics.getOfferCyclePhaseTimer(namespace, Metrics.OfferCyclePhase.CANDIDATES);
+        try {
+            steps = getPlanCoordinator().getCandidates();
+        } finally {
+            context.stop();
+        }
 
-        // Revive previously suspended offers, if necessary
+        // Revive previously declined offers when there is new work, or suppress offers when there is no work
         Collection<Step> activeWorkSet = new HashSet<>(steps);
         Collection<Step> inProgressSteps = getInProgressSteps(getPlanCoordinator());
         if (!inProgressSteps.isEmpty()) {
@@ -126,7 +144,12 @@ public abstract class AbstractScheduler implements MesosEventClient {
                     inProgressSteps.stream().map(step -> step.getMessage()).collect(Collectors.toList()));
         }
         activeWorkSet.addAll(inProgressSteps);
-        reviveManager.revive(activeWorkSet);
+        context = Metrics.getOfferCyclePhaseTimer(namespace, Metrics.OfferCyclePhase.REVIVE);
+        try {
+            reviveManager.revive(activeWorkSet);
+        } finally {
+            context.stop();
+        }
 
         LOGGER.info("Processing {} offer{} against {} step{}{}",
                 offers.size(), offers.size() == 1 ? "" : "s",
@@ -172,6 +195,14 @@ public abstract class AbstractScheduler implements MesosEventClient {
         return stateStore;
     }
 
+    /**
+     * Registers a listener to be notified of the tasks launched by this scheduler, once they've been stored. Schedulers
+     * which don't launch tasks ignore the listener.
+     */
+    public void addLaunchListener(PersistentLaunchRecorder.Listener listener) {
+        // No tasks are launched by default
+    }
+
     /**
      * Returns the {@link PlanCoordinator}.
      */
@@ -1,5 +1,6 @@
 package com.mesosphere.sdk.scheduler;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.TextFormat;
 import com.mesosphere.sdk.dcos.Capabilities;
@@ -129,7 +130,8 @@ public class DefaultScheduler extends AbstractScheduler {
                         schedulerConfig,
                         namespace,
                         Capabilities.getInstance().supportsDefaultExecutor()),
-                stateStore);
+                stateStore,
+                schedulerConfig.getOfferEvaluationParallelism());
     }
 
     @Override
@@ -160,6 +162,11 @@ public class DefaultScheduler extends AbstractScheduler {
         return planCoordinator;
     }
 
+    @Override
+    public void addLaunchListener(PersistentLaunchRecorder.Listener listener) {
+        launchRecorder.addListener(listener);
+    }
+
     @Override
     public Map<String, EndpointProducer> getCustomEndpoints() {
         return customEndpointProducers;
@@ -241,7 +248,46 @@ public class DefaultScheduler extends AbstractScheduler {
             return OfferResponse.finished();
         }
 
-        return processOffers(planScheduler, launchRecorder, decommissionRecorder, offers, steps);
+        // Store all writes from the offer cycle as a single unit of work. This includes the updates to steps as they're
+        // given offers, as well as the launches and decommission progress which are recorded afterwards. The batch is
+        // managed directly rather than via StateStore.runBatch() so that the final write to storage can be timed and
+        // its failures counted separately from the rest of the cycle.
+        Persister persister = stateStore.getPersister();
+        try {
+            persister.beginBatch();
+        } catch (PersisterException e) {
+            throw new StateStoreException(e);
+        }
+        OfferResponse response;
+        try {
+            response = processOffers(namespace, planScheduler, launchRecorder, decommissionRecorder, offers, steps);
+        } catch (RuntimeException e) {
+            // Store any writes made before the failure, as they would have been outside of a batch.
+            try {
+                persister.commitBatch();
+                launchRecorder.notifyCommitted();
+            } catch (PersisterException commitException) {
+                launchRecorder.discardUncommitted();
+                e.addSuppressed(commitException);
+            }
+            throw e;
+        }
+
+        Timer.Context context = Metrics.getOfferCyclePhaseTimer(namespace, Metrics.OfferCyclePhase.COMMIT);
+        try {
+            persister.commitBatch();
+        } catch (PersisterException e) {
+            // The offers were processed, but the resulting writes couldn't be stored. Don't perform any operations.
+            launchRecorder.discardUncommitted();
+            Metrics.incrementOfferCycleCommitFailures(namespace);
+            LOGGER.error("Failed to store offer cycle writes, returning empty operations list", e);
+            return OfferResponse.processed(Collections.emptyList());
+        } finally {
+            context.stop();
+        }
+        // Now that the launches have been stored, tell anyone who's tracking them.
+        launchRecorder.notifyCommitted();
+        return response;
     }
 
     /**
@@ -249,13 +295,20 @@ public class DefaultScheduler extends AbstractScheduler {
      */
     @VisibleForTesting
     static OfferResponse processOffers(
+            Optional<String> namespace,
             PlanScheduler planScheduler,
             PersistentLaunchRecorder launchRecorder,
             Optional<UninstallRecorder> decommissionRecorder,
             Collection<Protos.Offer> offers,
             Collection<Step> steps) {
         // See which offers are useful to the plans, then omit the ones that shouldn't be launched.
-        List<OfferRecommendation> offerRecommendations = planScheduler.resourceOffers(offers, steps);
+        List<OfferRecommendation> offerRecommendations;
+        Timer.Context context = Metrics.getOfferCyclePhaseTimer(namespace, Metrics.OfferCyclePhase.EVALUATE);
+        try {
+            offerRecommendations = planScheduler.resourceOffers(offers, steps);
+        } finally {
+            context.stop();
+        }
 
         LOGGER.info("{} Offer{} processed: {} recommendations from offers: {}",
                 offers.size(),
@@ -265,6 +318,7 @@ public class DefaultScheduler extends AbstractScheduler {
                         .map(rec -> rec.getOffer().getId().getValue())
                         .collect(Collectors.toSet()));
 
+        context = Metrics.getOfferCyclePhaseTimer(namespace, Metrics.OfferCyclePhase.RECORD);
         try {
             launchRecorder.record(offerRecommendations);
             if (decommissionRecorder.isPresent()) {
@@ -276,6 +330,8 @@ public class DefaultScheduler extends AbstractScheduler {
             // were recorded. So in practice this record operation should be 'roughly atomic'.
             LOGGER.error("Failed to record offer operations, returning empty operations list", ex);
             offerRecommendations = Collections.emptyList();
+        } finally {
+            context.stop();
         }
 
         // After recording the operations, filter out any launches that shouldn't actually be launched.
@@ -360,6 +416,11 @@ public class DefaultScheduler extends AbstractScheduler {
 
     @Override
     protected void processStatusUpdate(Protos.TaskStatus status) throws Exception {
+        // Store all resulting writes as a single unit of work, rather than writing to storage separately for each:
+        stateStore.runBatch(() -> processStatusUpdateInBatch(status));
+    }
+
+    private void processStatusUpdateInBatch(Protos.TaskStatus status) throws Exception {
         // Store status, then pass status to PlanManager => Plan => Steps
         String taskName = StateStoreUtils.getTaskName(stateStore, status);
 
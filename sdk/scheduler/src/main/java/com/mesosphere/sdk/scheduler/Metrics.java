@@ -1,5 +1,8 @@
 package com.mesosphere.sdk.scheduler;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.mesosphere.sdk.offer.OfferRecommendation;
@@ -9,6 +12,9 @@ import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.dropwizard.DropwizardExports;
 
 import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.mesos.Protos;
@@ -54,6 +60,9 @@ public class Metrics {
         context.addServlet(prometheusServlet, prometheusEndpoint);
     }
 
+    // Prefix for metrics which are specific to one service within a multi-service scheduler
+    static final String SERVICES_PREFIX = "services";
+
     // Offers
     static final String RECEIVED_OFFERS = "offers.received";
     static final String PROCESSED_OFFERS = "offers.processed";
@@ -75,9 +84,150 @@ public class Metrics {
         return metrics.timer(PROCESS_OFFERS).time();
     }
 
-    // Decline / Revive
+    // Offer queue
+    static final String OFFER_QUEUE_DEPTH = "offers.queue.depth";
+    static final String OFFER_QUEUE_CAPACITY = "offers.queue.capacity";
+    static final String OFFER_QUEUE_OLDEST_WAIT = "offers.queue.oldest_wait_ms";
+    static final String OFFER_QUEUE_WAIT = "offers.queue.wait";
+
+    /**
+     * Registers gauges which report the state of the offer queue. Any gauges from a previously registered queue are
+     * replaced.
+     *
+     * @param depth the number of offers currently in the queue
+     * @param capacity the current capacity of the queue, or zero if the queue is unlimited
+     * @param oldestWaitMs the time in milliseconds that the oldest offer in the queue has been waiting
+     */
+    public static void registerOfferQueueGauges(
+            Gauge<Integer> depth, Gauge<Integer> capacity, Gauge<Long> oldestWaitMs) {
+        replaceGauge(OFFER_QUEUE_DEPTH, depth);
+        replaceGauge(OFFER_QUEUE_CAPACITY, capacity);
+        replaceGauge(OFFER_QUEUE_OLDEST_WAIT, oldestWaitMs);
+    }
+
+    // Multi-service resource shares
+    static final String DOMINANT_SHARE = "resources.dominant_share";
+
+    /**
+     * Registers a gauge which reports the weighted dominant resource share of the provided service within a
+     * multi-service scheduler. Any gauge previously registered for the service is replaced.
+     */
+    public static void registerDominantShareGauge(String serviceName, Gauge<Double> dominantShare) {
+        replaceGauge(withNamespace(Optional.of(serviceName), DOMINANT_SHARE), dominantShare);
+    }
+
+    /**
+     * Removes the dominant resource share gauge for the provided service, e.g. after it has been uninstalled.
+     */
+    public static void removeDominantShareGauge(String serviceName) {
+        metrics.remove(withNamespace(Optional.of(serviceName), DOMINANT_SHARE));
+    }
+
+    /**
+     * Records the time that an offer spent in the offer queue before being taken for processing.
+     */
+    public static void updateOfferQueueWait(long durationNanos) {
+        metrics.timer(OFFER_QUEUE_WAIT).update(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The phases of an offer cycle which are timed individually, within the overall {@link #PROCESS_OFFERS} timer.
+     */
+    public enum OfferCyclePhase {
+        /** Getting candidate steps from the plans. */
+        CANDIDATES("candidates"),
+        /** Reviving offers if there's new work. */
+        REVIVE("revive"),
+        /** Evaluating offers against the candidate steps. */
+        EVALUATE("evaluate"),
+        /** Recording launched tasks to the state store. */
+        RECORD("record"),
+        /** Flushing all of the offer cycle's buffered writes to storage, once they've been recorded. */
+        COMMIT("record.commit"),
+        /** Finding unexpected resources to be cleaned up in unused offers. */
+        UNEXPECTED_RESOURCES("unexpected_resources"),
+        /** Sending the resulting operations to Mesos. */
+        ACCEPT("accept");
+
+        private final String metricName;
+
+        OfferCyclePhase(String name) {
+            this.metricName = String.format("%s.%s", PROCESS_OFFERS, name);
+        }
+    }
+
+    /**
+     * Returns a timer context which may be used to measure the time spent in one phase of processing offers. The
+     * returned timer must be terminated by invoking {@link Timer.Context#stop()}.
+     *
+     * @param namespace the name of the service within a multi-service scheduler, or an empty {@link Optional} if the
+     *     phase isn't specific to a service
+     */
+    public static Timer.Context getOfferCyclePhaseTimer(Optional<String> namespace, OfferCyclePhase phase) {
+        return metrics.timer(withNamespace(namespace, phase.metricName)).time();
+    }
+
+    static final String OFFER_CYCLE_COMMIT_FAILURES = String.format("%s.commit_failures", PROCESS_OFFERS);
+
+    /**
+     * Records that the buffered writes from an offer cycle couldn't be stored, in which case none of the cycle's
+     * operations are performed.
+     *
+     * @param namespace the name of the service within a multi-service scheduler, or an empty {@link Optional}
+     */
+    public static void incrementOfferCycleCommitFailures(Optional<String> namespace) {
+        metrics.counter(withNamespace(namespace, OFFER_CYCLE_COMMIT_FAILURES)).inc();
+    }
+
+    static final String EVALUATION_STAGE = "offers.evaluate.stage";
+
+    // The histogram for each class of stage, keyed by namespace (or "" for none). This avoids building the metric name
+    // and looking it up in the registry for every stage of every offer evaluation.
+    private static final Map<Class<?>, Map<String, Histogram>> EVALUATION_STAGE_HISTOGRAMS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Records the time taken by a single {@code OfferEvaluationStage} to evaluate an offer. Durations are tracked in a
+     * separate histogram for each class of stage.
+     *
+     * @param namespace the name of the service within a multi-service scheduler, or an empty {@link Optional}
+     */
+    public static void updateEvaluationStageDuration(
+            Optional<String> namespace, Class<?> stageClass, long durationNanos) {
+        Map<String, Histogram> histograms = EVALUATION_STAGE_HISTOGRAMS.get(stageClass);
+        if (histograms == null) {
+            histograms = EVALUATION_STAGE_HISTOGRAMS.computeIfAbsent(stageClass, k -> new ConcurrentHashMap<>());
+        }
+        Histogram histogram = histograms.get(namespace.orElse(""));
+        if (histogram == null) {
+            String metricName = String.format("%s.%s", EVALUATION_STAGE, stageClass.getSimpleName());
+            histogram = histograms.computeIfAbsent(
+                    namespace.orElse(""), k -> metrics.histogram(withNamespace(namespace, metricName)));
+        }
+        histogram.update(durationNanos);
+    }
+
+    static final String PLACEMENT_RULE = "offers.evaluate.placement";
+
+    /**
+     * Returns a counter of the offers which either passed or failed a single kind of placement rule, e.g.
+     * {@code offers.evaluate.placement.MaxPerHostnameRule.failed}. Together, the two counters for a rule give its
+     * selectivity.
+     *
+     * @param namespace the name of the service within a multi-service scheduler, or an empty {@link Optional}
+     */
+    public static Counter getPlacementRuleCounter(Optional<String> namespace, Class<?> ruleClass, boolean passed) {
+        String metricName = String.format(
+                "%s.%s.%s", PLACEMENT_RULE, ruleClass.getSimpleName(), passed ? "passed" : "failed");
+        return metrics.counter(withNamespace(namespace, metricName));
+    }
+
+    // Decline / Revive / Suppress
     static final String REVIVES = "revives";
     static final String REVIVE_THROTTLES = "revives.throttles";
+    static final String REVIVE_LATENCY = "revives.latency";
+    static final String SUPPRESSES = "suppresses";
+    static final String SUPPRESSED_DURATION = "suppresses.duration";
     static final String DECLINE_SHORT = "declines.short";
     static final String DECLINE_LONG = "declines.long";
 
@@ -89,6 +239,25 @@ public class Metrics {
         metrics.counter(REVIVE_THROTTLES).inc();
     }
 
+    /**
+     * Records the time between new work first being seen and offers being revived for it, including any time spent
+     * throttled.
+     */
+    public static void updateReviveLatency(long durationMs) {
+        metrics.timer(REVIVE_LATENCY).update(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static void incrementSuppresses() {
+        metrics.counter(SUPPRESSES).inc();
+    }
+
+    /**
+     * Records the time that offers were suppressed for, when they are revived again.
+     */
+    public static void updateSuppressedDuration(long durationMs) {
+        metrics.timer(SUPPRESSED_DURATION).update(durationMs, TimeUnit.MILLISECONDS);
+    }
+
     public static void incrementDeclinesShort(long amount) {
         metrics.counter(DECLINE_SHORT).inc(amount);
     }
@@ -106,6 +275,61 @@ public class Metrics {
         }
     }
 
+    // State store
+    static final String STATE_STORE_CACHE_HITS = "state_store.cache.hits";
+    static final String STATE_STORE_CACHE_MISSES = "state_store.cache.misses";
+
+    /**
+     * Records that a task object was returned from the state store's decoded object cache, without needing to be
+     * parsed from its serialized form.
+     */
+    public static void incrementStateStoreCacheHits() {
+        metrics.counter(STATE_STORE_CACHE_HITS).inc();
+    }
+
+    /**
+     * Records that a task object needed to be parsed from its serialized form because it wasn't already cached.
+     */
+    public static void incrementStateStoreCacheMisses() {
+        metrics.counter(STATE_STORE_CACHE_MISSES).inc();
+    }
+
+    static final String PERSISTER_LOAD = "persister.load";
+
+    /**
+     * Returns a timer context which may be used to measure the time spent loading all data from the underlying
+     * persister into the cache. The returned timer must be terminated by invoking {@link Timer.Context#stop()}.
+     */
+    public static Timer.Context getPersisterLoadDurationTimer() {
+        return metrics.timer(PERSISTER_LOAD).time();
+    }
+
+    private static void replaceGauge(String name, Gauge<?> gauge) {
+        metrics.remove(name);
+        metrics.register(name, gauge);
+    }
+
+    /**
+     * Returns the provided metric name, prefixed with the service name when running within a multi-service scheduler.
+     */
+    private static String withNamespace(Optional<String> namespace, String metricName) {
+        if (!namespace.isPresent()) {
+            return metricName;
+        }
+        return String.format("%s.%s.%s",
+                SERVICES_PREFIX, SchedulerUtils.withEscapedSlashes(namespace.get()), metricName);
+    }
+
+    static final String COALESCED_STATUSES = "task_status.coalesced";
+
+    /**
+     * Records that task statuses were skipped because a later status for the same task was received before they could
+     * be processed.
+     */
+    public static void incrementCoalescedStatuses(long amount) {
+        metrics.counter(COALESCED_STATUSES).inc(amount);
+    }
+
     /**
      * Records the provided {@code taskStatus} received from Mesos.
      */
@@ -145,6 +145,24 @@ public class SchedulerConfig {
      */
     private static final String USER_SPECIFIED_TLD_ENVVAR = "SERVICE_TLD";
 
+    /**
+     * Environment variable for the number of steps which may have their offers evaluated concurrently. Steps are
+     * evaluated serially by default.
+     */
+    private static final String OFFER_EVALUATION_PARALLELISM_ENV = "OFFER_EVALUATION_PARALLELISM";
+
+    /**
+     * Environment variable for the number of services which may evaluate offers concurrently when running multiple
+     * services in a single scheduler. Services are given offers serially by default.
+     */
+    private static final String MULTI_SERVICE_OFFER_PARALLELISM_ENV = "MULTI_SERVICE_OFFER_PARALLELISM";
+
+    /**
+     * Environment variable for the number of threads which may process task statuses concurrently. Statuses for any one
+     * task are always processed in order.
+     */
+    private static final String STATUS_PROCESSING_PARALLELISM_ENV = "STATUS_PROCESSING_PARALLELISM";
+
     /**
      * We print the build info here because this is likely to be a very early point in the service's execution. In a
      * multi-service situation, however, this code may be getting invoked multiple times, so only print if we haven't
@@ -369,6 +387,31 @@ public class SchedulerConfig {
         return envStore.getOptionalLong(IMPLICIT_RECONCILIATION_PERIOD_MS_ENV, 60 * 60 * 1000 /* 1 hour */);
     }
 
+    /**
+     * Returns the number of steps which may have their offers evaluated concurrently in a single offer cycle. A value
+     * of 1 (the default) results in steps being evaluated one at a time.
+     */
+    public int getOfferEvaluationParallelism() {
+        return envStore.getOptionalInt(OFFER_EVALUATION_PARALLELISM_ENV, 1);
+    }
+
+    /**
+     * Returns the number of services which may evaluate offers concurrently in a single offer cycle, when running
+     * multiple services in a single scheduler. A value of 1 (the default) results in services being given offers one
+     * at a time.
+     */
+    public int getMultiServiceOfferParallelism() {
+        return envStore.getOptionalInt(MULTI_SERVICE_OFFER_PARALLELISM_ENV, 1);
+    }
+
+    /**
+     * Returns the number of threads which may process task statuses concurrently. Statuses are assigned to threads by
+     * task, so that the statuses for any one task are processed in the order they were received.
+     */
+    public int getStatusProcessingParallelism() {
+        return envStore.getOptionalInt(STATUS_PROCESSING_PARALLELISM_ENV, 4);
+    }
+
     /**
      * Returns whether region awareness should be enabled. In 1.11, this is an explicit opt-in by users.
      */
@@ -2,6 +2,14 @@ package com.mesosphere.sdk.scheduler;
 
 import com.mesosphere.sdk.storage.PersisterUtils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * This class provides utilities common to the construction and operation of Mesos Schedulers.
  */
@@ -13,6 +21,50 @@ public class SchedulerUtils {
      */
     private static final String SLASH_REPLACEMENT = "__";
 
+    private static final Map<Integer, ExecutorService> SERVICE_OFFER_EXECUTORS = new ConcurrentHashMap<>();
+    private static final Map<Integer, ExecutorService> STEP_EVALUATION_EXECUTORS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns an executor with the provided number of threads for passing offers to the services of a multi-service
+     * scheduler concurrently. Executors are shared by all callers which request the same number of threads, and live
+     * for the lifetime of the process. Idle threads are daemon threads which exit on their own.
+     *
+     * <p>Each service buffers its writes from an offer cycle in a storage batch belonging to the thread it runs on.
+     * This executor is therefore separate from the one returned by {@link #getStepEvaluationExecutor(int)}, which
+     * services wait on while their batch is open, and it never runs one service's task on a thread which is waiting
+     * for another. Tasks submitted to this executor must not wait on other tasks in the same executor.
+     */
+    public static ExecutorService getServiceOfferExecutor(int threads) {
+        return SERVICE_OFFER_EXECUTORS.computeIfAbsent(threads, t -> newDaemonExecutor(t, "service-offers"));
+    }
+
+    /**
+     * Returns an executor with the provided number of threads for evaluating the steps of a service concurrently.
+     * Executors are shared by all callers which request the same number of threads, and live for the lifetime of the
+     * process. Idle threads are daemon threads which exit on their own.
+     *
+     * <p>Unlike a {@link java.util.concurrent.ForkJoinPool}, waiting on a task from this executor never runs some other
+     * queued task on the waiting thread. This matters because callers wait on evaluations while their thread has a
+     * storage batch open, and any unrelated work run on that thread would have its writes added to the caller's batch.
+     * Tasks submitted to this executor must not write to storage themselves, nor wait on other tasks in the same
+     * executor.
+     */
+    public static ExecutorService getStepEvaluationExecutor(int threads) {
+        return STEP_EVALUATION_EXECUTORS.computeIfAbsent(threads, t -> newDaemonExecutor(t, "step-evaluation"));
+    }
+
+    private static ExecutorService newDaemonExecutor(int threads, String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, String.format("%s-%d", name, threadCount.incrementAndGet()));
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Removes any slashes from the provided name and replaces them with double underscores. Any leading slash is
      * removed entirely. This is useful for sanitizing framework names, framework roles, and curator paths.
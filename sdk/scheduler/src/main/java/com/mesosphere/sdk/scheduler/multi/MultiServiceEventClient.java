@@ -5,9 +5,14 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 
 import org.apache.mesos.Protos;
@@ -24,6 +29,7 @@ import com.mesosphere.sdk.offer.ResourceUtils;
 import com.mesosphere.sdk.scheduler.MesosEventClient;
 import com.mesosphere.sdk.scheduler.OfferResources;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
+import com.mesosphere.sdk.scheduler.SchedulerUtils;
 import com.mesosphere.sdk.scheduler.AbstractScheduler;
 import com.mesosphere.sdk.scheduler.plan.DefaultPhase;
 import com.mesosphere.sdk.scheduler.plan.DefaultPlan;
@@ -60,6 +66,8 @@ public class MultiServiceEventClient implements MesosEventClient {
     private final UninstallCallback uninstallCallback;
     private final DeregisterStep deregisterStep;
     private final Optional<Plan> uninstallPlan;
+    private final Optional<ExecutorService> serviceExecutor;
+    private final ServiceResourceShares resourceShares = new ServiceResourceShares();
 
     public MultiServiceEventClient(
             String frameworkName,
@@ -72,6 +80,10 @@ public class MultiServiceEventClient implements MesosEventClient {
         this.multiServiceManager = multiServiceManager;
         this.customEndpoints = customEndpoints;
         this.uninstallCallback = uninstallCallback;
+        int evaluationParallelism = schedulerConfig.getMultiServiceOfferParallelism();
+        this.serviceExecutor = evaluationParallelism > 1
+                ? Optional.of(SchedulerUtils.getServiceOfferExecutor(evaluationParallelism))
+                : Optional.empty();
 
         if (schedulerConfig.isUninstallEnabled()) {
             this.deregisterStep = new DeregisterStep();
@@ -88,9 +100,19 @@ public class MultiServiceEventClient implements MesosEventClient {
         }
     }
 
+    /**
+     * Returns the tracker of resources reserved by each service, which is used to order services when offering them
+     * resources. Weights and quotas for services may be configured here.
+     */
+    public ServiceResourceShares getResourceShares() {
+        return resourceShares;
+    }
+
     @Override
     public void registered(boolean reRegistered) {
         multiServiceManager.registered(reRegistered);
+        // The services reconcile their tasks with Mesos after registering, so re-read their reservations as well:
+        resourceShares.resyncAll();
     }
 
     @Override
@@ -104,12 +126,16 @@ public class MultiServiceEventClient implements MesosEventClient {
 
     /**
      * Forwards the provided offer(s) to all enclosed services, seeing which services are interested in them.
+     * Services are ordered according to their dominant resource shares, see {@link ServiceResourceShares}.
+     *
+     * <p>By default, services are given the offers one after another, with each service only seeing the offers which
+     * weren't consumed by the services before it. If a multi-service offer parallelism greater than one is configured,
+     * services instead evaluate offers concurrently over one or more rounds. See
+     * {@link #offersParallel(List, Collection, ExecutorService, Map)}.
      *
      * TODO(data-agility): Lots of opportunities to optimize this. Needs benchmarks. For example:
      * <ul>
      * <li>- Hide reserved resources from services that they don't belong to</li>
-     * <li>- Forward the offers to a random ordering of services to avoid some services starving others</li>
-     * <li>- Distribute the offers across all services in parallel (optimistic offers)</li>
      * <li>- ... Pretty much anything that you could see Mesos itself doing.</li>
      * </ul>
      */
@@ -120,65 +146,53 @@ public class MultiServiceEventClient implements MesosEventClient {
         // Decline short.
         boolean anyClientsNotReady = false;
 
-        List<OfferRecommendation> recommendations = new ArrayList<>();
-        List<Protos.Offer> remainingOffers = new ArrayList<>();
-        remainingOffers.addAll(offers);
+        List<OfferRecommendation> recommendations;
+        // The result from each service, in service order.
+        Map<String, OfferResponse.Result> serviceResults = new LinkedHashMap<>();
 
-        Collection<String> finishedServices = new ArrayList<>();
-        Collection<String> uninstalledServices = new ArrayList<>();
-
-        Collection<AbstractScheduler> services = multiServiceManager.sharedLockAndGetServices();
-        LOGGER.info("Sending {} offer{} to {} service{}:",
-                offers.size(), offers.size() == 1 ? "" : "s",
-                services.size(), services.size() == 1 ? "" : "s");
+        Collection<AbstractScheduler> unsortedServices = multiServiceManager.sharedLockAndGetServices();
         try {
+            List<AbstractScheduler> services = resourceShares.sort(unsortedServices);
+            LOGGER.info("Sending {} offer{} to {} service{}:",
+                    offers.size(), offers.size() == 1 ? "" : "s",
+                    services.size(), services.size() == 1 ? "" : "s");
             if (services.isEmpty()) {
                 // If we don't have any clients, then WE aren't ready.
                 // Decline short, or finish if there's an uninstall in progress.
                 noClients = true;
             }
-            for (AbstractScheduler service : services) {
-                String serviceName = service.getServiceSpec().getName();
-                OfferResponse response = service.offers(remainingOffers);
-                if (!remainingOffers.isEmpty() && !response.recommendations.isEmpty()) {
-                    // Some offers were consumed. Update what remains to offer to the next service.
-                    List<Protos.Offer> updatedRemainingOffers =
-                            OfferUtils.filterOutAcceptedOffers(remainingOffers, response.recommendations);
-                    remainingOffers = updatedRemainingOffers;
-                }
-                recommendations.addAll(response.recommendations);
-                LOGGER.info("  {} offer result: {}[{} rec{}], {} offer{} remaining",
-                        serviceName,
-                        response.result,
-                        response.recommendations.size(), response.recommendations.size() == 1 ? "" : "s",
-                        remainingOffers.size(), remainingOffers.size() == 1 ? "" : "s");
-
-                switch (response.result) {
-                case FINISHED:
-                    // This client has completed running and can be switched to uninstall.
-                    finishedServices.add(serviceName);
-                    break;
-                case UNINSTALLED:
-                    // This client has completed uninstall and can be removed.
-                    uninstalledServices.add(serviceName);
-                    break;
-                case NOT_READY:
-                    // This client wasn't ready. Tell upstream to short-decline any remaining offers so that it can get
-                    // another chance shortly.
-                    anyClientsNotReady = true;
-                    break;
-                case PROCESSED:
-                    // No-op, keep going.
-                    break;
-                }
-
-                // If we run out of unusedOffers we still keep going with an empty list of offers.
-                // This is done in case any of the clients depends on us to turn the crank periodically.
+            if (serviceExecutor.isPresent() && services.size() > 1) {
+                recommendations = offersParallel(services, offers, serviceExecutor.get(), serviceResults);
+            } else {
+                recommendations = offersSerial(services, offers, serviceResults);
             }
         } finally {
             multiServiceManager.sharedUnlock();
         }
 
+        Collection<String> finishedServices = new ArrayList<>();
+        Collection<String> uninstalledServices = new ArrayList<>();
+        for (Map.Entry<String, OfferResponse.Result> entry : serviceResults.entrySet()) {
+            switch (entry.getValue()) {
+            case FINISHED:
+                // This client has completed running and can be switched to uninstall.
+                finishedServices.add(entry.getKey());
+                break;
+            case UNINSTALLED:
+                // This client has completed uninstall and can be removed.
+                uninstalledServices.add(entry.getKey());
+                break;
+            case NOT_READY:
+                // This client wasn't ready. Tell upstream to short-decline any remaining offers so that it can get
+                // another chance shortly.
+                anyClientsNotReady = true;
+                break;
+            case PROCESSED:
+                // No-op, keep going.
+                break;
+            }
+        }
+
         if (!finishedServices.isEmpty()) {
             LOGGER.info("Starting uninstall for {} service{}: {} (from {} total services)",
                     finishedServices.size(), finishedServices.size() == 1 ? "" : "s", finishedServices);
@@ -190,6 +204,7 @@ public class MultiServiceEventClient implements MesosEventClient {
             // Note: It's possible that we can have a race where we attempt to remove the same service twice. This is ok
             //       (Picture two near-simultaneous calls to offers(): Both send offers, both get FINISHED back, ...)
             multiServiceManager.removeServices(uninstalledServices);
+            uninstalledServices.forEach(resourceShares::removeService);
             noClients = multiServiceManager.getServiceNames().isEmpty();
 
             // Just in case, avoid invoking the uninstall callback until we are in an unlocked state. This avoids
@@ -221,6 +236,169 @@ public class MultiServiceEventClient implements MesosEventClient {
         }
     }
 
+    /**
+     * Gives the offers to each service in turn, removing any offers which were consumed by a service before moving on
+     * to the next service.
+     */
+    private List<OfferRecommendation> offersSerial(
+            Collection<AbstractScheduler> services,
+            Collection<Protos.Offer> offers,
+            Map<String, OfferResponse.Result> serviceResults) {
+        List<OfferRecommendation> recommendations = new ArrayList<>();
+        List<Protos.Offer> remainingOffers = new ArrayList<>(offers);
+        for (AbstractScheduler service : services) {
+            String serviceName = service.getServiceSpec().getName();
+            OfferResponse response = service.offers(remainingOffers);
+            if (!remainingOffers.isEmpty() && !response.recommendations.isEmpty()) {
+                // Some offers were consumed. Update what remains to offer to the next service.
+                remainingOffers = OfferUtils.filterOutAcceptedOffers(remainingOffers, response.recommendations);
+            }
+            recommendations.addAll(response.recommendations);
+            resourceShares.recordRecommendations(serviceName, response.recommendations);
+            LOGGER.info("  {} offer result: {}[{} rec{}], {} offer{} remaining",
+                    serviceName,
+                    response.result,
+                    response.recommendations.size(), response.recommendations.size() == 1 ? "" : "s",
+                    remainingOffers.size(), remainingOffers.size() == 1 ? "" : "s");
+            updateResult(serviceResults, serviceName, response.result);
+
+            // If we run out of unusedOffers we still keep going with an empty list of offers.
+            // This is done in case any of the clients depends on us to turn the crank periodically.
+        }
+        return recommendations;
+    }
+
+    /**
+     * Gives the offers to all services concurrently, over one or more rounds.
+     *
+     * <p>A service records its launches as soon as it has evaluated its offers, so two services cannot be allowed to
+     * evaluate the same offer concurrently and then have one of them lose it afterwards. Instead, each offer is
+     * assigned to a single service in each round. Offers containing resources reserved by a service are first assigned
+     * to that service, while other offers are dealt out to the services in their DRF order, so that the service with
+     * the smallest dominant share is given the first offer, the service with the next smallest share is given the
+     * second offer, and so on. Every service is invoked in the first round, even with no offers, in case it depends on
+     * us to turn the crank periodically.
+     *
+     * <p>Any offers which weren't used in a round are then re-assigned to the next service in DRF order for the
+     * following round, until every service has seen every unused offer or until no offers remain.
+     *
+     * <p>Each service stores the writes from its offer cycle in a storage batch belonging to its thread. The services
+     * are therefore run on their own executor, which never runs one service on a thread which is waiting for another,
+     * so that one service's writes can't end up in another's batch.
+     *
+     * @param services the services to be given offers, in DRF order
+     */
+    private List<OfferRecommendation> offersParallel(
+            List<AbstractScheduler> services,
+            Collection<Protos.Offer> offers,
+            ExecutorService executor,
+            Map<String, OfferResponse.Result> serviceResults) {
+        final int serviceCount = services.size();
+        Map<String, Integer> serviceIndexes = new HashMap<>();
+        for (int i = 0; i < serviceCount; ++i) {
+            serviceIndexes.put(services.get(i).getServiceSpec().getName(), i);
+        }
+        Map<Protos.OfferID, Integer> initialAssignments = new HashMap<>();
+        int nextIndex = 0;
+        for (Protos.Offer offer : offers) {
+            Optional<Integer> reservedIndex = getReservingServiceIndex(offer, serviceIndexes);
+            if (reservedIndex.isPresent()) {
+                initialAssignments.put(offer.getId(), reservedIndex.get());
+            } else {
+                initialAssignments.put(offer.getId(), nextIndex);
+                nextIndex = (nextIndex + 1) % serviceCount;
+            }
+        }
+
+        List<OfferRecommendation> recommendations = new ArrayList<>();
+        List<Protos.Offer> remainingOffers = new ArrayList<>(offers);
+        for (int round = 0; round < serviceCount && (round == 0 || !remainingOffers.isEmpty()); ++round) {
+            List<List<Protos.Offer>> assignedOffers = new ArrayList<>();
+            for (int i = 0; i < serviceCount; ++i) {
+                assignedOffers.add(new ArrayList<>());
+            }
+            for (Protos.Offer offer : remainingOffers) {
+                assignedOffers.get((initialAssignments.get(offer.getId()) + round) % serviceCount).add(offer);
+            }
+
+            List<Optional<Future<OfferResponse>>> evaluations = new ArrayList<>();
+            for (int i = 0; i < serviceCount; ++i) {
+                final AbstractScheduler service = services.get(i);
+                final List<Protos.Offer> serviceOffers = assignedOffers.get(i);
+                evaluations.add(round == 0 || !serviceOffers.isEmpty()
+                        ? Optional.of(executor.submit(() -> service.offers(serviceOffers)))
+                        : Optional.empty());
+            }
+
+            List<OfferRecommendation> roundRecommendations = new ArrayList<>();
+            for (int i = 0; i < serviceCount; ++i) {
+                if (!evaluations.get(i).isPresent()) {
+                    continue;
+                }
+                String serviceName = services.get(i).getServiceSpec().getName();
+                OfferResponse response = getResult(evaluations.get(i).get(), serviceName);
+                roundRecommendations.addAll(response.recommendations);
+                resourceShares.recordRecommendations(serviceName, response.recommendations);
+                LOGGER.info("  {} offer result: {}[{} rec{}] from {} offer{}",
+                        serviceName,
+                        response.result,
+                        response.recommendations.size(), response.recommendations.size() == 1 ? "" : "s",
+                        assignedOffers.get(i).size(), assignedOffers.get(i).size() == 1 ? "" : "s");
+                updateResult(serviceResults, serviceName, response.result);
+            }
+            if (!roundRecommendations.isEmpty()) {
+                remainingOffers = OfferUtils.filterOutAcceptedOffers(remainingOffers, roundRecommendations);
+            }
+            recommendations.addAll(roundRecommendations);
+            LOGGER.info("Offer round {}: {} rec{}, {} offer{} remaining",
+                    round + 1,
+                    roundRecommendations.size(), roundRecommendations.size() == 1 ? "" : "s",
+                    remainingOffers.size(), remainingOffers.size() == 1 ? "" : "s");
+        }
+        return recommendations;
+    }
+
+    /**
+     * Waits for the result of a call to a service, rethrowing any exception thrown by the service.
+     */
+    private static <T> T getResult(Future<T> result, String serviceName) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for service %s", serviceName), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(String.format("Failed to call service %s", serviceName), e.getCause());
+        }
+    }
+
+    /**
+     * Returns the index of the first service with resources reserved in the provided offer, if any.
+     */
+    private static Optional<Integer> getReservingServiceIndex(
+            Protos.Offer offer, Map<String, Integer> serviceIndexes) {
+        for (Protos.Resource resource : offer.getResourcesList()) {
+            Optional<String> serviceName = ResourceUtils.getNamespace(resource);
+            if (serviceName.isPresent() && serviceIndexes.containsKey(serviceName.get())) {
+                return Optional.of(serviceIndexes.get(serviceName.get()));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Stores the result for a service. If the service was invoked more than once, any result other than
+     * {@link OfferResponse.Result#PROCESSED} takes precedence.
+     */
+    private static void updateResult(
+            Map<String, OfferResponse.Result> serviceResults, String serviceName, OfferResponse.Result result) {
+        serviceResults.merge(serviceName, result,
+                (previous, latest) -> latest == OfferResponse.Result.PROCESSED ? previous : latest);
+    }
+
     /**
      * Maps the reserved resources in the provided unused offers according to the services that own them, then queries
      * those services directly to see what resources they consider unexpected.
@@ -270,8 +448,9 @@ public class MultiServiceEventClient implements MesosEventClient {
         }
 
         // Iterate over offersByService and find out if the services in question still want the resources.
-        // Any unwanted resources then get added to unexpectedResources.
-        boolean anyFailedClients = false;
+        // Any unwanted resources then get added to unexpectedResources. The services are queried concurrently if a
+        // multi-service offer parallelism is configured.
+        Map<String, FutureTask<UnexpectedResourcesResponse>> queries = new LinkedHashMap<>();
         for (Map.Entry<String, Map<Protos.OfferID, OfferResources>> entry : offersByService.entrySet()) {
             String serviceName = entry.getKey();
             Collection<OfferResources> serviceOffers = entry.getValue().values();
@@ -293,35 +472,53 @@ public class MultiServiceEventClient implements MesosEventClient {
                             .addAllResources(serviceOfferResources.getResources())
                             .build());
                 }
-                // (CASE 2) The service has returned the subset of these resources which are unexpected.
-                // Add those to unexpectedResources.
                 // Note: We're careful to only invoke this once per service, as the call is likely to be expensive.
-                UnexpectedResourcesResponse response = service.get().getUnexpectedResources(offersToSend);
-                LOGGER.info("  {} cleanup result: {} with {} unexpected resources in {} offer{}",
-                        serviceName,
-                        response.result,
-                        response.offerResources.stream()
-                                .collect(Collectors.summingInt(or -> or.getResources().size())),
-                        response.offerResources.size(),
-                        response.offerResources.size() == 1 ? "" : "s");
-                switch (response.result) {
-                case FAILED:
-                    // We should be able to safely skip this service and proceed to the next one. For this round,
-                    // the service just won't have anything added to unexpectedResources. We play it safe by telling
-                    // upstream to do a short decline.
-                    anyFailedClients = true;
-                    for (OfferResources unexpectedInOffer : response.offerResources) {
-                        getEntry(unexpectedResources, unexpectedInOffer.getOffer())
-                                .addAll(unexpectedInOffer.getResources());
-                    }
-                    break;
-                case PROCESSED:
-                    for (OfferResources unexpectedInOffer : response.offerResources) {
-                        getEntry(unexpectedResources, unexpectedInOffer.getOffer())
-                                .addAll(unexpectedInOffer.getResources());
-                    }
-                    break;
+                FutureTask<UnexpectedResourcesResponse> query =
+                        new FutureTask<>(() -> service.get().getUnexpectedResources(offersToSend));
+                if (serviceExecutor.isPresent()) {
+                    serviceExecutor.get().execute(query);
+                }
+                queries.put(serviceName, query);
+            }
+        }
+
+        boolean anyFailedClients = false;
+        for (Map.Entry<String, FutureTask<UnexpectedResourcesResponse>> entry : queries.entrySet()) {
+            // (CASE 2) The service has returned the subset of these resources which are unexpected.
+            // Add those to unexpectedResources.
+            if (!serviceExecutor.isPresent()) {
+                // Run the query on this thread.
+                entry.getValue().run();
+            }
+            UnexpectedResourcesResponse response = getResult(entry.getValue(), entry.getKey());
+            // The unexpected resources will be unreserved, regardless of the result.
+            for (OfferResources unexpectedInOffer : response.offerResources) {
+                resourceShares.recordUnreserved(entry.getKey(), unexpectedInOffer.getResources());
+            }
+            LOGGER.info("  {} cleanup result: {} with {} unexpected resources in {} offer{}",
+                    entry.getKey(),
+                    response.result,
+                    response.offerResources.stream()
+                            .collect(Collectors.summingInt(or -> or.getResources().size())),
+                    response.offerResources.size(),
+                    response.offerResources.size() == 1 ? "" : "s");
+            switch (response.result) {
+            case FAILED:
+                // We should be able to safely skip this service and proceed to the next one. For this round,
+                // the service just won't have anything added to unexpectedResources. We play it safe by telling
+                // upstream to do a short decline.
+                anyFailedClients = true;
+                for (OfferResources unexpectedInOffer : response.offerResources) {
+                    getEntry(unexpectedResources, unexpectedInOffer.getOffer())
+                            .addAll(unexpectedInOffer.getResources());
+                }
+                break;
+            case PROCESSED:
+                for (OfferResources unexpectedInOffer : response.offerResources) {
+                    getEntry(unexpectedResources, unexpectedInOffer.getOffer())
+                            .addAll(unexpectedInOffer.getResources());
                 }
+                break;
             }
         }
 
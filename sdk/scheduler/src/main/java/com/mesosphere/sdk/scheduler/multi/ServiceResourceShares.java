@@ -0,0 +1,261 @@
+package com.mesosphere.sdk.scheduler.multi;
+
+import com.mesosphere.sdk.offer.LoggingUtils;
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.offer.ResourceUtils;
+import com.mesosphere.sdk.offer.UnreserveOfferRecommendation;
+import com.mesosphere.sdk.scheduler.AbstractScheduler;
+import com.mesosphere.sdk.scheduler.Metrics;
+import com.mesosphere.sdk.state.PersistentLaunchRecorder;
+import com.mesosphere.sdk.state.StateStore;
+import org.apache.mesos.Protos;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tracks the scalar resources reserved by each service in a multi-service scheduler, and orders services according to
+ * Dominant Resource Fairness (DRF).
+ *
+ * <p>A service's share of a resource is the amount of that resource reserved by the service, divided by the total
+ * amount reserved by all services in the scheduler. Its dominant share is its largest share of any resource, divided
+ * by the service's weight. Services with smaller dominant shares are given offers first.
+ *
+ * <p>The reserved resources of each service are tracked by resource ID. They're read from the service's
+ * {@link StateStore} when the service is first sorted, and again after {@link #resyncAll()} is called, e.g. when the
+ * scheduler reconciles with Mesos. In between, they're kept up to date without re-reading any tasks: the reservations
+ * of launched tasks are added as the service's launches are committed to storage (see
+ * {@link PersistentLaunchRecorder.Listener}), and reservations are removed as the service unreserves them, either via
+ * UNRESERVE operations or as unexpected resources. Because each reservation is identified by its resource ID, seeing
+ * the same reservation more than once (e.g. shared by several tasks in a pod) doesn't count it twice.
+ *
+ * <p>Services may optionally be given a quota of each resource. Services which have reserved at least their quota of
+ * any resource are ordered after all other services. Quotas only affect ordering: a service which exceeds its quota is
+ * still given any offers which remain after the other services.
+ */
+public class ServiceResourceShares {
+
+    private static final Logger LOGGER = LoggingUtils.getLogger(ServiceResourceShares.class);
+
+    private static final double DEFAULT_WEIGHT = 1.0;
+
+    // serviceName => resourceId => reserved scalar resource
+    private final Map<String, Map<String, Protos.Resource>> resourcesByService = new HashMap<>();
+    // serviceName => resourceName => amount, summed from resourcesByService
+    private final Map<String, Map<String, Double>> reservedByService = new HashMap<>();
+    // resourceName => amount, summed across all services
+    private final Map<String, Double> totalReserved = new HashMap<>();
+    private final Map<String, Double> weights = new HashMap<>();
+    private final Map<String, Map<String, Double>> quotas = new HashMap<>();
+    // The service instances which we're listening to for launches, so that a replaced instance is also listened to
+    private final Map<String, AbstractScheduler> listenedServices = new HashMap<>();
+
+    /**
+     * Sets the weight of the provided service. A service with a weight of 2 is entitled to twice the dominant share of
+     * a service with the default weight of 1.
+     *
+     * @throws IllegalArgumentException if the weight is not positive
+     */
+    public synchronized void setWeight(String serviceName, double weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Weight for service %s must be positive: %s", serviceName, weight));
+        }
+        weights.put(serviceName, weight);
+    }
+
+    /**
+     * Sets the quota of the provided service, as a mapping of resource names to the amount of that resource which the
+     * service may reserve before it is ordered after other services. Resources which are not listed are unlimited.
+     */
+    public synchronized void setQuota(String serviceName, Map<String, Double> quota) {
+        quotas.put(serviceName, new HashMap<>(quota));
+    }
+
+    /**
+     * Returns the provided services, ordered by whether they have reached their quota and then by their dominant
+     * share. Services with equal shares retain their original order. Any services which aren't yet tracked have their
+     * reserved resources read from their {@link StateStore}.
+     */
+    public synchronized List<AbstractScheduler> sort(Collection<AbstractScheduler> services) {
+        List<AbstractScheduler> sortedServices = new ArrayList<>(services);
+        for (AbstractScheduler service : sortedServices) {
+            String serviceName = service.getServiceSpec().getName();
+            if (listenedServices.get(serviceName) != service) {
+                listenedServices.put(serviceName, service);
+                service.addLaunchListener(taskInfos -> recordLaunches(serviceName, taskInfos));
+            }
+            if (!reservedByService.containsKey(serviceName)) {
+                loadService(serviceName, service.getStateStore());
+            }
+        }
+        sortedServices.sort(Comparator
+                .comparing((AbstractScheduler service) -> isOverQuota(service.getServiceSpec().getName()))
+                .thenComparing(service -> getDominantShare(service.getServiceSpec().getName())));
+        return sortedServices;
+    }
+
+    /**
+     * Adds the reservations of the provided tasks, which were launched by the provided service and have been committed
+     * to storage. Reservations which are already tracked are updated in place.
+     */
+    public synchronized void recordLaunches(String serviceName, Collection<Protos.TaskInfo> taskInfos) {
+        if (!reservedByService.containsKey(serviceName)) {
+            // Not loaded yet. The launches will be included when the service is loaded.
+            return;
+        }
+        for (Protos.TaskInfo taskInfo : taskInfos) {
+            addAll(serviceName, taskInfo.getResourcesList());
+            addAll(serviceName, taskInfo.getExecutor().getResourcesList());
+        }
+    }
+
+    /**
+     * Removes the reservations which are being unreserved by the UNRESERVE operations in the provided recommendations.
+     */
+    public synchronized void recordRecommendations(
+            String serviceName, Collection<? extends OfferRecommendation> recommendations) {
+        for (OfferRecommendation recommendation : recommendations) {
+            if (recommendation instanceof UnreserveOfferRecommendation) {
+                remove(serviceName, ((UnreserveOfferRecommendation) recommendation).getResource());
+            }
+        }
+    }
+
+    /**
+     * Removes the provided reservations, which are being unreserved as unexpected, from the provided service.
+     */
+    public synchronized void recordUnreserved(String serviceName, Collection<Protos.Resource> resources) {
+        for (Protos.Resource resource : resources) {
+            remove(serviceName, resource);
+        }
+    }
+
+    /**
+     * Discards the tracked reservations of all services, so that each service is read from its {@link StateStore}
+     * again when it's next sorted. This should only be needed when reconciling with Mesos, to pick up any changes
+     * which weren't made via launches or unreservations.
+     */
+    public synchronized void resyncAll() {
+        resourcesByService.clear();
+        reservedByService.clear();
+        totalReserved.clear();
+    }
+
+    /**
+     * Stops tracking the provided service, e.g. after it has been uninstalled.
+     */
+    public synchronized void removeService(String serviceName) {
+        listenedServices.remove(serviceName);
+        resourcesByService.remove(serviceName);
+        Map<String, Double> reserved = reservedByService.remove(serviceName);
+        if (reserved == null) {
+            return;
+        }
+        for (Map.Entry<String, Double> entry : reserved.entrySet()) {
+            addTotal(entry.getKey(), -entry.getValue());
+        }
+        Metrics.removeDominantShareGauge(serviceName);
+    }
+
+    /**
+     * Returns the weighted dominant share of the provided service, or zero if the service isn't tracked.
+     */
+    public synchronized double getDominantShare(String serviceName) {
+        Map<String, Double> reserved = reservedByService.get(serviceName);
+        if (reserved == null) {
+            return 0;
+        }
+        double dominantShare = 0;
+        for (Map.Entry<String, Double> entry : reserved.entrySet()) {
+            double total = totalReserved.getOrDefault(entry.getKey(), 0.0);
+            if (total > 0) {
+                dominantShare = Math.max(dominantShare, entry.getValue() / total);
+            }
+        }
+        return dominantShare / weights.getOrDefault(serviceName, DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Returns whether the provided service has reserved at least its quota of any resource.
+     */
+    public synchronized boolean isOverQuota(String serviceName) {
+        Map<String, Double> quota = quotas.get(serviceName);
+        Map<String, Double> reserved = reservedByService.get(serviceName);
+        if (quota == null || reserved == null) {
+            return false;
+        }
+        return quota.entrySet().stream()
+                .anyMatch(entry -> reserved.getOrDefault(entry.getKey(), 0.0) >= entry.getValue());
+    }
+
+    /**
+     * Reads the reserved resources of the provided service from its {@link StateStore}, replacing any which were
+     * previously tracked for the service.
+     */
+    private void loadService(String serviceName, StateStore stateStore) {
+        resourcesByService.put(serviceName, new HashMap<>());
+        reservedByService.put(serviceName, new HashMap<>());
+        for (Protos.TaskInfo taskInfo : stateStore.fetchTasks()) {
+            addAll(serviceName, taskInfo.getResourcesList());
+            addAll(serviceName, taskInfo.getExecutor().getResourcesList());
+        }
+        LOGGER.info("Loaded reserved resources for service {}: {}", serviceName, reservedByService.get(serviceName));
+        // Replaces any gauge from before a resync:
+        Metrics.registerDominantShareGauge(serviceName, () -> getDominantShare(serviceName));
+    }
+
+    /**
+     * Tracks the provided reserved resources against the provided service, which must already be loaded. Resources
+     * without a resource ID (i.e. which aren't reserved) are ignored.
+     */
+    private void addAll(String serviceName, Collection<Protos.Resource> resources) {
+        Map<String, Protos.Resource> resourcesById = resourcesByService.get(serviceName);
+        for (Protos.Resource resource : resources) {
+            Optional<String> resourceId = ResourceUtils.getResourceId(resource);
+            if (!resourceId.isPresent() || resource.getType() != Protos.Value.Type.SCALAR) {
+                continue;
+            }
+            Protos.Resource previous = resourcesById.put(resourceId.get(), resource);
+            if (previous != null) {
+                add(serviceName, previous, -1);
+            }
+            add(serviceName, resource, 1);
+        }
+    }
+
+    /**
+     * Stops tracking the provided reserved resource against the provided service, if it was tracked.
+     */
+    private void remove(String serviceName, Protos.Resource resource) {
+        Map<String, Protos.Resource> resourcesById = resourcesByService.get(serviceName);
+        Optional<String> resourceId = ResourceUtils.getResourceId(resource);
+        if (resourcesById == null || !resourceId.isPresent()) {
+            return;
+        }
+        Protos.Resource previous = resourcesById.remove(resourceId.get());
+        if (previous != null) {
+            add(serviceName, previous, -1);
+        }
+    }
+
+    private void add(String serviceName, Protos.Resource resource, int sign) {
+        Map<String, Double> reserved = reservedByService.get(serviceName);
+        String resourceName = resource.getName();
+        double previous = reserved.getOrDefault(resourceName, 0.0);
+        // Avoid going negative due to floating point error.
+        double updated = Math.max(0, previous + sign * resource.getScalar().getValue());
+        reserved.put(resourceName, updated);
+        addTotal(resourceName, updated - previous);
+    }
+
+    private void addTotal(String resourceName, double delta) {
+        totalReserved.put(resourceName, Math.max(0, totalReserved.getOrDefault(resourceName, 0.0) + delta));
+    }
+}
@@ -2,12 +2,19 @@ package com.mesosphere.sdk.scheduler.plan;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.mesos.Protos;
 import org.slf4j.Logger;
 
 import com.mesosphere.sdk.offer.LoggingUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.WeakHashMap;
 
 /**
  * Provides a default implementation of commonly-used {@link Step} logic.
@@ -26,6 +33,10 @@ public abstract class AbstractStep implements Step {
     private Status status;
     private boolean interrupted;
 
+    // Parents and indexes which track the status of this step. Held weakly so that discarded plans may be garbage
+    // collected. Transient to exclude it from the reflection-based equals() and toString().
+    private final transient Set<StatusListener> listeners = Collections.newSetFromMap(new WeakHashMap<>());
+
     protected AbstractStep(String name, Status status) {
         this.name = name;
         this.status = status;
@@ -66,6 +77,41 @@ public abstract class AbstractStep implements Step {
             logger.info("{}: changed status from: {} to: {} (interrupted={})",
                     getName(), oldStatus, newStatus, interrupted);
         }
+        notifyListeners();
+    }
+
+    /**
+     * Returns the IDs of the tasks whose statuses are relevant to this step, or an empty Optional if this step should
+     * be given every status. Steps which return a value are only passed statuses for the returned tasks by
+     * {@link TaskStepIndex}. Any change to the returned IDs must be made while synchronized on the step, and be
+     * followed by a call to {@link #setStatus(Status)}, so that the change is reflected in the index.
+     */
+    public Optional<Collection<Protos.TaskID>> getRelevantTaskIds() {
+        return Optional.empty();
+    }
+
+    /**
+     * Registers a listener which should be notified whenever the status of this step, whether it's interrupted, or the
+     * result of {@link #getRelevantTaskIds()} may have changed.
+     *
+     * @return whether the listener will be notified of changes, which is not the case for e.g. mocked steps in tests
+     */
+    boolean addListener(StatusListener listener) {
+        synchronized (listeners) {
+            listeners.add(listener);
+        }
+        return true;
+    }
+
+    private void notifyListeners() {
+        Collection<StatusListener> listenersToNotify;
+        synchronized (listeners) {
+            if (listeners.isEmpty()) {
+                return;
+            }
+            listenersToNotify = new ArrayList<>(listeners);
+        }
+        listenersToNotify.forEach(listener -> listener.statusChanged(this));
     }
 
     @Override
@@ -73,6 +119,7 @@ public abstract class AbstractStep implements Step {
         synchronized (statusLock) {
             interrupted = true;
         }
+        notifyListeners();
     }
 
     @Override
@@ -80,6 +127,7 @@ public abstract class AbstractStep implements Step {
         synchronized (statusLock) {
             interrupted = false;
         }
+        notifyListeners();
     }
 
     @Override
@@ -21,11 +21,52 @@ public class DefaultPhase implements Phase {
     private final List<String> errors;
     private final List<Step> steps;
 
+    // Transient to exclude it from the reflection-based equals() and toString().
+    private final transient StatusCache statusCache;
+
     public DefaultPhase(String name, List<Step> steps, Strategy<Step> strategy, List<String> errors) {
         this.name = name;
         this.steps = steps;
         this.strategy = strategy;
         this.errors = errors;
+
+        // Only steps which notify changes to their status allow this phase's status to be cached.
+        this.statusCache = new StatusCache(this);
+        for (Step step : steps) {
+            if (!(step instanceof AbstractStep) || !((AbstractStep) step).addListener(statusCache)) {
+                statusCache.disable();
+            }
+        }
+    }
+
+    /**
+     * Returns the aggregate status of this phase's steps, which is only recomputed after a step has changed.
+     */
+    @Override
+    public Status getStatus() {
+        return statusCache.get(isInterrupted(), Phase.super::getStatus);
+    }
+
+    @Override
+    public void interrupt() {
+        Phase.super.interrupt();
+        statusCache.invalidate();
+    }
+
+    @Override
+    public void proceed() {
+        Phase.super.proceed();
+        statusCache.invalidate();
+    }
+
+    /**
+     * Registers a listener which should be notified whenever the status of this phase may have changed.
+     *
+     * @return whether the listener will be notified of changes, which is only the case when every step in this phase
+     *     notifies changes to its own status
+     */
+    boolean addListener(StatusListener listener) {
+        return statusCache.addListener(listener);
     }
 
     @Override
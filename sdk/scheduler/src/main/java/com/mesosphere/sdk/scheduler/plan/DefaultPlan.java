@@ -1,8 +1,10 @@
 package com.mesosphere.sdk.scheduler.plan;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.mesos.Protos;
 
 import com.google.common.base.Joiner;
+import com.google.protobuf.TextFormat;
 import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
 import com.mesosphere.sdk.scheduler.plan.strategy.Strategy;
 
@@ -11,6 +13,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * An ordered list of {@link Phase}s, composed into a {@link Plan}. It may
@@ -25,6 +28,12 @@ public class DefaultPlan implements Plan {
     private final List<String> errors;
     private final String name;
 
+    // Built on the first status update, as many plans (e.g. each regenerated recovery plan) never receive one.
+    // Transient to exclude it from the reflection-based equals().
+    private transient TaskStepIndex taskStepIndex;
+    private final transient Object indexLock = new Object();
+    private final transient StatusCache statusCache;
+
     public DefaultPlan(
             final String name,
             final List<Phase> phases,
@@ -34,6 +43,14 @@ public class DefaultPlan implements Plan {
         this.strategy = strategy;
         this.phases = phases;
         this.errors = errors;
+
+        // Only phases which notify changes to their status allow this plan's status to be cached.
+        this.statusCache = new StatusCache(this);
+        for (Phase phase : phases) {
+            if (!(phase instanceof DefaultPhase) || !((DefaultPhase) phase).addListener(statusCache)) {
+                statusCache.disable();
+            }
+        }
     }
 
     public DefaultPlan(String name, List<Phase> phases) {
@@ -69,6 +86,51 @@ public class DefaultPlan implements Plan {
         return getErrors(errors);
     }
 
+    /**
+     * Returns the aggregate status of this plan's phases, which is only recomputed after a step or phase has changed.
+     */
+    @Override
+    public Status getStatus() {
+        return statusCache.get(isInterrupted(), Plan.super::getStatus);
+    }
+
+    @Override
+    public void interrupt() {
+        Plan.super.interrupt();
+        statusCache.invalidate();
+    }
+
+    @Override
+    public void proceed() {
+        Plan.super.proceed();
+        statusCache.invalidate();
+    }
+
+    /**
+     * Passes the status to the steps which are interested in its task, rather than to every step in the plan. Phases
+     * other than {@link DefaultPhase} may have their own handling of statuses, and are passed every status.
+     */
+    @Override
+    public void update(Protos.TaskStatus taskStatus) {
+        LOGGER.debug("Updated {} with TaskStatus: {}", getName(), TextFormat.shortDebugString(taskStatus));
+        getTaskStepIndex().getSteps(taskStatus.getTaskId()).forEach(step -> step.update(taskStatus));
+        phases.stream()
+                .filter(phase -> !(phase instanceof DefaultPhase))
+                .forEach(phase -> phase.update(taskStatus));
+    }
+
+    private TaskStepIndex getTaskStepIndex() {
+        synchronized (indexLock) {
+            if (taskStepIndex == null) {
+                taskStepIndex = new TaskStepIndex(phases.stream()
+                        .filter(phase -> phase instanceof DefaultPhase)
+                        .flatMap(phase -> phase.getChildren().stream())
+                        .collect(Collectors.toList()));
+            }
+            return taskStepIndex;
+        }
+    }
+
     @Override
     public String toString() {
         // Provide a nicely formatted tree -- mainly for developer use in e.g. unit tests
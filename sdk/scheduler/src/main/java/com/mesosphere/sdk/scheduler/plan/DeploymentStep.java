@@ -142,6 +142,18 @@ public class DeploymentStep extends AbstractStep {
         return getDisplayStatus(stateStore, super.getStatus(), taskFullNames);
     }
 
+    /**
+     * Returns the IDs of the tasks launched by the step, or no tasks once the step is complete, as statuses for any
+     * other tasks are ignored by {@link #update(Protos.TaskStatus)}.
+     */
+    @Override
+    public synchronized Optional<Collection<Protos.TaskID>> getRelevantTaskIds() {
+        if (isComplete()) {
+            return Optional.of(Collections.emptyList());
+        }
+        return Optional.of(new ArrayList<>(tasks.keySet()));
+    }
+
     /**
      * Synchronized to ensure consistency between this and {@link #updateOfferStatus(Collection)}.
      */
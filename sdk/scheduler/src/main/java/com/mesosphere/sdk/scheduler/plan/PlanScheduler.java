@@ -3,6 +3,7 @@ package com.mesosphere.sdk.scheduler.plan;
 import com.mesosphere.sdk.framework.TaskKiller;
 import com.mesosphere.sdk.offer.*;
 import com.mesosphere.sdk.offer.evaluate.OfferEvaluator;
+import com.mesosphere.sdk.scheduler.SchedulerUtils;
 import com.mesosphere.sdk.specification.TaskSpec;
 import com.mesosphere.sdk.state.StateStore;
 
@@ -11,10 +12,24 @@ import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
  * Attempts to start {@link Step}s, while fulfilling any {@link PodInstanceRequirement}s they provide.
+ *
+ * <p>By default, steps are evaluated one at a time, with each step only seeing the offers which weren't consumed by
+ * the steps before it. If an evaluation parallelism greater than one is configured, the steps are instead evaluated
+ * concurrently against all offers, and any step which selected an offer that was already used by an earlier step is
+ * then re-evaluated against the remaining offers. Because each step selects the first matching offer in order, the
+ * result is identical to the serial evaluation. Only the evaluation which is kept for each step is recorded in the
+ * offer history and metrics, and steps whose evaluation has side effects, such as provisioning TLS certs, are never
+ * evaluated speculatively: they're only evaluated once it's known which offers remain for them.
+ *
+ * <p>In either case, the resources within each offer are only indexed once per call to
+ * {@link #resourceOffers(Collection, Collection)}, and that index is shared by all steps which evaluate the offer.
  */
 public class PlanScheduler {
 
@@ -22,10 +37,22 @@ public class PlanScheduler {
 
     private final OfferEvaluator offerEvaluator;
     private final StateStore stateStore;
+    private final Optional<ExecutorService> evaluationExecutor;
 
     public PlanScheduler(OfferEvaluator offerEvaluator, StateStore stateStore) {
+        this(offerEvaluator, stateStore, 1);
+    }
+
+    /**
+     * Creates a new instance which evaluates up to {@code evaluationParallelism} steps concurrently. A value of 1 or
+     * less results in all steps being evaluated serially.
+     */
+    public PlanScheduler(OfferEvaluator offerEvaluator, StateStore stateStore, int evaluationParallelism) {
         this.offerEvaluator = offerEvaluator;
         this.stateStore = stateStore;
+        this.evaluationExecutor = evaluationParallelism > 1
+                ? Optional.of(SchedulerUtils.getStepEvaluationExecutor(evaluationParallelism))
+                : Optional.empty();
     }
 
     /**
@@ -36,29 +63,94 @@ public class PlanScheduler {
      */
     public List<OfferRecommendation> resourceOffers(
             final Collection<Protos.Offer> offers, final Collection<? extends Step> steps) {
+        final OfferResourceIndex.Cache offerResourceIndexCache = new OfferResourceIndex.Cache();
+        if (evaluationExecutor.isPresent() && steps.size() > 1) {
+            return resourceOffersParallel(offers, steps, evaluationExecutor.get(), offerResourceIndexCache);
+        }
+
         List<OfferRecommendation> allRecommendations = new ArrayList<>();
         List<Protos.Offer> availableOffers = new ArrayList<>(offers);
 
         for (Step step : steps) {
-            List<OfferRecommendation> stepRecommendations = resourceOffers(availableOffers, step);
+            Optional<PodInstanceRequirement> podInstanceRequirement = startStep(step);
+            if (!podInstanceRequirement.isPresent()) {
+                continue;
+            }
+            List<OfferRecommendation> stepRecommendations = evaluate(
+                    podInstanceRequirement.get(), availableOffers, offerResourceIndexCache);
+            updateOfferStatus(step, podInstanceRequirement.get(), stepRecommendations);
             allRecommendations.addAll(stepRecommendations);
+            availableOffers = getUnusedOffers(availableOffers, stepRecommendations);
+        }
+
+        return allRecommendations;
+    }
 
-            // Remove the consumed offers from the list of available offers
-            Set<Protos.OfferID> usedOfferIds = stepRecommendations.stream()
-                    .map(rec -> rec.getOffer().getId())
-                    .collect(Collectors.toSet());
-            availableOffers = availableOffers.stream()
-                    .filter(offer -> !usedOfferIds.contains(offer.getId()))
-                    .collect(Collectors.toList());
+    private List<OfferRecommendation> resourceOffersParallel(
+            final Collection<Protos.Offer> offers,
+            final Collection<? extends Step> steps,
+            ExecutorService executor,
+            OfferResourceIndex.Cache offerResourceIndexCache) {
+        // Start steps serially and in order, so that task kills and step state changes happen as they would in the
+        // serial case. Then evaluate all started steps concurrently against the full list of offers, except for those
+        // whose evaluation has side effects.
+        final List<Protos.Offer> allOffers = Collections.unmodifiableList(new ArrayList<>(offers));
+        List<Step> startedSteps = new ArrayList<>();
+        List<PodInstanceRequirement> podInstanceRequirements = new ArrayList<>();
+        List<Optional<Future<Optional<OfferEvaluator.Evaluation>>>> evaluations = new ArrayList<>();
+        for (Step step : steps) {
+            Optional<PodInstanceRequirement> podInstanceRequirement = startStep(step);
+            if (podInstanceRequirement.isPresent()) {
+                startedSteps.add(step);
+                podInstanceRequirements.add(podInstanceRequirement.get());
+                evaluations.add(OfferEvaluator.hasSideEffects(podInstanceRequirement.get())
+                        ? Optional.empty()
+                        : Optional.of(executor.submit(() -> evaluateWithoutRecording(
+                                podInstanceRequirement.get(), allOffers, offerResourceIndexCache))));
+            }
+        }
+
+        // Settle the results in step order. Any step which picked an offer that an earlier step already used is
+        // re-evaluated against the remaining offers, exactly as it would have been in the serial case. The discarded
+        // evaluation is never recorded.
+        List<OfferRecommendation> allRecommendations = new ArrayList<>();
+        List<Protos.Offer> availableOffers = allOffers;
+        for (int i = 0; i < startedSteps.size(); ++i) {
+            Step step = startedSteps.get(i);
+            PodInstanceRequirement podInstanceRequirement = podInstanceRequirements.get(i);
+            List<OfferRecommendation> stepRecommendations;
+            if (evaluations.get(i).isPresent()) {
+                Optional<OfferEvaluator.Evaluation> evaluation = getEvaluation(evaluations.get(i).get());
+                stepRecommendations = evaluation.isPresent()
+                        ? evaluation.get().getRecommendations()
+                        : Collections.emptyList();
+                if (availableOffers.size() != allOffers.size() &&
+                        !usesOnlyAvailableOffers(stepRecommendations, availableOffers)) {
+                    LOGGER.info("Step {} selected an offer which was used by an earlier step, re-evaluating " +
+                            "against {} remaining offers", step.getName(), availableOffers.size());
+                    stepRecommendations = evaluate(podInstanceRequirement, availableOffers, offerResourceIndexCache);
+                } else if (evaluation.isPresent()) {
+                    evaluation.get().record();
+                }
+            } else {
+                stepRecommendations = evaluate(podInstanceRequirement, availableOffers, offerResourceIndexCache);
+            }
+            updateOfferStatus(step, podInstanceRequirement, stepRecommendations);
+            allRecommendations.addAll(stepRecommendations);
+            availableOffers = getUnusedOffers(availableOffers, stepRecommendations);
         }
 
         return allRecommendations;
     }
 
-    private List<OfferRecommendation> resourceOffers(List<Protos.Offer> offers, Step step) {
+    /**
+     * Starts the provided step if it's eligible for offers, returning the {@link PodInstanceRequirement} which it needs
+     * to have fulfilled, or an empty {@link Optional} if the step doesn't need any offers.
+     */
+    private Optional<PodInstanceRequirement> startStep(Step step) {
         if (!(step.isPending() || step.isPrepared())) {
             LOGGER.info("Ignoring resource offers for step: {} status: {}", step.getName(), step.getStatus());
-            return Collections.emptyList();
+            return Optional.empty();
         }
 
         LOGGER.info("Processing resource offers for step: {}", step.getName());
@@ -66,40 +158,102 @@ public class PlanScheduler {
         if (!podInstanceRequirementOptional.isPresent()) {
             LOGGER.info("No PodInstanceRequirement for step: {}", step.getName());
             step.updateOfferStatus(Collections.emptyList());
-            return Collections.emptyList();
+            return Optional.empty();
         }
 
-        PodInstanceRequirement podInstanceRequirement = podInstanceRequirementOptional.get();
         // It is harmless to attempt to kill tasks which have never been launched.  This call attempts to Kill all Tasks
         // with a Task name which is equivalent to that expressed by the OfferRequirement.  If no such Task is currently
         // running no operation occurs.
-        killTasks(podInstanceRequirement);
+        killTasks(podInstanceRequirementOptional.get());
+        return podInstanceRequirementOptional;
+    }
 
-        // Step has returned an OfferRequirement to process. Find offers which match the
-        // requirement and accept them, if any are found:
-        final List<OfferRecommendation> recommendations;
+    /**
+     * Finds offers which match the requirement, returning the recommendations for accepting them, if any are found.
+     */
+    private List<OfferRecommendation> evaluate(
+            PodInstanceRequirement podInstanceRequirement,
+            List<Protos.Offer> offers,
+            OfferResourceIndex.Cache offerResourceIndexCache) {
         try {
-            recommendations = offerEvaluator.evaluate(podInstanceRequirement, offers);
+            return offerEvaluator.evaluate(podInstanceRequirement, offers, offerResourceIndexCache);
         } catch (InvalidRequirementException | IOException e) {
             LOGGER.error("Failed generate OfferRecommendations.", e);
             return Collections.emptyList();
         }
+    }
+
+    /**
+     * Same as {@link #evaluate(PodInstanceRequirement, List, OfferResourceIndex.Cache)}, except the result is not
+     * recorded until the caller decides to keep it. Returns an empty {@link Optional} if the evaluation failed.
+     */
+    private Optional<OfferEvaluator.Evaluation> evaluateWithoutRecording(
+            PodInstanceRequirement podInstanceRequirement,
+            List<Protos.Offer> offers,
+            OfferResourceIndex.Cache offerResourceIndexCache) {
+        try {
+            return Optional.of(
+                    offerEvaluator.evaluateWithoutRecording(podInstanceRequirement, offers, offerResourceIndexCache));
+        } catch (InvalidRequirementException | IOException e) {
+            LOGGER.error("Failed generate OfferRecommendations.", e);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<OfferEvaluator.Evaluation> getEvaluation(
+            Future<Optional<OfferEvaluator.Evaluation>> evaluation) {
+        try {
+            return evaluation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for offer evaluation", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to evaluate offers", e.getCause());
+        }
+    }
 
+    private static void updateOfferStatus(
+            Step step, PodInstanceRequirement podInstanceRequirement, List<OfferRecommendation> recommendations) {
         if (recommendations.isEmpty()) {
             // Log that we're not finding suitable offers, possibly due to insufficient resources.
             LOGGER.warn(
                     "Unable to find any offers which fulfill requirement provided by step {}: {}",
                     step.getName(), podInstanceRequirement);
             step.updateOfferStatus(Collections.emptyList());
-            return Collections.emptyList();
+            return;
         }
 
         // Notify step of offer outcome:
         // If no Operations occurred it may still be of interest to the Step.  For example it may want to set its state
         // to Pending to ensure it will be reattempted on the next Offer cycle.
         step.updateOfferStatus(getNonTransientRecommendations(recommendations));
+    }
+
+    /**
+     * Returns the subset of {@code offers} which aren't used by any of the provided {@code recommendations}.
+     */
+    private static List<Protos.Offer> getUnusedOffers(
+            List<Protos.Offer> offers, Collection<OfferRecommendation> recommendations) {
+        if (recommendations.isEmpty()) {
+            return offers;
+        }
+        Set<Protos.OfferID> usedOfferIds = recommendations.stream()
+                .map(rec -> rec.getOffer().getId())
+                .collect(Collectors.toSet());
+        return offers.stream()
+                .filter(offer -> !usedOfferIds.contains(offer.getId()))
+                .collect(Collectors.toList());
+    }
 
-        return recommendations;
+    private static boolean usesOnlyAvailableOffers(
+            Collection<OfferRecommendation> recommendations, Collection<Protos.Offer> availableOffers) {
+        Set<Protos.OfferID> availableOfferIds = availableOffers.stream()
+                .map(Protos.Offer::getId)
+                .collect(Collectors.toSet());
+        return recommendations.stream().allMatch(rec -> availableOfferIds.contains(rec.getOffer().getId()));
     }
 
     private void killTasks(PodInstanceRequirement podInstanceRequirement) {
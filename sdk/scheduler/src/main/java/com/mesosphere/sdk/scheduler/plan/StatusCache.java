@@ -0,0 +1,110 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches the aggregate status of a {@link ParentElement}, so that it's only recomputed after one of the element's
+ * children has notified a change, or after the element itself has been interrupted or proceeded. Changes are passed up
+ * to any listeners of the element (e.g. the cache of a parent {@link Plan}), so each change invalidates one cache per
+ * level of the plan tree.
+ *
+ * <p>Caching is only enabled when every child of the element notifies changes to its status. Otherwise the status is
+ * recomputed on every call, as before.
+ */
+class StatusCache implements StatusListener {
+
+    private final Object lock = new Object();
+    private final Element owner;
+    private boolean enabled;
+
+    private final Set<StatusListener> listeners = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private long version;
+    private Status status;
+    private boolean interrupted;
+
+    StatusCache(Element owner) {
+        this.owner = owner;
+        this.enabled = true;
+    }
+
+    /**
+     * Disables caching, e.g. because one of the owner's children doesn't notify changes to its status. Must only be
+     * called while the owner is being constructed.
+     */
+    void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Returns the cached status if it's still valid, otherwise computes and caches a new status.
+     *
+     * @param isInterrupted whether the element is currently interrupted, which invalidates the cached status if it
+     *     differs from when the status was computed
+     * @param computeStatus computes the aggregate status of the element from its children
+     */
+    Status get(boolean isInterrupted, Supplier<Status> computeStatus) {
+        if (!enabled) {
+            return computeStatus.get();
+        }
+        long computeVersion;
+        synchronized (lock) {
+            if (status != null && interrupted == isInterrupted) {
+                return status;
+            }
+            computeVersion = version;
+        }
+        Status computedStatus = computeStatus.get();
+        synchronized (lock) {
+            // Don't cache a status which may have been computed from children that changed in the meantime.
+            if (version == computeVersion) {
+                status = computedStatus;
+                interrupted = isInterrupted;
+            }
+        }
+        return computedStatus;
+    }
+
+    /**
+     * Registers a listener to be notified whenever this cache is invalidated.
+     *
+     * @return whether the listener will be notified, which is only the case when caching is enabled
+     */
+    boolean addListener(StatusListener listener) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (listeners) {
+            listeners.add(listener);
+        }
+        return true;
+    }
+
+    /**
+     * Discards the cached status, and notifies any listeners that the status of the owning element may have changed.
+     */
+    void invalidate() {
+        synchronized (lock) {
+            ++version;
+            status = null;
+        }
+        Collection<StatusListener> listenersToNotify;
+        synchronized (listeners) {
+            if (listeners.isEmpty()) {
+                return;
+            }
+            listenersToNotify = new ArrayList<>(listeners);
+        }
+        listenersToNotify.forEach(listener -> listener.statusChanged(owner));
+    }
+
+    @Override
+    public void statusChanged(Element element) {
+        invalidate();
+    }
+}
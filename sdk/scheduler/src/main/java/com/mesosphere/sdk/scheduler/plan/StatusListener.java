@@ -0,0 +1,13 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+/**
+ * Notified when the status of a plan {@link Element} may have changed, so that any state derived from it can be
+ * updated. Listeners are held weakly by the elements they listen to.
+ */
+interface StatusListener {
+
+    /**
+     * Invoked after the status of the provided element, or whether it is interrupted, may have changed.
+     */
+    void statusChanged(Element element);
+}
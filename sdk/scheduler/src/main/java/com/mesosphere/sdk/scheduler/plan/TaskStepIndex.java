@@ -0,0 +1,101 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import org.apache.mesos.Protos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An index from task IDs to the {@link Step}s which are interested in statuses for those tasks, so that each status
+ * only needs to be passed to the relevant steps rather than to every step in a {@link Plan}.
+ *
+ * <p>Steps which extend {@link AbstractStep} declare the tasks they're interested in via
+ * {@link AbstractStep#getRelevantTaskIds()}, and notify the index whenever their status changes, which is when the
+ * tasks they're interested in may change (e.g. as they're started with new tasks, or once they're complete). All other
+ * steps are given every status.
+ */
+class TaskStepIndex implements StatusListener {
+
+    private final Object lock = new Object();
+
+    // Steps are tracked by identity: step equality is reflection-based and therefore expensive.
+    private final Map<AbstractStep, Collection<Protos.TaskID>> taskIdsByStep = new IdentityHashMap<>();
+    private final Map<Protos.TaskID, Set<AbstractStep>> stepsByTaskId = new HashMap<>();
+    private final Set<Step> unindexedSteps = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    TaskStepIndex(Collection<? extends Step> steps) {
+        for (Step step : steps) {
+            // Register before reading the step's tasks, so that no subsequent changes are missed.
+            if (step instanceof AbstractStep && ((AbstractStep) step).addListener(this)) {
+                refresh((AbstractStep) step);
+            } else {
+                synchronized (lock) {
+                    unindexedSteps.add(step);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the steps which should be given a status for the provided task.
+     */
+    Collection<Step> getSteps(Protos.TaskID taskId) {
+        synchronized (lock) {
+            List<Step> steps = new ArrayList<>(unindexedSteps);
+            steps.addAll(stepsByTaskId.getOrDefault(taskId, Collections.emptySet()));
+            return steps;
+        }
+    }
+
+    @Override
+    public void statusChanged(Element element) {
+        refresh((AbstractStep) element);
+    }
+
+    /**
+     * Updates the index to reflect the tasks which the provided step is currently interested in.
+     */
+    private void refresh(AbstractStep step) {
+        // Read and install the step's tasks while holding the step's own lock, which steps hold while changing their
+        // tasks. Otherwise a refresh which read the tasks before a change could be installed after the refresh which
+        // followed that change, leaving the index stale. Steps may call back into the index while holding their own
+        // locks, so the step's lock is always taken first, and we must never wait on it while holding ours.
+        synchronized (step) {
+            install(step, step.getRelevantTaskIds());
+        }
+    }
+
+    private void install(AbstractStep step, Optional<Collection<Protos.TaskID>> taskIds) {
+        synchronized (lock) {
+            Collection<Protos.TaskID> previousTaskIds = taskIdsByStep.remove(step);
+            if (previousTaskIds != null) {
+                for (Protos.TaskID taskId : previousTaskIds) {
+                    Set<AbstractStep> steps = stepsByTaskId.get(taskId);
+                    steps.remove(step);
+                    if (steps.isEmpty()) {
+                        stepsByTaskId.remove(taskId);
+                    }
+                }
+            }
+
+            if (!taskIds.isPresent()) {
+                unindexedSteps.add(step);
+                return;
+            }
+            unindexedSteps.remove(step);
+            Collection<Protos.TaskID> currentTaskIds = new ArrayList<>(taskIds.get());
+            taskIdsByStep.put(step, currentTaskIds);
+            for (Protos.TaskID taskId : currentTaskIds) {
+                stepsByTaskId.computeIfAbsent(taskId, id -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                        .add(step);
+            }
+        }
+    }
+}
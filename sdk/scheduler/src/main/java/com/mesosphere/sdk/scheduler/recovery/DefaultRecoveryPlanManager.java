@@ -14,6 +14,7 @@ import com.mesosphere.sdk.specification.ServiceSpec;
 import com.mesosphere.sdk.specification.TaskSpec;
 import com.mesosphere.sdk.state.ConfigStore;
 import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.state.StateStoreException;
 import com.mesosphere.sdk.state.StateStoreUtils;
 import org.apache.mesos.Protos;
 import org.slf4j.Logger;
@@ -44,6 +45,16 @@ public class DefaultRecoveryPlanManager implements PlanManager {
     protected final LaunchConstrainer launchConstrainer;
     protected final Object planLock = new Object();
 
+    /**
+     * Tasks which may need recovery, mapped to the ID of the task which was found to need recovery. This is kept up
+     * to date from the statuses passed to {@link #update(Protos.TaskStatus)}, so that each offer cycle only needs to
+     * examine these tasks rather than every task in the {@link StateStore}. Guarded by {@code planLock}.
+     */
+    private final Map<String, Protos.TaskID> recoveryCandidates = new TreeMap<>();
+    private boolean resyncNeeded = true;
+    // The persister generation which recoveryCandidates were last scanned against. Guarded by {@code planLock}.
+    private long persisterGeneration;
+
     public DefaultRecoveryPlanManager(
             StateStore stateStore,
             ConfigStore<ServiceSpec> configStore,
@@ -121,7 +132,110 @@ public class DefaultRecoveryPlanManager implements PlanManager {
     public void update(Protos.TaskStatus status) {
         synchronized (planLock) {
             getPlan().update(status);
+            updateRecoveryCandidate(status);
+        }
+    }
+
+    /**
+     * Requests that the next offer cycle finds the tasks needing recovery by scanning every task in the
+     * {@link StateStore}, rather than by relying on the statuses received since the last scan. A scan is always
+     * performed on the first offer cycle, and whenever the underlying {@link com.mesosphere.sdk.storage.Persister}
+     * reports that its data may have been changed externally, see
+     * {@link com.mesosphere.sdk.storage.Persister#getGeneration()}.
+     */
+    public void resync() {
+        synchronized (planLock) {
+            resyncNeeded = true;
+        }
+    }
+
+    private void updateRecoveryCandidate(Protos.TaskStatus status) {
+        if (resyncNeeded) {
+            // The upcoming scan will take this status into account.
+            return;
+        }
+
+        String taskName = null;
+        try {
+            Optional<String> taskNameOptional = stateStore.fetchTaskName(status.getTaskId());
+            if (!taskNameOptional.isPresent() || !recoverableTaskNames.contains(taskNameOptional.get())) {
+                return;
+            }
+            taskName = taskNameOptional.get();
+
+            Optional<Protos.TaskInfo> taskInfo = stateStore.fetchTask(taskName);
+            if (!taskInfo.isPresent() || !taskInfo.get().getTaskId().equals(status.getTaskId())) {
+                // Status for a task which has since been relaunched or removed.
+                return;
+            }
+
+            if (StateStoreUtils.needsRecovery(configStore, taskInfo.get(), status)) {
+                recoveryCandidates.put(taskName, status.getTaskId());
+            } else {
+                recoveryCandidates.remove(taskName);
+            }
+        } catch (StateStoreException | TaskException e) {
+            logger.error(String.format(
+                    "Failed to determine whether task %s needs recovery, scanning all tasks on the next offer cycle",
+                    taskName == null ? status.getTaskId().getValue() : taskName), e);
+            resyncNeeded = true;
+        }
+    }
+
+    /**
+     * Returns the tasks needing recovery. This only scans every task in the {@link StateStore} on the first call and
+     * after a {@link #resync()}. Otherwise the tasks which were found to need recovery from their statuses are
+     * re-read, so that any change to their failure state (e.g. being marked as permanently failed) is reflected.
+     */
+    private Collection<Protos.TaskInfo> fetchTasksNeedingRecovery() throws TaskException {
+        long generation = stateStore.getPersister().getGeneration();
+        if (generation != persisterGeneration) {
+            logger.info("Persister data has been reloaded, scanning all tasks for recovery");
+            resync();
+        }
+        if (resyncNeeded) {
+            // Read the generation first, so that a change which occurs during the scan results in another scan:
+            persisterGeneration = generation;
+            Collection<Protos.TaskInfo> failedTasks =
+                    StateStoreUtils.fetchTasksNeedingRecovery(stateStore, configStore, recoverableTaskNames);
+            recoveryCandidates.clear();
+            failedTasks.forEach(taskInfo -> recoveryCandidates.put(taskInfo.getName(), taskInfo.getTaskId()));
+            resyncNeeded = false;
+            return failedTasks;
+        }
+
+        List<Protos.TaskInfo> failedTasks = new ArrayList<>();
+        Iterator<Map.Entry<String, Protos.TaskID>> iterator = recoveryCandidates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Protos.TaskID> entry = iterator.next();
+            Optional<Protos.TaskInfo> taskInfo = stateStore.fetchTask(entry.getKey());
+            if (taskInfo.isPresent() && taskInfo.get().getTaskId().equals(entry.getValue())) {
+                failedTasks.add(taskInfo.get());
+            } else {
+                // The task has since been relaunched or removed. Any relaunched task is tracked via its own statuses.
+                iterator.remove();
+            }
         }
+        return failedTasks;
+    }
+
+    /**
+     * Returns the launched tasks in each of the pods of the provided failed tasks.
+     */
+    private Collection<Protos.TaskInfo> fetchLaunchedPodTasks(Collection<Protos.TaskInfo> failedTasks) {
+        Map<String, PodInstance> podInstances = new TreeMap<>();
+        for (Protos.TaskInfo taskInfo : failedTasks) {
+            try {
+                PodInstance podInstance = TaskUtils.getPodInstance(configStore, taskInfo);
+                podInstances.put(podInstance.getName(), podInstance);
+            } catch (TaskException e) {
+                // Logged when building the pod requirements, which also skip this task.
+            }
+        }
+        return podInstances.values().stream()
+                .flatMap(podInstance -> StateStoreUtils.fetchPodTasks(stateStore, podInstance).stream())
+                .filter(taskInfo -> stateStore.fetchStatus(taskInfo.getName()).isPresent())
+                .collect(Collectors.toList());
     }
 
     protected void updatePlan(Collection<PodInstanceRequirement> dirtyAssets) {
@@ -250,20 +364,13 @@ public class DefaultRecoveryPlanManager implements PlanManager {
     private List<PodInstanceRequirement> getNewFailedPods(Collection<PodInstanceRequirement> dirtyAssets)
             throws TaskException {
 
-        Collection<Protos.TaskInfo> failedTasks = StateStoreUtils.fetchTasksNeedingRecovery(
-                stateStore,
-                configStore,
-                recoverableTaskNames);
+        Collection<Protos.TaskInfo> failedTasks = fetchTasksNeedingRecovery();
         logger.info("Found tasks needing recovery: {}", getTaskNames(failedTasks));
 
-        List<Protos.TaskInfo> allLaunchedTasks = stateStore.fetchTasks().stream()
-                .filter(taskInfo -> stateStore.fetchStatus(taskInfo.getName()).isPresent())
-                .collect(Collectors.toList());
-
         List<PodInstanceRequirement> failedPods = TaskUtils.getPodRequirements(
                 configStore,
                 failedTasks,
-                allLaunchedTasks);
+                fetchLaunchedPodTasks(failedTasks));
         logger.info("All failed tasks: {}", getPodNames(failedPods));
 
         failedPods = failedPods.stream()
@@ -9,22 +9,82 @@ import org.apache.mesos.Protos;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
  * Records the result of launched tasks to persistent storage.
+ *
+ * <p>Listeners may be registered to be told about the recorded tasks once they're known to have been stored. As the
+ * writes from {@link #record(Collection)} may be part of a larger batch which is only committed later, the recorded
+ * tasks are held until the owner of the batch calls {@link #notifyCommitted()} or {@link #discardUncommitted()}.
  */
 public class PersistentLaunchRecorder {
+
+    /**
+     * Listens for tasks recorded by a {@link PersistentLaunchRecorder}.
+     */
+    public interface Listener {
+        /**
+         * Invoked with the tasks which were recorded, once they've been committed to storage.
+         */
+        void recorded(Collection<Protos.TaskInfo> taskInfos);
+    }
+
     private final Logger logger = LoggingUtils.getLogger(getClass());
     private final StateStore stateStore;
     private final ServiceSpec serviceSpec;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Tasks which have been recorded, but not yet passed to the listeners. Only populated if there are any listeners.
+    private final List<Protos.TaskInfo> uncommittedTasks = new ArrayList<>();
 
     public PersistentLaunchRecorder(StateStore stateStore, ServiceSpec serviceSpec) {
         this.stateStore = stateStore;
         this.serviceSpec = serviceSpec;
     }
 
+    /**
+     * Registers a listener to be notified of recorded tasks.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
     public void record(Collection<OfferRecommendation> offerRecommendations) throws Exception {
+        // Store all of the launches as a single unit of work, rather than writing to storage separately for each task:
+        stateStore.runBatch(() -> recordLaunches(offerRecommendations));
+    }
+
+    /**
+     * Passes any tasks recorded since the last call to this method or {@link #discardUncommitted()} to the listeners.
+     * This should be called once the writes from {@link #record(Collection)} have been committed to storage.
+     */
+    public void notifyCommitted() {
+        List<Protos.TaskInfo> committedTasks;
+        synchronized (uncommittedTasks) {
+            if (uncommittedTasks.isEmpty()) {
+                return;
+            }
+            committedTasks = new ArrayList<>(uncommittedTasks);
+            uncommittedTasks.clear();
+        }
+        for (Listener listener : listeners) {
+            listener.recorded(committedTasks);
+        }
+    }
+
+    /**
+     * Forgets any tasks recorded since the last call to this method or {@link #notifyCommitted()}, without passing
+     * them to the listeners. This should be called if the writes from {@link #record(Collection)} couldn't be
+     * committed to storage.
+     */
+    public void discardUncommitted() {
+        synchronized (uncommittedTasks) {
+            uncommittedTasks.clear();
+        }
+    }
+
+    private void recordLaunches(Collection<OfferRecommendation> offerRecommendations) throws Exception {
         for (OfferRecommendation offerRecommendation : offerRecommendations) {
             if (!(offerRecommendation instanceof LaunchOfferRecommendation)) {
                 continue;
@@ -63,6 +123,11 @@ public class PersistentLaunchRecorder {
             if (taskStatus.isPresent()) {
                 stateStore.storeStatus(taskInfo.getName(), taskStatus.get());
             }
+            if (!listeners.isEmpty()) {
+                synchronized (uncommittedTasks) {
+                    uncommittedTasks.add(taskInfo);
+                }
+            }
         }
     }
 
@@ -0,0 +1,90 @@
+package com.mesosphere.sdk.state;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.mesosphere.sdk.scheduler.Metrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of decoded protobuf objects, keyed by their storage path. Each entry retains the serialized bytes which it
+ * was decoded from, and is only returned if those bytes still match what the caller just read from the
+ * {@link com.mesosphere.sdk.storage.Persister}. This keeps the cache consistent even if the underlying data is
+ * modified by something other than the owning {@link StateStore}, while still avoiding the cost of re-parsing
+ * unchanged data. When the persister is backed by a {@link com.mesosphere.sdk.storage.PersisterCache}, matching is
+ * effectively free as the same byte array instance is returned on every read.
+ *
+ * <p>Returned objects are immutable protobuf messages and may be shared freely between callers.
+ *
+ * @param <T> the type of protobuf message being cached
+ */
+final class ProtoCache<T extends Message> {
+
+    private static class Entry<T> {
+        private final byte[] bytes;
+        private final T value;
+
+        private Entry(byte[] bytes, T value) {
+            this.bytes = bytes;
+            this.value = value;
+        }
+    }
+
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Parser<T> parser;
+
+    ProtoCache(Parser<T> parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Returns the decoded form of the provided {@code bytes} which were read from {@code path}, reusing a previously
+     * decoded object if the bytes are unchanged since it was decoded.
+     *
+     * @throws InvalidProtocolBufferException if the bytes needed to be decoded and decoding failed
+     */
+    T get(String path, byte[] bytes) throws InvalidProtocolBufferException {
+        Entry<T> entry = entries.get(path);
+        if (entry != null && (entry.bytes == bytes || Arrays.equals(entry.bytes, bytes))) {
+            Metrics.incrementStateStoreCacheHits();
+            return entry.value;
+        }
+        Metrics.incrementStateStoreCacheMisses();
+        T value = parser.parseFrom(bytes);
+        entries.put(path, new Entry<>(bytes, value));
+        return value;
+    }
+
+    /**
+     * Records an object which has just been written to {@code path} in serialized form as {@code bytes}, so that the
+     * next read of that path does not need to decode it again.
+     */
+    void put(String path, byte[] bytes, T value) {
+        entries.put(path, new Entry<>(bytes, value));
+    }
+
+    /**
+     * Removes the entry at {@code path}, if any.
+     */
+    void invalidate(String path) {
+        entries.remove(path);
+    }
+
+    /**
+     * Removes all entries whose path is {@code pathPrefix} or a descendant of {@code pathPrefix}.
+     */
+    void invalidatePrefix(String pathPrefix) {
+        String childPrefix = pathPrefix + "/";
+        entries.keySet().removeIf(path -> path.equals(pathPrefix) || path.startsWith(childPrefix));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+        entries.clear();
+    }
+}
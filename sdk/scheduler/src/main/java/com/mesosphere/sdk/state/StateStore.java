@@ -61,6 +61,12 @@ public class StateStore {
     protected final Persister persister;
     protected final String namespace;
 
+    private final ProtoCache<Protos.TaskInfo> taskInfoCache = new ProtoCache<>(Protos.TaskInfo.parser());
+    private final ProtoCache<Protos.TaskStatus> taskStatusCache = new ProtoCache<>(Protos.TaskStatus.parser());
+    private final TaskIdIndex taskIdIndex = new TaskIdIndex();
+    // The persister generation which taskIdIndex was last rebuilt against:
+    private volatile long taskIdIndexGeneration;
+
     /**
      * Creates a new {@link StateStore} which uses the provided {@link Persister} to access state data.
      *
@@ -88,9 +94,58 @@ public class StateStore {
         this.persister = persister;
         this.namespace = namespace.orElse("");
 
+        rebuildTaskIdIndex();
         StateStoreUtils.repairTaskIDs(this);
     }
 
+    // Units of work
+
+    /**
+     * A series of {@link StateStore} operations to be performed as a single unit of work.
+     *
+     * @see StateStore#runBatch(Batch)
+     */
+    @FunctionalInterface
+    public interface Batch {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs the provided operations as a single unit of work. Writes made by the calling thread are buffered and then
+     * passed to storage together once the operations have finished, which is far cheaper than writing each of them
+     * separately. Reads made by the calling thread within the batch reflect its own buffered writes.
+     *
+     * <p>Writes are applied in the order that they were made. If the operations throw, any writes made before the
+     * failure are still applied, as they would have been outside of a batch, and the original exception is rethrown.
+     * Batches may be nested, in which case the writes are applied when the outermost batch has finished.
+     *
+     * @param batch the operations to be performed
+     * @throws StateStoreException if the buffered writes couldn't be applied
+     * @throws Exception if the operations themselves failed
+     */
+    public void runBatch(Batch batch) throws Exception {
+        try {
+            persister.beginBatch();
+        } catch (PersisterException e) {
+            throw new StateStoreException(e);
+        }
+        try {
+            batch.run();
+        } catch (Throwable e) {
+            try {
+                persister.commitBatch();
+            } catch (PersisterException commitException) {
+                e.addSuppressed(commitException);
+            }
+            throw e;
+        }
+        try {
+            persister.commitBatch();
+        } catch (PersisterException e) {
+            throw new StateStoreException(e, "Failed to store batched writes");
+        }
+    }
+
     // Write Tasks
 
     /**
@@ -103,14 +158,23 @@ public class StateStore {
      */
     public void storeTasks(Collection<Protos.TaskInfo> tasks) throws StateStoreException {
         Map<String, byte[]> taskBytesMap = new HashMap<>();
+        Map<String, Protos.TaskInfo> taskInfoMap = new HashMap<>();
         for (Protos.TaskInfo taskInfo : tasks) {
-            taskBytesMap.put(getTaskInfoPath(namespace, taskInfo.getName()), taskInfo.toByteArray());
+            String path = getTaskInfoPath(namespace, taskInfo.getName());
+            taskBytesMap.put(path, taskInfo.toByteArray());
+            taskInfoMap.put(path, taskInfo);
         }
         try {
             persister.setMany(taskBytesMap);
         } catch (PersisterException e) {
+            taskInfoMap.keySet().forEach(taskInfoCache::invalidate);
             throw new StateStoreException(e, String.format("Failed to store %d TaskInfos", tasks.size()));
         }
+        for (Map.Entry<String, byte[]> entry : taskBytesMap.entrySet()) {
+            Protos.TaskInfo taskInfo = taskInfoMap.get(entry.getKey());
+            taskInfoCache.put(entry.getKey(), entry.getValue(), taskInfo);
+            taskIdIndex.put(taskInfo);
+        }
     }
 
     /**
@@ -143,11 +207,14 @@ public class StateStore {
         String path = getTaskStatusPath(namespace, taskName);
         logger.info("Storing status '{}' for '{}' in '{}'", status.getState(), taskName, path);
 
+        byte[] bytes = status.toByteArray();
         try {
-            persister.set(path, status.toByteArray());
+            persister.set(path, bytes);
         } catch (PersisterException e) {
+            taskStatusCache.invalidate(path);
             throw new StateStoreException(e);
         }
+        taskStatusCache.put(path, bytes, status);
     }
 
     /**
@@ -157,8 +224,12 @@ public class StateStore {
      * @throws StateStoreException when clearing the indicated Task's information fails
      */
     public void clearTask(String taskName) throws StateStoreException {
+        String taskPath = getTaskPath(namespace, taskName);
+        taskInfoCache.invalidatePrefix(taskPath);
+        taskStatusCache.invalidatePrefix(taskPath);
+        taskIdIndex.remove(taskName);
         try {
-            persister.recursiveDelete(getTaskPath(namespace, taskName));
+            persister.recursiveDelete(taskPath);
         } catch (PersisterException e) {
             if (e.getReason() == Reason.NOT_FOUND) {
                 // Clearing a non-existent Task should not result in an exception from us.
@@ -197,13 +268,14 @@ public class StateStore {
 
     /**
      * Fetches and returns all {@link Protos.TaskInfo}s from the underlying storage, or an empty list if none are found.
-     * This list should be a superset of the list returned by {@link #fetchStatuses()}.
+     * This list should be a superset of the list returned by {@link #fetchStatuses()}. TaskInfos which are unchanged
+     * since they were last stored or fetched are returned without being decoded again.
      *
-     * @return All TaskInfos
+     * @return An unmodifiable snapshot of all TaskInfos
      * @throws StateStoreException if fetching the TaskInfo information otherwise fails
      */
     public Collection<Protos.TaskInfo> fetchTasks() throws StateStoreException {
-        Collection<Protos.TaskInfo> taskInfos = new ArrayList<>();
+        List<Protos.TaskInfo> taskInfos = new ArrayList<>();
         for (String taskName : fetchTaskNames()) {
             Optional<Protos.TaskInfo> taskInfoOptional = fetchTask(taskName);
             if (taskInfoOptional.isPresent()) {
@@ -214,7 +286,7 @@ public class StateStore {
                         String.format("Expected task named %s to be present when retrieving all tasks", taskName));
             }
         }
-        return taskInfos;
+        return Collections.unmodifiableList(taskInfos);
     }
 
     /**
@@ -230,7 +302,7 @@ public class StateStore {
         try {
             byte[] bytes = persister.get(path);
             if (bytes.length > 0) {
-                return Optional.of(Protos.TaskInfo.parseFrom(bytes));
+                return Optional.of(taskInfoCache.get(path, bytes));
             } else {
                 throw new StateStoreException(Reason.SERIALIZATION_ERROR, String.format(
                         "Empty TaskInfo for TaskName: %s", taskName));
@@ -247,19 +319,49 @@ public class StateStore {
         }
     }
 
+    /**
+     * Returns the name of the task which was stored with the provided TaskID, or an empty Optional if no such task is
+     * found. This is resolved using an in-memory index which is maintained by {@link #storeTasks(Collection)} and
+     * {@link #clearTask(String)}, so a TaskID which isn't in the index is treated as not found without scanning
+     * storage. The index is only rebuilt from storage when the underlying {@link Persister} reports that its data may
+     * have changed, see {@link Persister#getGeneration()}.
+     *
+     * @param taskId The TaskID of the task to be found
+     * @return The name of the task with a matching TaskID
+     * @throws StateStoreException if multiple tasks have the provided TaskID, or if fetching task information fails
+     */
+    public Optional<String> fetchTaskName(Protos.TaskID taskId) throws StateStoreException {
+        if (persister.getGeneration() != taskIdIndexGeneration) {
+            logger.info("Persister data has been reloaded, rebuilding TaskID index");
+            rebuildTaskIdIndex();
+        }
+        Collection<String> taskNames = new ArrayList<>();
+        for (String taskName : taskIdIndex.getTaskNames(taskId.getValue())) {
+            if (isTaskIdIndexCurrent(taskId, taskName)) {
+                taskNames.add(taskName);
+            }
+        }
+        if (taskNames.size() > 1) {
+            logger.error("Found duplicate TaskID {} in tasks: {}", taskId.getValue(), taskNames);
+            throw new StateStoreException(Reason.LOGIC_ERROR, String.format(
+                    "There are more than one tasks with TaskID: %s", taskId.getValue()));
+        }
+        return taskNames.stream().findFirst();
+    }
+
     /**
      * Fetches all {@link Protos.TaskStatus}es from the underlying storage, or an empty list if none are found. Note
      * that this list may have fewer entries than {@link #fetchTasks()} if some tasks are lacking statuses.
      *
-     * @return The TaskStatus objects associated with all tasks
+     * @return An unmodifiable snapshot of the TaskStatus objects associated with all tasks
      * @throws StateStoreException if fetching the TaskStatus information fails
      */
     public Collection<Protos.TaskStatus> fetchStatuses() throws StateStoreException {
-        Collection<Protos.TaskStatus> taskStatuses = new ArrayList<>();
+        List<Protos.TaskStatus> taskStatuses = new ArrayList<>();
         for (String taskName : fetchTaskNames()) {
             try {
-                byte[] bytes = persister.get(getTaskStatusPath(namespace, taskName));
-                taskStatuses.add(Protos.TaskStatus.parseFrom(bytes));
+                String path = getTaskStatusPath(namespace, taskName);
+                taskStatuses.add(taskStatusCache.get(path, persister.get(path)));
             } catch (PersisterException e) {
                 if (e.getReason() == Reason.NOT_FOUND) {
                     // The task node exists, but it doesn't contain a TaskStatus node. This may occur if
@@ -272,7 +374,7 @@ public class StateStore {
                 throw new StateStoreException(Reason.SERIALIZATION_ERROR, e);
             }
         }
-        return taskStatuses;
+        return Collections.unmodifiableList(taskStatuses);
     }
 
     /**
@@ -289,7 +391,7 @@ public class StateStore {
         try {
             byte[] bytes = persister.get(path);
             if (bytes.length > 0) {
-                return Optional.of(Protos.TaskStatus.parseFrom(bytes));
+                return Optional.of(taskStatusCache.get(path, bytes));
             } else {
                 throw new StateStoreException(Reason.SERIALIZATION_ERROR, String.format(
                         "Empty TaskStatus for TaskName: %s", taskName));
@@ -478,6 +580,9 @@ public class StateStore {
         if (namespace.isEmpty()) {
             return; // Not namespaced, no-op
         }
+        taskInfoCache.clear();
+        taskStatusCache.clear();
+        taskIdIndex.clear();
         try {
             // Delete data WITHIN THE NAMESPACE
             persister.recursiveDelete(PersisterUtils.getServiceNamespacedRoot(namespace));
@@ -523,6 +628,30 @@ public class StateStore {
 
     // Internals
 
+    /**
+     * Returns whether the stored TaskInfo for {@code taskName} still has the provided {@code taskId}, as recorded in
+     * the index. If it doesn't, e.g. because the task was stored by another instance, the index entry for the task is
+     * replaced with what's in storage.
+     */
+    private boolean isTaskIdIndexCurrent(Protos.TaskID taskId, String taskName) throws StateStoreException {
+        Optional<Protos.TaskInfo> taskInfo = fetchTask(taskName);
+        if (taskInfo.isPresent() && taskInfo.get().getTaskId().equals(taskId)) {
+            return true;
+        }
+        if (taskInfo.isPresent()) {
+            taskIdIndex.put(taskInfo.get());
+        } else {
+            taskIdIndex.remove(taskName);
+        }
+        return false;
+    }
+
+    private void rebuildTaskIdIndex() throws StateStoreException {
+        // Read the generation first, so that a change which occurs during the rebuild results in another rebuild:
+        taskIdIndexGeneration = persister.getGeneration();
+        taskIdIndex.rebuild(fetchTasks());
+    }
+
     /**
      * @return Services/[namespace]/Tasks/[taskName]/TaskInfo, or Tasks/[taskName]/TaskInfo
      */
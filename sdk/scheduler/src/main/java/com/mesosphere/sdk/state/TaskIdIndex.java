@@ -0,0 +1,84 @@
+package com.mesosphere.sdk.state;
+
+import org.apache.mesos.Protos;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * An in-memory index from TaskID values to the names of the tasks which were stored with those TaskIDs. This allows
+ * incoming {@link Protos.TaskStatus}es to be mapped to their task without scanning every stored
+ * {@link Protos.TaskInfo}. Each instance is thread-safe.
+ *
+ * <p>The index is only as current as the updates made to it, so callers should verify any returned task names
+ * against storage, and {@link #rebuild(Collection)} the index when storage reports that its data may have changed.
+ */
+final class TaskIdIndex {
+
+    private final Map<String, String> taskIdsByName = new HashMap<>();
+    private final Map<String, Collection<String>> taskNamesById = new HashMap<>();
+
+    /**
+     * Replaces all content in the index with the provided tasks.
+     */
+    synchronized void rebuild(Collection<Protos.TaskInfo> taskInfos) {
+        taskIdsByName.clear();
+        taskNamesById.clear();
+        for (Protos.TaskInfo taskInfo : taskInfos) {
+            put(taskInfo);
+        }
+    }
+
+    /**
+     * Records the TaskID of the provided task, replacing any prior TaskID which was recorded for the same task name.
+     */
+    synchronized void put(Protos.TaskInfo taskInfo) {
+        String taskName = taskInfo.getName();
+        String taskId = taskInfo.getTaskId().getValue();
+        String previousTaskId = taskIdsByName.put(taskName, taskId);
+        if (previousTaskId != null) {
+            removeName(previousTaskId, taskName);
+        }
+        taskNamesById.computeIfAbsent(taskId, k -> new TreeSet<>()).add(taskName);
+    }
+
+    /**
+     * Removes the task with the provided name from the index, or does nothing if it isn't present.
+     */
+    synchronized void remove(String taskName) {
+        String taskId = taskIdsByName.remove(taskName);
+        if (taskId != null) {
+            removeName(taskId, taskName);
+        }
+    }
+
+    /**
+     * Removes all content from the index.
+     */
+    synchronized void clear() {
+        taskIdsByName.clear();
+        taskNamesById.clear();
+    }
+
+    /**
+     * Returns the names of all tasks which are recorded as having the provided TaskID value. In practice this should
+     * contain at most one entry, but multiple entries are returned as-is to allow the caller to detect duplicates.
+     */
+    synchronized Collection<String> getTaskNames(String taskId) {
+        Collection<String> taskNames = taskNamesById.get(taskId);
+        return taskNames == null ? Collections.emptyList() : new TreeSet<>(taskNames);
+    }
+
+    private void removeName(String taskId, String taskName) {
+        Collection<String> taskNames = taskNamesById.get(taskId);
+        if (taskNames != null) {
+            taskNames.remove(taskName);
+            if (taskNames.isEmpty()) {
+                taskNamesById.remove(taskId);
+            }
+        }
+    }
+}
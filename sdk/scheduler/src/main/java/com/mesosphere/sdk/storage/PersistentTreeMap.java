@@ -0,0 +1,201 @@
+package com.mesosphere.sdk.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map from strings to values, sorted by key. Modifications return a new map and leave the original
+ * untouched. The map is a balanced (AVL) binary tree, so that a modification only copies the O(log n) tree nodes along
+ * the path to the modified key, and all other nodes are shared between the original and the result.
+ *
+ * <p>This is used for the children of each {@link PersisterSnapshot} node, where copying all of a node's children on
+ * every write would make each write under a large node (e.g. one of many tasks) cost O(n). Values may not be
+ * {@code null}.
+ *
+ * @param <V> the type of the values
+ */
+final class PersistentTreeMap<V> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentTreeMap EMPTY = new PersistentTreeMap<>(null, 0);
+
+    /**
+     * A node in the tree. Nodes are never modified once constructed.
+     */
+    private static final class Node<V> {
+        private final String key;
+        private final V value;
+        private final Node<V> left;
+        private final Node<V> right;
+        private final int height;
+
+        private Node(String key, V value, Node<V> left, Node<V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private final Node<V> root;
+    private final int size;
+
+    private PersistentTreeMap(Node<V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns an empty map.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> PersistentTreeMap<V> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the value for the provided key, or {@code null} if the key isn't present.
+     */
+    V get(String key) {
+        Node<V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node.value;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a map where the provided key has the provided value, replacing any prior value for the key.
+     */
+    PersistentTreeMap<V> put(String key, V value) {
+        Node<V> updatedRoot = put(root, key, value);
+        if (updatedRoot == root) {
+            return this;
+        }
+        return new PersistentTreeMap<>(updatedRoot, get(key) == null ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the provided key, or this map if the key isn't present.
+     */
+    PersistentTreeMap<V> remove(String key) {
+        if (get(key) == null) {
+            return this;
+        }
+        return new PersistentTreeMap<>(remove(root, key), size - 1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the keys of this map in ascending order.
+     */
+    List<String> keys() {
+        List<String> keys = new ArrayList<>(size);
+        forEach((key, value) -> keys.add(key));
+        return keys;
+    }
+
+    /**
+     * Passes each entry in this map to the provided consumer, in ascending order of key.
+     */
+    void forEach(BiConsumer<String, V> consumer) {
+        forEach(root, consumer);
+    }
+
+    private static <V> void forEach(Node<V> node, BiConsumer<String, V> consumer) {
+        if (node == null) {
+            return;
+        }
+        forEach(node.left, consumer); // RECURSE
+        consumer.accept(node.key, node.value);
+        forEach(node.right, consumer); // RECURSE
+    }
+
+    private static <V> Node<V> put(Node<V> node, String key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            return balance(node.key, node.value, put(node.left, key, value), node.right); // RECURSE
+        } else if (cmp > 0) {
+            return balance(node.key, node.value, node.left, put(node.right, key, value)); // RECURSE
+        } else if (node.value == value) {
+            return node;
+        }
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    private static <V> Node<V> remove(Node<V> node, String key) {
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            return balance(node.key, node.value, remove(node.left, key), node.right); // RECURSE
+        } else if (cmp > 0) {
+            return balance(node.key, node.value, node.left, remove(node.right, key)); // RECURSE
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Replace the removed node with the lowest node in its right subtree:
+        Node<V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeLowest(node.right));
+    }
+
+    private static <V> Node<V> removeLowest(Node<V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeLowest(node.left), node.right); // RECURSE
+    }
+
+    /**
+     * Returns a node with the provided content, rotated as needed so that the heights of its subtrees differ by at
+     * most one. The provided subtrees must already be balanced, and their heights may differ by at most two.
+     */
+    private static <V> Node<V> balance(String key, V value, Node<V> left, Node<V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<V> pivot = left.right;
+            return new Node<>(pivot.key, pivot.value,
+                    new Node<>(left.key, left.value, left.left, pivot.left),
+                    new Node<>(key, value, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<V> pivot = right.left;
+            return new Node<>(pivot.key, pivot.value,
+                    new Node<>(key, value, left, pivot.left),
+                    new Node<>(right.key, right.value, pivot.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+}
@@ -35,6 +35,19 @@ public interface Persister {
      */
     Collection<String> getChildren(String path) throws PersisterException;
 
+    /**
+     * Returns all data present within this storage in a flat map of absolute paths to their data, omitting any stub
+     * parent entries with {@code null} data.
+     *
+     * <p>The default implementation walks the tree one node at a time via {@link PersisterUtils#getAllData(Persister)}.
+     * Implementations backed by remote storage may override this with a more efficient bulk read.
+     *
+     * @throws PersisterException in the event of an access error
+     */
+    default Map<String, byte[]> getAllData() throws PersisterException {
+        return PersisterUtils.getAllData(this);
+    }
+
     /**
      * Writes a single value to storage at the specified path, replacing any existing data at the path or creating the
      * path if it doesn't exist yet.
@@ -78,6 +91,44 @@ public interface Persister {
      */
     void recursiveDelete(String path) throws PersisterException;
 
+    /**
+     * Begins a unit of work for the calling thread. Until the matching call to {@link #commitBatch()}, writes made by
+     * the calling thread may be buffered rather than applied to storage immediately, so that they can then be applied
+     * using as few storage operations as possible. Buffered writes are visible to reads made by the calling thread, but
+     * not to reads made by other threads. Calls may be nested, in which case only the outermost {@link #commitBatch()}
+     * applies the buffered writes.
+     *
+     * <p>The default implementation does nothing, in which case writes are applied immediately.
+     *
+     * @throws PersisterException if the unit of work couldn't be started
+     */
+    default void beginBatch() throws PersisterException {
+        // Writes are applied immediately by default
+    }
+
+    /**
+     * Ends a unit of work which was started by {@link #beginBatch()}, applying any buffered writes to storage in the
+     * order that they were made. This must be called exactly once for each call to {@link #beginBatch()}, including
+     * when the unit of work fails partway through.
+     *
+     * @throws PersisterException if the buffered writes couldn't be applied, in which case some of them may have been
+     *     applied
+     */
+    default void commitBatch() throws PersisterException {
+        // Writes are applied immediately by default
+    }
+
+    /**
+     * Returns a value which changes whenever the data may have been modified by something other than this instance,
+     * for example when the data is reloaded from an external source. Callers which maintain their own index of the
+     * data may use this to detect when that index needs to be rebuilt.
+     *
+     * <p>The default implementation always returns zero, in which case no changes are reported.
+     */
+    default long getGeneration() {
+        return 0;
+    }
+
     /**
      * Closes this storage and cleans up any local client resources. No other operations should be performed against the
      * instance after calling this.
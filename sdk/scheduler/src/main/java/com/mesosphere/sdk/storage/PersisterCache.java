@@ -1,28 +1,75 @@
 package com.mesosphere.sdk.storage;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Timer;
+import com.mesosphere.sdk.scheduler.Metrics;
+import com.mesosphere.sdk.storage.StorageError.Reason;
+
 /**
  * A transparent write-through cache for an underlying {@link Persister} instance. Each cache instance is thread-safe,
  * but there is no guarantee of consistent behavior across multiple cache instances.
+ *
+ * <p>The cached data is held in an immutable {@link PersisterSnapshot} which is replaced whenever a write succeeds.
+ * Reads are served from the current snapshot without any locking, so they never wait on writes to the underlying
+ * persister. Writes are serialized against each other, and only become visible to readers once the underlying
+ * persister has accepted them.
+ *
+ * <p>Writes may be grouped into a unit of work using {@link #beginBatch()} and {@link #commitBatch()}. Each thread has
+ * its own batch: while a batch is open, the thread's writes are only buffered, and its reads are served from the
+ * current snapshot with its buffered writes applied. No lock is held while a batch is open, so batches on different
+ * threads proceed concurrently, and code running within a batch may take other locks in any order. The write lock is
+ * only taken when the batch is committed, at which point the buffered writes are passed to the underlying persister as
+ * a few bulk operations and then applied to the current snapshot.
  */
 public class PersisterCache implements Persister {
 
     private static final Logger logger = LoggerFactory.getLogger(PersisterCache.class);
 
-    private final ReadWriteLock internalLock = new ReentrantReadWriteLock();
-    private final Lock rlock = internalLock.readLock();
-    private final Lock rwlock = internalLock.writeLock();
+    /**
+     * A write which was made within a batch and has yet to be passed to the underlying persister.
+     */
+    private static class BatchWrite {
+        private final String path;
+        private final byte[] bytes;
+        private final boolean delete;
+
+        private BatchWrite(String path, byte[] bytes, boolean delete) {
+            this.path = path;
+            this.bytes = bytes;
+            this.delete = delete;
+        }
+    }
+
+    /**
+     * The writes made by a single thread within a batch.
+     */
+    private static class Batch {
+        private final List<BatchWrite> writes = new ArrayList<>();
+        private int depth = 1;
+        // The snapshot which the writes were last applied to, and the result of applying them:
+        private PersisterSnapshot base;
+        private PersisterSnapshot snapshot;
+    }
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ThreadLocal<Batch> batches = new ThreadLocal<>();
 
     private final Persister persister;
-    private MemPersister cache;
+    private volatile PersisterSnapshot cache;
+    // Incremented whenever the cache is discarded or reloaded, as the underlying data may then differ from our writes:
+    private volatile long generation = 0;
 
     public PersisterCache(Persister persister) throws PersisterException {
         this.persister = persister;
@@ -30,124 +77,311 @@ public class PersisterCache implements Persister {
 
     @Override
     public byte[] get(String path) throws PersisterException {
-        rlock.lock();
-        try {
-            return getCache().get(path);
-        } finally {
-            rlock.unlock();
+        PersisterSnapshot node = getReadCache().getNode(path);
+        if (node == null) {
+            throw new PersisterException(Reason.NOT_FOUND, path); // node not found at all
         }
+        return node.getData(); // support case where node exists but doesn't have data
     }
 
     @Override
     public Collection<String> getChildren(String path) throws PersisterException {
-        rlock.lock();
-        try {
-            return getCache().getChildren(path);
-        } finally {
-            rlock.unlock();
+        PersisterSnapshot node = getReadCache().getNode(path);
+        if (node == null) {
+            throw new PersisterException(Reason.NOT_FOUND, path);
         }
+        return node.getChildNames();
     }
 
     @Override
     public void set(String path, byte[] bytes) throws PersisterException {
-        rwlock.lock();
+        Batch batch = batches.get();
+        if (batch != null) {
+            addBatchWrite(batch, new BatchWrite(path, bytes, false));
+            return;
+        }
+        writeLock.lock();
         try {
-            MemPersister cache = getCache();
+            PersisterSnapshot cache = getCacheLocked();
             persister.set(path, bytes);
-            cache.set(path, bytes);
+            this.cache = cache.set(path, bytes);
         } finally {
-            rwlock.unlock();
+            writeLock.unlock();
         }
     }
 
     @Override
     public Map<String, byte[]> getMany(Collection<String> paths) throws PersisterException {
-        rwlock.lock();
-        try {
-            return getCache().getMany(paths);
-        } finally {
-            rwlock.unlock();
+        // Read all values from the same snapshot, so that the result is consistent:
+        PersisterSnapshot cache = getReadCache();
+        Map<String, byte[]> values = new TreeMap<>(); // return consistent ordering (mainly to simplify testing)
+        for (String path : paths) {
+            PersisterSnapshot node = cache.getNode(path);
+            values.put(path, node == null ? null : node.getData());
         }
+        return values;
     }
 
     @Override
     public void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
-        rwlock.lock();
+        Batch batch = batches.get();
+        if (batch != null) {
+            for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+                addBatchWrite(batch, new BatchWrite(entry.getKey(), entry.getValue(), false));
+            }
+            return;
+        }
+        writeLock.lock();
         try {
-            MemPersister cache = getCache();
+            PersisterSnapshot cache = getCacheLocked();
             persister.setMany(pathBytesMap);
-            cache.setMany(pathBytesMap);
+            for (Map.Entry<String, byte[]> entry : pathBytesMap.entrySet()) {
+                cache = cache.set(entry.getKey(), entry.getValue());
+            }
+            this.cache = cache;
         } finally {
-            rwlock.unlock();
+            writeLock.unlock();
         }
     }
 
     @Override
     public void recursiveDeleteMany(Collection<String> paths) throws PersisterException {
-        rwlock.lock();
+        Batch batch = batches.get();
+        if (batch != null) {
+            for (String path : paths) {
+                addBatchWrite(batch, new BatchWrite(path, null, true));
+            }
+            return;
+        }
+        writeLock.lock();
         try {
-            MemPersister cache = getCache();
+            PersisterSnapshot cache = getCacheLocked();
             persister.recursiveDeleteMany(paths);
-            cache.recursiveDeleteMany(paths);
+            for (String path : paths) {
+                cache = cache.delete(path).orElse(cache);
+            }
+            this.cache = cache;
         } finally {
-            rwlock.unlock();
+            writeLock.unlock();
         }
     }
 
     @Override
     public void recursiveDelete(String path) throws PersisterException {
-        rwlock.lock();
+        Batch batch = batches.get();
+        if (batch != null) {
+            if (getBatchCache(batch).getNode(path) == null) {
+                // Replicate what the underlying persister would do when the value is missing:
+                throw new PersisterException(Reason.NOT_FOUND, path);
+            }
+            addBatchWrite(batch, new BatchWrite(path, null, true));
+            return;
+        }
+        writeLock.lock();
         try {
-            MemPersister cache = getCache();
+            PersisterSnapshot cache = getCacheLocked();
             persister.recursiveDelete(path);
-            try {
-                cache.recursiveDelete(path);
-            } catch (PersisterException e) {
+            Optional<PersisterSnapshot> updatedCache = cache.delete(path);
+            if (updatedCache.isPresent()) {
+                this.cache = updatedCache.get();
+            } else {
                 // We don't throw an exception here if our 'data' cache lacks the value. In theory 'persister' should've
                 // thrown in that case anyway -- so we're effectively replicating what the underlying persister does.
                 // This shouldn't happen assuming a well-behaved Persisters, but just in case...
                 logger.error("Didn't find value {} in cache to delete, but underlying storage had the value", path);
             }
         } finally {
-            rwlock.unlock();
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void beginBatch() throws PersisterException {
+        Batch batch = batches.get();
+        if (batch != null) {
+            ++batch.depth;
+            return;
+        }
+        batches.set(new Batch());
+    }
+
+    @Override
+    public void commitBatch() throws PersisterException {
+        Batch batch = batches.get();
+        if (batch == null) {
+            throw new IllegalStateException("No batch is open on the current thread");
+        }
+        if (--batch.depth > 0) {
+            return;
+        }
+        batches.remove();
+        if (batch.writes.isEmpty()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            PersisterSnapshot cache = getCacheLocked();
+            try {
+                flush(batch.writes);
+            } catch (PersisterException | RuntimeException e) {
+                // We don't know which writes made it to the underlying persister. Reload on the next access.
+                this.cache = null;
+                ++generation;
+                throw e;
+            }
+            // Apply the writes to the current snapshot, which may include writes committed by other threads since
+            // they were made:
+            this.cache = apply(cache, batch.writes);
+        } finally {
+            writeLock.unlock();
         }
     }
 
     @Override
     public void close() {
-        rwlock.lock();
+        writeLock.lock();
         try {
             persister.close();
             if (cache != null) {
-                cache.close();
+                cache = PersisterSnapshot.empty();
             }
         } finally {
-            rwlock.unlock();
+            writeLock.unlock();
         }
     }
 
     /**
-     * Refreshes the cache with the underlying persister's data.
+     * Refreshes the cache with the underlying persister's data. Readers continue to be served from the prior data until
+     * the refresh has completed.
      */
     public void refresh() throws PersisterException {
-        rwlock.lock();
+        writeLock.lock();
         try {
             if (cache != null) {
                 logger.info("Cache content before refresh:\n{}", cache.getDebugString());
             }
-            cache = null;
-            getCache(); // recreate cache
+            cache = load();
+            ++generation;
         } finally {
-            rwlock.unlock();
+            writeLock.unlock();
         }
     }
 
-    private MemPersister getCache() throws PersisterException {
+    /**
+     * Returns a value which is incremented whenever the cache is reloaded by {@link #refresh()}, or discarded after a
+     * failed write, as the cached data may then include changes which weren't made via this instance.
+     */
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the snapshot which the calling thread should read from: the current snapshot with the thread's buffered
+     * writes applied if it has an open batch, or the current snapshot otherwise.
+     */
+    private PersisterSnapshot getReadCache() throws PersisterException {
+        Batch batch = batches.get();
+        return batch == null ? getCache() : getBatchCache(batch);
+    }
+
+    /**
+     * Returns the current snapshot with the provided batch's writes applied. The result is retained by the batch until
+     * the current snapshot is next replaced, so that the writes aren't re-applied on every read.
+     */
+    private PersisterSnapshot getBatchCache(Batch batch) throws PersisterException {
+        PersisterSnapshot cache = getCache();
+        if (batch.base != cache) {
+            batch.snapshot = apply(cache, batch.writes);
+            batch.base = cache;
+        }
+        return batch.snapshot;
+    }
+
+    private void addBatchWrite(Batch batch, BatchWrite write) throws PersisterException {
+        batch.snapshot = apply(getBatchCache(batch), Collections.singletonList(write));
+        batch.writes.add(write);
+    }
+
+    /**
+     * Returns the provided snapshot with the provided writes applied in order.
+     */
+    private static PersisterSnapshot apply(PersisterSnapshot snapshot, List<BatchWrite> writes) {
+        for (BatchWrite write : writes) {
+            snapshot = write.delete
+                    ? snapshot.delete(write.path).orElse(snapshot)
+                    : snapshot.set(write.path, write.bytes);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Passes the writes from a batch to the underlying persister. Consecutive writes of the same kind are combined into
+     * a single bulk operation, and the resulting operations are performed in the order that the writes were made.
+     */
+    private void flush(List<BatchWrite> writes) throws PersisterException {
+        int i = 0;
+        while (i < writes.size()) {
+            boolean delete = writes.get(i).delete;
+            int end = i;
+            while (end < writes.size() && writes.get(end).delete == delete) {
+                ++end;
+            }
+            List<BatchWrite> run = writes.subList(i, end);
+            if (delete) {
+                List<String> paths = new ArrayList<>();
+                for (BatchWrite write : run) {
+                    paths.add(write.path);
+                }
+                persister.recursiveDeleteMany(paths);
+            } else {
+                // Later writes to the same path replace earlier ones:
+                Map<String, byte[]> pathBytesMap = new HashMap<>();
+                for (BatchWrite write : run) {
+                    pathBytesMap.put(write.path, write.bytes);
+                }
+                persister.setMany(pathBytesMap);
+            }
+            i = end;
+        }
+    }
+
+    /**
+     * Returns the current snapshot, loading it from the underlying persister if this is the first access.
+     */
+    private PersisterSnapshot getCache() throws PersisterException {
+        PersisterSnapshot cache = this.cache;
+        if (cache != null) {
+            return cache;
+        }
+        writeLock.lock();
+        try {
+            return getCacheLocked();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #getCache()}, except the caller must already hold the write lock.
+     */
+    private PersisterSnapshot getCacheLocked() throws PersisterException {
         if (cache == null) {
-            // We already have our own locking, so we can disable locking in the underlying MemPersister:
-            cache = new MemPersister(MemPersister.LockMode.DISABLED, PersisterUtils.getAllData(persister));
-            logger.info("Loaded data from persister:\n{}", cache.getDebugString());
+            cache = load();
         }
         return cache;
     }
+
+    private PersisterSnapshot load() throws PersisterException {
+        Map<String, byte[]> allData;
+        Timer.Context context = Metrics.getPersisterLoadDurationTimer();
+        try {
+            allData = persister.getAllData();
+        } finally {
+            context.stop();
+        }
+        PersisterSnapshot snapshot = PersisterSnapshot.of(allData);
+        logger.info("Loaded data from persister:\n{}", snapshot.getDebugString());
+        return snapshot;
+    }
 }
@@ -0,0 +1,184 @@
+package com.mesosphere.sdk.storage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.google.common.base.Splitter;
+
+/**
+ * An immutable snapshot of a tree of {@link Persister} data. Each instance is a node in the tree, with the root node
+ * representing the whole snapshot.
+ *
+ * <p>Modifications return a new snapshot and leave the original untouched. Only the nodes along the modified path are
+ * copied, and all other nodes are shared between the original and the result. The children of each node are held in a
+ * {@link PersistentTreeMap}, so copying a node along the path costs O(log n) in its number of children, rather than
+ * O(n). This allows readers to keep using a snapshot without any locking while a writer produces the next one.
+ */
+final class PersisterSnapshot {
+
+    private static final PersisterSnapshot EMPTY = new PersisterSnapshot(null, PersistentTreeMap.empty());
+
+    private final byte[] data;
+    private final PersistentTreeMap<PersisterSnapshot> children;
+
+    private PersisterSnapshot(byte[] data, PersistentTreeMap<PersisterSnapshot> children) {
+        this.data = data;
+        this.children = children;
+    }
+
+    /**
+     * Returns an empty snapshot.
+     */
+    static PersisterSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a snapshot containing the provided data, as returned by {@link Persister#getAllData()}.
+     */
+    static PersisterSnapshot of(Map<String, byte[]> allData) {
+        MutableNode root = new MutableNode();
+        for (Map.Entry<String, byte[]> entry : allData.entrySet()) {
+            MutableNode node = root;
+            for (String element : getPathElements(entry.getKey())) {
+                node = node.children.computeIfAbsent(element, k -> new MutableNode());
+            }
+            node.data = entry.getValue();
+        }
+        return root.toSnapshot();
+    }
+
+    /**
+     * Returns the node at the provided path, or {@code null} if no node exists at that path.
+     */
+    PersisterSnapshot getNode(String path) {
+        PersisterSnapshot node = this;
+        for (String element : getPathElements(path)) {
+            node = node.children.get(element);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns the data of this node, or {@code null} if the node lacks data.
+     */
+    byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Returns a sorted, modifiable copy of the names of this node's children.
+     */
+    Collection<String> getChildNames() {
+        return new TreeSet<>(children.keys());
+    }
+
+    /**
+     * Returns a new snapshot where the node at the provided path has the provided data, creating the node and any
+     * parents as needed.
+     */
+    PersisterSnapshot set(String path, byte[] bytes) {
+        return set(getPathElements(path), 0, bytes);
+    }
+
+    /**
+     * Returns a new snapshot where the node at the provided path and all of its children are removed, or an empty
+     * {@link Optional} if no node exists at that path. Deleting the root node returns an empty snapshot.
+     */
+    Optional<PersisterSnapshot> delete(String path) {
+        List<String> elements = getPathElements(path);
+        if (elements.isEmpty()) {
+            return Optional.of(EMPTY);
+        }
+        return Optional.ofNullable(delete(elements, 0));
+    }
+
+    /**
+     * Returns a summary of this snapshot in a newline-separated string.
+     */
+    String getDebugString() {
+        StringBuilder sb = new StringBuilder();
+        nodeContent(sb, "ROOT", this, 1);
+        return sb.toString();
+    }
+
+    private PersisterSnapshot set(List<String> elements, int index, byte[] bytes) {
+        if (index == elements.size()) {
+            return new PersisterSnapshot(bytes, children);
+        }
+        String element = elements.get(index);
+        PersisterSnapshot child = children.get(element);
+        if (child == null) {
+            child = EMPTY;
+        }
+        return withChild(element, child.set(elements, index + 1, bytes)); // RECURSE
+    }
+
+    private PersisterSnapshot delete(List<String> elements, int index) {
+        String element = elements.get(index);
+        PersisterSnapshot child = children.get(element);
+        if (child == null) {
+            return null;
+        }
+        if (index + 1 == elements.size()) {
+            return new PersisterSnapshot(data, children.remove(element));
+        }
+        PersisterSnapshot updatedChild = child.delete(elements, index + 1); // RECURSE
+        return updatedChild == null ? null : withChild(element, updatedChild);
+    }
+
+    private PersisterSnapshot withChild(String name, PersisterSnapshot child) {
+        return new PersisterSnapshot(data, children.put(name, child));
+    }
+
+    /**
+     * A mutable node used to efficiently construct an initial snapshot.
+     */
+    private static class MutableNode {
+        private final Map<String, MutableNode> children = new TreeMap<>();
+        private byte[] data;
+
+        private PersisterSnapshot toSnapshot() {
+            PersistentTreeMap<PersisterSnapshot> snapshotChildren = PersistentTreeMap.empty();
+            for (Map.Entry<String, MutableNode> child : children.entrySet()) {
+                snapshotChildren = snapshotChildren.put(child.getKey(), child.getValue().toSnapshot()); // RECURSE
+            }
+            return new PersisterSnapshot(data, snapshotChildren);
+        }
+    }
+
+    private static void nodeContent(StringBuilder sb, String name, PersisterSnapshot node, int level) {
+        for (int i = 0; i < level; ++i) {
+            sb.append("  ");
+        }
+        sb.append(name);
+        sb.append(": ");
+        sb.append(getInfo(node.data));
+        node.children.forEach((childName, child) -> {
+            sb.append('\n');
+            nodeContent(sb, childName, child, level + 1); // RECURSE
+        });
+    }
+
+    private static String getInfo(byte[] bytes) {
+        if (bytes == null) {
+            return "NULL";
+        } else if (bytes.length == 1) {
+            return "1 byte";
+        } else {
+            return String.format("%d bytes", bytes.length);
+        }
+    }
+
+    private static List<String> getPathElements(String path) {
+        // use this instead of String.split(): avoid problems with paths that look like regexes
+        return Splitter.on(PersisterUtils.PATH_DELIM).omitEmptyStrings().splitToList(path);
+    }
+}
@@ -512,6 +512,101 @@ public class CuratorPersisterTest {
         assertEquals(Collections.singleton("/lock"), PersisterUtils.getAllKeys(persister));
     }
 
+    // Uses a real ZK instance to ensure that our integration works as expected:
+    @Test
+    public void testPipelinedGetAllData() throws Exception {
+        CuratorTestUtils.clear(testZk);
+        when(mockServiceSpec.getZookeeperConnection()).thenReturn(testZk.getConnectString());
+        Persister persister = CuratorPersister.newBuilder(mockServiceSpec)
+                .disableLock()
+                .setMaxConcurrentReads(3)
+                .build();
+
+        persister.setMany(SET_MANY_MAP);
+        for (int i = 0; i < 50; ++i) {
+            persister.set(String.format("/wide/%d", i), DATA_1);
+            persister.set(String.format("/deep/%d/a/b", i), DATA_2);
+        }
+
+        // Pipelined reads return the same content as a node-by-node walk:
+        Map<String, byte[]> expected = PersisterUtils.getAllData(persister);
+        Map<String, byte[]> actual = persister.getAllData();
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+        }
+        assertArrayEquals(DATA_SUB_2, actual.get(PATH_SUB_2));
+        assertArrayEquals(DATA_2, actual.get("/deep/49/a/b"));
+
+        // As do non-pipelined reads:
+        Persister serialPersister = CuratorPersister.newBuilder(mockServiceSpec)
+                .disableLock()
+                .setMaxConcurrentReads(1)
+                .build();
+        assertEquals(expected.keySet(), serialPersister.getAllData().keySet());
+    }
+
+    // Uses a real ZK instance to ensure that our integration works as expected:
+    @Test
+    public void testPipelinedGetMany() throws Exception {
+        CuratorTestUtils.clear(testZk);
+        when(mockServiceSpec.getZookeeperConnection()).thenReturn(testZk.getConnectString());
+        Persister persister = CuratorPersister.newBuilder(mockServiceSpec)
+                .disableLock()
+                .setMaxConcurrentReads(2)
+                .build();
+
+        persister.setMany(SET_MANY_MAP);
+
+        Map<String, byte[]> result = persister.getMany(Arrays.asList(PATH_1, PATH_2, PATH_SUB_1, "/missing"));
+        assertEquals(4, result.size());
+        assertArrayEquals(DATA_1, result.get(PATH_1));
+        assertArrayEquals(DATA_2, result.get(PATH_2));
+        assertArrayEquals(DATA_SUB_1, result.get(PATH_SUB_1));
+        assertTrue(result.containsKey("/missing"));
+        assertNull(result.get("/missing"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxConcurrentReads() {
+        CuratorPersister.newBuilder(mockServiceSpec).setMaxConcurrentReads(0);
+    }
+
+    @Test
+    public void testSplitTransactions() {
+        Map<String, byte[]> writes = new TreeMap<>();
+        writes.put("/a", new byte[400]);
+        writes.put("/b", new byte[400]);
+        writes.put("/c", new byte[2000]);
+        writes.put("/d", null);
+        writes.put("/e", new byte[100]);
+
+        List<Map<String, byte[]>> transactions = CuratorPersister.splitTransactions(writes, 1000);
+        assertEquals(4, transactions.size());
+        assertEquals(Arrays.asList("/a"), new ArrayList<>(transactions.get(0).keySet()));
+        assertEquals(Arrays.asList("/b"), new ArrayList<>(transactions.get(1).keySet()));
+        // A write which exceeds the limit by itself is given its own transaction:
+        assertEquals(Arrays.asList("/c"), new ArrayList<>(transactions.get(2).keySet()));
+        assertEquals(Arrays.asList("/d", "/e"), new ArrayList<>(transactions.get(3).keySet()));
+        assertEquals(1, CuratorPersister.splitTransactions(writes, 10000).size());
+    }
+
+    @Test
+    public void testSplitTransactionsOrdering() {
+        Map<String, byte[]> writes = new TreeMap<>();
+        for (int i = 0; i < 10; ++i) {
+            writes.put("/path-" + i, new byte[300]);
+        }
+        List<Map<String, byte[]>> transactions = CuratorPersister.splitTransactions(writes, 1000);
+        assertEquals(5, transactions.size());
+        List<String> splitPaths = new ArrayList<>();
+        for (Map<String, byte[]> transaction : transactions) {
+            assertEquals(2, transaction.size());
+            splitPaths.addAll(transaction.keySet());
+        }
+        assertEquals(new ArrayList<>(writes.keySet()), splitPaths);
+    }
+
     @Test
     public void testWriteServiceName() throws Exception {
         CuratorTestUtils.clear(testZk);
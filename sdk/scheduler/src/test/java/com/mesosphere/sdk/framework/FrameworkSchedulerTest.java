@@ -10,16 +10,20 @@ import org.apache.mesos.SchedulerDriver;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.google.protobuf.ByteString;
 import com.mesosphere.sdk.offer.Constants;
 import com.mesosphere.sdk.offer.evaluate.EvaluationOutcome;
 import com.mesosphere.sdk.offer.evaluate.placement.IsLocalRegionRule;
 import com.mesosphere.sdk.scheduler.MesosEventClient;
 import com.mesosphere.sdk.scheduler.MesosEventClient.StatusResponse;
 import com.mesosphere.sdk.state.FrameworkStore;
+import com.mesosphere.sdk.storage.Persister;
 import com.mesosphere.sdk.storage.PersisterException;
+import com.mesosphere.sdk.storage.StorageError;
 import com.mesosphere.sdk.testutils.DefaultCapabilitiesTestSuite;
 import com.mesosphere.sdk.testutils.ResourceTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
@@ -42,6 +46,7 @@ public class FrameworkSchedulerTest extends DefaultCapabilitiesTestSuite {
     @Mock private MesosEventClient mockMesosEventClient;
     @Mock private OfferProcessor mockOfferProcessor;
     @Mock private ImplicitReconciler mockImplicitReconciler;
+    @Mock private Persister mockPersister;
     @Mock private SchedulerDriver mockSchedulerDriver;
     @Mock private SchedulerDriver mockSchedulerDriver2;
 
@@ -55,7 +60,8 @@ public class FrameworkSchedulerTest extends DefaultCapabilitiesTestSuite {
                 mockFrameworkStore,
                 mockMesosEventClient,
                 mockOfferProcessor,
-                mockImplicitReconciler)
+                mockImplicitReconciler,
+                new StatusProcessor(mockMesosEventClient, mockPersister, 1))
                 .disableThreading();
     }
 
@@ -150,6 +156,38 @@ public class FrameworkSchedulerTest extends DefaultCapabilitiesTestSuite {
         verify(mockSchedulerDriver, times(2)).killTask(taskStatus.getTaskId());
     }
 
+    @Test
+    public void testStatusAcknowledgedAfterStored() throws PersisterException {
+        Driver.setDriver(mockSchedulerDriver);
+        Protos.TaskStatus taskStatus = TestConstants.TASK_STATUS.toBuilder()
+                .setUuid(ByteString.copyFromUtf8("uuid"))
+                .build();
+        when(mockMesosEventClient.status(taskStatus)).thenReturn(StatusResponse.processed());
+
+        scheduler.statusUpdate(mockSchedulerDriver, taskStatus);
+
+        InOrder inOrder = inOrder(mockPersister, mockMesosEventClient, mockSchedulerDriver);
+        inOrder.verify(mockPersister).beginBatch();
+        inOrder.verify(mockMesosEventClient).status(taskStatus);
+        inOrder.verify(mockPersister).commitBatch();
+        inOrder.verify(mockSchedulerDriver).acknowledgeStatusUpdate(taskStatus);
+    }
+
+    @Test
+    public void testStatusNotAcknowledgedWhenStoreFails() throws PersisterException {
+        Driver.setDriver(mockSchedulerDriver);
+        Protos.TaskStatus taskStatus = TestConstants.TASK_STATUS.toBuilder()
+                .setUuid(ByteString.copyFromUtf8("uuid"))
+                .build();
+        when(mockMesosEventClient.status(taskStatus)).thenReturn(StatusResponse.processed());
+        doThrow(new PersisterException(StorageError.Reason.STORAGE_ERROR, "test")).when(mockPersister).commitBatch();
+
+        scheduler.statusUpdate(mockSchedulerDriver, taskStatus);
+
+        verify(mockMesosEventClient).status(taskStatus);
+        verify(mockSchedulerDriver, never()).acknowledgeStatusUpdate(any());
+    }
+
     private static void verifyDomainIsSet(Protos.DomainInfo expectedDomain) {
         // Infer the configured domain via a placement rule invocation
         Protos.Offer offerWithExpectedDomain = getOffer().toBuilder().setDomain(expectedDomain).build();
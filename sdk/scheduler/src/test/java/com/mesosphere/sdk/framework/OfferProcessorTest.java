@@ -200,6 +200,57 @@ public class OfferProcessorTest {
         verify(mockSchedulerDriver, never()).declineOffer(any(), any());
     }
 
+    @Test
+    public void testOffersMergedByAgent() throws InterruptedException {
+        Protos.Offer offerA1 = getOffer("offer-a1", "agent-a");
+        Protos.Offer offerA2 = getOffer("offer-a2", "agent-a");
+        Protos.Offer offerB = getOffer("offer-b", "agent-b");
+        List<List<Protos.Offer>> receivedOffers = new ArrayList<>();
+        when(mockMesosEventClient.offers(any())).thenAnswer(new Answer<OfferResponse>() {
+            @Override
+            public OfferResponse answer(InvocationOnMock invocation) throws Throwable {
+                receivedOffers.add(new ArrayList<>(getOffersArgument(invocation)));
+                return consumeOffer(offerA1.getId()).answer(invocation);
+            }
+        });
+        when(mockMesosEventClient.getUnexpectedResources(any()))
+                .thenReturn(UnexpectedResourcesResponse.processed(Collections.emptyList()));
+
+        processor.setOfferQueueSize(0).start(); // unlimited queue size
+        processor.enqueue(Arrays.asList(offerA1, offerB, offerA2));
+        processor.awaitOffersProcessed();
+
+        // The two offers for agent-a are evaluated as a single offer with their combined resources:
+        Assert.assertEquals(1, receivedOffers.size());
+        Assert.assertEquals(2, receivedOffers.get(0).size());
+        Protos.Offer mergedOffer = receivedOffers.get(0).get(0);
+        Assert.assertEquals(offerA1.getId(), mergedOffer.getId());
+        Assert.assertEquals(2, mergedOffer.getResourcesCount());
+        Assert.assertEquals(offerB, receivedOffers.get(0).get(1));
+
+        // Both of the original offers for agent-a are accepted together:
+        verify(mockSchedulerDriver, times(1)).acceptOffers(offerIdCaptor.capture(), operationCaptor.capture(), any());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(offerA1.getId(), offerA2.getId())), offerIdCaptor.getValue());
+        verify(mockSchedulerDriver, times(1)).declineOffer(offerB.getId(), LONG_INTERVAL);
+    }
+
+    @Test
+    public void testUnusedMergedOffersDeclined() throws InterruptedException {
+        when(mockMesosEventClient.offers(any())).thenReturn(OfferResponse.processed(Collections.emptyList()));
+        when(mockMesosEventClient.getUnexpectedResources(any()))
+                .thenReturn(UnexpectedResourcesResponse.processed(Collections.emptyList()));
+
+        processor.setOfferQueueSize(0).start(); // unlimited queue size
+        processor.enqueue(Arrays.asList(getOffer("offer-a1", "agent-a"), getOffer("offer-a2", "agent-a")));
+        processor.awaitOffersProcessed();
+
+        // Each of the original offers is declined:
+        verify(mockSchedulerDriver, times(1)).declineOffer(
+                Protos.OfferID.newBuilder().setValue("offer-a1").build(), LONG_INTERVAL);
+        verify(mockSchedulerDriver, times(1)).declineOffer(
+                Protos.OfferID.newBuilder().setValue("offer-a2").build(), LONG_INTERVAL);
+    }
+
     private Set<String> sendOffers(int threadCount, int offersPerThread) throws InterruptedException {
         // Hammer scheduler with offers, and check that they were all forwarded as expected
         Set<String> sentOfferIds = new HashSet<>();
@@ -247,10 +298,14 @@ public class OfferProcessorTest {
     }
 
     private static Protos.Offer getOffer(String id) {
+        return getOffer(id, "agent-" + id);
+    }
+
+    private static Protos.Offer getOffer(String id, String agentId) {
         return Protos.Offer.newBuilder()
                 .setId(Protos.OfferID.newBuilder().setValue(id))
                 .setFrameworkId(TestConstants.FRAMEWORK_ID)
-                .setSlaveId(TestConstants.AGENT_ID)
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue(agentId))
                 .setHostname(TestConstants.HOSTNAME)
                 .addResources(getUnreservedCpus(3))
                 .build();
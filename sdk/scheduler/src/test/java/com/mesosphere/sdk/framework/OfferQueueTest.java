@@ -5,13 +5,17 @@ import org.apache.mesos.Protos;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * This class tests the {@link OfferQueue}.
  */
 public class OfferQueueTest {
+    private static final int DEFAULT_CAPACITY = 100;
     private static final int TEST_CAPACITY = 10;
 
     @Test
@@ -33,11 +37,11 @@ public class OfferQueueTest {
         OfferQueue offerQueue = new OfferQueue();
         int capacity = offerQueue.getRemainingCapacity();
         for (int i = 0; i < capacity; i++) {
-            Assert.assertTrue(offerQueue.offer(getOffer()));
+            Assert.assertTrue(offerQueue.offer(getOffer(UUID.randomUUID().toString())));
         }
 
         Assert.assertEquals(0, offerQueue.getRemainingCapacity());
-        Assert.assertFalse(offerQueue.offer(getOffer()));
+        Assert.assertFalse(offerQueue.offer(getOffer(UUID.randomUUID().toString())));
     }
 
     @Test
@@ -54,7 +58,7 @@ public class OfferQueueTest {
         OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
         int halfCapacity = offerQueue.getRemainingCapacity() / 2;
         for (int i = 0; i < halfCapacity; i++) {
-            offerQueue.offer(getOffer());
+            offerQueue.offer(getOffer(UUID.randomUUID().toString()));
         }
 
         List<Protos.Offer> offers = offerQueue.takeAll();
@@ -67,7 +71,7 @@ public class OfferQueueTest {
         OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
         int capacity = offerQueue.getRemainingCapacity();
         for (int i = 0; i < capacity; i++) {
-            offerQueue.offer(getOffer());
+            offerQueue.offer(getOffer(UUID.randomUUID().toString()));
         }
 
         List<Protos.Offer> offers = offerQueue.takeAll();
@@ -119,15 +123,83 @@ public class OfferQueueTest {
         Assert.assertEquals(remainingCapacity + 1, offerQueue.getRemainingCapacity());
     }
 
+    @Test
+    public void testEnqueueDuplicateOffer() {
+        OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
+        Assert.assertTrue(offerQueue.offer(getOffer()));
+        Assert.assertTrue(offerQueue.offer(getOffer()));
+        Assert.assertEquals(1, offerQueue.getSize());
+    }
+
+    @Test
+    public void testTakeGroupedByAgent() {
+        OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
+        offerQueue.offer(getOffer("offer-1", "agent-1"));
+        offerQueue.offer(getOffer("offer-2", "agent-2"));
+        offerQueue.offer(getOffer("offer-3", "agent-1"));
+        offerQueue.offer(getOffer("offer-4", "agent-3"));
+        offerQueue.offer(getOffer("offer-5", "agent-2"));
+
+        Assert.assertEquals(
+                Arrays.asList("offer-1", "offer-3", "offer-2", "offer-5", "offer-4"),
+                offerQueue.takeAll().stream().map(offer -> offer.getId().getValue()).collect(Collectors.toList()));
+        Assert.assertTrue(offerQueue.isEmpty());
+    }
+
+    @Test
+    public void testRemovedAgentIsReordered() {
+        OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
+        offerQueue.offer(getOffer("offer-1", "agent-1"));
+        offerQueue.offer(getOffer("offer-2", "agent-2"));
+        offerQueue.remove(Protos.OfferID.newBuilder().setValue("offer-1").build());
+        offerQueue.offer(getOffer("offer-3", "agent-1"));
+
+        Assert.assertEquals(
+                Arrays.asList("offer-2", "offer-3"),
+                offerQueue.takeAll().stream().map(offer -> offer.getId().getValue()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testTakeEmptyTimesOut() {
+        OfferQueue offerQueue = new OfferQueue(TEST_CAPACITY);
+        Assert.assertTrue(offerQueue.takeAll(Duration.ofMillis(10)).isEmpty());
+    }
+
+    @Test
+    public void testAdaptiveCapacity() {
+        OfferQueue offerQueue = new OfferQueue();
+        Assert.assertEquals(DEFAULT_CAPACITY, offerQueue.getCapacity());
+
+        // Slow processing: Capacity doesn't drop below the default
+        offerQueue.recordProcessed(1, Duration.ofSeconds(10));
+        Assert.assertEquals(DEFAULT_CAPACITY, offerQueue.getCapacity());
+
+        // Fast processing: Capacity grows
+        for (int i = 0; i < 20; ++i) {
+            offerQueue.recordProcessed(100, Duration.ofMillis(100));
+        }
+        Assert.assertTrue(offerQueue.getCapacity() > DEFAULT_CAPACITY);
+        Assert.assertTrue(offerQueue.getCapacity() <= 10000);
+
+        // Fixed capacity queues aren't adjusted
+        offerQueue = new OfferQueue(TEST_CAPACITY);
+        offerQueue.recordProcessed(100, Duration.ofMillis(100));
+        Assert.assertEquals(TEST_CAPACITY, offerQueue.getCapacity());
+    }
+
     private Protos.Offer getOffer() {
         return getOffer(TestConstants.OFFER_ID.getValue());
     }
 
     private Protos.Offer getOffer(String id) {
+        return getOffer(id, TestConstants.AGENT_ID.getValue());
+    }
+
+    private Protos.Offer getOffer(String id, String agentId) {
         return Protos.Offer.newBuilder()
                 .setId(Protos.OfferID.newBuilder().setValue(id))
                 .setFrameworkId(TestConstants.FRAMEWORK_ID)
-                .setSlaveId(TestConstants.AGENT_ID)
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue(agentId))
                 .setHostname(TestConstants.HOSTNAME)
                 .build();
     }
@@ -14,6 +14,7 @@ import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.mockito.Mockito.*;
@@ -84,6 +85,19 @@ public class ReviveManagerTest {
         verify(driver, times(1)).reviveOffers();
     }
 
+    @Test
+    public void reviveSeparateServiceTokenBuckets() {
+        // Each service should have its own token bucket under the global token bucket.
+        ReviveManager.resetTimers();
+        ReviveManager a = new ReviveManager(Optional.of("a"));
+        ReviveManager b = new ReviveManager(Optional.of("b"));
+        ReviveManager c = new ReviveManager(Optional.of("a"));
+        a.revive(getSteps(0)); // pass
+        b.revive(getSteps(1)); // pass
+        c.revive(getSteps(2)); // throttled
+        verify(driver, times(2)).reviveOffers();
+    }
+
     @Test
     public void dontReviveOnEmptyWork() {
         manager = getReviveManager();
@@ -91,6 +105,77 @@ public class ReviveManagerTest {
         verify(driver, times(0)).reviveOffers();
     }
 
+    @Test
+    public void suppressOnEmptyWork() {
+        manager = getReviveManager();
+        manager.revive(Collections.emptyList());
+        manager.revive(Collections.emptyList());
+        verify(driver, times(1)).suppressOffers();
+    }
+
+    @Test
+    public void dontSuppressWithWork() {
+        manager = getReviveManager();
+        manager.revive(getSteps(0));
+        manager.revive(getSteps(0));
+        verify(driver, times(0)).suppressOffers();
+    }
+
+    @Test
+    public void suppressWhenWorkCompletes() {
+        manager = getReviveManager();
+        manager.revive(getSteps(0));
+        manager.revive(Collections.emptyList());
+        verify(driver, times(1)).reviveOffers();
+        verify(driver, times(1)).suppressOffers();
+    }
+
+    @Test
+    public void reviveAndSuppressAgain() {
+        manager = getReviveManager();
+        manager.revive(Collections.emptyList());
+        manager.revive(getSteps(0));
+        manager.revive(Collections.emptyList());
+        verify(driver, times(1)).reviveOffers();
+        verify(driver, times(2)).suppressOffers();
+    }
+
+    @Test
+    public void dontSuppressWhileReviveThrottled() {
+        ReviveManager manager = getReviveManager(Duration.ofDays(1));
+        manager.revive(getSteps(0)); // revived
+        manager.revive(Collections.emptyList()); // suppressed
+        manager.revive(getSteps(1)); // throttled
+        manager.revive(getSteps(1)); // throttled, still pending
+        verify(driver, times(1)).reviveOffers();
+        verify(driver, times(1)).suppressOffers();
+    }
+
+    @Test
+    public void dontSuppressWhileAnotherServiceHasWork() {
+        ReviveManager.SuppressionState suppressionState = new ReviveManager.SuppressionState();
+        TokenBucket tokenBucket = TokenBucket.newBuilder().acquireInterval(Duration.ZERO).build();
+        ReviveManager a = new ReviveManager(tokenBucket, suppressionState);
+        ReviveManager b = new ReviveManager(tokenBucket, suppressionState);
+        a.revive(getSteps(0));
+        b.revive(Collections.emptyList());
+        verify(driver, times(0)).suppressOffers();
+
+        a.revive(Collections.emptyList());
+        verify(driver, times(1)).suppressOffers();
+        b.revive(Collections.emptyList());
+        verify(driver, times(1)).suppressOffers();
+    }
+
+    @Test
+    public void suppressAgainAfterReregistration() {
+        manager = getReviveManager();
+        manager.revive(Collections.emptyList());
+        manager.reregistered();
+        manager.revive(Collections.emptyList());
+        verify(driver, times(2)).suppressOffers();
+    }
+
     private ReviveManager getReviveManager() {
         return getReviveManager(Duration.ZERO);
     }
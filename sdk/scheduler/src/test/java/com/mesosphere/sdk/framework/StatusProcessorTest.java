@@ -0,0 +1,151 @@
+package com.mesosphere.sdk.framework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mesos.Protos;
+import org.apache.mesos.SchedulerDriver;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.google.protobuf.ByteString;
+import com.mesosphere.sdk.scheduler.MesosEventClient;
+import com.mesosphere.sdk.scheduler.MesosEventClient.StatusResponse;
+import com.mesosphere.sdk.storage.MemPersister;
+import com.mesosphere.sdk.storage.Persister;
+import com.mesosphere.sdk.storage.PersisterCache;
+import com.mesosphere.sdk.storage.PersisterException;
+import com.mesosphere.sdk.storage.StorageError;
+import com.mesosphere.sdk.testutils.TestConstants;
+
+import static org.mockito.Mockito.*;
+
+public class StatusProcessorTest {
+
+    @Mock private MesosEventClient mockMesosEventClient;
+    @Mock private Persister mockPersister;
+    @Mock private SchedulerDriver mockSchedulerDriver;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+        Driver.setDriver(mockSchedulerDriver);
+    }
+
+    @Test
+    public void testStatusWithoutUuidNotAcknowledged() {
+        when(mockMesosEventClient.status(any())).thenReturn(StatusResponse.processed());
+        StatusProcessor processor = new StatusProcessor(mockMesosEventClient, mockPersister, 1).disableThreading();
+
+        processor.enqueue(TestConstants.TASK_STATUS);
+
+        verify(mockMesosEventClient).status(TestConstants.TASK_STATUS);
+        verify(mockSchedulerDriver, never()).acknowledgeStatusUpdate(any());
+    }
+
+    @Test
+    public void testStatusNotAcknowledgedWhenBatchCannotBegin() throws PersisterException {
+        doThrow(new PersisterException(StorageError.Reason.STORAGE_ERROR, "test")).when(mockPersister).beginBatch();
+        StatusProcessor processor = new StatusProcessor(mockMesosEventClient, mockPersister, 1).disableThreading();
+
+        processor.enqueue(getStatus("task", Protos.TaskState.TASK_RUNNING, "uuid"));
+
+        verify(mockMesosEventClient, never()).status(any());
+        verify(mockSchedulerDriver, never()).acknowledgeStatusUpdate(any());
+    }
+
+    @Test
+    public void testSupersededStatusesCoalesced() throws InterruptedException {
+        Protos.TaskStatus blockingStatus = getStatus("blocking", Protos.TaskState.TASK_RUNNING, "uuid-0");
+        Protos.TaskStatus staging = getStatus("task", Protos.TaskState.TASK_STAGING, "uuid-1");
+        Protos.TaskStatus starting = getStatus("task", Protos.TaskState.TASK_STARTING, "uuid-2");
+        Protos.TaskStatus running = getStatus("task", Protos.TaskState.TASK_RUNNING, "uuid-3");
+
+        // Hold up the only lane on the first status, so that the others pile up behind it:
+        CountDownLatch processingStarted = new CountDownLatch(1);
+        CountDownLatch releaseProcessing = new CountDownLatch(1);
+        CountDownLatch allAcknowledged = new CountDownLatch(4);
+        List<Protos.TaskStatus> processed = Collections.synchronizedList(new ArrayList<>());
+        when(mockMesosEventClient.status(any())).thenAnswer(invocation -> {
+            Protos.TaskStatus status = (Protos.TaskStatus) invocation.getArguments()[0];
+            processed.add(status);
+            if (status.equals(blockingStatus)) {
+                processingStarted.countDown();
+                releaseProcessing.await();
+            }
+            return StatusResponse.processed();
+        });
+        doAnswer(invocation -> {
+            allAcknowledged.countDown();
+            return null;
+        }).when(mockSchedulerDriver).acknowledgeStatusUpdate(any());
+
+        StatusProcessor processor = new StatusProcessor(mockMesosEventClient, mockPersister, 1);
+        processor.start();
+        processor.enqueue(blockingStatus);
+        Assert.assertTrue(processingStarted.await(5, TimeUnit.SECONDS));
+        processor.enqueue(staging);
+        processor.enqueue(starting);
+        processor.enqueue(running);
+        releaseProcessing.countDown();
+        Assert.assertTrue(allAcknowledged.await(5, TimeUnit.SECONDS));
+
+        // Only the latest status for the task was processed, but all of them were acknowledged:
+        Assert.assertEquals(2, processed.size());
+        Assert.assertEquals(blockingStatus, processed.get(0));
+        Assert.assertEquals(running, processed.get(1));
+        verify(mockSchedulerDriver).acknowledgeStatusUpdate(staging);
+        verify(mockSchedulerDriver).acknowledgeStatusUpdate(starting);
+        verify(mockSchedulerDriver).acknowledgeStatusUpdate(running);
+    }
+
+    @Test
+    public void testLanesProcessConcurrently() throws Exception {
+        // These task IDs are assigned to different lanes:
+        Protos.TaskStatus statusA = getStatus("a", Protos.TaskState.TASK_RUNNING, "uuid-a");
+        Protos.TaskStatus statusB = getStatus("b", Protos.TaskState.TASK_RUNNING, "uuid-b");
+        Persister persister = new PersisterCache(new MemPersister());
+
+        // Each lane writes within its batch, then waits for the other lane to do the same before returning. This only
+        // completes if neither lane's batch blocks the other lane:
+        CountDownLatch bothWritten = new CountDownLatch(2);
+        CountDownLatch allAcknowledged = new CountDownLatch(2);
+        List<Boolean> overlapped = Collections.synchronizedList(new ArrayList<>());
+        when(mockMesosEventClient.status(any())).thenAnswer(invocation -> {
+            Protos.TaskStatus status = (Protos.TaskStatus) invocation.getArguments()[0];
+            persister.set(status.getTaskId().getValue(), status.toByteArray());
+            bothWritten.countDown();
+            overlapped.add(bothWritten.await(5, TimeUnit.SECONDS));
+            return StatusResponse.processed();
+        });
+        doAnswer(invocation -> {
+            allAcknowledged.countDown();
+            return null;
+        }).when(mockSchedulerDriver).acknowledgeStatusUpdate(any());
+
+        StatusProcessor processor = new StatusProcessor(mockMesosEventClient, persister, 2);
+        processor.start();
+        processor.enqueue(statusA);
+        processor.enqueue(statusB);
+        Assert.assertTrue(allAcknowledged.await(15, TimeUnit.SECONDS));
+
+        Assert.assertEquals(Arrays.asList(true, true), overlapped);
+        Assert.assertArrayEquals(statusA.toByteArray(), persister.get("a"));
+        Assert.assertArrayEquals(statusB.toByteArray(), persister.get("b"));
+    }
+
+    private static Protos.TaskStatus getStatus(String taskId, Protos.TaskState state, String uuid) {
+        return Protos.TaskStatus.newBuilder()
+                .setTaskId(Protos.TaskID.newBuilder().setValue(taskId))
+                .setState(state)
+                .setUuid(ByteString.copyFromUtf8(uuid))
+                .build();
+    }
+}
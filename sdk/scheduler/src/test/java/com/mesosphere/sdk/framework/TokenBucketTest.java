@@ -83,6 +83,91 @@ public class TokenBucketTest {
         Assert.assertTrue(bucket.tryAcquire());
     }
 
+    @Test
+    public void replenishTokensFromElapsedTime() {
+        TestTokenBucket bucket = new TestTokenBucket(
+                TokenBucket.newBuilder()
+                .initialTokenCount(0)
+                .acquireInterval(Duration.ZERO)
+                .incrementInterval(Duration.ofMillis(100)));
+
+        Assert.assertFalse(bucket.tryAcquire());
+        bucket.increment(99);
+        Assert.assertFalse(bucket.tryAcquire());
+        bucket.increment(1);
+        Assert.assertTrue(bucket.tryAcquire());
+        Assert.assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void partialReplenishRetainedAcrossAcquire() {
+        TestTokenBucket bucket = new TestTokenBucket(
+                TokenBucket.newBuilder()
+                .initialTokenCount(1)
+                .acquireInterval(Duration.ZERO)
+                .incrementInterval(Duration.ofMillis(100)));
+
+        bucket.increment(50);
+        Assert.assertTrue(bucket.tryAcquire());
+        bucket.increment(50);
+        Assert.assertTrue(bucket.tryAcquire());
+        Assert.assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void replenishLimitedToCapacity() {
+        TestTokenBucket bucket = new TestTokenBucket(
+                TokenBucket.newBuilder()
+                .initialTokenCount(0)
+                .capacity(2)
+                .acquireInterval(Duration.ZERO)
+                .incrementInterval(Duration.ofMillis(100)));
+
+        bucket.increment(1000);
+        Assert.assertTrue(bucket.tryAcquire());
+        Assert.assertTrue(bucket.tryAcquire());
+        Assert.assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void parentLimitsChildren() {
+        TokenBucket parent = TokenBucket.newBuilder()
+                .initialTokenCount(1)
+                .acquireInterval(Duration.ZERO)
+                .build();
+        TokenBucket a = TokenBucket.newBuilder().parent(parent).build();
+        TokenBucket b = TokenBucket.newBuilder().parent(parent).build();
+        Assert.assertTrue(a.tryAcquire());
+        Assert.assertFalse(b.tryAcquire());
+    }
+
+    @Test
+    public void childLimitsDoNotAffectSiblings() {
+        TokenBucket parent = TokenBucket.newBuilder()
+                .acquireInterval(Duration.ZERO)
+                .build();
+        TokenBucket a = TokenBucket.newBuilder().parent(parent).build();
+        TokenBucket b = TokenBucket.newBuilder().parent(parent).build();
+        Assert.assertTrue(a.tryAcquire());
+        Assert.assertFalse(a.tryAcquire());
+        Assert.assertTrue(b.tryAcquire());
+    }
+
+    @Test
+    public void childTokenReturnedWhenParentEmpty() {
+        TokenBucket parent = TokenBucket.newBuilder()
+                .initialTokenCount(0)
+                .acquireInterval(Duration.ZERO)
+                .build();
+        TokenBucket child = TokenBucket.newBuilder()
+                .initialTokenCount(1)
+                .parent(parent)
+                .build();
+        Assert.assertFalse(child.tryAcquire());
+        parent.increment();
+        Assert.assertTrue(child.tryAcquire());
+    }
+
     @Test(expected = IllegalStateException.class)
     public void invalidCapacity() {
         TokenBucket.newBuilder()
@@ -90,6 +175,13 @@ public class TokenBucketTest {
                 .build();
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void invalidCapacityTooLarge() {
+        TokenBucket.newBuilder()
+                .capacity(4096)
+                .build();
+    }
+
     @Test(expected = IllegalStateException.class)
     public void invalidTokenCount() {
         TokenBucket.newBuilder()
@@ -119,24 +211,21 @@ public class TokenBucketTest {
     }
 
     private static class TestTokenBucket extends TokenBucket {
-        private long now = System.currentTimeMillis();
+        // Constant, as now() is first called by the parent constructor before any fields here are initialized.
+        private static final long START_MS = 1500000000000L;
+        private long elapsedMs;
 
         private TestTokenBucket(Builder builder) {
             super(builder);
         }
 
         public void increment(long milliseconds) {
-            now += milliseconds;
+            elapsedMs += milliseconds;
         }
 
         @Override
         protected long now() {
-            return now;
-        }
-
-        @Override
-        protected void startIncrementThread() {
-            // do nothing: avoid background thread in tests
+            return START_MS + elapsedMs;
         }
     }
 }
@@ -0,0 +1,94 @@
+package com.mesosphere.sdk.offer;
+
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public class MergedOffersTest {
+
+    private static final Protos.Offer OFFER_A1 = getOffer("offerA1", "agentA", 1.0);
+    private static final Protos.Offer OFFER_B = getOffer("offerB", "agentB", 2.0);
+    private static final Protos.Offer OFFER_A2 = getOffer("offerA2", "agentA", 3.0);
+
+    @Test
+    public void testNothingToMerge() {
+        MergedOffers mergedOffers = MergedOffers.merge(Arrays.asList(OFFER_A1, OFFER_B));
+        Assert.assertEquals(Arrays.asList(OFFER_A1, OFFER_B), mergedOffers.getOffers());
+        Assert.assertEquals(0, mergedOffers.getMergedCount());
+        Assert.assertEquals(Arrays.asList(OFFER_B), mergedOffers.getOriginalOffers(Arrays.asList(OFFER_B)));
+        Assert.assertEquals(
+                Collections.singletonList(OFFER_A1.getId()), mergedOffers.getOriginalOfferIds(OFFER_A1.getId()));
+    }
+
+    @Test
+    public void testMergeByAgent() {
+        MergedOffers mergedOffers = MergedOffers.merge(Arrays.asList(OFFER_A1, OFFER_B, OFFER_A2));
+        Assert.assertEquals(1, mergedOffers.getMergedCount());
+
+        List<Protos.Offer> offers = mergedOffers.getOffers();
+        Assert.assertEquals(2, offers.size());
+        Protos.Offer mergedOffer = offers.get(0);
+        Assert.assertEquals(OFFER_A1.getId(), mergedOffer.getId());
+        Assert.assertEquals(OFFER_A1.getSlaveId(), mergedOffer.getSlaveId());
+        Assert.assertEquals(
+                Arrays.asList(OFFER_A1.getResources(0), OFFER_A2.getResources(0)), mergedOffer.getResourcesList());
+        Assert.assertEquals(OFFER_B, offers.get(1));
+
+        Assert.assertEquals(
+                Arrays.asList(OFFER_A1.getId(), OFFER_A2.getId()),
+                mergedOffers.getOriginalOfferIds(mergedOffer.getId()));
+        Assert.assertEquals(
+                Arrays.asList(OFFER_A1, OFFER_A2, OFFER_B),
+                mergedOffers.getOriginalOffers(Arrays.asList(mergedOffer, OFFER_B)));
+    }
+
+    @Test
+    public void testOffersForDifferentRolesNotMerged() {
+        Protos.Offer offerRole1 = getOffer("offerA1", "agentA", 1.0, "role1");
+        Protos.Offer offerRole2 = getOffer("offerA2", "agentA", 3.0, "role2");
+        Protos.Offer offerRole1Again = getOffer("offerA3", "agentA", 2.0, "role1");
+
+        MergedOffers mergedOffers = MergedOffers.merge(Arrays.asList(offerRole1, offerRole2, offerRole1Again));
+        Assert.assertEquals(1, mergedOffers.getMergedCount());
+
+        // Only the offers for the same role were merged:
+        List<Protos.Offer> offers = mergedOffers.getOffers();
+        Assert.assertEquals(2, offers.size());
+        Assert.assertEquals(
+                Arrays.asList(offerRole1.getId(), offerRole1Again.getId()),
+                mergedOffers.getOriginalOfferIds(offers.get(0).getId()));
+        Assert.assertEquals(offerRole2, offers.get(1));
+        Assert.assertEquals(
+                Collections.singletonList(offerRole2.getId()), mergedOffers.getOriginalOfferIds(offerRole2.getId()));
+    }
+
+    @Test
+    public void testMergedResourcePool() {
+        Protos.Offer mergedOffer = MergedOffers.merge(Arrays.asList(OFFER_A1, OFFER_A2)).getOffers().get(0);
+        MesosResourcePool pool = new MesosResourcePool(mergedOffer, Optional.of(Constants.ANY_ROLE));
+        Assert.assertEquals(4.0, pool.getUnreservedMergedPool().get("cpus").getScalar().getValue(), 0.0);
+    }
+
+    private static Protos.Offer getOffer(String offerId, String agentId, double cpus) {
+        return Protos.Offer.newBuilder()
+                .setId(Protos.OfferID.newBuilder().setValue(offerId))
+                .setFrameworkId(TestConstants.FRAMEWORK_ID)
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue(agentId))
+                .setHostname(agentId)
+                .addResources(ResourceTestUtils.getUnreservedCpus(cpus))
+                .build();
+    }
+
+    private static Protos.Offer getOffer(String offerId, String agentId, double cpus, String role) {
+        return getOffer(offerId, agentId, cpus).toBuilder()
+                .setAllocationInfo(Protos.Resource.AllocationInfo.newBuilder().setRole(role))
+                .build();
+    }
+}
@@ -121,4 +121,33 @@ public class MesosResourcePoolTest extends DefaultCapabilitiesTestSuite {
         Assert.assertTrue(map != null);
         Assert.assertTrue(map.isEmpty());
     }
+
+    @Test
+    public void testPoolsFromSharedIndexAreIndependent() {
+        Resource cpus = ResourceTestUtils.getUnreservedCpus(1.0);
+        Resource mountVolume = ResourceTestUtils.getUnreservedMountVolume(1000);
+        Offer offer = OfferTestUtils.getOffer(Arrays.asList(cpus, mountVolume));
+        OfferResourceIndex index = new OfferResourceIndex(offer, Optional.of(Constants.ANY_ROLE));
+
+        MesosResourcePool pool = new MesosResourcePool(index);
+        MesosResource consumedCpus =
+                pool.consumeReservableMerged(cpus.getName(), ValueUtils.getValue(cpus), Constants.ANY_ROLE).get();
+        MesosResource consumedVolume = pool.consumeAtomic(mountVolume.getName(), ValueUtils.getValue(mountVolume)).get();
+        Assert.assertEquals(ValueUtils.getZero(Protos.Value.Type.SCALAR), pool.getUnreservedMergedPool().get("cpus"));
+        Assert.assertTrue(pool.getUnreservedAtomicPool().isEmpty());
+
+        // A second pool from the same index still sees all of the offer's resources:
+        MesosResourcePool otherPool = new MesosResourcePool(index);
+        Assert.assertEquals(ValueUtils.getValue(cpus), otherPool.getUnreservedMergedPool().get("cpus"));
+        Assert.assertEquals(1, otherPool.getUnreservedAtomicPool().get("disk").size());
+
+        // Freeing resources into the second pool doesn't affect the index:
+        otherPool.free(consumedCpus);
+        otherPool.free(consumedVolume);
+        Assert.assertEquals(2, otherPool.getUnreservedAtomicPool().get("disk").size());
+        Assert.assertEquals(2.0, otherPool.getUnreservedMergedPool().get("cpus").getScalar().getValue(), 0.0);
+        Assert.assertEquals(1, index.getUnreservedAtomicPool().get("disk").size());
+        Assert.assertEquals(ValueUtils.getValue(cpus), index.getReservableMergedPoolByRole().get(Constants.ANY_ROLE)
+                .get("cpus").toProto());
+    }
 }
@@ -0,0 +1,98 @@
+package com.mesosphere.sdk.offer;
+
+import org.apache.mesos.Protos.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests for {@link ResourceValue}.
+ */
+public class ResourceValueTest {
+
+    @Test
+    public void testScalar() {
+        ResourceValue one = ResourceValue.of(Value.newBuilder()
+                .setType(Value.Type.SCALAR)
+                .setScalar(Value.Scalar.newBuilder().setValue(1.0))
+                .build());
+        ResourceValue two = ResourceValue.scalar(2.0);
+
+        Assert.assertEquals(ResourceValue.scalar(3.0), one.add(two));
+        Assert.assertEquals(ResourceValue.scalar(1.0), two.subtract(one));
+        Assert.assertTrue(two.contains(one));
+        Assert.assertTrue(two.contains(two));
+        Assert.assertFalse(one.contains(two));
+        Assert.assertEquals(ValueUtils.getZero(Value.Type.SCALAR), one.subtract(one).toProto());
+    }
+
+    @Test
+    public void testRangesNormalized() {
+        ResourceValue ranges = ranges(20, 25, 1, 5, 6, 10, 3, 4, 30, 30);
+        Assert.assertEquals(ranges(1, 10, 20, 25, 30, 30), ranges);
+        Assert.assertEquals(3, ranges.getRangeCount());
+        Assert.assertEquals(20, ranges.getRangeBegin(1));
+        Assert.assertEquals(25, ranges.getRangeEnd(1));
+        Assert.assertEquals(
+                RangeUtils.mergeRanges(
+                        ranges(20, 25, 1, 5).toProto().getRanges().getRangeList(),
+                        ranges(6, 10, 3, 4, 30, 30).toProto().getRanges().getRangeList()),
+                ranges.toProto().getRanges().getRangeList());
+    }
+
+    @Test
+    public void testRangesArithmetic() {
+        ResourceValue ranges = ranges(1, 10, 20, 25);
+
+        Assert.assertEquals(ranges(1, 25), ranges.add(ranges(11, 19)));
+        Assert.assertEquals(ranges(1, 10, 15, 25), ranges.add(ranges(15, 22)));
+        Assert.assertEquals(ranges(1, 2, 5, 10, 21, 25), ranges.subtract(ranges(3, 4, 15, 20)));
+        Assert.assertEquals(ranges(1, 1, 10, 10, 25, 25), ranges.subtract(ranges(2, 9, 11, 24)));
+        Assert.assertEquals(ResourceValue.zero(Value.Type.RANGES), ranges.subtract(ranges(0, 100)));
+        Assert.assertEquals(ranges, ranges.subtract(ranges(11, 19, 30, 40)));
+        Assert.assertEquals(ValueUtils.getZero(Value.Type.RANGES), ranges.subtract(ranges).toProto());
+
+        Assert.assertTrue(ranges.contains(ranges(1, 1, 3, 10, 25, 25)));
+        Assert.assertTrue(ranges.contains(ResourceValue.zero(Value.Type.RANGES)));
+        Assert.assertFalse(ranges.contains(ranges(10, 11)));
+        Assert.assertFalse(ranges.contains(ranges(9, 21)));
+        Assert.assertFalse(ranges.contains(ranges(26, 26)));
+    }
+
+    @Test
+    public void testSet() {
+        ResourceValue set = set("b", "a", "c", "a");
+        Assert.assertEquals(set("a", "b", "c"), set);
+        Assert.assertEquals(set("a", "b", "c", "d"), set.add(set("d", "b")));
+        Assert.assertEquals(set("a", "c"), set.subtract(set("b", "e")));
+        Assert.assertTrue(set.contains(set("c", "a")));
+        Assert.assertFalse(set.contains(set("c", "d")));
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), set.toProto().getSet().getItemList());
+    }
+
+    @Test
+    public void testMismatchedTypes() {
+        Assert.assertFalse(ResourceValue.scalar(1.0).contains(ResourceValue.zero(Value.Type.RANGES)));
+        try {
+            ResourceValue.scalar(1.0).add(ranges(1, 2));
+            Assert.fail("Expected mismatched types to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static ResourceValue ranges(long... bounds) {
+        Value.Builder builder = Value.newBuilder().setType(Value.Type.RANGES);
+        for (int i = 0; i < bounds.length; i += 2) {
+            builder.getRangesBuilder().addRangeBuilder().setBegin(bounds[i]).setEnd(bounds[i + 1]);
+        }
+        return ResourceValue.of(builder.build());
+    }
+
+    private static ResourceValue set(String... items) {
+        Value.Builder builder = Value.newBuilder().setType(Value.Type.SET);
+        builder.getSetBuilder().addAllItem(Arrays.asList(items));
+        return ResourceValue.of(builder.build());
+    }
+}
@@ -2,6 +2,7 @@ package com.mesosphere.sdk.offer.evaluate;
 
 import com.mesosphere.sdk.dcos.Capabilities;
 import com.mesosphere.sdk.dcos.ResourceRefinementCapabilityContext;
+import com.mesosphere.sdk.http.endpoints.ArtifactResource;
 import com.mesosphere.sdk.offer.*;
 import com.mesosphere.sdk.offer.taskdata.TaskLabelReader;
 import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
@@ -10,6 +11,7 @@ import com.mesosphere.sdk.scheduler.recovery.FailureUtils;
 import com.mesosphere.sdk.scheduler.recovery.RecoveryType;
 import com.mesosphere.sdk.specification.*;
 import com.mesosphere.sdk.state.PersistentLaunchRecorder;
+import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.testutils.OfferTestUtils;
 import com.mesosphere.sdk.testutils.ResourceTestUtils;
 import com.mesosphere.sdk.testutils.TaskTestUtils;
@@ -20,6 +22,7 @@ import org.apache.mesos.Protos.Offer.Operation;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 
 import java.io.File;
 import java.util.*;
@@ -421,6 +424,38 @@ public class OfferEvaluatorTest extends OfferEvaluatorTestBase {
         Assert.assertEquals(Operation.Type.LAUNCH_GROUP, launchOperation.getType());
     }
 
+    @Test
+    public void testStoreLookupsNotRepeatedPerOffer() throws Exception {
+        PodInstanceRequirement podInstanceRequirement = PodInstanceRequirementTestUtils.getCpuRequirement(1.0);
+        Resource insufficientOffer = ResourceTestUtils.getUnreservedMem(2.0);
+        Resource sufficientOffer = ResourceTestUtils.getUnreservedCpus(2.0);
+
+        StateStore spyStateStore = Mockito.spy(stateStore);
+        evaluator = new OfferEvaluator(
+                frameworkStore,
+                spyStateStore,
+                Optional.empty(),
+                TestConstants.SERVICE_NAME,
+                targetConfig,
+                ArtifactResource.getUrlFactory(TestConstants.SERVICE_NAME),
+                SCHEDULER_CONFIG,
+                Optional.empty(),
+                true);
+
+        List<OfferRecommendation> recommendations = evaluator.evaluate(
+                podInstanceRequirement,
+                Arrays.asList(
+                        OfferTestUtils.getCompleteOffer(insufficientOffer),
+                        OfferTestUtils.getCompleteOffer(insufficientOffer),
+                        OfferTestUtils.getCompleteOffer(insufficientOffer),
+                        OfferTestUtils.getCompleteOffer(sufficientOffer)));
+        Assert.assertEquals(5, recommendations.size());
+
+        // Goal state overrides are only fetched once per task, regardless of the number of offers evaluated:
+        Mockito.verify(spyStateStore, Mockito.times(podInstanceRequirement.getPodInstance().getPod().getTasks().size()))
+                .fetchGoalOverrideStatus(Mockito.anyString());
+    }
+
     @Test
     public void testLaunchSequencedTasksInPod() throws Exception {
         ServiceSpec serviceSpec = getServiceSpec("resource-set-seq.yml");
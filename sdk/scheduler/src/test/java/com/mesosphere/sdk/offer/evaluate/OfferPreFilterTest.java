@@ -0,0 +1,131 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.offer.Constants;
+import com.mesosphere.sdk.offer.OfferResourceSummary;
+import com.mesosphere.sdk.offer.evaluate.placement.CompiledPlacementRule;
+import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
+import com.mesosphere.sdk.offer.evaluate.placement.TestPlacementUtils;
+import com.mesosphere.sdk.scheduler.plan.DefaultPodInstance;
+import com.mesosphere.sdk.specification.*;
+import com.mesosphere.sdk.testutils.*;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+
+public class OfferPreFilterTest extends DefaultCapabilitiesTestSuite {
+
+    @Test
+    public void testSufficientResources() {
+        OfferPreFilter preFilter = getPreFilter(Optional.empty(), 1.0, 256.0, getHostPort(0), getHostPort(8080));
+        Protos.Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceTestUtils.getUnreservedCpus(0.6),
+                ResourceTestUtils.getUnreservedCpus(0.4),
+                ResourceTestUtils.getUnreservedMem(256),
+                ResourceTestUtils.getUnreservedPorts(8080, 8081)));
+        Assert.assertTrue(filter(preFilter, offer).isPassing());
+    }
+
+    @Test
+    public void testInsufficientScalar() {
+        OfferPreFilter preFilter = getPreFilter(Optional.empty(), 1.0, 256.0);
+        Protos.Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceTestUtils.getUnreservedCpus(0.5),
+                ResourceTestUtils.getUnreservedMem(256)));
+        EvaluationOutcome outcome = filter(preFilter, offer);
+        Assert.assertFalse(outcome.isPassing());
+        Assert.assertTrue(outcome.getReason(), outcome.getReason().contains(Constants.CPUS_RESOURCE_TYPE));
+    }
+
+    @Test
+    public void testReservedResourcesIgnored() {
+        OfferPreFilter preFilter = getPreFilter(Optional.empty(), 1.0, 256.0);
+        Protos.Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceTestUtils.getReservedCpus(1.0, TestConstants.RESOURCE_ID),
+                ResourceTestUtils.getUnreservedMem(256)));
+        Assert.assertFalse(filter(preFilter, offer).isPassing());
+    }
+
+    @Test
+    public void testMissingStaticPort() {
+        OfferPreFilter preFilter = getPreFilter(Optional.empty(), 1.0, 256.0, getHostPort(8080));
+        Protos.Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceTestUtils.getUnreservedCpus(1.0),
+                ResourceTestUtils.getUnreservedMem(256),
+                ResourceTestUtils.getUnreservedPorts(9000, 9999)));
+        Assert.assertFalse(filter(preFilter, offer).isPassing());
+    }
+
+    @Test
+    public void testInsufficientDynamicPorts() {
+        OfferPreFilter preFilter = getPreFilter(Optional.empty(), 1.0, 256.0, getHostPort(0), getHostPort(0));
+        Protos.Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceTestUtils.getUnreservedCpus(1.0),
+                ResourceTestUtils.getUnreservedMem(256),
+                ResourceTestUtils.getUnreservedPorts(9000, 9000)));
+        Assert.assertFalse(filter(preFilter, offer).isPassing());
+    }
+
+    @Test
+    public void testFailedPlacementRule() {
+        OfferPreFilter preFilter = getPreFilter(Optional.of(TestPlacementUtils.FAIL), 1.0, 256.0);
+        Protos.Offer offer = OfferTestUtils.getOffer(Arrays.asList(
+                ResourceTestUtils.getUnreservedCpus(1.0),
+                ResourceTestUtils.getUnreservedMem(256)));
+        Assert.assertFalse(filter(preFilter, offer).isPassing());
+    }
+
+    private static EvaluationOutcome filter(OfferPreFilter preFilter, Protos.Offer offer) {
+        return preFilter.filter(offer, new OfferResourceSummary(offer));
+    }
+
+    private static OfferPreFilter getPreFilter(
+            Optional<PlacementRule> placementRule, double cpus, double memory, PortSpec... portSpecs) {
+        ResourceSet resourceSet = DefaultResourceSet.newBuilder(
+                TestConstants.ROLE, Constants.ANY_ROLE, TestConstants.PRINCIPAL)
+                .id("resourceSet")
+                .cpus(cpus)
+                .memory(memory)
+                .addResource(Arrays.asList(portSpecs))
+                .build();
+        TaskSpec taskSpec = DefaultTaskSpec.newBuilder()
+                .name(TestConstants.TASK_NAME)
+                .commandSpec(DefaultCommandSpec.newBuilder(Collections.emptyMap()).value("./cmd").build())
+                .goalState(GoalState.RUNNING)
+                .resourceSet(resourceSet)
+                .build();
+        DefaultPodSpec.Builder podSpecBuilder =
+                DefaultPodSpec.newBuilder("executor-uri", TestConstants.POD_TYPE, 1, Arrays.asList(taskSpec));
+        if (placementRule.isPresent()) {
+            podSpecBuilder.placementRule(placementRule.get());
+        }
+        PodInstance podInstance = new DefaultPodInstance(podSpecBuilder.build(), 0);
+        Collection<ResourceSet> resourceSets = Collections.singletonList(resourceSet);
+        return new OfferPreFilter(
+                podInstance,
+                resourceSets,
+                false,
+                placementRule.map(rule -> new CompiledPlacementRule(rule, Optional.empty())),
+                Collections.emptyList());
+    }
+
+    private static PortSpec getHostPort(int port) {
+        return new PortSpec(
+                Protos.Value.newBuilder()
+                        .setType(Protos.Value.Type.RANGES)
+                        .setRanges(Protos.Value.Ranges.newBuilder()
+                                .addRange(Protos.Value.Range.newBuilder().setBegin(port).setEnd(port)))
+                        .build(),
+                TestConstants.ROLE,
+                Constants.ANY_ROLE,
+                TestConstants.PRINCIPAL,
+                "PORT_" + port,
+                "port-" + port,
+                TestConstants.PORT_VISIBILITY,
+                Collections.emptyList());
+    }
+}
@@ -5,7 +5,10 @@ import com.mesosphere.sdk.offer.Constants;
 import com.mesosphere.sdk.offer.MesosResourcePool;
 import com.mesosphere.sdk.offer.TaskUtils;
 import com.mesosphere.sdk.offer.evaluate.placement.AgentRule;
+import com.mesosphere.sdk.offer.evaluate.placement.AndRule;
+import com.mesosphere.sdk.offer.evaluate.placement.CompiledPlacementRule;
 import com.mesosphere.sdk.offer.evaluate.placement.PlacementRule;
+import com.mesosphere.sdk.offer.evaluate.placement.TestPlacementUtils;
 import com.mesosphere.sdk.scheduler.plan.DefaultPodInstance;
 import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirement;
 import com.mesosphere.sdk.scheduler.plan.PodInstanceRequirementTestUtils;
@@ -22,6 +25,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.mockito.Mockito.*;
+
 public class PlacementRuleEvaluationStageTest extends DefaultCapabilitiesTestSuite {
     @Test
     public void testOfferPassesPlacementRule() throws Exception {
@@ -100,6 +105,33 @@ public class PlacementRuleEvaluationStageTest extends DefaultCapabilitiesTestSui
                 Math.abs(mesosResourcePool.getUnreservedMergedPool().get("cpus").getScalar().getValue() - 1.1) < 0.01);
     }
 
+    @Test
+    public void testFullTreeOnlyEvaluatedToExplainFailures() throws Exception {
+        PlacementRule skipped = mock(PlacementRule.class);
+        when(skipped.filter(any(Protos.Offer.class), any(PodInstance.class), any()))
+                .thenReturn(EvaluationOutcome.pass(skipped, "mock").build());
+        CompiledPlacementRule rule = new CompiledPlacementRule(
+                new AndRule(TestPlacementUtils.FAIL, skipped), Optional.empty());
+        MesosResourcePool mockResourcePool = mock(MesosResourcePool.class);
+        when(mockResourcePool.getOffer()).thenReturn(OfferTestUtils.getEmptyOfferBuilder().build());
+        PodInfoBuilder mockPodInfoBuilder = mock(PodInfoBuilder.class);
+        when(mockPodInfoBuilder.getPodInstance()).thenReturn(PodTestUtils.getPodInstance(0));
+
+        // The compiled rule stops at the first failure:
+        EvaluationOutcome outcome = new PlacementRuleEvaluationStage(Collections.emptyList(), rule, false)
+                .evaluate(mockResourcePool, mockPodInfoBuilder);
+        Assert.assertFalse(outcome.isPassing());
+        Assert.assertEquals(1, outcome.getChildren().size());
+        verify(skipped, never()).filter(any(Protos.Offer.class), any(PodInstance.class), any());
+
+        // The failure is then explained by evaluating the whole tree:
+        outcome = new PlacementRuleEvaluationStage(Collections.emptyList(), rule, true)
+                .evaluate(mockResourcePool, mockPodInfoBuilder);
+        Assert.assertFalse(outcome.isPassing());
+        Assert.assertEquals(2, outcome.getChildren().size());
+        verify(skipped, times(1)).filter(any(Protos.Offer.class), any(PodInstance.class), any());
+    }
+
     private static Protos.Offer offerWithAgent(String agentId, Protos.Resource resource) {
         Protos.Offer.Builder o = OfferTestUtils.getCompleteOffer(resource).toBuilder();
         o.getSlaveIdBuilder().setValue(agentId);
@@ -0,0 +1,79 @@
+package com.mesosphere.sdk.offer.evaluate;
+
+import com.mesosphere.sdk.offer.ResourceValue;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for {@link PortAllocator}.
+ */
+public class PortAllocatorTest {
+
+    @Test
+    public void testFirstFitAcrossRanges() {
+        PortAllocator allocator = PortAllocator.fromValue(
+                getRanges(getRange(10000, 10001), getRange(5000, 5000)),
+                PortAllocator.Selection.FIRST_FIT);
+        Assert.assertEquals(Optional.of(5000), allocator.select());
+        // Selecting doesn't reserve:
+        Assert.assertEquals(Optional.of(5000), allocator.select());
+
+        allocator.reserve(5000);
+        Assert.assertFalse(allocator.isAvailable(5000));
+        Assert.assertEquals(Optional.of(10000), allocator.select());
+        allocator.reserve(10000, 10001);
+        Assert.assertEquals(Optional.empty(), allocator.select());
+    }
+
+    @Test
+    public void testInvalidPortsIgnored() {
+        PortAllocator allocator = PortAllocator.fromRange(0, 70000, PortAllocator.Selection.FIRST_FIT);
+        Assert.assertFalse(allocator.isAvailable(0));
+        Assert.assertTrue(allocator.isAvailable(65535));
+        Assert.assertFalse(allocator.isAvailable(65536));
+        Assert.assertEquals(Optional.of(1), allocator.select());
+
+        allocator.reserve(0, 100000);
+        Assert.assertEquals(Optional.empty(), allocator.select());
+        Assert.assertEquals(
+                Optional.empty(),
+                PortAllocator.fromValue(getRanges(), PortAllocator.Selection.FIRST_FIT).select());
+    }
+
+    @Test
+    public void testRandomSelectsOnlyAvailablePorts() {
+        PortAllocator allocator = new PortAllocator(PortAllocator.Selection.RANDOM, new Random(0));
+        allocator.addRange(1000, 1009);
+        allocator.addRange(2000, 2009);
+        allocator.reserve(1005, 2004);
+
+        Set<Integer> selected = new HashSet<>();
+        for (int i = 0; i < 1000; ++i) {
+            int port = allocator.select().get();
+            Assert.assertTrue(allocator.isAvailable(port));
+            selected.add(port);
+        }
+        // Not just the first available port:
+        Assert.assertTrue(selected.size() > 1);
+
+        allocator.reserve(1000, 2009);
+        Assert.assertEquals(Optional.empty(), allocator.select());
+    }
+
+    private static ResourceValue getRanges(Protos.Value.Range... ranges) {
+        Protos.Value.Builder builder = Protos.Value.newBuilder().setType(Protos.Value.Type.RANGES);
+        builder.getRangesBuilder().addAllRange(Arrays.asList(ranges));
+        return ResourceValue.of(builder.build());
+    }
+
+    private static Protos.Value.Range getRange(long begin, long end) {
+        return Protos.Value.Range.newBuilder().setBegin(begin).setEnd(end).build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import com.mesosphere.sdk.offer.evaluate.EvaluationOutcome;
+import com.mesosphere.sdk.specification.PodInstance;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.PodTestUtils;
+import org.apache.mesos.Protos.Offer;
+import org.apache.mesos.Protos.TaskInfo;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link CompiledPlacementRule}.
+ */
+public class CompiledPlacementRuleTest {
+    private static final PodInstance POD_INSTANCE = PodTestUtils.getPodInstance(0);
+    private static final Offer OFFER = OfferTestUtils.getEmptyOfferBuilder().build();
+    private static final Collection<TaskInfo> TASKS = Collections.emptyList();
+
+    private static final PlacementRule PASS = TestPlacementUtils.PASS;
+    private static final PlacementRule FAIL = TestPlacementUtils.FAIL;
+
+    @Test
+    public void testMatchesRuleTree() {
+        PlacementRule[] rules = new PlacementRule[] {
+                PASS,
+                FAIL,
+                new NotRule(PASS),
+                new NotRule(new NotRule(FAIL)),
+                new AndRule(),
+                new OrRule(),
+                new NotRule(new AndRule()),
+                new NotRule(new OrRule()),
+                new AndRule(PASS, new AndRule()),
+                new OrRule(FAIL, new NotRule(new OrRule())),
+                new AndRule(PASS, new AndRule(PASS, PASS)),
+                new AndRule(PASS, new AndRule(PASS, FAIL)),
+                new OrRule(FAIL, new OrRule(FAIL, PASS)),
+                new OrRule(FAIL, new AndRule(PASS, FAIL)),
+                new NotRule(new AndRule(PASS, FAIL)),
+                new NotRule(new AndRule(PASS, new NotRule(FAIL))),
+                new NotRule(new OrRule(FAIL, new AndRule(PASS, new NotRule(PASS)))),
+                new AndRule(new OrRule(FAIL, PASS), new NotRule(new OrRule(FAIL, new NotRule(PASS)))),
+        };
+        for (PlacementRule rule : rules) {
+            boolean expected = rule.filter(OFFER, POD_INSTANCE, TASKS).isPassing();
+            CompiledPlacementRule compiled = new CompiledPlacementRule(rule, Optional.empty());
+            assertEquals(rule.toString(), expected, compiled.filter(OFFER, POD_INSTANCE, TASKS, false).isPassing());
+            assertEquals(rule.toString(), expected, compiled.filter(OFFER, POD_INSTANCE, TASKS, true).isPassing());
+        }
+    }
+
+    @Test
+    public void testFlattenedWithNotPushedDown() {
+        PlacementRule emptyAnd = new AndRule();
+        PlacementRule rule = new NotRule(new AndRule(PASS, new NotRule(new OrRule(FAIL, emptyAnd)), new AndRule(FAIL)));
+        // NOT(PASS AND NOT(FAIL OR AND()) AND FAIL) == NOT(PASS) OR FAIL OR AND() OR NOT(FAIL)
+        assertEquals(
+                Arrays.asList(String.format("NOT %s", PASS), FAIL.toString(), emptyAnd.toString(),
+                        String.format("NOT %s", FAIL)),
+                new CompiledPlacementRule(rule, Optional.empty()).getEvaluationOrder());
+    }
+
+    @Test
+    public void testShortCircuits() {
+        PlacementRule skipped = mock(PlacementRule.class);
+        CompiledPlacementRule and = new CompiledPlacementRule(new AndRule(FAIL, skipped), Optional.empty());
+        EvaluationOutcome outcome = and.filter(OFFER, POD_INSTANCE, TASKS, false);
+        assertFalse(outcome.isPassing());
+        assertEquals("Evaluated 1 of 2 rules, ending with:", outcome.getReason());
+        assertEquals(1, outcome.getChildren().size());
+
+        CompiledPlacementRule or = new CompiledPlacementRule(new OrRule(PASS, skipped), Optional.empty());
+        outcome = or.filter(OFFER, POD_INSTANCE, TASKS, false);
+        assertTrue(outcome.isPassing());
+        assertEquals("Evaluated 1 of 2 rules, ending with:", outcome.getReason());
+
+        verify(skipped, never()).filter(any(Offer.class), any(PodInstance.class), any());
+    }
+
+    @Test
+    public void testExplainEvaluatesFullTree() {
+        PlacementRule evaluated = mock(PlacementRule.class);
+        when(evaluated.filter(any(Offer.class), any(PodInstance.class), any()))
+                .thenReturn(EvaluationOutcome.pass(evaluated, "mock").build());
+        PlacementRule rule = new AndRule(FAIL, evaluated);
+        EvaluationOutcome outcome = new CompiledPlacementRule(rule, Optional.empty())
+                .filter(OFFER, POD_INSTANCE, TASKS, true);
+        assertFalse(outcome.isPassing());
+        assertEquals(2, outcome.getChildren().size());
+        verify(evaluated, times(1)).filter(OFFER, POD_INSTANCE, TASKS);
+    }
+
+    @Test
+    public void testReordersByPassRate() {
+        // For an AND, the child which usually fails should be moved first.
+        PlacementRule rule = new AndRule(PASS, FAIL);
+        CompiledPlacementRule compiled = new CompiledPlacementRule(rule, Optional.empty());
+        assertEquals(Arrays.asList(PASS.toString(), FAIL.toString()), compiled.getEvaluationOrder());
+        for (int i = 0; i < 1000; ++i) {
+            assertFalse(compiled.filter(OFFER, POD_INSTANCE, TASKS, false).isPassing());
+        }
+        assertEquals(Arrays.asList(FAIL.toString(), PASS.toString()), compiled.getEvaluationOrder());
+    }
+
+    @Test
+    public void testCacheReusesCompiledRule() {
+        CompiledPlacementRule.Cache cache = new CompiledPlacementRule.Cache(Optional.of("test-service"));
+        PlacementRule rule = new AndRule(PASS, FAIL);
+        assertSame(cache.get(rule), cache.get(rule));
+        assertNotSame(cache.get(rule), cache.get(new AndRule(PASS, FAIL)));
+    }
+}
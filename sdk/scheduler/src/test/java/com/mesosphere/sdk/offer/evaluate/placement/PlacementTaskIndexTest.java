@@ -0,0 +1,129 @@
+package com.mesosphere.sdk.offer.evaluate.placement;
+
+import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
+import com.mesosphere.sdk.specification.PodInstance;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.PodTestUtils;
+import com.mesosphere.sdk.testutils.TaskTestUtils;
+import com.mesosphere.sdk.testutils.TestConstants;
+import org.apache.mesos.Protos.TaskInfo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link PlacementTaskIndex}.
+ */
+public class PlacementTaskIndexTest {
+
+    private static final PodInstance POD_0 = PodTestUtils.getPodInstance(0);
+    private static final PodInstance POD_1 = PodTestUtils.getPodInstance(1);
+    private static final PodInstance POD_2 = PodTestUtils.getPodInstance(2);
+
+    @Test
+    public void testCountsExcludeFilteredTasksAndPlacedPod() {
+        TaskInfo task0 = getTask("match-0", 0, "host-1");
+        TaskInfo task1 = getTask("match-1", 1, "host-1");
+        TaskInfo other = getTask("other-2", 2, "host-1");
+        PlacementTaskIndex index = new PlacementTaskIndex().update(Arrays.asList(task0, task1, other));
+        MaxPerRule rule = new MaxPerHostnameRule(2, RegexMatcher.create("match-.*"));
+
+        Assert.assertEquals(counts("host-1", 2), index.getCounts(rule, POD_2));
+        // Stale copies of the pod being placed aren't counted:
+        Assert.assertEquals(counts("host-1", 1), index.getCounts(rule, POD_0));
+    }
+
+    @Test
+    public void testCountMatchesCounts() {
+        TaskInfo task0 = getTask("match-0", 0, "host-1");
+        TaskInfo task1 = getTask("match-1", 1, "host-1");
+        TaskInfo task2 = getTask("match-2", 2, "host-2");
+        PlacementTaskIndex index = new PlacementTaskIndex().update(Arrays.asList(task0, task1, task2));
+        MaxPerRule rule = spy(new MaxPerHostnameRule(2, AnyMatcher.create()));
+
+        Assert.assertEquals(2, index.getCount(rule, "host-1", POD_2));
+        Assert.assertEquals(1, index.getCount(rule, "host-2", POD_0));
+        Assert.assertEquals(0, index.getCount(rule, "host-3", POD_0));
+        // Stale copies of the pod being placed aren't counted:
+        Assert.assertEquals(1, index.getCount(rule, "host-1", POD_0));
+        Assert.assertEquals(0, index.getCount(rule, "host-2", POD_2));
+        // The tasks are only read once, when the rule first queries the index:
+        verify(rule, times(3)).getKeys(any(TaskInfo.class));
+
+        index.update(Arrays.asList(task0, task2));
+        Assert.assertEquals(1, index.getCount(rule, "host-1", POD_2));
+        Assert.assertEquals(0, index.getCount(rule, "host-1", POD_0));
+    }
+
+    @Test
+    public void testCountsUpdatedOnLaunchAndClear() {
+        TaskInfo task0 = getTask("match-0", 0, "host-1");
+        TaskInfo task1 = getTask("match-1", 1, "host-1");
+        PlacementTaskIndex index = new PlacementTaskIndex().update(Arrays.asList(task0, task1));
+        MaxPerRule rule = spy(new MaxPerHostnameRule(2, AnyMatcher.create()));
+
+        Assert.assertEquals(counts("host-1", 2), index.getCounts(rule, POD_2));
+        verify(rule, times(2)).getKeys(any(TaskInfo.class));
+
+        // Unchanged tasks aren't read again:
+        index.update(Arrays.asList(task0, task1));
+        Assert.assertEquals(counts("host-1", 2), index.getCounts(rule, POD_2));
+        verify(rule, times(2)).getKeys(any(TaskInfo.class));
+
+        // Relaunched onto another host:
+        TaskInfo relaunchedTask1 = getTask("match-1", 1, "host-2");
+        index.update(Arrays.asList(task0, relaunchedTask1));
+        Map<String, Integer> expected = counts("host-1", 1);
+        expected.put("host-2", 1);
+        Assert.assertEquals(expected, index.getCounts(rule, POD_2));
+        verify(rule, times(3)).getKeys(any(TaskInfo.class));
+
+        // Cleared:
+        index.update(Collections.singletonList(relaunchedTask1));
+        Assert.assertEquals(counts("host-2", 1), index.getCounts(rule, POD_2));
+        Assert.assertEquals(Collections.singletonList(relaunchedTask1), Arrays.asList(index.toArray()));
+        Assert.assertTrue(index.getCounts(rule, POD_1).isEmpty());
+    }
+
+    @Test
+    public void testCountsUnaffectedByLaterUpdates() {
+        TaskInfo task0 = getTask("match-0", 0, "host-1");
+        PlacementTaskIndex index = new PlacementTaskIndex().update(Collections.singletonList(task0));
+        MaxPerRule rule = new MaxPerHostnameRule(2, AnyMatcher.create());
+
+        // Rules read the counts without holding the index's lock, while other threads may be updating it:
+        Map<String, Integer> counts = index.getCounts(rule, POD_2);
+        index.update(Arrays.asList(task0, getTask("match-1", 1, "host-1")));
+        Assert.assertEquals(counts("host-1", 1), counts);
+        Assert.assertEquals(counts("host-1", 2), index.getCounts(rule, POD_2));
+    }
+
+    @Test
+    public void testIndexReusedAcrossQueries() {
+        PlacementTaskIndex index = new PlacementTaskIndex();
+        Assert.assertSame(index, PlacementTaskIndex.of(index));
+        Assert.assertEquals(1, PlacementTaskIndex.of(Collections.singletonList(getTask("match-0", 0, "host-1"))).size());
+    }
+
+    private static TaskInfo getTask(String name, int index, String hostname) {
+        TaskInfo.Builder taskBuilder = TaskTestUtils.getTaskInfo(Collections.emptyList()).toBuilder().setName(name);
+        taskBuilder.setLabels(new TaskLabelWriter(taskBuilder)
+                .setType(TestConstants.POD_TYPE)
+                .setIndex(index)
+                .setHostname(OfferTestUtils.getEmptyOfferBuilder().setHostname(hostname).build())
+                .toProto());
+        return taskBuilder.build();
+    }
+
+    private static Map<String, Integer> counts(String key, int count) {
+        Map<String, Integer> counts = new HashMap<>();
+        counts.put(key, count);
+        return counts;
+    }
+}
@@ -17,7 +17,9 @@ import com.mesosphere.sdk.dcos.clients.SecretsClient;
 import com.mesosphere.sdk.framework.Driver;
 import com.mesosphere.sdk.http.types.EndpointProducer;
 import com.mesosphere.sdk.scheduler.plan.PlanCoordinator;
+import com.mesosphere.sdk.scheduler.plan.PlanManager;
 import com.mesosphere.sdk.scheduler.plan.Step;
+import com.mesosphere.sdk.scheduler.recovery.DefaultRecoveryPlanManager;
 import com.mesosphere.sdk.specification.ServiceSpec;
 import com.mesosphere.sdk.state.ConfigStore;
 import com.mesosphere.sdk.state.StateStore;
@@ -39,6 +41,8 @@ public class AbstractSchedulerTest {
     @Mock private SchedulerDriver mockSchedulerDriver;
     @Mock private SecretsClient mockSecretsClient;
     @Mock private PlanCoordinator mockPlanCoordinator;
+    @Mock private PlanManager mockDeployManager;
+    @Mock private DefaultRecoveryPlanManager mockRecoveryManager;
 
     @Before
     public void beforeEach() throws Exception {
@@ -69,6 +73,18 @@ public class AbstractSchedulerTest {
                 scheduler.offers(Arrays.asList(getOffer(), getOffer(), getOffer())).result);
     }
 
+    @Test
+    public void testRecoveryResyncedOnReregistration() {
+        AbstractScheduler scheduler = getScheduler();
+        when(mockPlanCoordinator.getPlanManagers()).thenReturn(Arrays.asList(mockDeployManager, mockRecoveryManager));
+
+        // Initial registration already performs a full scan for recovery:
+        verify(mockRecoveryManager, never()).resync();
+
+        scheduler.registered(true);
+        verify(mockRecoveryManager, times(1)).resync();
+    }
+
     private static Protos.Offer getOffer() {
         return getOffer(UUID.randomUUID().toString());
     }
@@ -1,5 +1,6 @@
 package com.mesosphere.sdk.scheduler;
 
+import com.codahale.metrics.Counter;
 import com.mesosphere.sdk.dcos.Capabilities;
 import com.mesosphere.sdk.dcos.DcosVersion;
 import com.mesosphere.sdk.framework.Driver;
@@ -22,6 +23,7 @@ import com.mesosphere.sdk.state.StateStoreUtils;
 import com.mesosphere.sdk.storage.MemPersister;
 import com.mesosphere.sdk.storage.Persister;
 import com.mesosphere.sdk.storage.PersisterException;
+import com.mesosphere.sdk.storage.StorageError;
 import com.mesosphere.sdk.testutils.OfferTestUtils;
 import com.mesosphere.sdk.testutils.ResourceTestUtils;
 import com.mesosphere.sdk.testutils.SchedulerConfigTestUtils;
@@ -252,6 +254,22 @@ public class DefaultSchedulerTest {
                 getStepStatuses(plan));
     }
 
+    @Test
+    public void testFailedCommitReturnsNoOperations() throws Exception {
+        persister = spy(new MemPersister());
+        new FrameworkStore(persister).storeFrameworkId(TestConstants.FRAMEWORK_ID);
+        defaultScheduler = getScheduler(getServiceSpec(podA, podB));
+        doThrow(new PersisterException(StorageError.Reason.STORAGE_ERROR, "test")).when(persister).commitBatch();
+        Counter failures = Metrics.getRegistry().counter(Metrics.OFFER_CYCLE_COMMIT_FAILURES);
+        long val = failures.getCount();
+
+        OfferResponse response = defaultScheduler.offers(Collections.singletonList(getSufficientOfferForTaskA()));
+
+        Assert.assertEquals(OfferResponse.Result.PROCESSED, response.result);
+        Assert.assertTrue(response.recommendations.isEmpty());
+        Assert.assertEquals(1, failures.getCount() - val);
+    }
+
     @Test
     public void updatePerTaskASpecification() throws InterruptedException, IOException, Exception {
         // Launch A and B in original configuration
@@ -725,6 +743,7 @@ public class DefaultSchedulerTest {
         UninstallRecorder mockDecommissionRecorder = mock(UninstallRecorder.class);
 
         Collection<OfferRecommendation> recommendations = DefaultScheduler.processOffers(
+                Optional.empty(),
                 mockPlanScheduler,
                 mockLaunchRecorder,
                 Optional.of(mockDecommissionRecorder),
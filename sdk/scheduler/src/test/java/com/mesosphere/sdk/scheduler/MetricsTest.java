@@ -1,6 +1,7 @@
 package com.mesosphere.sdk.scheduler;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Timer;
 import com.mesosphere.sdk.offer.LaunchOfferRecommendation;
 import com.mesosphere.sdk.offer.OfferRecommendation;
@@ -8,6 +9,7 @@ import com.mesosphere.sdk.testutils.OfferTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
 
 import java.util.Arrays;
+import java.util.Optional;
 
 import org.apache.mesos.Protos;
 import org.junit.Assert;
@@ -42,6 +44,49 @@ public class MetricsTest {
         Assert.assertEquals(1, timer.getCount() - val);
     }
 
+    @Test
+    public void incrementOfferCyclePhaseDuration() {
+        Timer timer = Metrics.getRegistry().timer("offers.process.evaluate");
+        long val = timer.getCount();
+        Metrics.getOfferCyclePhaseTimer(Optional.empty(), Metrics.OfferCyclePhase.EVALUATE).stop();
+        Assert.assertEquals(1, timer.getCount() - val);
+
+        Timer namespacedTimer = Metrics.getRegistry().timer("services.path__to__svc.offers.process.accept");
+        val = namespacedTimer.getCount();
+        Metrics.getOfferCyclePhaseTimer(Optional.of("/path/to/svc"), Metrics.OfferCyclePhase.ACCEPT).stop();
+        Assert.assertEquals(1, namespacedTimer.getCount() - val);
+    }
+
+    @Test
+    public void incrementOfferCycleCommitFailures() {
+        Counter counter = Metrics.getRegistry().counter("offers.process.commit_failures");
+        long val = counter.getCount();
+        Metrics.incrementOfferCycleCommitFailures(Optional.empty());
+        Assert.assertEquals(1, counter.getCount() - val);
+
+        Counter namespacedCounter = Metrics.getRegistry().counter("services.svc.offers.process.commit_failures");
+        val = namespacedCounter.getCount();
+        Metrics.incrementOfferCycleCommitFailures(Optional.of("svc"));
+        Assert.assertEquals(1, namespacedCounter.getCount() - val);
+    }
+
+    @Test
+    public void updateEvaluationStageDuration() {
+        Histogram histogram = Metrics.getRegistry().histogram("services.svc.offers.evaluate.stage.MetricsTest");
+        long val = histogram.getCount();
+        Metrics.updateEvaluationStageDuration(Optional.of("svc"), MetricsTest.class, 1000);
+        Assert.assertEquals(1, histogram.getCount() - val);
+        Metrics.updateEvaluationStageDuration(Optional.of("svc"), MetricsTest.class, 1000);
+        Assert.assertEquals(2, histogram.getCount() - val);
+
+        // Each namespace has its own histogram:
+        Histogram otherHistogram = Metrics.getRegistry().histogram("offers.evaluate.stage.MetricsTest");
+        long otherVal = otherHistogram.getCount();
+        Metrics.updateEvaluationStageDuration(Optional.empty(), MetricsTest.class, 1000);
+        Assert.assertEquals(1, otherHistogram.getCount() - otherVal);
+        Assert.assertEquals(2, histogram.getCount() - val);
+    }
+
     @Test
     public void incrementRevives() {
         Counter counter = Metrics.getRegistry().counter(Metrics.REVIVES);
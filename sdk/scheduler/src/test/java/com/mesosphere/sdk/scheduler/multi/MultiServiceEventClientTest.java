@@ -20,10 +20,12 @@ import com.mesosphere.sdk.scheduler.MesosEventClient.OfferResponse;
 import com.mesosphere.sdk.scheduler.MesosEventClient.StatusResponse;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
 import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.testutils.TestConstants;
 
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -31,6 +33,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Tests for {@link MultiServiceEventClient}
@@ -95,6 +99,7 @@ public class MultiServiceEventClientTest {
     @Mock private ServiceSpec mockServiceSpec9;
     @Mock private SchedulerConfig mockSchedulerConfig;
     @Mock private MultiServiceManager mockMultiServiceManager;
+    @Mock private StateStore mockStateStore;
     @Mock private MultiServiceEventClient.UninstallCallback mockUninstallCallback;
 
     private MultiServiceEventClient client;
@@ -120,6 +125,12 @@ public class MultiServiceEventClientTest {
         when(mockServiceSpec7.getName()).thenReturn("7");
         when(mockServiceSpec8.getName()).thenReturn("8");
         when(mockServiceSpec9.getName()).thenReturn("9");
+        for (DefaultScheduler mockClient : Arrays.asList(
+                mockClient1, mockClient2, mockClient3,
+                mockClient4, mockClient5, mockClient6,
+                mockClient7, mockClient8, mockClient9)) {
+            when(mockClient.getStateStore()).thenReturn(mockStateStore);
+        }
         client = buildClient();
     }
 
@@ -323,6 +334,84 @@ public class MultiServiceEventClientTest {
         verify(mockClient3).offers(offers);
     }
 
+    @Test
+    public void offerParallelRounds() {
+        when(mockSchedulerConfig.getMultiServiceOfferParallelism()).thenReturn(4);
+        client = buildClient();
+
+        // Client 1: consumes the first offer it's given
+        // Client 2,3: no change to offers
+        when(mockClient1.offers(any())).then(CONSUME_FIRST_OFFER);
+        when(mockClient2.offers(any())).then(NO_CHANGES);
+        when(mockClient3.offers(any())).then(NO_CHANGES);
+        when(mockMultiServiceManager.sharedLockAndGetServices()).thenReturn(Arrays.asList(
+                mockClient1, mockClient2, mockClient3));
+
+        OfferResponse response = client.offers(Arrays.asList(getOffer(1), getOffer(2), getOffer(3)));
+        Assert.assertEquals(OfferResponse.Result.PROCESSED, response.result);
+        Assert.assertEquals(3, response.recommendations.size());
+
+        // Round 1: Each client is given a different offer, and client 1 consumes offer 1.
+        verify(mockClient1).offers(Collections.singletonList(getOffer(1)));
+        verify(mockClient2).offers(Collections.singletonList(getOffer(2)));
+        verify(mockClient3).offers(Collections.singletonList(getOffer(3)));
+        // Round 2: The unused offers move on to the next client, and client 1 consumes offer 3.
+        verify(mockClient3).offers(Collections.singletonList(getOffer(2)));
+        verify(mockClient1).offers(Collections.singletonList(getOffer(3)));
+        // Round 3: The last unused offer moves on to client 1, which consumes it.
+        verify(mockClient1).offers(Collections.singletonList(getOffer(2)));
+        verify(mockClient2, times(1)).offers(any());
+        verify(mockClient3, times(2)).offers(any());
+    }
+
+    @Test
+    public void offerParallelServicesRunOnDedicatedThreads() {
+        when(mockSchedulerConfig.getMultiServiceOfferParallelism()).thenReturn(2);
+        client = buildClient();
+
+        // Each client waits for the other to be invoked before returning. This only completes if the clients are
+        // running on separate threads, rather than one being run on a thread which is waiting for the other:
+        CountDownLatch bothInvoked = new CountDownLatch(2);
+        List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+        List<Boolean> overlapped = Collections.synchronizedList(new ArrayList<>());
+        Answer<OfferResponse> awaitOther = invocation -> {
+            threadNames.add(Thread.currentThread().getName());
+            bothInvoked.countDown();
+            overlapped.add(bothInvoked.await(5, TimeUnit.SECONDS));
+            return OfferResponse.processed(Collections.emptyList());
+        };
+        when(mockClient1.offers(any())).then(awaitOther);
+        when(mockClient2.offers(any())).then(awaitOther);
+        when(mockMultiServiceManager.sharedLockAndGetServices()).thenReturn(Arrays.asList(
+                mockClient1, mockClient2));
+
+        OfferResponse response = client.offers(Collections.emptyList());
+        Assert.assertEquals(OfferResponse.Result.PROCESSED, response.result);
+        Assert.assertEquals(Arrays.asList(true, true), overlapped);
+        Assert.assertEquals(2, new HashSet<>(threadNames).size());
+        for (String threadName : threadNames) {
+            Assert.assertTrue(threadName, threadName.startsWith("service-offers-"));
+        }
+    }
+
+    @Test
+    public void offerParallelSomeClientsNotReady() {
+        when(mockSchedulerConfig.getMultiServiceOfferParallelism()).thenReturn(4);
+        client = buildClient();
+
+        when(mockClient1.offers(any())).then(NO_CHANGES);
+        when(mockClient2.offers(any())).then(OFFER_NOT_READY);
+        when(mockMultiServiceManager.sharedLockAndGetServices()).thenReturn(Arrays.asList(
+                mockClient1, mockClient2));
+
+        // Empty offers: All clients should have been pinged regardless
+        OfferResponse response = client.offers(Collections.emptyList());
+        Assert.assertEquals(OfferResponse.Result.NOT_READY, response.result);
+        Assert.assertTrue(response.recommendations.isEmpty());
+        verify(mockClient1).offers(Collections.emptyList());
+        verify(mockClient2).offers(Collections.emptyList());
+    }
+
     @Test
     public void statusClientNotFound() {
         Protos.TaskStatus status = buildStatus("2");
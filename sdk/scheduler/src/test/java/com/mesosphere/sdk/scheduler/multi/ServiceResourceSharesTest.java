@@ -0,0 +1,206 @@
+package com.mesosphere.sdk.scheduler.multi;
+
+import com.mesosphere.sdk.offer.ReserveOfferRecommendation;
+import com.mesosphere.sdk.offer.UnreserveOfferRecommendation;
+import com.mesosphere.sdk.scheduler.DefaultScheduler;
+import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.state.PersistentLaunchRecorder;
+import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ServiceResourceShares}
+ */
+public class ServiceResourceSharesTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Mock private DefaultScheduler mockServiceA;
+    @Mock private DefaultScheduler mockServiceB;
+    @Mock private ServiceSpec mockServiceSpecA;
+    @Mock private ServiceSpec mockServiceSpecB;
+    @Mock private StateStore mockStateStoreA;
+    @Mock private StateStore mockStateStoreB;
+
+    private Protos.Resource cpusA;
+    private Protos.Resource memB;
+    private ServiceResourceShares shares;
+
+    @Before
+    public void beforeEach() {
+        MockitoAnnotations.initMocks(this);
+        when(mockServiceA.getServiceSpec()).thenReturn(mockServiceSpecA);
+        when(mockServiceB.getServiceSpec()).thenReturn(mockServiceSpecB);
+        when(mockServiceSpecA.getName()).thenReturn("a");
+        when(mockServiceSpecB.getName()).thenReturn("b");
+        when(mockServiceA.getStateStore()).thenReturn(mockStateStoreA);
+        when(mockServiceB.getStateStore()).thenReturn(mockStateStoreB);
+
+        // a: 4 of 5 cpus, 100 of 1000 mem => 0.8
+        // b: 1 of 5 cpus, 900 of 1000 mem => 0.9
+        cpusA = ResourceTestUtils.getReservedCpus(4, UUID.randomUUID().toString());
+        memB = ResourceTestUtils.getReservedMem(900, UUID.randomUUID().toString());
+        when(mockStateStoreA.fetchTasks()).thenReturn(Collections.singletonList(getTask(
+                cpusA, ResourceTestUtils.getReservedMem(100, UUID.randomUUID().toString()))));
+        when(mockStateStoreB.fetchTasks()).thenReturn(Collections.singletonList(getTask(
+                ResourceTestUtils.getReservedCpus(1, UUID.randomUUID().toString()), memB)));
+
+        shares = new ServiceResourceShares();
+    }
+
+    @Test
+    public void sortByDominantShare() {
+        Assert.assertEquals(Arrays.asList(mockServiceA, mockServiceB),
+                shares.sort(Arrays.asList(mockServiceB, mockServiceA)));
+        Assert.assertEquals(0.8, shares.getDominantShare("a"), DELTA);
+        Assert.assertEquals(0.9, shares.getDominantShare("b"), DELTA);
+    }
+
+    @Test
+    public void sortStableForEqualShares() {
+        when(mockStateStoreA.fetchTasks()).thenReturn(Collections.emptyList());
+        when(mockStateStoreB.fetchTasks()).thenReturn(Collections.emptyList());
+        Assert.assertEquals(Arrays.asList(mockServiceB, mockServiceA),
+                shares.sort(Arrays.asList(mockServiceB, mockServiceA)));
+        Assert.assertEquals(Arrays.asList(mockServiceA, mockServiceB),
+                shares.sort(Arrays.asList(mockServiceA, mockServiceB)));
+    }
+
+    @Test
+    public void sharedResourcesCountedOnce() {
+        Protos.Resource executorCpus = ResourceTestUtils.getReservedCpus(2, UUID.randomUUID().toString());
+        when(mockStateStoreA.fetchTasks()).thenReturn(Arrays.asList(getTask(executorCpus), getTask(executorCpus)));
+        when(mockStateStoreB.fetchTasks()).thenReturn(Collections.singletonList(getTask(
+                ResourceTestUtils.getReservedCpus(2, UUID.randomUUID().toString()))));
+        shares.sort(Arrays.asList(mockServiceA, mockServiceB));
+        Assert.assertEquals(0.5, shares.getDominantShare("a"), DELTA);
+        Assert.assertEquals(0.5, shares.getDominantShare("b"), DELTA);
+    }
+
+    @Test
+    public void sortWithWeights() {
+        shares.setWeight("b", 2);
+        Assert.assertEquals(Arrays.asList(mockServiceB, mockServiceA),
+                shares.sort(Arrays.asList(mockServiceA, mockServiceB)));
+        Assert.assertEquals(0.45, shares.getDominantShare("b"), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWeight() {
+        shares.setWeight("a", 0);
+    }
+
+    @Test
+    public void sortWithQuotas() {
+        shares.setQuota("a", Collections.singletonMap("cpus", 4.0));
+        Assert.assertEquals(Arrays.asList(mockServiceB, mockServiceA),
+                shares.sort(Arrays.asList(mockServiceA, mockServiceB)));
+        Assert.assertTrue(shares.isOverQuota("a"));
+        Assert.assertFalse(shares.isOverQuota("b"));
+    }
+
+    @Test
+    public void updateFromLaunches() {
+        ArgumentCaptor<PersistentLaunchRecorder.Listener> listener =
+                ArgumentCaptor.forClass(PersistentLaunchRecorder.Listener.class);
+        shares.sort(Arrays.asList(mockServiceA, mockServiceB));
+        verify(mockServiceA).addLaunchListener(listener.capture());
+
+        // a launches a task with a new reservation, plus one with a reservation that's already tracked:
+        listener.getValue().recorded(Arrays.asList(
+                getTask(ResourceTestUtils.getReservedCpus(5, UUID.randomUUID().toString())),
+                getTask(cpusA)));
+        // a: 9 of 10 cpus => 0.9, 100 of 1000 mem
+        // b: 1 of 10 cpus, 900 of 1000 mem => 0.9
+        Assert.assertEquals(0.9, shares.getDominantShare("a"), DELTA);
+        Assert.assertEquals(0.9, shares.getDominantShare("b"), DELTA);
+
+        // The services are only listened to once, and their tasks aren't re-read:
+        shares.sort(Arrays.asList(mockServiceA, mockServiceB));
+        verify(mockServiceA, times(1)).addLaunchListener(any());
+        verify(mockStateStoreA, times(1)).fetchTasks();
+        verify(mockStateStoreB, times(1)).fetchTasks();
+    }
+
+    @Test
+    public void updateFromUnreserveRecommendations() {
+        shares.sort(Arrays.asList(mockServiceA, mockServiceB));
+        Protos.Offer offer = OfferTestUtils.getOffer(ResourceTestUtils.getUnreservedCpus(10));
+
+        // RESERVE operations are ignored, as new reservations are tracked from launches instead:
+        shares.recordRecommendations("b", Arrays.asList(
+                new ReserveOfferRecommendation(offer, ResourceTestUtils.getUnreservedCpus(5)),
+                new UnreserveOfferRecommendation(offer, memB)));
+        // a: 4 of 5 cpus => 0.8, 100 of 100 mem => 1.0
+        // b: 1 of 5 cpus => 0.2
+        Assert.assertEquals(1.0, shares.getDominantShare("a"), DELTA);
+        Assert.assertEquals(0.2, shares.getDominantShare("b"), DELTA);
+
+        // Unreserving a resource which isn't tracked has no effect:
+        shares.recordRecommendations("b", Collections.singletonList(new UnreserveOfferRecommendation(
+                offer, ResourceTestUtils.getReservedCpus(1, UUID.randomUUID().toString()))));
+        Assert.assertEquals(0.2, shares.getDominantShare("b"), DELTA);
+        verify(mockStateStoreA, times(1)).fetchTasks();
+        verify(mockStateStoreB, times(1)).fetchTasks();
+    }
+
+    @Test
+    public void updateFromUnreserved() {
+        shares.sort(Arrays.asList(mockServiceA, mockServiceB));
+        shares.recordUnreserved("a", Collections.singletonList(cpusA));
+        // a: 0 of 1 cpus, 100 of 1000 mem => 0.1
+        // b: 1 of 1 cpus => 1.0
+        Assert.assertEquals(0.1, shares.getDominantShare("a"), DELTA);
+        Assert.assertEquals(1.0, shares.getDominantShare("b"), DELTA);
+    }
+
+    @Test
+    public void resyncAll() {
+        shares.sort(Arrays.asList(mockServiceA, mockServiceB));
+        shares.recordUnreserved("b", Collections.singletonList(memB));
+        Assert.assertEquals(0.2, shares.getDominantShare("b"), DELTA);
+
+        // After a resync, both services are re-read from their unchanged state stores:
+        shares.resyncAll();
+        Assert.assertEquals(Arrays.asList(mockServiceA, mockServiceB),
+                shares.sort(Arrays.asList(mockServiceB, mockServiceA)));
+        Assert.assertEquals(0.8, shares.getDominantShare("a"), DELTA);
+        Assert.assertEquals(0.9, shares.getDominantShare("b"), DELTA);
+        verify(mockStateStoreA, times(2)).fetchTasks();
+        verify(mockStateStoreB, times(2)).fetchTasks();
+    }
+
+    @Test
+    public void removeService() {
+        shares.sort(Arrays.asList(mockServiceA, mockServiceB));
+        shares.removeService("b");
+        Assert.assertEquals(0, shares.getDominantShare("b"), DELTA);
+        Assert.assertEquals(1.0, shares.getDominantShare("a"), DELTA);
+    }
+
+    private static Protos.TaskInfo getTask(Protos.Resource... resources) {
+        return Protos.TaskInfo.newBuilder()
+                .setName("task")
+                .setTaskId(Protos.TaskID.newBuilder().setValue(UUID.randomUUID().toString()))
+                .setSlaveId(Protos.SlaveID.newBuilder().setValue("agent"))
+                .addAllResources(Arrays.asList(resources))
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package com.mesosphere.sdk.scheduler.plan;
 
 import com.mesosphere.sdk.scheduler.plan.strategy.CanaryStrategy;
 import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
+import com.mesosphere.sdk.scheduler.plan.strategy.Strategy;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -11,7 +12,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class DefaultPhaseTest {
 
@@ -46,4 +47,58 @@ public class DefaultPhaseTest {
 
         Assert.assertEquals(Status.WAITING, canaryPhase.getStatus());
     }
+
+    @Test
+    public void testStatusCachedUntilStepChanges() {
+        TestStep step1 = new TestStep();
+        TestStep step2 = new TestStep();
+        List<Step> steps = Arrays.asList(step1, step2);
+        Strategy<Step> strategy = spy(new SerialStrategy<>());
+        DefaultPhase phase = new DefaultPhase("phase", steps, strategy, Collections.emptyList());
+        Plan plan = new DefaultPlan("plan", Collections.singletonList(phase));
+
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+        Assert.assertEquals(Status.PENDING, plan.getStatus());
+        verify(strategy, times(1)).getCandidates(any(), any());
+
+        // Changes to a step are reflected in both the phase and the plan:
+        step1.setStatus(Status.COMPLETE);
+        Assert.assertEquals(Status.IN_PROGRESS, plan.getStatus());
+        Assert.assertEquals(Status.IN_PROGRESS, phase.getStatus());
+        verify(strategy, times(2)).getCandidates(any(), any());
+
+        step2.setStatus(Status.COMPLETE);
+        Assert.assertEquals(Status.COMPLETE, phase.getStatus());
+        Assert.assertEquals(Status.COMPLETE, plan.getStatus());
+
+        step2.restart();
+        Assert.assertEquals(Status.IN_PROGRESS, plan.getStatus());
+
+        // Interrupting the phase is reflected in both the phase and the plan:
+        phase.interrupt();
+        Assert.assertEquals(Status.WAITING, phase.getStatus());
+        Assert.assertEquals(Status.WAITING, plan.getStatus());
+        phase.proceed();
+        Assert.assertEquals(Status.IN_PROGRESS, phase.getStatus());
+        Assert.assertEquals(Status.IN_PROGRESS, plan.getStatus());
+
+        // Interrupting the phase's strategy directly is also reflected in the phase:
+        strategy.interrupt();
+        Assert.assertEquals(Status.WAITING, phase.getStatus());
+    }
+
+    @Test
+    public void testStatusNotCachedWithMockedSteps() {
+        Step step = mock(DeploymentStep.class);
+        when(step.getPodInstanceRequirement()).thenReturn(Optional.empty());
+        DefaultPhase phase = new DefaultPhase(
+                "phase", Collections.singletonList(step), new SerialStrategy<>(), Collections.emptyList());
+
+        when(step.getStatus()).thenReturn(Status.PENDING);
+        Assert.assertEquals(Status.PENDING, phase.getStatus());
+
+        when(step.getStatus()).thenReturn(Status.COMPLETE);
+        Assert.assertEquals(Status.COMPLETE, phase.getStatus());
+    }
 }
@@ -6,6 +6,8 @@ import com.mesosphere.sdk.offer.TaskUtils;
 import com.mesosphere.sdk.specification.*;
 import com.mesosphere.sdk.state.GoalStateOverride;
 import com.mesosphere.sdk.state.StateStore;
+import com.mesosphere.sdk.storage.MemPersister;
+import com.mesosphere.sdk.storage.PersisterCache;
 import com.mesosphere.sdk.testutils.OfferTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
 import com.mesosphere.sdk.testutils.TestPodFactory;
@@ -17,6 +19,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.when;
@@ -277,6 +281,65 @@ public class DeploymentStepTest {
         Assert.assertEquals(expectedStatus.toString(), step.getDisplayStatus());
     }
 
+    @Test
+    public void testStatusBatchDoesNotBlockOfferUpdate() throws Exception {
+        // The status is processed within a storage batch, as by the StatusProcessor, while an offer evaluation holds
+        // the step and stores its goal override status. Neither may wait on the other for the step to be updated.
+        StateStore stateStore = new StateStore(new PersisterCache(new MemPersister()));
+        stateStore.storeGoalOverrideStatus(
+                taskName, GoalStateOverride.PAUSED.newStatus(GoalStateOverride.Progress.PENDING));
+        DeploymentStep step = new DeploymentStep(
+                TEST_STEP_NAME,
+                PodInstanceRequirement.newBuilder(mockPodInstance, TaskUtils.getTaskNames(mockPodInstance)).build(),
+                stateStore);
+        step.updateOfferStatus(Arrays.asList(getLaunchRecommendation()));
+
+        CountDownLatch offerHoldsStep = new CountDownLatch(1);
+        CountDownLatch statusBatchStarted = new CountDownLatch(1);
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        Thread offerThread = new Thread(() -> {
+            try {
+                synchronized (step) {
+                    offerHoldsStep.countDown();
+                    statusBatchStarted.await();
+                    step.updateOfferStatus(Arrays.asList(getLaunchRecommendation()));
+                }
+            } catch (Throwable e) {
+                errors.add(e);
+            }
+        });
+        Thread statusThread = new Thread(() -> {
+            try {
+                stateStore.runBatch(() -> {
+                    offerHoldsStep.await();
+                    statusBatchStarted.countDown();
+                    step.update(Protos.TaskStatus.newBuilder()
+                            .setTaskId(taskID)
+                            .setState(Protos.TaskState.TASK_RUNNING)
+                            .build());
+                });
+            } catch (Throwable e) {
+                errors.add(e);
+            }
+        });
+        // Don't hold up the test JVM if the threads deadlock:
+        offerThread.setDaemon(true);
+        statusThread.setDaemon(true);
+        offerThread.start();
+        statusThread.start();
+        offerThread.join(TimeUnit.SECONDS.toMillis(10));
+        statusThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        Assert.assertFalse(offerThread.isAlive());
+        Assert.assertFalse(statusThread.isAlive());
+        Assert.assertEquals(Collections.emptyList(), errors);
+        // The status was applied after the offer update, which was waiting on the step:
+        Assert.assertTrue(step.isComplete());
+        Assert.assertEquals(
+                GoalStateOverride.PAUSED.newStatus(GoalStateOverride.Progress.COMPLETE),
+                stateStore.fetchGoalOverrideStatus(taskName));
+    }
+
     private void testStepTransition(
             Step step,
             Protos.TaskState updateState,
@@ -303,7 +366,12 @@ public class DeploymentStepTest {
 
     private DeploymentStep getStartingStep() {
         DeploymentStep step = getPendingStep();
-        LaunchOfferRecommendation launchRec = new LaunchOfferRecommendation(
+        step.updateOfferStatus(Arrays.asList(getLaunchRecommendation()));
+        return step;
+    }
+
+    private LaunchOfferRecommendation getLaunchRecommendation() {
+        return new LaunchOfferRecommendation(
                 OfferTestUtils.getEmptyOfferBuilder().build(),
                 Protos.TaskInfo.newBuilder()
                         .setTaskId(taskID)
@@ -314,7 +382,5 @@ public class DeploymentStepTest {
                         Protos.ExecutorID.newBuilder().setValue("executor")).build(),
                 true,
                 true);
-        step.updateOfferStatus(Arrays.asList(launchRec));
-        return step;
     }
 }
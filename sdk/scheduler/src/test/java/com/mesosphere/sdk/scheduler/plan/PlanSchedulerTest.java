@@ -4,9 +4,14 @@ import com.mesosphere.sdk.framework.Driver;
 import com.mesosphere.sdk.offer.*;
 import com.mesosphere.sdk.offer.evaluate.OfferEvaluator;
 import com.mesosphere.sdk.scheduler.SchedulerConfig;
+import com.mesosphere.sdk.specification.DefaultPodSpec;
 import com.mesosphere.sdk.specification.DefaultServiceSpec;
+import com.mesosphere.sdk.specification.DefaultTaskSpec;
+import com.mesosphere.sdk.specification.DefaultTransportEncryptionSpec;
 import com.mesosphere.sdk.specification.PodInstance;
 import com.mesosphere.sdk.specification.PodSpec;
+import com.mesosphere.sdk.specification.TaskSpec;
+import com.mesosphere.sdk.specification.TransportEncryptionSpec;
 import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.testutils.SchedulerConfigTestUtils;
 
@@ -14,6 +19,7 @@ import org.apache.mesos.Protos.*;
 import org.apache.mesos.SchedulerDriver;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -82,14 +88,157 @@ public class PlanSchedulerTest {
     public void testEvaluateNoRecommendations() throws InvalidRequirementException, IOException {
         TestOfferStep step = new TestOfferStep(podInstanceRequirement);
         step.setStatus(Status.PENDING);
-        when(mockOfferEvaluator.evaluate(podInstanceRequirement, OFFERS)).thenReturn(new ArrayList<>());
+        when(mockOfferEvaluator.evaluate(eq(podInstanceRequirement), eq(OFFERS), any(OfferResourceIndex.Cache.class)))
+                .thenReturn(new ArrayList<>());
 
         assertTrue(scheduler.resourceOffers(OFFERS, Arrays.asList(step)).isEmpty());
         assertTrue(step.recommendations.isEmpty());
-        verify(mockOfferEvaluator).evaluate(podInstanceRequirement, OFFERS);
+        verify(mockOfferEvaluator)
+                .evaluate(eq(podInstanceRequirement), eq(OFFERS), any(OfferResourceIndex.Cache.class));
         assertTrue(step.isPrepared());
     }
 
+    @Test
+    public void testParallelEvaluationResolvesConflicts() throws InvalidRequirementException, IOException {
+        Offer offerA = OFFERS.get(0);
+        Offer offerB = offerA.toBuilder().setId(OfferID.newBuilder().setValue("offerid-b")).build();
+        List<Offer> offers = Arrays.asList(offerA, offerB);
+
+        PodInstance otherPodInstance = new DefaultPodInstance(podInstanceRequirement.getPodInstance().getPod(), 1);
+        PodInstanceRequirement otherRequirement = PodInstanceRequirement.newBuilder(
+                otherPodInstance,
+                TaskUtils.getTaskNames(otherPodInstance)).build();
+
+        // Both steps prefer offer A when evaluated against all offers. The second step is only given offer B after
+        // the first step has claimed offer A.
+        OfferRecommendation recommendationA = mockRecommendation(offerA);
+        OfferRecommendation otherRecommendationA = mockRecommendation(offerA);
+        OfferRecommendation otherRecommendationB = mockRecommendation(offerB);
+        OfferEvaluator.Evaluation evaluation = mockEvaluation(recommendationA);
+        OfferEvaluator.Evaluation discardedEvaluation = mockEvaluation(otherRecommendationA);
+        when(mockOfferEvaluator.evaluateWithoutRecording(
+                eq(podInstanceRequirement), eq(offers), any(OfferResourceIndex.Cache.class)))
+                .thenReturn(evaluation);
+        when(mockOfferEvaluator.evaluateWithoutRecording(
+                eq(otherRequirement), eq(offers), any(OfferResourceIndex.Cache.class)))
+                .thenReturn(discardedEvaluation);
+        when(mockOfferEvaluator.evaluate(
+                eq(otherRequirement), eq(Arrays.asList(offerB)), any(OfferResourceIndex.Cache.class)))
+                .thenReturn(Arrays.asList(otherRecommendationB));
+
+        TestOfferStep step = new TestOfferStep(podInstanceRequirement);
+        TestOfferStep otherStep = new TestOfferStep(otherRequirement);
+        PlanScheduler parallelScheduler = new PlanScheduler(mockOfferEvaluator, mockStateStore, 4);
+
+        assertEquals(
+                Arrays.asList(recommendationA, otherRecommendationB),
+                parallelScheduler.resourceOffers(offers, Arrays.asList(step, otherStep)));
+        assertEquals(Arrays.asList(recommendationA), step.recommendations);
+        assertEquals(Arrays.asList(otherRecommendationB), otherStep.recommendations);
+        assertTrue(step.isStarting());
+        assertTrue(otherStep.isStarting());
+        // Only the evaluations which were kept are recorded:
+        verify(evaluation).record();
+        verify(discardedEvaluation, never()).record();
+    }
+
+    @Test
+    public void testParallelEvaluationWithoutConflicts() throws InvalidRequirementException, IOException {
+        Offer offerA = OFFERS.get(0);
+        Offer offerB = offerA.toBuilder().setId(OfferID.newBuilder().setValue("offerid-b")).build();
+        List<Offer> offers = Arrays.asList(offerA, offerB);
+
+        PodInstance otherPodInstance = new DefaultPodInstance(podInstanceRequirement.getPodInstance().getPod(), 1);
+        PodInstanceRequirement otherRequirement = PodInstanceRequirement.newBuilder(
+                otherPodInstance,
+                TaskUtils.getTaskNames(otherPodInstance)).build();
+
+        OfferRecommendation recommendationA = mockRecommendation(offerA);
+        OfferRecommendation otherRecommendationB = mockRecommendation(offerB);
+        OfferEvaluator.Evaluation evaluation = mockEvaluation(recommendationA);
+        OfferEvaluator.Evaluation otherEvaluation = mockEvaluation(otherRecommendationB);
+        when(mockOfferEvaluator.evaluateWithoutRecording(
+                eq(podInstanceRequirement), eq(offers), any(OfferResourceIndex.Cache.class)))
+                .thenReturn(evaluation);
+        when(mockOfferEvaluator.evaluateWithoutRecording(
+                eq(otherRequirement), eq(offers), any(OfferResourceIndex.Cache.class)))
+                .thenReturn(otherEvaluation);
+
+        TestOfferStep step = new TestOfferStep(podInstanceRequirement);
+        TestOfferStep otherStep = new TestOfferStep(otherRequirement);
+        PlanScheduler parallelScheduler = new PlanScheduler(mockOfferEvaluator, mockStateStore, 4);
+
+        assertEquals(
+                Arrays.asList(recommendationA, otherRecommendationB),
+                parallelScheduler.resourceOffers(offers, Arrays.asList(step, otherStep)));
+        // Each step was only evaluated once, and both steps shared the same offer index:
+        ArgumentCaptor<OfferResourceIndex.Cache> cacheCaptor = ArgumentCaptor.forClass(OfferResourceIndex.Cache.class);
+        verify(mockOfferEvaluator)
+                .evaluateWithoutRecording(eq(podInstanceRequirement), eq(offers), cacheCaptor.capture());
+        verify(mockOfferEvaluator).evaluateWithoutRecording(eq(otherRequirement), eq(offers), cacheCaptor.capture());
+        assertSame(cacheCaptor.getAllValues().get(0), cacheCaptor.getAllValues().get(1));
+        verifyNoMoreInteractions(mockOfferEvaluator);
+        verify(evaluation).record();
+        verify(otherEvaluation).record();
+    }
+
+    @Test
+    public void testParallelEvaluationWithSideEffectsNotSpeculative() throws InvalidRequirementException, IOException {
+        Offer offerA = OFFERS.get(0);
+        Offer offerB = offerA.toBuilder().setId(OfferID.newBuilder().setValue("offerid-b")).build();
+        List<Offer> offers = Arrays.asList(offerA, offerB);
+
+        // Evaluating a pod with TLS provisions its certs, which mustn't happen for an evaluation that's discarded:
+        PodSpec podSpec = podInstanceRequirement.getPodInstance().getPod();
+        TaskSpec tlsTaskSpec = DefaultTaskSpec.newBuilder(podSpec.getTasks().get(0))
+                .setTransportEncryption(Arrays.asList(new DefaultTransportEncryptionSpec.Builder()
+                        .name("server")
+                        .type(TransportEncryptionSpec.Type.TLS)
+                        .build()))
+                .build();
+        PodInstance tlsPodInstance = new DefaultPodInstance(
+                DefaultPodSpec.newBuilder(podSpec).tasks(Arrays.asList(tlsTaskSpec)).build(), 1);
+        PodInstanceRequirement tlsRequirement = PodInstanceRequirement.newBuilder(
+                tlsPodInstance,
+                TaskUtils.getTaskNames(tlsPodInstance)).build();
+
+        OfferRecommendation recommendationA = mockRecommendation(offerA);
+        OfferRecommendation tlsRecommendationB = mockRecommendation(offerB);
+        OfferEvaluator.Evaluation evaluation = mockEvaluation(recommendationA);
+        when(mockOfferEvaluator.evaluateWithoutRecording(
+                eq(podInstanceRequirement), eq(offers), any(OfferResourceIndex.Cache.class)))
+                .thenReturn(evaluation);
+        when(mockOfferEvaluator.evaluate(
+                eq(tlsRequirement), eq(Arrays.asList(offerB)), any(OfferResourceIndex.Cache.class)))
+                .thenReturn(Arrays.asList(tlsRecommendationB));
+
+        TestOfferStep step = new TestOfferStep(podInstanceRequirement);
+        TestOfferStep tlsStep = new TestOfferStep(tlsRequirement);
+        PlanScheduler parallelScheduler = new PlanScheduler(mockOfferEvaluator, mockStateStore, 4);
+
+        assertEquals(
+                Arrays.asList(recommendationA, tlsRecommendationB),
+                parallelScheduler.resourceOffers(offers, Arrays.asList(step, tlsStep)));
+        // The TLS pod was only evaluated once, against the offers left by the earlier step:
+        verify(mockOfferEvaluator, never()).evaluateWithoutRecording(
+                eq(tlsRequirement), any(), any(OfferResourceIndex.Cache.class));
+        verify(mockOfferEvaluator).evaluate(
+                eq(tlsRequirement), eq(Arrays.asList(offerB)), any(OfferResourceIndex.Cache.class));
+        verify(evaluation).record();
+    }
+
+    private static OfferEvaluator.Evaluation mockEvaluation(OfferRecommendation recommendation) {
+        OfferEvaluator.Evaluation evaluation = mock(OfferEvaluator.Evaluation.class);
+        when(evaluation.getRecommendations()).thenReturn(Arrays.asList(recommendation));
+        return evaluation;
+    }
+
+    private static OfferRecommendation mockRecommendation(Offer offer) {
+        OfferRecommendation recommendation = mock(OfferRecommendation.class);
+        when(recommendation.getOffer()).thenReturn(offer);
+        return recommendation;
+    }
+
     private static class TestOfferStep extends TestStep {
         private final PodInstanceRequirement podInstanceRequirement;
         private Collection<OfferRecommendation> recommendations;
@@ -0,0 +1,160 @@
+package com.mesosphere.sdk.scheduler.plan;
+
+import com.mesosphere.sdk.offer.OfferRecommendation;
+import com.mesosphere.sdk.scheduler.plan.strategy.SerialStrategy;
+import org.apache.mesos.Protos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link TaskStepIndex}.
+ */
+public class TaskStepIndexTest {
+
+    private static final Protos.TaskID TASK_ID_0 = Protos.TaskID.newBuilder().setValue("task-0").build();
+    private static final Protos.TaskID TASK_ID_1 = Protos.TaskID.newBuilder().setValue("task-1").build();
+
+    @Test
+    public void testStepsOnlyGivenRelevantStatuses() {
+        IndexedStep step0 = new IndexedStep(TASK_ID_0);
+        IndexedStep step1 = new IndexedStep(TASK_ID_1);
+        Step unindexedStep = mock(Step.class);
+        TaskStepIndex index = new TaskStepIndex(Arrays.asList(step0, step1, unindexedStep));
+
+        assertSteps(index.getSteps(TASK_ID_0), step0, unindexedStep);
+        assertSteps(index.getSteps(TASK_ID_1), step1, unindexedStep);
+        assertSteps(index.getSteps(Protos.TaskID.newBuilder().setValue("other").build()), unindexedStep);
+    }
+
+    @Test
+    public void testIndexUpdatedOnStatusChange() {
+        IndexedStep step = new IndexedStep(TASK_ID_0);
+        TaskStepIndex index = new TaskStepIndex(Collections.singletonList(step));
+        assertSteps(index.getSteps(TASK_ID_0), step);
+        assertSteps(index.getSteps(TASK_ID_1));
+
+        // Relaunched with a new task:
+        step.setTaskIds(TASK_ID_1);
+        assertSteps(index.getSteps(TASK_ID_0));
+        assertSteps(index.getSteps(TASK_ID_1), step);
+
+        // Complete steps aren't interested in any tasks:
+        step.forceComplete();
+        assertSteps(index.getSteps(TASK_ID_1));
+
+        // Restarted steps are interested in their tasks again:
+        step.restart();
+        assertSteps(index.getSteps(TASK_ID_1), step);
+    }
+
+    @Test
+    public void testStepWithoutRelevantTasksGivenAllStatuses() {
+        IndexedStep step = new IndexedStep(TASK_ID_0);
+        TaskStepIndex index = new TaskStepIndex(Collections.singletonList(step));
+
+        step.setAllTasks();
+        assertSteps(index.getSteps(TASK_ID_0), step);
+        assertSteps(index.getSteps(TASK_ID_1), step);
+    }
+
+    @Test
+    public void testRefreshWaitsForStepChange() throws InterruptedException {
+        IndexedStep step = new IndexedStep(TASK_ID_0);
+        TaskStepIndex index = new TaskStepIndex(Collections.singletonList(step));
+
+        Thread refreshThread = new Thread(step::proceed);
+        synchronized (step) {
+            // A refresh from another thread may not read the step's tasks while it's being changed:
+            refreshThread.start();
+            while (refreshThread.getState() != Thread.State.BLOCKED) {
+                Assert.assertTrue(refreshThread.isAlive());
+                Thread.sleep(10);
+            }
+            step.setTaskIds(TASK_ID_1);
+        }
+        refreshThread.join();
+
+        assertSteps(index.getSteps(TASK_ID_0));
+        assertSteps(index.getSteps(TASK_ID_1), step);
+    }
+
+    @Test
+    public void testPlanUpdateRoutedByTask() {
+        IndexedStep step0 = new IndexedStep(TASK_ID_0);
+        IndexedStep step1 = new IndexedStep(TASK_ID_1);
+        Phase customPhase = mock(Phase.class);
+        Plan plan = new DefaultPlan("plan", Arrays.asList(
+                new DefaultPhase("phase", Arrays.asList(step0, step1), new SerialStrategy<>(), Collections.emptyList()),
+                customPhase));
+
+        Protos.TaskStatus status = Protos.TaskStatus.newBuilder()
+                .setTaskId(TASK_ID_1)
+                .setState(Protos.TaskState.TASK_RUNNING)
+                .build();
+        plan.update(status);
+
+        Assert.assertTrue(step0.statuses.isEmpty());
+        Assert.assertEquals(Collections.singletonList(status), step1.statuses);
+        verify(customPhase).update(status);
+    }
+
+    private static void assertSteps(Collection<Step> actual, Step... expected) {
+        Assert.assertEquals(expected.length, actual.size());
+        for (Step step : expected) {
+            Assert.assertTrue(actual.stream().anyMatch(s -> s == step));
+        }
+    }
+
+    private static class IndexedStep extends AbstractStep {
+        private Optional<Collection<Protos.TaskID>> taskIds;
+        private final List<Protos.TaskStatus> statuses = new ArrayList<>();
+
+        private IndexedStep(Protos.TaskID taskId) {
+            super(taskId.getValue(), Status.PENDING);
+            this.taskIds = Optional.of(Collections.singletonList(taskId));
+        }
+
+        private synchronized void setTaskIds(Protos.TaskID taskId) {
+            taskIds = Optional.of(Collections.singletonList(taskId));
+            setStatus(Status.STARTING);
+        }
+
+        private synchronized void setAllTasks() {
+            taskIds = Optional.empty();
+            setStatus(Status.STARTING);
+        }
+
+        @Override
+        public synchronized Optional<Collection<Protos.TaskID>> getRelevantTaskIds() {
+            return isComplete() ? Optional.of(Collections.emptyList()) : taskIds;
+        }
+
+        @Override
+        public Optional<PodInstanceRequirement> start() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<PodInstanceRequirement> getPodInstanceRequirement() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void updateOfferStatus(Collection<OfferRecommendation> recommendations) {
+        }
+
+        @Override
+        public void update(Protos.TaskStatus status) {
+            statuses.add(status);
+        }
+
+        @Override
+        public List<String> getErrors() {
+            return Collections.emptyList();
+        }
+    }
+}
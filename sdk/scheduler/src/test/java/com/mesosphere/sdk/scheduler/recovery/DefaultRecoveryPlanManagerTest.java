@@ -16,6 +16,7 @@ import com.mesosphere.sdk.state.FrameworkStore;
 import com.mesosphere.sdk.state.StateStore;
 import com.mesosphere.sdk.storage.MemPersister;
 import com.mesosphere.sdk.storage.Persister;
+import com.mesosphere.sdk.storage.PersisterCache;
 import com.mesosphere.sdk.testutils.*;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.mesos.Protos;
@@ -405,6 +406,94 @@ public class DefaultRecoveryPlanManagerTest extends DefaultCapabilitiesTestSuite
         assertTrue(recoveryManager.getPlan().getChildren().get(0).getChildren().get(0).isPending());
     }
 
+    @Test
+    public void testFailuresTrackedFromStatusUpdates() throws Exception {
+        final Protos.TaskStatus runningStatus = TaskTestUtils.generateStatus(
+                taskInfo.getTaskId(),
+                Protos.TaskState.TASK_RUNNING);
+        final Protos.TaskStatus failedStatus = TaskTestUtils.generateStatus(
+                taskInfo.getTaskId(),
+                Protos.TaskState.TASK_FAILED);
+
+        launchConstrainer.setCanLaunch(true);
+
+        // Initial scan finds nothing to recover:
+        stateStore.storeTasks(taskInfos);
+        stateStore.storeStatus(taskInfo.getName(), runningStatus);
+        assertTrue(recoveryManager.getCandidates(Collections.emptyList()).isEmpty());
+
+        // TASK_FAILED, passed to the manager:
+        stateStore.storeStatus(taskInfo.getName(), failedStatus);
+        recoveryManager.update(failedStatus);
+        assertEquals(1, recoveryManager.getCandidates(Collections.emptyList()).size());
+
+        // Relaunched with a new task, which is no longer a candidate:
+        TaskInfo relaunchedTaskInfo = taskInfo.toBuilder()
+                .setTaskId(CommonIdUtils.toTaskId(TestConstants.SERVICE_NAME, taskInfo.getName()))
+                .build();
+        stateStore.storeTasks(Collections.singletonList(relaunchedTaskInfo));
+        recoveryManager.getCandidates(Collections.emptyList());
+        assertTrue(recoveryManager.getPlan().getChildren().get(0).getChildren().get(0).isPending());
+        recoveryManager.getPlan().getChildren().get(0).getChildren().get(0).forceComplete();
+        assertTrue(recoveryManager.getCandidates(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testFailuresNotPassedToManagerFoundOnResync() throws Exception {
+        final Protos.TaskStatus runningStatus = TaskTestUtils.generateStatus(
+                taskInfo.getTaskId(),
+                Protos.TaskState.TASK_RUNNING);
+        final Protos.TaskStatus failedStatus = TaskTestUtils.generateStatus(
+                taskInfo.getTaskId(),
+                Protos.TaskState.TASK_FAILED);
+
+        launchConstrainer.setCanLaunch(true);
+
+        stateStore.storeTasks(taskInfos);
+        stateStore.storeStatus(taskInfo.getName(), runningStatus);
+        assertTrue(recoveryManager.getCandidates(Collections.emptyList()).isEmpty());
+
+        // Stored without being passed to the manager, so the task isn't rescanned:
+        stateStore.storeStatus(taskInfo.getName(), failedStatus);
+        assertTrue(recoveryManager.getCandidates(Collections.emptyList()).isEmpty());
+
+        recoveryManager.resync();
+        assertEquals(1, recoveryManager.getCandidates(Collections.emptyList()).size());
+    }
+
+    @Test
+    public void testFailuresWrittenExternallyFoundAfterRefresh() throws Exception {
+        final Protos.TaskStatus runningStatus = TaskTestUtils.generateStatus(
+                taskInfo.getTaskId(),
+                Protos.TaskState.TASK_RUNNING);
+        final Protos.TaskStatus failedStatus = TaskTestUtils.generateStatus(
+                taskInfo.getTaskId(),
+                Protos.TaskState.TASK_FAILED);
+
+        launchConstrainer.setCanLaunch(true);
+
+        Persister persister = new MemPersister();
+        PersisterCache persisterCache = new PersisterCache(persister);
+        StateStore cachedStateStore = new StateStore(persisterCache);
+        DefaultRecoveryPlanManager cachedRecoveryManager = new DefaultRecoveryPlanManager(
+                cachedStateStore,
+                configStore,
+                new HashSet<>(Arrays.asList(taskInfo.getName())),
+                launchConstrainer,
+                failureMonitor);
+
+        cachedStateStore.storeTasks(taskInfos);
+        cachedStateStore.storeStatus(taskInfo.getName(), runningStatus);
+        assertTrue(cachedRecoveryManager.getCandidates(Collections.emptyList()).isEmpty());
+
+        // Written behind the cache's back, so not visible until the cache is refreshed:
+        new StateStore(persister).storeStatus(taskInfo.getName(), failedStatus);
+        assertTrue(cachedRecoveryManager.getCandidates(Collections.emptyList()).isEmpty());
+
+        persisterCache.refresh();
+        assertEquals(1, cachedRecoveryManager.getCandidates(Collections.emptyList()).size());
+    }
+
     private static Collection<Protos.OfferID> distinctOffers(Collection<OfferRecommendation> recs) {
         return recs.stream().map(rec -> rec.getOffer().getId()).distinct().collect(Collectors.toList());
     }
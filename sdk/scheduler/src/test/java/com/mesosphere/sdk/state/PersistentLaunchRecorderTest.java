@@ -1,10 +1,13 @@
 package com.mesosphere.sdk.state;
 
+import com.mesosphere.sdk.offer.LaunchOfferRecommendation;
 import com.mesosphere.sdk.offer.TaskException;
 import com.mesosphere.sdk.offer.evaluate.OfferEvaluatorTestBase;
 import com.mesosphere.sdk.offer.taskdata.TaskLabelWriter;
 import com.mesosphere.sdk.specification.DefaultServiceSpec;
 import com.mesosphere.sdk.specification.ServiceSpec;
+import com.mesosphere.sdk.testutils.OfferTestUtils;
+import com.mesosphere.sdk.testutils.ResourceTestUtils;
 import com.mesosphere.sdk.testutils.TestConstants;
 import org.apache.mesos.Protos;
 import org.junit.Assert;
@@ -13,7 +16,11 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This class tests the {@link PersistentLaunchRecorder}.
@@ -55,6 +62,34 @@ public class PersistentLaunchRecorderTest extends OfferEvaluatorTestBase {
         Assert.assertFalse(persistentLaunchRecorder.getPodInstance(withLabel).isPresent());
     }
 
+    @Test
+    public void testListenersOnlyNotifiedOfCommittedLaunches() throws Exception {
+        Protos.TaskInfo taskInfo = baseTaskInfo.toBuilder()
+                .setLabels(new TaskLabelWriter(baseTaskInfo).setType(TestConstants.TASK_TYPE).toProto())
+                .build();
+        LaunchOfferRecommendation launch = new LaunchOfferRecommendation(
+                OfferTestUtils.getOffer(ResourceTestUtils.getUnreservedCpus(1.0)),
+                taskInfo,
+                Protos.ExecutorInfo.getDefaultInstance(),
+                true,
+                false);
+        List<Collection<Protos.TaskInfo>> notified = new ArrayList<>();
+        persistentLaunchRecorder.addListener(notified::add);
+
+        // Nothing is passed on until the launch has been committed:
+        persistentLaunchRecorder.record(Collections.singletonList(launch));
+        Assert.assertTrue(notified.isEmpty());
+        persistentLaunchRecorder.notifyCommitted();
+        Assert.assertEquals(Collections.singletonList(
+                Collections.singletonList(launch.getStoreableTaskInfo())), notified);
+
+        // Discarded launches are never passed on:
+        persistentLaunchRecorder.record(Collections.singletonList(launch));
+        persistentLaunchRecorder.discardUncommitted();
+        persistentLaunchRecorder.notifyCommitted();
+        Assert.assertEquals(1, notified.size());
+    }
+
     @Test
     public void testUpdateResourcesNoSharedTasksInStateStore() throws TaskException {
         Protos.Resource targetResource = Protos.Resource.newBuilder()
@@ -6,6 +6,7 @@ import org.apache.mesos.Protos;
 import com.mesosphere.sdk.offer.CommonIdUtils;
 import com.mesosphere.sdk.storage.MemPersister;
 import com.mesosphere.sdk.storage.Persister;
+import com.mesosphere.sdk.storage.PersisterCache;
 import com.mesosphere.sdk.storage.PersisterException;
 import com.mesosphere.sdk.storage.PersisterUtils;
 import com.mesosphere.sdk.storage.StorageError;
@@ -142,6 +143,122 @@ public class StateStoreTest {
         assertEquals(tasks, store.fetchTasks());
     }
 
+    @Test
+    public void testFetchTaskReusesDecodedObject() throws Exception {
+        Protos.TaskInfo testTask = StateStoreUtilsTest.createTask(TestConstants.TASK_NAME);
+        store.storeTasks(Arrays.asList(testTask));
+        assertSame(testTask, store.fetchTask(TestConstants.TASK_NAME).get());
+        assertSame(testTask, store.fetchTasks().iterator().next());
+
+        // A fresh store over the same data decodes once, then reuses the result:
+        StateStore store2 = new StateStore(persister);
+        Protos.TaskInfo fetchedTask = store2.fetchTask(TestConstants.TASK_NAME).get();
+        assertEquals(testTask, fetchedTask);
+        assertSame(fetchedTask, store2.fetchTask(TestConstants.TASK_NAME).get());
+    }
+
+    @Test
+    public void testFetchTaskDetectsExternalUpdate() throws Exception {
+        Protos.TaskInfo testTask = StateStoreUtilsTest.createTask(TestConstants.TASK_NAME);
+        store.storeTasks(Arrays.asList(testTask));
+        assertSame(testTask, store.fetchTask(TestConstants.TASK_NAME).get());
+
+        // Write directly to the persister, bypassing the store:
+        Protos.TaskInfo updatedTask = testTask.toBuilder().setTaskId(CommonIdUtils.toTaskId(TestConstants.SERVICE_NAME, TestConstants.TASK_NAME))
+                .build();
+        persister.set("Tasks/" + TestConstants.TASK_NAME + "/TaskInfo", updatedTask.toByteArray());
+        assertEquals(updatedTask, store.fetchTask(TestConstants.TASK_NAME).get());
+        assertEquals(updatedTask, store.fetchTasks().iterator().next());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFetchTasksIsUnmodifiable() throws Exception {
+        store.storeTasks(createTasks(TestConstants.TASK_NAME));
+        store.fetchTasks().clear();
+    }
+
+    @Test
+    public void testFetchTaskName() throws Exception {
+        Protos.TaskInfo testTask = StateStoreUtilsTest.createTask(TestConstants.TASK_NAME);
+        store.storeTasks(Arrays.asList(testTask));
+        assertEquals(TestConstants.TASK_NAME, store.fetchTaskName(testTask.getTaskId()).get());
+
+        // Relaunch with a new TaskID: old TaskID is no longer found
+        Protos.TaskInfo relaunchedTask = testTask.toBuilder()
+                .setTaskId(CommonIdUtils.toTaskId(TestConstants.SERVICE_NAME, TestConstants.TASK_NAME))
+                .build();
+        store.storeTasks(Arrays.asList(relaunchedTask));
+        assertFalse(store.fetchTaskName(testTask.getTaskId()).isPresent());
+        assertEquals(TestConstants.TASK_NAME, store.fetchTaskName(relaunchedTask.getTaskId()).get());
+
+        store.clearTask(TestConstants.TASK_NAME);
+        assertFalse(store.fetchTaskName(relaunchedTask.getTaskId()).isPresent());
+    }
+
+    @Test
+    public void testFetchTaskNameDetectsExternalUpdate() throws Exception {
+        Protos.TaskInfo testTask = StateStoreUtilsTest.createTask(TestConstants.TASK_NAME);
+        store.storeTasks(Arrays.asList(testTask));
+        assertEquals(TestConstants.TASK_NAME, store.fetchTaskName(testTask.getTaskId()).get());
+
+        // Relaunch via another store instance, bypassing this store's index:
+        Protos.TaskInfo relaunchedTask = testTask.toBuilder()
+                .setTaskId(CommonIdUtils.toTaskId(TestConstants.SERVICE_NAME, TestConstants.TASK_NAME))
+                .build();
+        new StateStore(persister).storeTasks(Arrays.asList(relaunchedTask));
+        assertFalse(store.fetchTaskName(testTask.getTaskId()).isPresent());
+        assertEquals(TestConstants.TASK_NAME, store.fetchTaskName(relaunchedTask.getTaskId()).get());
+    }
+
+    @Test
+    public void testFetchTaskNameMissDoesNotScanStorage() throws Exception {
+        int[] getChildrenCount = new int[1];
+        persister = new MemPersister() {
+            @Override
+            public Collection<String> getChildren(String path) throws PersisterException {
+                ++getChildrenCount[0];
+                return super.getChildren(path);
+            }
+        };
+        store = new StateStore(persister);
+        Protos.TaskInfo testTask = StateStoreUtilsTest.createTask(TestConstants.TASK_NAME);
+        store.storeTasks(Arrays.asList(testTask));
+
+        int countBefore = getChildrenCount[0];
+        assertFalse(store.fetchTaskName(TestConstants.TASK_ID).isPresent());
+        assertEquals(TestConstants.TASK_NAME, store.fetchTaskName(testTask.getTaskId()).get());
+        assertEquals(countBefore, getChildrenCount[0]);
+    }
+
+    @Test
+    public void testFetchTaskNameIndexRebuiltOnPersisterRefresh() throws Exception {
+        PersisterCache cache = new PersisterCache(persister);
+        store = new StateStore(cache);
+        Protos.TaskInfo testTask = StateStoreUtilsTest.createTask(TestConstants.TASK_NAME);
+        store.storeTasks(Arrays.asList(testTask));
+
+        // Relaunch by writing directly to the underlying persister, bypassing the cache:
+        Protos.TaskInfo relaunchedTask = testTask.toBuilder()
+                .setTaskId(CommonIdUtils.toTaskId(TestConstants.SERVICE_NAME, TestConstants.TASK_NAME))
+                .build();
+        new StateStore(persister).storeTasks(Arrays.asList(relaunchedTask));
+        assertFalse(store.fetchTaskName(relaunchedTask.getTaskId()).isPresent());
+
+        cache.refresh();
+        assertEquals(TestConstants.TASK_NAME, store.fetchTaskName(relaunchedTask.getTaskId()).get());
+        assertFalse(store.fetchTaskName(testTask.getTaskId()).isPresent());
+    }
+
+    @Test
+    public void testFetchTaskNameIndexRebuiltOnStartup() throws Exception {
+        Protos.TaskInfo testTask = StateStoreUtilsTest.createTask(TestConstants.TASK_NAME);
+        store.storeTasks(Arrays.asList(testTask));
+        store.storeStatus(TestConstants.TASK_NAME, TASK_STATUS.toBuilder().setTaskId(testTask.getTaskId()).build());
+
+        StateStore store2 = new StateStore(persister);
+        assertEquals(TestConstants.TASK_NAME, store2.fetchTaskName(testTask.getTaskId()).get());
+    }
+
     @Test
     public void testStoreClearTask() throws Exception {
         store.storeTasks(createTasks(TestConstants.TASK_NAME));
@@ -151,8 +268,10 @@ public class StateStoreTest {
     @Test
     public void testStoreClearFetchTask() throws Exception {
         store.storeTasks(createTasks(TestConstants.TASK_NAME));
+        store.storeStatus(TestConstants.TASK_NAME, TASK_STATUS);
         store.clearTask(TestConstants.TASK_NAME);
         assertFalse(store.fetchTask(TestConstants.TASK_NAME).isPresent());
+        assertFalse(store.fetchStatus(TestConstants.TASK_NAME).isPresent());
     }
 
     @Test
@@ -239,6 +358,7 @@ public class StateStoreTest {
         Collection<Protos.TaskStatus> statuses = store.fetchStatuses();
         assertEquals(1, statuses.size());
         assertEquals(status, statuses.iterator().next());
+        assertSame(status, statuses.iterator().next());
     }
 
     @Test
@@ -565,6 +685,42 @@ public class StateStoreTest {
         assertTrue(store2.fetchStatus(TestConstants.TASK_NAME).isPresent());
     }
 
+    @Test
+    public void testRunBatch() throws Exception {
+        store = new StateStore(new PersisterCache(persister));
+        Collection<Protos.TaskInfo> tasks = createTasks(TestConstants.TASK_NAME);
+        store.runBatch(() -> {
+            store.storeTasks(tasks);
+            store.storeStatus(TestConstants.TASK_NAME, TASK_STATUS);
+            // Reads within the batch see its writes before they've been stored:
+            assertEquals(TASK_STATUS, store.fetchStatus(TestConstants.TASK_NAME).get());
+            assertEquals(tasks.iterator().next(), store.fetchTask(TestConstants.TASK_NAME).get());
+            checkPathNotFound("Tasks/" + TestConstants.TASK_NAME + "/TaskInfo");
+        });
+        assertEquals(tasks.iterator().next(),
+                Protos.TaskInfo.parseFrom(persister.get("Tasks/" + TestConstants.TASK_NAME + "/TaskInfo")));
+        assertEquals(TASK_STATUS,
+                Protos.TaskStatus.parseFrom(persister.get("Tasks/" + TestConstants.TASK_NAME + "/TaskStatus")));
+    }
+
+    @Test
+    public void testRunBatchFailureKeepsPriorWrites() throws Exception {
+        store = new StateStore(new PersisterCache(persister));
+        Collection<Protos.TaskInfo> tasks = createTasks(TestConstants.TASK_NAME);
+        try {
+            store.runBatch(() -> {
+                store.storeTasks(tasks);
+                throw new IllegalStateException("hi");
+            });
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertEquals("hi", e.getMessage());
+        }
+        // Writes made before the failure were stored, as they would have been outside of a batch:
+        assertEquals(tasks.iterator().next(),
+                Protos.TaskInfo.parseFrom(persister.get("Tasks/" + TestConstants.TASK_NAME + "/TaskInfo")));
+    }
+
     private static Collection<Protos.TaskInfo> createTasks(String... taskNames) {
         List<Protos.TaskInfo> taskInfos = new ArrayList<>();
         for (String taskName : taskNames) {
@@ -0,0 +1,84 @@
+package com.mesosphere.sdk.storage;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PersistentTreeMap}
+ */
+public class PersistentTreeMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        PersistentTreeMap<Integer> empty = PersistentTreeMap.empty();
+        PersistentTreeMap<Integer> map = empty.put("b", 2).put("a", 1).put("c", 3);
+
+        assertTrue(empty.isEmpty());
+        assertNull(empty.get("a"));
+        assertEquals(3, map.size());
+        assertEquals(Integer.valueOf(1), map.get("a"));
+        assertEquals(Integer.valueOf(2), map.get("b"));
+        assertEquals(Integer.valueOf(3), map.get("c"));
+        assertNull(map.get("d"));
+        assertEquals(Arrays.asList("a", "b", "c"), map.keys());
+    }
+
+    @Test
+    public void testPutLeavesOriginalUnchanged() {
+        PersistentTreeMap<Integer> original = PersistentTreeMap.<Integer>empty().put("a", 1).put("b", 2);
+        PersistentTreeMap<Integer> updated = original.put("a", 10).put("c", 3);
+
+        assertEquals(2, original.size());
+        assertEquals(Integer.valueOf(1), original.get("a"));
+        assertNull(original.get("c"));
+        assertEquals(3, updated.size());
+        assertEquals(Integer.valueOf(10), updated.get("a"));
+        assertEquals(Integer.valueOf(3), updated.get("c"));
+    }
+
+    @Test
+    public void testUnchangedPutAndMissingRemoveReturnSameMap() {
+        Integer value = 1;
+        PersistentTreeMap<Integer> map = PersistentTreeMap.<Integer>empty().put("a", value);
+
+        assertSame(map, map.put("a", value));
+        assertSame(map, map.remove("b"));
+    }
+
+    @Test
+    public void testRemoveLeavesOriginalUnchanged() {
+        PersistentTreeMap<Integer> original = PersistentTreeMap.<Integer>empty().put("a", 1).put("b", 2).put("c", 3);
+        PersistentTreeMap<Integer> updated = original.remove("b");
+
+        assertEquals(Arrays.asList("a", "b", "c"), original.keys());
+        assertEquals(Arrays.asList("a", "c"), updated.keys());
+        assertEquals(2, updated.size());
+        assertTrue(updated.remove("a").remove("c").isEmpty());
+    }
+
+    @Test
+    public void testManyKeysMatchTreeMap() {
+        Random random = new Random(0);
+        TreeMap<String, Integer> expected = new TreeMap<>();
+        PersistentTreeMap<Integer> map = PersistentTreeMap.empty();
+        for (int i = 0; i < 5000; ++i) {
+            String key = String.format("task-%d", random.nextInt(1000));
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        assertEquals(new ArrayList<>(expected.keySet()), map.keys());
+        Map<String, Integer> visited = new LinkedHashMap<>();
+        map.forEach(visited::put);
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(visited.entrySet()));
+    }
+}
@@ -2,16 +2,20 @@ package com.mesosphere.sdk.storage;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 
 import com.mesosphere.sdk.offer.LoggingUtils;
+import com.mesosphere.sdk.scheduler.Metrics;
 import com.mesosphere.sdk.storage.StorageError.Reason;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.doThrow;
@@ -51,6 +55,17 @@ public class PersisterCacheTest {
         assertTrue(PersisterUtils.getAllKeys(cache).isEmpty());
     }
 
+    @Test
+    public void testLoadIsTimed() throws PersisterException {
+        persister.set(KEY, VAL);
+        long loadCount = Metrics.getRegistry().timer("persister.load").getCount();
+        cache = new PersisterCache(persister);
+        assertArrayEquals(VAL, cache.get(KEY));
+        assertEquals(loadCount + 1, Metrics.getRegistry().timer("persister.load").getCount());
+        cache.refresh();
+        assertEquals(loadCount + 2, Metrics.getRegistry().timer("persister.load").getCount());
+    }
+
     @Test
     public void testInitBasic() throws PersisterException {
         persister.set(KEY, VAL);
@@ -307,6 +322,175 @@ public class PersisterCacheTest {
         runThreads(threads);
     }
 
+    @Test
+    public void testReadsDontWaitForWrites() throws Exception {
+        persister.set(KEY, VAL);
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch finishWrite = new CountDownLatch(1);
+        Persister slowPersister = new MemPersister() {
+            @Override
+            public void set(String path, byte[] bytes) throws PersisterException {
+                writeStarted.countDown();
+                try {
+                    finishWrite.await();
+                } catch (InterruptedException e) {
+                    throw new PersisterException(Reason.STORAGE_ERROR, e);
+                }
+                super.set(path, bytes);
+            }
+        };
+        slowPersister.setMany(PersisterUtils.getAllData(persister));
+        cache = new PersisterCache(slowPersister);
+        assertArrayEquals(VAL, cache.get(KEY));
+
+        Thread writer = new Thread(() -> {
+            try {
+                cache.set(KEY, VAL2);
+            } catch (PersisterException e) {
+                LOGGER.error("Write failed", e);
+            }
+        });
+        writer.start();
+        assertTrue(writeStarted.await(10, TimeUnit.SECONDS));
+
+        // While the write is stuck in the underlying persister, readers continue to see the prior data:
+        assertArrayEquals(VAL, cache.get(KEY));
+        assertArrayEquals(VAL, cache.getMany(Arrays.asList(KEY)).get(KEY));
+        assertEquals(KEY_SET, PersisterUtils.getAllKeys(cache));
+
+        finishWrite.countDown();
+        writer.join();
+        assertArrayEquals(VAL2, cache.get(KEY));
+    }
+
+    @Test
+    public void testBatchWritesDeferredUntilCommit() throws Exception {
+        persister.set(KEY, VAL);
+        Persister spyPersister = Mockito.spy(persister);
+        cache = new PersisterCache(spyPersister);
+
+        cache.beginBatch();
+        cache.set(KEY2, VAL);
+        cache.setMany(Collections.singletonMap(KEY2, VAL2));
+        cache.set("a/b", VAL);
+        cache.recursiveDelete(KEY);
+        cache.set(KEY, VAL2);
+
+        // The batch's own reads reflect its writes, but the underlying persister and other threads don't see them yet:
+        assertArrayEquals(VAL2, cache.get(KEY));
+        assertArrayEquals(VAL2, cache.getMany(Arrays.asList(KEY2)).get(KEY2));
+        assertEquals(new TreeSet<>(Arrays.asList("/" + KEY, "/" + KEY2, "/a", "/a/b")), PersisterUtils.getAllKeys(cache));
+        assertArrayEquals(VAL, spyPersister.get(KEY));
+        List<byte[]> otherThreadRead = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            try {
+                otherThreadRead.add(cache.get(KEY));
+            } catch (PersisterException e) {
+                LOGGER.error("Read failed", e);
+            }
+        });
+        reader.start();
+        reader.join();
+        assertArrayEquals(VAL, otherThreadRead.get(0));
+
+        // Nested batches are folded into the outer batch:
+        cache.beginBatch();
+        cache.recursiveDeleteMany(Arrays.asList("a"));
+        cache.commitBatch();
+        assertArrayEquals(VAL, spyPersister.get(KEY));
+
+        cache.commitBatch();
+        assertArrayEquals(VAL2, spyPersister.get(KEY));
+        assertArrayEquals(VAL2, spyPersister.get(KEY2));
+        assertEquals(BOTH_KEYS_SET, PersisterUtils.getAllKeys(spyPersister));
+        assertEquals(BOTH_KEYS_SET, PersisterUtils.getAllKeys(cache));
+
+        // Consecutive writes of the same kind were combined, with the original ordering preserved:
+        Map<String, byte[]> firstSet = new HashMap<>();
+        firstSet.put(KEY2, VAL2);
+        firstSet.put("a/b", VAL);
+        InOrder inOrder = Mockito.inOrder(spyPersister);
+        inOrder.verify(spyPersister).setMany(firstSet);
+        inOrder.verify(spyPersister).recursiveDeleteMany(Arrays.asList(KEY));
+        inOrder.verify(spyPersister).setMany(Collections.singletonMap(KEY, VAL2));
+        inOrder.verify(spyPersister).recursiveDeleteMany(Arrays.asList("a"));
+        Mockito.verify(spyPersister, Mockito.never()).set(Mockito.anyString(), Mockito.any(byte[].class));
+    }
+
+    @Test
+    public void testBatchDoesNotBlockOtherThreads() throws Exception {
+        cache.beginBatch();
+        cache.set(KEY, VAL);
+
+        // Another thread's batch is committed while this batch is still open, without waiting for this batch:
+        List<Throwable> errors = new ArrayList<>();
+        Thread writer = new Thread(() -> {
+            try {
+                cache.beginBatch();
+                cache.set(KEY2, VAL2);
+                assertEquals(KEY2_SET, PersisterUtils.getAllKeys(cache));
+                cache.commitBatch();
+            } catch (Throwable e) {
+                errors.add(e);
+            }
+        });
+        writer.start();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(writer.isAlive());
+        assertEquals(Collections.emptyList(), errors);
+        assertEquals(KEY2_SET, PersisterUtils.getAllKeys(persister));
+
+        // This batch sees the other thread's committed write along with its own buffered write:
+        assertEquals(BOTH_KEYS_SET, PersisterUtils.getAllKeys(cache));
+
+        // Committing this batch applies its writes on top of the other thread's writes:
+        cache.commitBatch();
+        assertEquals(BOTH_KEYS_SET, PersisterUtils.getAllKeys(persister));
+        assertArrayEquals(VAL, cache.get(KEY));
+        assertArrayEquals(VAL2, cache.get(KEY2));
+    }
+
+    @Test
+    public void testBatchDeleteMissingThrows() throws Exception {
+        cache.beginBatch();
+        try {
+            cache.recursiveDelete(KEY);
+            fail("Expected exception");
+        } catch (PersisterException e) {
+            assertEquals(Reason.NOT_FOUND, e.getReason());
+        } finally {
+            cache.commitBatch();
+        }
+    }
+
+    @Test
+    public void testBatchCommitFailsCacheReloaded() throws Exception {
+        persister.set(KEY, VAL);
+        Persister failingPersister = new MemPersister() {
+            @Override
+            public void setMany(Map<String, byte[]> pathBytesMap) throws PersisterException {
+                throw new PersisterException(Reason.STORAGE_ERROR, "hi");
+            }
+        };
+        failingPersister.set(KEY, VAL);
+        cache = new PersisterCache(failingPersister);
+
+        cache.beginBatch();
+        cache.set(KEY, VAL2);
+        try {
+            cache.commitBatch();
+            fail("Expected exception");
+        } catch (PersisterException e) {
+            assertEquals(Reason.STORAGE_ERROR, e.getReason());
+        }
+        assertArrayEquals(VAL, cache.get(KEY));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitWithoutBatch() throws Exception {
+        cache.commitBatch();
+    }
+
     private static void runThreads(Collection<Runnable> runnables) throws InterruptedException {
         final Object lock = new Object();
         final List<Throwable> errors = new ArrayList<>();
@@ -0,0 +1,79 @@
+package com.mesosphere.sdk.storage;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PersisterSnapshot}
+ */
+public class PersisterSnapshotTest {
+
+    private static final byte[] VAL = "someval".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VAL2 = "someval2".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testOf() {
+        Map<String, byte[]> data = new TreeMap<>();
+        data.put("/Tasks/node-0/TaskInfo", VAL);
+        data.put("/Tasks/node-1/TaskInfo", VAL2);
+        data.put("/FrameworkID", VAL);
+        PersisterSnapshot snapshot = PersisterSnapshot.of(data);
+
+        assertEquals(new TreeSet<>(Arrays.asList("FrameworkID", "Tasks")), snapshot.getChildNames());
+        assertEquals(new TreeSet<>(Arrays.asList("node-0", "node-1")), snapshot.getNode("Tasks").getChildNames());
+        assertNull(snapshot.getNode("Tasks").getData());
+        assertArrayEquals(VAL2, snapshot.getNode("/Tasks/node-1/TaskInfo").getData());
+        assertArrayEquals(VAL, snapshot.getNode("FrameworkID").getData());
+        assertNull(snapshot.getNode("Tasks/node-2"));
+    }
+
+    @Test
+    public void testSetLeavesOriginalUnchanged() {
+        PersisterSnapshot original = PersisterSnapshot.empty().set("a/b", VAL).set("c/d", VAL);
+        PersisterSnapshot updated = original.set("a/b", VAL2).set("a/e", VAL);
+
+        assertArrayEquals(VAL, original.getNode("a/b").getData());
+        assertNull(original.getNode("a/e"));
+        assertArrayEquals(VAL2, updated.getNode("a/b").getData());
+        assertArrayEquals(VAL, updated.getNode("a/e").getData());
+
+        // Untouched subtrees are shared rather than copied:
+        assertSame(original.getNode("c"), updated.getNode("c"));
+    }
+
+    @Test
+    public void testDeleteLeavesOriginalUnchanged() {
+        PersisterSnapshot original = PersisterSnapshot.empty().set("a/b", VAL).set("a/c", VAL).set("d", VAL2);
+        PersisterSnapshot updated = original.delete("a/b").get();
+
+        assertArrayEquals(VAL, original.getNode("a/b").getData());
+        assertNull(updated.getNode("a/b"));
+        assertArrayEquals(VAL, updated.getNode("a/c").getData());
+        assertSame(original.getNode("d"), updated.getNode("d"));
+
+        updated = updated.delete("a").get();
+        assertEquals(Collections.singleton("d"), updated.getChildNames());
+        assertEquals(new TreeSet<>(Arrays.asList("a", "d")), original.getChildNames());
+    }
+
+    @Test
+    public void testDeleteMissing() {
+        PersisterSnapshot snapshot = PersisterSnapshot.empty().set("a/b", VAL);
+        assertFalse(snapshot.delete("a/c").isPresent());
+        assertFalse(snapshot.delete("b").isPresent());
+        assertFalse(snapshot.delete("a/b/c").isPresent());
+    }
+
+    @Test
+    public void testDeleteRoot() {
+        PersisterSnapshot snapshot = PersisterSnapshot.empty().set("a/b", VAL).set("", VAL2);
+        assertArrayEquals(VAL2, snapshot.getData());
+        PersisterSnapshot deleted = snapshot.delete("/").get();
+        assertTrue(deleted.getChildNames().isEmpty());
+        assertNull(deleted.getData());
+    }
+}